@@ -59,6 +59,12 @@ configurations {
     create("e2eTestRuntimeOnly") {
         extendsFrom(testRuntimeOnly)
     }
+    create("jmhImplementation") {
+        extendsFrom(testImplementation)
+    }
+    create("jmhRuntimeOnly") {
+        extendsFrom(testRuntimeOnly)
+    }
 }
 
 sourceSets {
@@ -70,6 +76,9 @@ sourceSets {
     create("integrationTest") {
         compileClasspath += main.output
         runtimeClasspath += main.output
+        // the scale tests share the synthetic project generator of the unit tests
+        compileClasspath += getByName("test").output
+        runtimeClasspath += getByName("test").output
         java.srcDir("src/integration-test/java")
         resources.srcDir("src/integration-test/resources")
     }
@@ -79,6 +88,12 @@ sourceSets {
         java.srcDir("src/e2e-test/java")
         resources.srcDir("src/e2e-test/resources")
     }
+    create("jmh") {
+        compileClasspath += main.output
+        runtimeClasspath += main.output
+        java.srcDir("src/jmh/java")
+        resources.srcDir("src/jmh/resources")
+    }
 }
 
 tasks {
@@ -119,6 +134,8 @@ tasks {
         // Kotlin-specific verification data module for tests
         testImplementation(project(":metric-verification-data-kotlin"))
         add("integrationTestImplementation", project(":metric-verification-data-kotlin"))
+        add("jmhImplementation", "org.openjdk.jmh:jmh-core:1.37")
+        add("jmhAnnotationProcessor", "org.openjdk.jmh:jmh-generator-annprocess:1.37")
     }
     register("integrationTest", org.gradle.api.tasks.testing.Test::class.java) {
         description = "Runs integration tests."
@@ -128,6 +145,16 @@ tasks {
         mustRunAfter(named("test"))
         // Исключаем тесты из пакета org.b333vv.metric.research
         exclude("org/b333vv/metric/research/**")
+        exclude("org/b333vv/metric/scale/**")
+    }
+    register("scaleTest", org.gradle.api.tasks.testing.Test::class.java) {
+        description = "Runs time and memory budget tests on synthetic projects of 10k and 50k classes."
+        group = "verification"
+        testClassesDirs = project.sourceSets["integrationTest"].output.classesDirs
+        classpath = project.sourceSets["integrationTest"].runtimeClasspath
+        include("org/b333vv/metric/scale/**")
+        maxHeapSize = "8g"
+        mustRunAfter(named("integrationTest"))
     }
     register("e2eTest", org.gradle.api.tasks.testing.Test::class.java) {
         description = "Runs end-to-end tests."
@@ -137,6 +164,25 @@ tasks {
         mustRunAfter(named("integrationTest"))
     }
 
+    // ./gradlew jmh -Pjmh.includes=SquarifiedLayout runs the matching benchmarks only
+    register("jmh", JavaExec::class.java) {
+        description = "Runs JMH benchmarks of the metric engines, results are written as JSON."
+        group = "verification"
+        dependsOn(named("jmhClasses"))
+        classpath = project.sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        workingDir = projectDir
+        // Forks inherit these arguments, so the benchmarks see the same IDE sandbox as the tests
+        jvmArgumentProviders.addAll(named<Test>("test").get().jvmArgumentProviders)
+        val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+        args("-rf", "json", "-rff", results.absolutePath)
+        project.findProperty("jmh.includes")?.let { args(it.toString()) }
+        doFirst {
+            results.parentFile.mkdirs()
+            systemProperties(named<Test>("test").get().systemProperties)
+        }
+    }
+
     check {
         dependsOn(named("integrationTest"))
         dependsOn(named("e2eTest"))
@@ -145,5 +191,6 @@ tasks {
     named("classpathIndexCleanup") {
         mustRunAfter(named("compileIntegrationTestJava"))
         mustRunAfter(named("compileE2eTestJava"))
+        mustRunAfter(named("compileJmhJava"))
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.Set;
+
+public class DependenciesBuilderMergeIntegrationTest extends BasePlatformTestCase {
+
+    private static final String FILE_A = "package com.example.a;\n" +
+            "public class A {\n" +
+            "    private com.example.b.B b = new com.example.b.B();\n" +
+            "    public String name() { return b.toString(); }\n" +
+            "}";
+
+    private static final String FILE_B = "package com.example.b;\n" +
+            "public class B {\n" +
+            "    private com.example.c.C c;\n" +
+            "}";
+
+    private static final String FILE_C = "package com.example.c;\n" +
+            "public class C {\n" +
+            "    private com.example.a.A a;\n" +
+            "    private com.example.b.B b;\n" +
+            "}";
+
+    private PsiClass a;
+    private PsiClass b;
+    private PsiClass c;
+    private PsiFile fileA;
+    private PsiFile fileB;
+    private PsiFile fileC;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fileA = myFixture.addFileToProject("com/example/a/A.java", FILE_A);
+        fileB = myFixture.addFileToProject("com/example/b/B.java", FILE_B);
+        fileC = myFixture.addFileToProject("com/example/c/C.java", FILE_C);
+        a = ((PsiJavaFile) fileA).getClasses()[0];
+        b = ((PsiJavaFile) fileB).getClasses()[0];
+        c = ((PsiJavaFile) fileC).getClasses()[0];
+    }
+
+    public void testMergedModulesEqualWholeProject() {
+        DependenciesBuilder whole = new DependenciesBuilder();
+        whole.build(fileA);
+        whole.build(fileB);
+        whole.build(fileC);
+
+        DependenciesBuilder first = new DependenciesBuilder();
+        first.build(fileA);
+        DependenciesBuilder second = new DependenciesBuilder();
+        second.build(fileB);
+        second.build(fileC);
+        DependenciesBuilder merged = new DependenciesBuilder();
+        merged.merge(first, psiClass -> true);
+        merged.merge(second, psiClass -> true);
+
+        for (PsiClass psiClass : new PsiClass[]{a, b, c}) {
+            assertEquals(whole.getClassesDependencies(psiClass), merged.getClassesDependencies(psiClass));
+            assertEquals(whole.getClassesDependents(psiClass), merged.getClassesDependents(psiClass));
+            assertEquals(whole.getPackagesDependencies(psiClass), merged.getPackagesDependencies(psiClass));
+            assertEquals(whole.getTotalCouplingCount(psiClass), merged.getTotalCouplingCount(psiClass));
+        }
+        assertEquals(whole.size(), merged.size());
+    }
+
+    public void testMergeLeavesOutDependenciesOfFilteredClasses() {
+        DependenciesBuilder module = new DependenciesBuilder();
+        module.build(fileA);
+        module.build(fileB);
+        module.build(fileC);
+
+        DependenciesBuilder merged = new DependenciesBuilder();
+        merged.merge(module, psiClass -> !psiClass.equals(c));
+
+        assertEmpty(merged.getClassesDependencies(c));
+        assertEquals(Set.of(a), merged.getClassesDependents(b));
+        assertEquals(Set.of(b), merged.getClassesDependents(c));
+        assertEmpty(merged.getClassesDependents(a));
+    }
+}
@@ -0,0 +1,44 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.PackageElement;
+import org.b333vv.metric.model.code.ProjectElement;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class LanguageFileBuilderIntegrationTest extends BasePlatformTestCase {
+
+    private static final String KOTLIN_FILE_1 = "package com.example.kt\n" +
+            "class First { fun a() {} }\n";
+
+    private static final String KOTLIN_FILE_2 = "package com.example.kt\n" +
+            "class Second { fun b(x: Int): Int = if (x > 0) x else -x }\n";
+
+    public void testKotlinBuilderIsRegistered() {
+        PsiFile kotlinFile = myFixture.addFileToProject("com/example/kt/First.kt", KOTLIN_FILE_1);
+        PsiFile javaFile = myFixture.addFileToProject("com/example/Plain.java", "package com.example; class Plain {}");
+
+        LanguageFileBuilder languageFileBuilder = LanguageFileBuilder.forFile(kotlinFile);
+        assertInstanceOf(languageFileBuilder, KotlinLanguageFileBuilder.class);
+        assertEquals("com.example.kt", languageFileBuilder.getPackageName(kotlinFile));
+        assertNull(LanguageFileBuilder.forFile(javaFile));
+    }
+
+    public void testProjectModelBuilderAddsKotlinFiles() {
+        PsiFile first = myFixture.addFileToProject("com/example/kt/First.kt", KOTLIN_FILE_1);
+        PsiFile second = myFixture.addFileToProject("com/example/kt/Second.kt", KOTLIN_FILE_2);
+        ProjectElement projectElement = new ProjectElement("TestProject");
+        ProjectModelBuilder projectModelBuilder = new ProjectModelBuilder(projectElement, true);
+
+        projectModelBuilder.addLanguageFileToProjectElement(first);
+        projectModelBuilder.addLanguageFileToProjectElement(second);
+
+        PackageElement packageElement = projectElement.getFromAllPackages("com.example.kt");
+        assertNotNull(packageElement);
+        Set<String> classes = projectElement.allClasses().map(ClassElement::getName).collect(Collectors.toSet());
+        assertEquals(Set.of("First", "Second"), classes);
+    }
+}
@@ -0,0 +1,104 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.b333vv.metric.model.code.MoodCounters;
+
+public class MoodCountersCollectorIntegrationTest extends BasePlatformTestCase {
+
+    private static final String BASE = "package com.example.base;\n" +
+            "public abstract class Base {\n" +
+            "    public int size;\n" +
+            "    protected String name;\n" +
+            "    private long id;\n" +
+            "    public void run() {}\n" +
+            "    protected abstract void step();\n" +
+            "    void reset() {}\n" +
+            "}";
+
+    private static final String DERIVED = "package com.example.derived;\n" +
+            "public class Derived extends com.example.base.Base {\n" +
+            "    private int count;\n" +
+            "    protected void step() {}\n" +
+            "    public void stop() {}\n" +
+            "}";
+
+    private static final String TASKS = "package com.example.derived;\n" +
+            "public class Tasks {\n" +
+            "    public Runnable task() {\n" +
+            "        class Local {}\n" +
+            "        return new Runnable() { public void run() {} };\n" +
+            "    }\n" +
+            "    public static class Nested {}\n" +
+            "}";
+
+    private static final String CLIENT = "package com.example.derived;\n" +
+            "public class Client extends Derived {\n" +
+            "    private final Helper helper = new Helper();\n" +
+            "    public Derived task() {\n" +
+            "        return new Derived() { public void stop() { helper.help(); } };\n" +
+            "    }\n" +
+            "    public static class Helper {\n" +
+            "        private com.example.base.Base base;\n" +
+            "        void help() {}\n" +
+            "    }\n" +
+            "}";
+
+    private PsiClass base;
+    private PsiClass derived;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        base = ((PsiJavaFile) myFixture.addFileToProject("com/example/base/Base.java", BASE)).getClasses()[0];
+        derived = ((PsiJavaFile) myFixture.addFileToProject("com/example/derived/Derived.java", DERIVED))
+                .getClasses()[0];
+    }
+
+    public void testJavaMembersDoNotCountTowardsHidingFactors() {
+        MoodCounters counters = MoodCountersCollector.collect(base);
+
+        assertEquals(MoodCounters.Visibility.NONE, counters.attributes());
+        assertEquals(MoodCounters.Visibility.NONE, counters.methods());
+        assertTrue(counters.is(MoodCounters.ClassKind.ABSTRACT));
+        assertEquals("com.example.base", counters.packageName());
+    }
+
+    public void testSubclassesAreSearched() {
+        MoodCounters counters = MoodCountersCollector.collect(base);
+
+        assertEquals(1, counters.subclasses());
+        assertEquals(1, counters.subclassesOutsidePackage());
+    }
+
+    public void testAnonymousAndLocalClassesAreCounted() {
+        PsiClass tasks = ((PsiJavaFile) myFixture.addFileToProject("com/example/derived/Tasks.java", TASKS))
+                .getClasses()[0];
+        MoodCounters counters = MoodCountersCollector.collect(tasks);
+
+        // the member class Nested is a class of the model with counters of its own
+        assertEquals(2, counters.localClasses().size());
+    }
+
+    public void testInheritedAndOverridingMembers() {
+        MoodCounters counters = MoodCountersCollector.collect(derived);
+
+        assertEquals(2, counters.inheritedFields());
+        assertEquals(3, counters.availableFields());
+        assertEquals(2, counters.inheritedMethods());
+        assertEquals(4, counters.availableMethods());
+        assertEquals(1, counters.newMethods());
+        assertEquals(1, counters.overridingMethods());
+    }
+
+    public void testCouplingsExcludeSupertypes() {
+        PsiClass client = ((PsiJavaFile) myFixture.addFileToProject("com/example/derived/Client.java", CLIENT))
+                .getClasses()[0];
+
+        // Client depends on Helper, its supertype Derived is not counted, nor is Base for Derived
+        assertEquals(1, MoodCountersCollector.collect(client).couplings());
+        assertEquals(1, MoodCountersCollector.collect(client.getInnerClasses()[0]).couplings());
+        assertEquals(0, MoodCountersCollector.collect(derived).couplings());
+    }
+}
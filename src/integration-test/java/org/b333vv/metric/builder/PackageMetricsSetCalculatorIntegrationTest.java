@@ -0,0 +1,79 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.b333vv.metric.model.code.PackageElement;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.MetricType;
+
+import java.util.List;
+
+public class PackageMetricsSetCalculatorIntegrationTest extends BasePlatformTestCase {
+
+    private static final String API = "package com.example.api;\n" +
+            "public interface Api {\n" +
+            "    void run();\n" +
+            "}";
+
+    private static final String IMPL = "package com.example.impl;\n" +
+            "public class Impl implements com.example.api.Api {\n" +
+            "    private final com.example.util.Util util = new com.example.util.Util();\n" +
+            "    public void run() { util.help(); }\n" +
+            "}";
+
+    private static final String UTIL = "package com.example.util;\n" +
+            "public class Util {\n" +
+            "    public void help() {}\n" +
+            "}";
+
+    private static final String CLIENT = "package com.example.client;\n" +
+            "public class Client {\n" +
+            "    private com.example.api.Api api;\n" +
+            "    private com.example.util.Util util;\n" +
+            "}";
+
+    private ProjectElement projectElement;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        List<PsiFile> files = List.of(
+                myFixture.addFileToProject("com/example/api/Api.java", API),
+                myFixture.addFileToProject("com/example/impl/Impl.java", IMPL),
+                myFixture.addFileToProject("com/example/util/Util.java", UTIL),
+                myFixture.addFileToProject("com/example/client/Client.java", CLIENT));
+        projectElement = new ProjectElement("TestProject");
+        ProjectModelBuilder projectModelBuilder = new ProjectModelBuilder(projectElement, true);
+        DependenciesBuilder dependenciesBuilder = new DependenciesBuilder();
+        for (PsiFile file : files) {
+            projectModelBuilder.addJavaFileToProjectElement((PsiJavaFile) file);
+            dependenciesBuilder.build(file);
+        }
+        new PackageMetricsSetCalculator(dependenciesBuilder, projectElement).calculate();
+    }
+
+    public void testAfferentCouplingCountsDependentPackages() {
+        assertEquals(2L, metric("com.example.api", MetricType.Ca));
+        assertEquals(2L, metric("com.example.util", MetricType.Ca));
+        assertEquals(0L, metric("com.example.client", MetricType.Ca));
+    }
+
+    public void testEfferentCouplingCountsPackagesDependedOn() {
+        assertEquals(0L, metric("com.example.api", MetricType.Ce));
+        assertTrue(metric("com.example.impl", MetricType.Ce) >= 2L);
+        assertTrue(metric("com.example.client", MetricType.Ce) >= 2L);
+    }
+
+    public void testAbstractnessOfInterfacePackage() {
+        PackageElement api = projectElement.getFromAllPackages("com.example.api");
+        assertEquals(1.0, api.metric(MetricType.A).getValue().doubleValue(), 1e-9);
+        assertEquals(0.0, api.metric(MetricType.I).getValue().doubleValue(), 1e-9);
+    }
+
+    private long metric(String packageName, MetricType metricType) {
+        PackageElement packageElement = projectElement.getFromAllPackages(packageName);
+        assertNotNull(packageName, packageElement);
+        return packageElement.metric(metricType).getValue().longValue();
+    }
+}
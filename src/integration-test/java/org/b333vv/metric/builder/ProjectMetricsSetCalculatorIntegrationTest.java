@@ -0,0 +1,111 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.MetricType;
+
+public class ProjectMetricsSetCalculatorIntegrationTest extends BasePlatformTestCase {
+
+    private static final String BOX = "package com.example.box;\n" +
+            "public class Box<T> {\n" +
+            "    private T value;\n" +
+            "    public <U extends T> void put(U value) { this.value = value; }\n" +
+            "}";
+
+    private static final String SHAPE = "package com.example.box;\n" +
+            "public interface Shape {}";
+
+    private static final String TASKS = "package com.example.box;\n" +
+            "public class Tasks {\n" +
+            "    public Shape task() {\n" +
+            "        class Local {}\n" +
+            "        return new Shape() {};\n" +
+            "    }\n" +
+            "    public static class Nested {}\n" +
+            "}";
+
+    private static final String CIRCLE = "package com.example.shapes\n" +
+            "class Circle(val radius: Double) {\n" +
+            "    class Builder\n" +
+            "    companion object {\n" +
+            "        fun unit() = Circle(1.0)\n" +
+            "    }\n" +
+            "}\n";
+
+    private static final String BASE = "package com.example.base;\n" +
+            "public abstract class Base {}";
+
+    private static final String DERIVED = "package com.example.base;\n" +
+            "public class Derived extends Base {\n" +
+            "    private final Helper helper = new Helper();\n" +
+            "}";
+
+    private static final String HELPER = "package com.example.base;\n" +
+            "public class Helper {}";
+
+    public void testTypeParametersAreNotCountedAsClasses() {
+        ProjectElement projectElement = calculate(
+                myFixture.addFileToProject("com/example/box/Box.java", BOX),
+                myFixture.addFileToProject("com/example/box/Shape.java", SHAPE));
+
+        assertEquals(1L, metric(projectElement, MetricType.PNOCC));
+        assertEquals(1L, metric(projectElement, MetricType.PNOI));
+    }
+
+    public void testAnonymousAndLocalClassesAreCounted() {
+        ProjectElement projectElement = calculate(
+                myFixture.addFileToProject("com/example/box/Shape.java", SHAPE),
+                myFixture.addFileToProject("com/example/box/Tasks.java", TASKS));
+
+        // Tasks, Nested, Local and the anonymous Shape
+        assertEquals(4L, metric(projectElement, MetricType.PNOCC));
+        assertEquals(1L, metric(projectElement, MetricType.PNOSC));
+    }
+
+    public void testOnlyTopLevelKotlinDeclarationsAreCounted() {
+        ProjectElement projectElement = calculate(
+                myFixture.addFileToProject("com/example/shapes/Circle.kt", CIRCLE));
+
+        // the model has no elements for nested Kotlin classes and companion objects
+        assertEquals(1L, metric(projectElement, MetricType.PNOCC));
+        assertEquals(0L, metric(projectElement, MetricType.PNOKCO));
+    }
+
+    public void testCouplingFactorExcludesSupertypes() {
+        ProjectElement projectElement = calculate(
+                myFixture.addFileToProject("com/example/base/Base.java", BASE),
+                myFixture.addFileToProject("com/example/base/Derived.java", DERIVED),
+                myFixture.addFileToProject("com/example/base/Helper.java", HELPER));
+
+        // Derived depends on Helper only, out of 3 * 2 / 2 possible couplings
+        assertEquals(1.0 / 3.0, projectElement.metric(MetricType.CF).getValue().doubleValue(), 1e-9);
+    }
+
+    private ProjectElement calculate(PsiFile... files) {
+        ProjectElement projectElement = new ProjectElement("TestProject");
+        ProjectModelBuilder projectModelBuilder = new ProjectModelBuilder(projectElement, true);
+        DependenciesBuilder dependenciesBuilder = new DependenciesBuilder();
+        for (PsiFile file : files) {
+            if (file instanceof PsiJavaFile) {
+                projectModelBuilder.addJavaFileToProjectElement((PsiJavaFile) file);
+            } else {
+                projectModelBuilder.addLanguageFileToProjectElement(file);
+            }
+            dependenciesBuilder.build(file);
+        }
+        ProgressManager.getInstance().runProcess(() -> {
+            new PackageMetricsSetCalculator(dependenciesBuilder, projectElement).calculate();
+            new ProjectMetricsSetCalculator(projectElement).calculate();
+        }, new EmptyProgressIndicator());
+        return projectElement;
+    }
+
+    private static long metric(ProjectElement projectElement, MetricType metricType) {
+        assertNotNull(metricType.name(), projectElement.metric(metricType));
+        return projectElement.metric(metricType).getValue().longValue();
+    }
+}
@@ -0,0 +1,107 @@
+package org.b333vv.metric.model.util;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.search.searches.SuperMethodsSearch;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.List;
+
+public class MethodSignatureTableIntegrationTest extends BasePlatformTestCase {
+
+    private static final String BASE = "package com.example.base;\n" +
+            "public abstract class Base<T> {\n" +
+            "    public void accept(T value) {}\n" +
+            "    public abstract void step(java.util.List<String> steps);\n" +
+            "    void reset() {}\n" +
+            "    public void run() {}\n" +
+            "    public static void create() {}\n" +
+            "}";
+
+    private static final String DERIVED = "package com.example.derived;\n" +
+            "public class Derived extends com.example.base.Base<String> {\n" +
+            "    public void accept(String value) {}\n" +
+            "    public void step(java.util.List<String> steps) {}\n" +
+            "    void reset() {}\n" +
+            "    public void accept(Integer value) {}\n" +
+            "    public static void create() {}\n" +
+            "}";
+
+    private PsiClass base;
+    private PsiClass derived;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        base = ((PsiJavaFile) myFixture.addFileToProject("com/example/base/Base.java", BASE)).getClasses()[0];
+        derived = ((PsiJavaFile) myFixture.addFileToProject("com/example/derived/Derived.java", DERIVED))
+                .getClasses()[0];
+    }
+
+    public void testOverridesThroughSubstitutedTypeParameters() {
+        MethodSignatureTable table = MethodSignatureTable.of(derived);
+        PsiMethod[] methods = derived.getMethods();
+
+        assertTrue(table.hasSuperMethod(methods[0]));
+        assertTrue(table.hasConcreteSuperMethod(methods[0]));
+        assertFalse(table.hasSuperMethod(methods[3]));
+    }
+
+    public void testAbstractSuperMethodIsNotConcrete() {
+        MethodSignatureTable table = MethodSignatureTable.of(derived);
+        PsiMethod step = derived.getMethods()[1];
+
+        assertTrue(table.hasSuperMethod(step));
+        assertFalse(table.hasConcreteSuperMethod(step));
+    }
+
+    public void testAbstractRedeclarationHidesConcreteSuperMethod() {
+        myFixture.addFileToProject("com/example/derived/Reabstracted.java", "package com.example.derived;\n" +
+                "public abstract class Reabstracted extends Derived {\n" +
+                "    public abstract void run();\n" +
+                "}");
+        PsiClass leaf = ((PsiJavaFile) myFixture.addFileToProject("com/example/derived/Leaf.java",
+                "package com.example.derived;\n" +
+                "public class Leaf extends Reabstracted {\n" +
+                "    public void run() {}\n" +
+                "    public void accept(String value) {}\n" +
+                "}")).getClasses()[0];
+        MethodSignatureTable table = MethodSignatureTable.of(leaf);
+        PsiMethod[] methods = leaf.getMethods();
+
+        assertTrue(table.hasSuperMethod(methods[0]));
+        assertFalse(table.hasConcreteSuperMethod(methods[0]));
+        assertTrue(table.hasConcreteSuperMethod(methods[1]));
+        for (PsiMethod method : methods) {
+            assertEquals(method.getName(), MethodUtils.hasConcreteSuperMethod(method),
+                    !SuperMethodsSearch.search(method, null, true, false)
+                            .forEach(superMethod -> MethodUtils.isAbstract(superMethod.getMethod())));
+        }
+    }
+
+    public void testPackagePrivateAndStaticMethodsAreNotOverridden() {
+        MethodSignatureTable table = MethodSignatureTable.of(derived);
+        PsiMethod[] methods = derived.getMethods();
+
+        assertFalse(table.hasSuperMethod(methods[2]));
+        assertFalse(table.hasSuperMethod(methods[4]));
+    }
+
+    public void testNonOverriddenMethodsAgreeWithSuperMethods() {
+        List<PsiMethod> nonOverridden = MethodSignatureTable.of(derived).getNonOverriddenMethods();
+
+        for (PsiMethod method : derived.getMethods()) {
+            assertContainsElements(nonOverridden, method);
+        }
+        for (PsiMethod method : base.getMethods()) {
+            boolean overridden = false;
+            for (PsiMethod derivedMethod : derived.getMethods()) {
+                for (PsiMethod superMethod : derivedMethod.findSuperMethods()) {
+                    overridden |= superMethod.equals(method);
+                }
+            }
+            assertEquals(method.getName(), !overridden, nonOverridden.contains(method));
+        }
+    }
+}
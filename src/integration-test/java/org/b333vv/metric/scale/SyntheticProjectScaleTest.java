@@ -0,0 +1,104 @@
+package org.b333vv.metric.scale;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.b333vv.metric.builder.DependenciesBuilder;
+import org.b333vv.metric.builder.DependenciesCalculator;
+import org.b333vv.metric.builder.FileInventory;
+import org.b333vv.metric.builder.PackageMetricsSetCalculator;
+import org.b333vv.metric.builder.ProjectMetricsSetCalculator;
+import org.b333vv.metric.builder.PsiCalculationStrategy;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.service.CacheService;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Time and memory budgets of the calculation stages on synthetic projects of 10k and 50k classes. Run with
+ * {@code ./gradlew scaleTest}; the regular integration tests leave this package out.
+ * <p>
+ * The budgets are estimates, not measurements: the 10k budgets allow about twice the time and heap the stages are
+ * expected to take, the 50k budgets scale them linearly. Replace them with twice the measured values once the task
+ * has run on the build machine.
+ */
+public class SyntheticProjectScaleTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final Logger LOG = Logger.getInstance(SyntheticProjectScaleTest.class);
+    private static final long MB = 1024 * 1024;
+
+    private record Budget(long psiSeconds, long dependenciesSeconds, long projectMetricsSeconds, long heapMegabytes) {
+    }
+
+    private File sources;
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            if (sources != null) {
+                FileUtil.delete(sources);
+            }
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testTenThousandClasses() throws Exception {
+        assertWithinBudget(SyntheticProjectGenerator.Parameters.of(10_000), new Budget(90, 30, 30, 1024));
+    }
+
+    public void testFiftyThousandClasses() throws Exception {
+        assertWithinBudget(SyntheticProjectGenerator.Parameters.of(50_000), new Budget(450, 150, 150, 5120));
+    }
+
+    private void assertWithinBudget(SyntheticProjectGenerator.Parameters parameters, Budget budget)
+            throws Exception {
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator(parameters);
+        sources = FileUtil.createTempDirectory("synthetic", null);
+        generator.writeTo(new File(sources, "src").toPath());
+        myFixture.setTestDataPath(sources.getAbsolutePath());
+        myFixture.copyDirectoryToProject("src", "");
+
+        long heapBefore = usedHeap();
+        ProjectElement projectElement = measure("PSI model", budget.psiSeconds(),
+                () -> new PsiCalculationStrategy().calculate(getProject(), new EmptyProgressIndicator(), null));
+        FileInventory inventory = getProject().getService(CacheService.class).getFileInventory(null);
+        DependenciesBuilder dependencies = measure("Dependencies", budget.dependenciesSeconds(),
+                () -> new DependenciesCalculator(getProject(), inventory, false, new DependenciesBuilder())
+                        .calculateDependencies());
+        measure("Package and project metrics", budget.projectMetricsSeconds(), () -> {
+            new PackageMetricsSetCalculator(dependencies, projectElement).calculate();
+            new ProjectMetricsSetCalculator(projectElement).calculate();
+            return projectElement;
+        });
+        long retained = (usedHeap() - heapBefore) / MB;
+
+        assertEquals(parameters.classes(), projectElement.allClasses().count());
+        assertNotNull(projectElement.metric(MetricType.MIF));
+        assertTrue("Model and caches retain " + retained + " MB, budget is " + budget.heapMegabytes() + " MB",
+                retained <= budget.heapMegabytes());
+    }
+
+    private static <T> T measure(String stage, long budgetSeconds, Supplier<T> calculation) {
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        long start = System.nanoTime();
+        T result = ProgressManager.getInstance().runProcess(calculation::get, indicator);
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        LOG.info(stage + ": " + seconds + " s");
+        assertTrue(stage + " took " + seconds + " s, budget is " + budgetSeconds + " s", seconds <= budgetSeconds);
+        return result;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
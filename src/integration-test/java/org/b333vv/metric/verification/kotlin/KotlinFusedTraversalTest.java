@@ -0,0 +1,84 @@
+package org.b333vv.metric.verification.kotlin;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusedTraversal;
+import org.b333vv.metric.model.visitor.kotlin.method.*;
+import org.b333vv.metric.model.visitor.kotlin.type.*;
+import org.jetbrains.kotlin.psi.KtClassOrObject;
+import org.jetbrains.kotlin.psi.KtNamedFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class KotlinFusedTraversalTest extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected String getTestDataPath() {
+        return "testData";
+    }
+
+    private static List<Supplier<KotlinMethodVisitor>> methodVisitors() {
+        return List.of(KotlinMcCabeCyclomaticComplexityVisitor::new, KotlinConditionNestingDepthVisitor::new,
+                KotlinLoopNestingDepthVisitor::new, KotlinMaximumNestingDepthVisitor::new,
+                KotlinNumberOfLoopsVisitor::new, KotlinLocalityOfAttributeAccessesVisitor::new,
+                KotlinForeignDataProvidersVisitor::new, KotlinCouplingIntensityVisitor::new,
+                KotlinCouplingDispersionVisitor::new, KotlinNumberOfAccessedVariablesVisitor::new,
+                KotlinHalsteadMethodVisitor::new);
+    }
+
+    private static List<Supplier<KotlinClassVisitor>> classVisitors() {
+        return List.of(KotlinAccessToForeignDataVisitor::new, KotlinMessagePassingCouplingVisitor::new,
+                KotlinResponseForClassVisitor::new, KotlinHalsteadClassVisitor::new);
+    }
+
+    public void testMethodMetricsMatchStandaloneVisitors() {
+        for (String file : List.of("kotlin/MethodMetrics.kt", "kotlin/Cognitive.kt", "kotlin/CouplingValues.kt")) {
+            PsiFile psiFile = myFixture.configureByFile(file);
+            for (KtNamedFunction function : PsiTreeUtil.findChildrenOfType(psiFile, KtNamedFunction.class)) {
+                List<KotlinMethodVisitor> fused = new ArrayList<>();
+                KotlinFusedTraversal traversal = KotlinFusedTraversal.fused();
+                for (Supplier<KotlinMethodVisitor> supplier : methodVisitors()) {
+                    KotlinMethodVisitor visitor = supplier.get();
+                    fused.add(visitor);
+                    visitor.computeFor(function, traversal);
+                }
+                traversal.run();
+
+                for (int i = 0; i < fused.size(); i++) {
+                    KotlinMethodVisitor standalone = methodVisitors().get(i).get();
+                    standalone.computeFor(function);
+                    assertEquals(file + ": " + function.getName(), standalone.getMetric(), fused.get(i).getMetric());
+                    if (standalone instanceof KotlinHalsteadMethodVisitor) {
+                        assertEquals(((KotlinHalsteadMethodVisitor) standalone).buildMetrics(),
+                                ((KotlinHalsteadMethodVisitor) fused.get(i)).buildMetrics());
+                    }
+                }
+            }
+        }
+    }
+
+    public void testClassMetricsMatchStandaloneVisitors() {
+        for (String file : List.of("kotlin/CouplingValues.kt", "kotlin/RfcSample.kt", "kotlin/Cohesion.kt")) {
+            PsiFile psiFile = myFixture.configureByFile(file);
+            for (KtClassOrObject klass : PsiTreeUtil.findChildrenOfType(psiFile, KtClassOrObject.class)) {
+                List<KotlinClassVisitor> fused = new ArrayList<>();
+                KotlinFusedTraversal traversal = KotlinFusedTraversal.fused();
+                for (Supplier<KotlinClassVisitor> supplier : classVisitors()) {
+                    KotlinClassVisitor visitor = supplier.get();
+                    fused.add(visitor);
+                    visitor.computeFor(klass, traversal);
+                }
+                traversal.run();
+
+                for (int i = 0; i < fused.size(); i++) {
+                    KotlinClassVisitor standalone = classVisitors().get(i).get();
+                    standalone.computeFor(klass);
+                    assertEquals(file + ": " + klass.getName(), standalone.getMetric(), fused.get(i).getMetric());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.b333vv.metric.verification.kotlin;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.b333vv.metric.model.visitor.kotlin.KotlinResolveSession;
+import org.b333vv.metric.model.visitor.kotlin.method.*;
+import org.b333vv.metric.model.visitor.kotlin.type.*;
+import org.jetbrains.kotlin.psi.KtClassOrObject;
+import org.jetbrains.kotlin.psi.KtNamedFunction;
+import org.jetbrains.kotlin.psi.KtSimpleNameExpression;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public class KotlinResolveSessionTest extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected String getTestDataPath() {
+        return "testData";
+    }
+
+    private static List<Supplier<KotlinClassVisitor>> classVisitors() {
+        return List.of(KotlinAccessToForeignDataVisitor::new, KotlinMessagePassingCouplingVisitor::new,
+                KotlinResponseForClassVisitor::new, KotlinCouplingBetweenObjectsVisitor::new,
+                KotlinDataAbstractionCouplingVisitor::new, KotlinTightClassCohesionVisitor::new,
+                KotlinLackOfCohesionOfMethodsVisitor::new);
+    }
+
+    private static List<Supplier<KotlinMethodVisitor>> methodVisitors() {
+        return List.of(KotlinForeignDataProvidersVisitor::new, KotlinLocalityOfAttributeAccessesVisitor::new);
+    }
+
+    public void testSharedSessionGivesSameMetrics() {
+        for (String file : List.of("kotlin/CouplingValues.kt", "kotlin/RfcSample.kt", "kotlin/Cohesion.kt")) {
+            PsiFile psiFile = myFixture.configureByFile(file);
+            try (KotlinResolveSession session = KotlinResolveSession.open()) {
+                for (KtClassOrObject klass : PsiTreeUtil.findChildrenOfType(psiFile, KtClassOrObject.class)) {
+                    for (Supplier<KotlinClassVisitor> supplier : classVisitors()) {
+                        KotlinClassVisitor shared = supplier.get();
+                        shared.setResolveSession(session);
+                        shared.computeFor(klass);
+                        KotlinClassVisitor standalone = supplier.get();
+                        standalone.computeFor(klass);
+                        assertEquals(file + ": " + klass.getName(), standalone.getMetric(), shared.getMetric());
+                    }
+                }
+                for (KtNamedFunction function : PsiTreeUtil.findChildrenOfType(psiFile, KtNamedFunction.class)) {
+                    for (Supplier<KotlinMethodVisitor> supplier : methodVisitors()) {
+                        KotlinMethodVisitor shared = supplier.get();
+                        shared.setResolveSession(session);
+                        shared.computeFor(function);
+                        KotlinMethodVisitor standalone = supplier.get();
+                        standalone.computeFor(function);
+                        assertEquals(file + ": " + function.getName(), standalone.getMetric(), shared.getMetric());
+                    }
+                }
+            }
+        }
+    }
+
+    public void testReferenceIsResolvedOncePerSession() {
+        PsiFile psiFile = myFixture.configureByFile("kotlin/CouplingValues.kt");
+        try (KotlinResolveSession session = KotlinResolveSession.open()) {
+            for (KtSimpleNameExpression expression : PsiTreeUtil.findChildrenOfType(psiFile, KtSimpleNameExpression.class)) {
+                assertSame(session.resolve(expression.getReference()), session.resolve(expression.getReference()));
+                assertEquals(expression.getReference() == null ? null : expression.getReference().resolve(),
+                        session.resolve(expression.getReference()));
+            }
+        }
+        assertNull(KotlinResolveSession.direct().resolve(null));
+    }
+}
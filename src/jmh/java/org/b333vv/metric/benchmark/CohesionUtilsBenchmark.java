@@ -0,0 +1,55 @@
+package org.b333vv.metric.benchmark;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import org.b333vv.metric.model.visitor.type.CohesionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Method linkage, field usage and connected components, as needed for LCOM and TCC, of all classes of the corpus
+ * per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CohesionUtilsBenchmark {
+    private List<PsiClass> classes;
+
+    @Setup
+    public void setUp(PsiCorpus corpus) {
+        classes = corpus.getJavaClasses();
+    }
+
+    @Benchmark
+    public void cohesion(Blackhole blackhole) {
+        ReadAction.run(() -> {
+            for (PsiClass psiClass : classes) {
+                Set<PsiMethod> applicableMethods = CohesionUtils.getApplicableMethods(psiClass);
+                Map<PsiMethod, Set<PsiField>> fieldUsage = CohesionUtils.calculateFieldUsage(applicableMethods);
+                Map<PsiMethod, Set<PsiMethod>> linkage = CohesionUtils.calculateMethodLinkage(applicableMethods);
+                blackhole.consume(CohesionUtils.calculateComponents(applicableMethods, fieldUsage, linkage));
+                blackhole.consume(CohesionUtils.calculateConnectedMethods(applicableMethods));
+            }
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package org.b333vv.metric.benchmark;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import org.b333vv.metric.builder.DependenciesBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class and package dependency graphs of the whole corpus built per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DependenciesBuilderBenchmark {
+
+    @Benchmark
+    public int build(PsiCorpus corpus) {
+        return ReadAction.compute(() -> {
+            DependenciesBuilder dependenciesBuilder = new DependenciesBuilder();
+            for (PsiFile file : corpus.getFiles()) {
+                dependenciesBuilder.build(file);
+            }
+            return dependenciesBuilder.size();
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package org.b333vv.metric.benchmark;
+
+import com.intellij.openapi.project.Project;
+import org.b333vv.metric.export.CsvClassMetricsExporter;
+import org.b333vv.metric.export.CsvMethodMetricsExporter;
+import org.b333vv.metric.export.CsvPackageMetricsExporter;
+import org.b333vv.metric.export.XmlExporter;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XML and CSV exports of the project metrics model of the corpus per second, written to a temporary directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExportersBenchmark {
+    private Project project;
+    private ProjectElement projectElement;
+    private Path directory;
+
+    @Setup
+    public void setUp(PsiCorpus corpus) throws IOException {
+        project = corpus.getProject();
+        projectElement = corpus.getProjectElement();
+        directory = Files.createTempDirectory("metrics-export");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void xml() {
+        new XmlExporter(project).export(directory.resolve("metrics.xml").toString(), projectElement);
+    }
+
+    @Benchmark
+    public void classCsv() {
+        new CsvClassMetricsExporter(project).export(directory.resolve("classes.csv").toString(), projectElement);
+    }
+
+    @Benchmark
+    public void methodCsv() {
+        new CsvMethodMetricsExporter(project).export(directory.resolve("methods.csv").toString(), projectElement);
+    }
+
+    @Benchmark
+    public void packageCsv() {
+        new CsvPackageMetricsExporter(project).export(directory.resolve("packages.csv").toString(), projectElement);
+    }
+}
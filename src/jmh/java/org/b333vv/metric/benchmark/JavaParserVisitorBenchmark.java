@@ -0,0 +1,127 @@
+package org.b333vv.metric.benchmark;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.b333vv.metric.model.javaparser.visitor.JavaParserClassVisitor;
+import org.b333vv.metric.model.metric.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Passes of one JavaParser visitor over all classes, or all methods, of the Java corpus per second. Visitors are
+ * named without the {@code JavaParser} prefix and {@code Visitor} suffix; the two needing a type index are left out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JavaParserVisitorBenchmark {
+    private static final String VISITOR_PACKAGE = "org.b333vv.metric.model.javaparser.visitor.";
+
+    @Param({"CouplingBetweenObjects", "DepthOfInheritanceTree", "LackOfCohesionOfMethods", "NumberOfMethods",
+            "NumberOfAttributes", "NumberOfPublicAttributes", "NumberOfAccessorMethods", "ResponseForClass",
+            "TightClassCohesion", "AccessToForeignData", "DataAbstractionCoupling", "MessagePassingCoupling",
+            "LocalityOfAttributeAccesses", "NonCommentingSourceStatements", "NumberOfAttributesAndMethods",
+            "NumberOfOperations", "WeightedMethodCount", "WeightOfAClass", "HalsteadClass",
+            "NumberOfOverriddenMethods", "NumberOfAddedMethods",
+            "NumberOfLoops", "LinesOfCode", "NumberOfParameters", "McCabeCyclomaticComplexity",
+            "CognitiveComplexity", "ConditionNestingDepth", "LoopNestingDepth", "MaximumNestingDepth",
+            "CouplingDispersion", "CouplingIntensity", "MethodCognitiveComplexity", "MethodComplexity",
+            "NumberOfAccessedVariables", "HalsteadMethod"})
+    public String visitorName;
+
+    private VoidVisitorAdapter<Consumer<Metric>> visitor;
+    private boolean classLevel;
+    private List<ClassOrInterfaceDeclaration> classes;
+    private List<MethodDeclaration> methods;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Class<?> visitorClass;
+        try {
+            visitorClass = Class.forName(VISITOR_PACKAGE + "type.JavaParser" + visitorName + "Visitor");
+        } catch (ClassNotFoundException e) {
+            visitorClass = Class.forName(VISITOR_PACKAGE + "method.JavaParser" + visitorName + "Visitor");
+        }
+        visitor = (VoidVisitorAdapter<Consumer<Metric>>) visitorClass.getDeclaredConstructor().newInstance();
+        classLevel = visitor instanceof JavaParserClassVisitor;
+
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver());
+        for (String directory : PsiCorpus.JAVA_DIRECTORIES) {
+            typeSolver.add(new JavaParserTypeSolver(Path.of(directory)));
+        }
+        JavaParser javaParser = new JavaParser(new ParserConfiguration()
+                .setSymbolResolver(new JavaSymbolSolver(typeSolver)));
+        classes = new ArrayList<>();
+        methods = new ArrayList<>();
+        for (Path path : javaSources()) {
+            CompilationUnit unit = javaParser.parse(path).getResult().orElseThrow();
+            classes.addAll(unit.findAll(ClassOrInterfaceDeclaration.class));
+            methods.addAll(unit.findAll(MethodDeclaration.class));
+        }
+    }
+
+    private static List<Path> javaSources() throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (String directory : PsiCorpus.JAVA_DIRECTORIES) {
+            try (Stream<Path> paths = Files.walk(Path.of(directory))) {
+                sources.addAll(paths.filter(path -> path.toString().endsWith(".java")).sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return sources;
+    }
+
+    // Unresolvable symbols fail a class as in JavaParserCalculationStrategy, the benchmark goes on with the next one
+    @Benchmark
+    public void visit(Blackhole blackhole) {
+        if (classLevel) {
+            for (ClassOrInterfaceDeclaration declaration : classes) {
+                try {
+                    visitor.visit(declaration, blackhole::consume);
+                } catch (RuntimeException e) {
+                    blackhole.consume(e);
+                }
+            }
+        } else {
+            for (MethodDeclaration declaration : methods) {
+                try {
+                    visitor.visit(declaration, blackhole::consume);
+                } catch (RuntimeException e) {
+                    blackhole.consume(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.b333vv.metric.benchmark;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.MethodElement;
+import org.b333vv.metric.model.metric.MetricLevel;
+import org.b333vv.metric.model.metric.MetricType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes of one Java PSI visitor over all classes, or all methods, of the corpus per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JavaVisitorBenchmark {
+    @Param({"WMC", "DIT", "CBO", "RFC", "LCOM", "NOC", "NOA", "NOO", "NOOM", "NOAM", "SIZE2", "NOM", "MPC", "DAC",
+            "ATFD", "NOPA", "NOAC", "WOC", "TCC", "NCSS",
+            "CND", "LND", "CC", "NOL", "LOC", "NOPM", "LAA", "FDP", "NOAV", "MND", "CINT", "CDISP", "CCM"})
+    public String metric;
+
+    private MetricType metricType;
+    private JavaRecursiveElementVisitor visitor;
+    private List<ClassElement> classes;
+    private List<MethodElement> methods;
+
+    @Setup
+    public void setUp(PsiCorpus corpus) {
+        metricType = MetricType.valueOf(metric);
+        visitor = metricType.visitor();
+        classes = new ArrayList<>();
+        methods = new ArrayList<>();
+        ReadAction.run(() -> {
+            for (PsiClass psiClass : corpus.getJavaClasses()) {
+                ClassElement javaClass = new ClassElement(psiClass);
+                classes.add(javaClass);
+                if (metricType.level() == MetricLevel.METHOD) {
+                    for (PsiMethod psiMethod : psiClass.getMethods()) {
+                        methods.add(new MethodElement(psiMethod, javaClass));
+                    }
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public void visit(Blackhole blackhole) {
+        ReadAction.run(() -> {
+            if (metricType.level() == MetricLevel.METHOD) {
+                for (MethodElement javaMethod : methods) {
+                    javaMethod.accept(visitor);
+                    blackhole.consume(javaMethod.metric(metricType));
+                }
+            } else {
+                for (ClassElement javaClass : classes) {
+                    javaClass.accept(visitor);
+                    blackhole.consume(javaClass.metric(metricType));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package org.b333vv.metric.benchmark;
+
+import org.b333vv.metric.builder.MetricsAggregation;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Project level aggregation of the class, method and package metrics of the corpus, as done by
+ * {@code ProjectMetricsSetCalculator}, per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsAggregationBenchmark {
+    private ProjectElement projectElement;
+
+    @Setup
+    public void setUp(PsiCorpus corpus) {
+        projectElement = corpus.getProjectElement();
+    }
+
+    @Benchmark
+    public MetricsAggregation aggregate() {
+        return MetricsAggregation.of(projectElement);
+    }
+}
@@ -0,0 +1,130 @@
+package org.b333vv.metric.benchmark;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnonymousClass;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTypeParameter;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.JavaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.service.CalculationService;
+import org.jetbrains.kotlin.psi.KtFile;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Java and Kotlin sources of {@code testData} and of the verification data modules, loaded into a light
+ * project once per benchmark run. Benchmarks are run from the root of the repository.
+ */
+@State(Scope.Benchmark)
+public class PsiCorpus {
+    static final List<String> JAVA_DIRECTORIES = List.of(
+            "testData/cohesion", "testData/coupling", "testData/inheritance", "testData/statements",
+            "testData/variables", "testData/woc", "metric-verification-data/src/main/java");
+    static final List<String> KOTLIN_DIRECTORIES = List.of(
+            "testData/kotlin", "metric-verification-data-kotlin/src/main/kotlin");
+
+    private CodeInsightTestFixture fixture;
+    private final List<PsiFile> files = new ArrayList<>();
+    private ProjectElement projectElement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        TestFixtureBuilder<IdeaProjectTestFixture> builder = IdeaTestFixtureFactory.getFixtureFactory()
+                .createLightFixtureBuilder(LightJavaCodeInsightFixtureTestCase.JAVA_17, "MetricsBenchmark");
+        fixture = JavaTestFixtureFactory.getFixtureFactory().createCodeInsightFixture(builder.getFixture());
+        fixture.setTestDataPath(new File("").getAbsolutePath());
+        List<VirtualFile> roots = new ArrayList<>();
+        EdtTestUtil.runInEdtAndWait(() -> {
+            fixture.setUp();
+            for (String directory : JAVA_DIRECTORIES) {
+                roots.add(fixture.copyDirectoryToProject(directory, directory));
+            }
+            for (String directory : KOTLIN_DIRECTORIES) {
+                roots.add(fixture.copyDirectoryToProject(directory, directory));
+            }
+        });
+        ReadAction.run(() -> {
+            PsiManager psiManager = PsiManager.getInstance(getProject());
+            for (VirtualFile root : roots) {
+                VfsUtilCore.iterateChildrenRecursively(root, null, file -> {
+                    PsiFile psiFile = file.isDirectory() ? null : psiManager.findFile(file);
+                    if (psiFile instanceof PsiJavaFile || psiFile instanceof KtFile) {
+                        files.add(psiFile);
+                    }
+                    return true;
+                });
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EdtTestUtil.runInEdtAndWait(() -> fixture.tearDown());
+    }
+
+    public Project getProject() {
+        return fixture.getProject();
+    }
+
+    public List<PsiFile> getFiles() {
+        return files;
+    }
+
+    public List<PsiClass> getJavaClasses() {
+        return ReadAction.compute(() -> {
+            List<PsiClass> classes = new ArrayList<>();
+            for (PsiFile file : files) {
+                if (file instanceof PsiJavaFile) {
+                    for (PsiClass psiClass : PsiTreeUtil.findChildrenOfType(file, PsiClass.class)) {
+                        if (!(psiClass instanceof PsiTypeParameter) && !(psiClass instanceof PsiAnonymousClass)) {
+                            classes.add(psiClass);
+                        }
+                    }
+                }
+            }
+            return classes;
+        });
+    }
+
+    public List<KtFile> getKotlinFiles() {
+        List<KtFile> kotlinFiles = new ArrayList<>();
+        for (PsiFile file : files) {
+            if (file instanceof KtFile) {
+                kotlinFiles.add((KtFile) file);
+            }
+        }
+        return kotlinFiles;
+    }
+
+    /**
+     * @return project metrics model of the corpus, built by the calculation service on the first call
+     */
+    public synchronized ProjectElement getProjectElement() {
+        if (projectElement == null) {
+            projectElement = getProject().getService(CalculationService.class)
+                    .getOrBuildProjectMetricsModel(new EmptyProgressIndicator(), null);
+        }
+        return projectElement;
+    }
+}
@@ -0,0 +1,72 @@
+package org.b333vv.metric.benchmark;
+
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.BasicMetricsRange;
+import org.b333vv.metric.model.metric.value.DerivativeMetricsRange;
+import org.b333vv.metric.model.metric.value.Range;
+import org.b333vv.metric.model.metric.value.RangeTable;
+import org.b333vv.metric.model.metric.value.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifications of a fixed set of metric values per second, through the ranges of the settings and through a
+ * {@link RangeTable} built from them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RangeClassificationBenchmark {
+    private static final MetricType[] TYPES = {MetricType.WMC, MetricType.CC, MetricType.TCC, MetricType.D,
+            MetricType.NOC};
+    private static final Value[] VALUES = {Value.UNDEFINED, Value.ZERO, Value.of(1), Value.of(2.5), Value.of(3),
+            Value.of(5), Value.of(7), Value.of(0.3), Value.of(0.75), Value.of(100)};
+
+    private Map<MetricType, Range> ranges;
+    private RangeTable table;
+
+    @Setup
+    public void setUp() {
+        ranges = new EnumMap<>(MetricType.class);
+        ranges.put(MetricType.WMC, BasicMetricsRange.of(Value.of(3), Value.of(5), Value.of(7)));
+        ranges.put(MetricType.CC, BasicMetricsRange.of(Value.of(1), Value.of(1), Value.of(1)));
+        ranges.put(MetricType.TCC, DerivativeMetricsRange.of(Value.of(0.5), Value.of(1.0)));
+        ranges.put(MetricType.D, DerivativeMetricsRange.of(Value.of(0.0), Value.of(0.75)));
+        table = RangeTable.of(1L, ranges::get);
+    }
+
+    @Benchmark
+    public void ranges(Blackhole blackhole) {
+        for (MetricType type : TYPES) {
+            Range range = ranges.getOrDefault(type, BasicMetricsRange.UNDEFINED);
+            for (Value value : VALUES) {
+                blackhole.consume(range.getRangeType(value));
+            }
+        }
+    }
+
+    @Benchmark
+    public void rangeTable(Blackhole blackhole) {
+        for (MetricType type : TYPES) {
+            for (Value value : VALUES) {
+                blackhole.consume(table.classify(type, value));
+            }
+        }
+    }
+}
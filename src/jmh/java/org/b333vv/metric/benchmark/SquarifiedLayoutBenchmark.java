@@ -0,0 +1,72 @@
+package org.b333vv.metric.benchmark;
+
+import org.b333vv.metric.ui.treemap.model.BuildControl;
+import org.b333vv.metric.ui.treemap.model.GenericTreeModel;
+import org.b333vv.metric.ui.treemap.model.Rectangle;
+import org.b333vv.metric.ui.treemap.model.SquarifiedLayout;
+import org.b333vv.metric.ui.treemap.model.TreeModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree map layouts per second of a project of packages holding classes with skewed sizes, generated with a fixed
+ * seed. {@code layout} lays out a new model, {@code relayout} the same model after a resize.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SquarifiedLayoutBenchmark {
+    private static final int CLASSES_PER_PACKAGE = 100;
+    private static final int MIN_CELL_SIZE = 4;
+
+    @Param({"1000", "10000", "100000"})
+    public int classes;
+
+    private GenericTreeModel<String> model;
+    private SquarifiedLayout<String> layout;
+    private int size;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        model = new GenericTreeModel<>();
+        model.add("project", 0, null);
+        for (int i = 0; i < classes; i++) {
+            String packageName = "package" + i / CLASSES_PER_PACKAGE;
+            if (i % CLASSES_PER_PACKAGE == 0) {
+                model.add(packageName, 0, "project");
+            }
+            // Class sizes follow a long tail, as lines of code do
+            model.add("Class" + i, 1 + (long) Math.exp(random.nextDouble() * 8), packageName);
+        }
+        layout = new SquarifiedLayout<>(64, MIN_CELL_SIZE);
+        layout.layout(model, "project", 1600, 1000, new BuildControl());
+    }
+
+    @Benchmark
+    public TreeModel<Rectangle<String>> layout() {
+        return new SquarifiedLayout<String>(64, MIN_CELL_SIZE).layout(model, "project", 1600, 1000,
+                new BuildControl());
+    }
+
+    @Benchmark
+    public TreeModel<Rectangle<String>> relayout() {
+        size = (size + 1) % 2;
+        return layout.layout(model, "project", 1600 - size * 200, 1000, new BuildControl());
+    }
+}
@@ -0,0 +1,78 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.b333vv.metric.benchmark.PsiCorpus;
+import org.b333vv.metric.model.metric.MetricLevel;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.visitor.kotlin.method.KotlinMethodVisitor;
+import org.b333vv.metric.model.visitor.kotlin.type.KotlinClassVisitor;
+import org.jetbrains.kotlin.psi.KtClassOrObject;
+import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.psi.KtNamedFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes of one Kotlin PSI visitor over all classes and objects, or all functions, of the corpus per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KotlinVisitorBenchmark {
+    @Param({"WMC", "ATFD", "DAC", "NOM", "NOA", "NCSS", "RFC", "CBO", "MPC", "LCOM", "DIT", "NOC", "TCC", "NOAC",
+            "NOAM", "NOO", "NOOM", "NOPA", "SIZE2", "WOC",
+            "LOC", "CC", "CND", "LND", "CCM", "MND", "NOPM", "NOL", "LAA", "FDP", "CINT", "CDISP", "NOAV"})
+    public String metric;
+
+    private MetricType metricType;
+    private final List<KtClassOrObject> classes = new ArrayList<>();
+    private final List<KtNamedFunction> functions = new ArrayList<>();
+
+    @Setup
+    public void setUp(PsiCorpus corpus) {
+        metricType = MetricType.valueOf(metric);
+        ReadAction.run(() -> {
+            for (KtFile file : corpus.getKotlinFiles()) {
+                classes.addAll(PsiTreeUtil.findChildrenOfType(file, KtClassOrObject.class));
+                functions.addAll(PsiTreeUtil.findChildrenOfType(file, KtNamedFunction.class));
+            }
+        });
+    }
+
+    @Benchmark
+    public void visit(Blackhole blackhole) {
+        ReadAction.run(() -> {
+            if (metricType.level() == MetricLevel.METHOD) {
+                KotlinMethodVisitor visitor = KotlinModelBuilder.createMethodVisitor(metricType);
+                for (KtNamedFunction function : functions) {
+                    visitor.computeFor(function);
+                    blackhole.consume(visitor.getMetric());
+                }
+            } else {
+                KotlinClassVisitor visitor = KotlinModelBuilder.createClassVisitor(metricType);
+                for (KtClassOrObject ktClass : classes) {
+                    visitor.computeFor(ktClass);
+                    blackhole.consume(visitor.getMetric());
+                }
+            }
+        });
+    }
+}
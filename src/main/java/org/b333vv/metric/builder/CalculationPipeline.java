@@ -0,0 +1,70 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the language backends of a calculation concurrently on the same set of files and merges their results.
+ * The first backend builds the code model on the calling thread, the others calculate on pooled threads in the
+ * meantime and are merged into the model in the order they are given.
+ */
+public final class CalculationPipeline {
+    private final List<LanguageBackend> backends;
+
+    public CalculationPipeline(@NotNull List<LanguageBackend> backends) {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("At least the backend building the model is required");
+        }
+        this.backends = List.copyOf(backends);
+    }
+
+    @NotNull
+    public ProjectElement calculate(@NotNull LanguageBackend.Context context) {
+        List<Future<LanguageBackend.Result>> others = new ArrayList<>(backends.size() - 1);
+        for (LanguageBackend backend : backends.subList(1, backends.size())) {
+            others.add(AppExecutorUtil.getAppExecutorService().submit(() -> ProgressManager.getInstance()
+                    .runProcess(() -> backend.calculate(context), context.indicator())));
+        }
+        ProjectElement model;
+        try {
+            model = backends.get(0).calculate(context).getModel();
+            if (model == null) {
+                throw new IllegalStateException("The first backend of a pipeline must build the model");
+            }
+        } catch (RuntimeException | Error e) {
+            others.forEach(other -> other.cancel(true));
+            throw e;
+        }
+        for (Future<LanguageBackend.Result> other : others) {
+            context.indicator().checkCanceled();
+            await(other).mergeInto(model, context.indicator());
+        }
+        return model;
+    }
+
+    private static LanguageBackend.Result await(Future<LanguageBackend.Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -8,7 +8,11 @@ import org.knowm.xchart.CategoryChart;
 public class CategoryChartDataCalculator {
     public CategoryChart calculate(ProjectElement projectElement, Project project) {
         ClassesByMetricsValuesCounter distributor = new ClassesByMetricsValuesCounter(project);
+        return calculate(distributor.histogram(projectElement));
+    }
+
+    public CategoryChart calculate(MetricsValuesHistogram histogram) {
         MetricCategoryChartBuilder metricCategoryChartBuilder = new MetricCategoryChartBuilder();
-        return metricCategoryChartBuilder.createChart(distributor.classesByMetricsValuesDistribution(projectElement));
+        return metricCategoryChartBuilder.createChart(histogram.toRelativeDistribution());
     }
 }
\ No newline at end of file
@@ -26,10 +26,15 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.b333vv.metric.builder.ClassLevelFitnessFunctionBuilder.classesByMetricsProfileDistribution;
+import static org.b333vv.metric.builder.ClassLevelFitnessFunctionBuilder.classesByMetricsProfileMembership;
 
 public class ClassFitnessFunctionCalculator {
 
     public Map<FitnessFunction, Set<ClassElement>> calculate(Project project, ProjectElement projectElement) {
         return classesByMetricsProfileDistribution(project, projectElement);
     }
+
+    public ClassProfileMembership calculateMembership(Project project, ProjectElement projectElement) {
+        return classesByMetricsProfileMembership(project, projectElement);
+    }
 }
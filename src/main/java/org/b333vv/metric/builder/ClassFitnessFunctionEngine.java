@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.MethodElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricLevel;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.BasicMetricsRange;
+import org.b333vv.metric.model.metric.value.DerivativeMetricsRange;
+import org.b333vv.metric.model.metric.value.Range;
+import org.b333vv.metric.model.metric.value.Value;
+import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates all class level fitness functions in one pass over the classes.
+ * <p>
+ * Every profile is compiled into primitive bounds over the columns of a class by metric value matrix.
+ * A METHOD level entry holds for a class when some method is regular for it (or does not have the metric),
+ * so these entries are reduced to per-class flags, once per distinct metric and range. Classes are processed
+ * in parallel chunks and the result is a class by profile bitset.
+ */
+public class ClassFitnessFunctionEngine {
+    // a multiple of 64, so that parallel chunks never write to the same bitset word
+    private static final int CHUNK_SIZE = 1024;
+
+    public ClassProfileMembership evaluate(@NotNull Collection<FitnessFunction> fitnessFunctions,
+                                           @NotNull List<ClassElement> classes) {
+        List<FitnessFunction> profiles = new ArrayList<>(fitnessFunctions);
+        Collections.sort(profiles);
+
+        Map<MetricType, Integer> classColumns = new EnumMap<>(MetricType.class);
+        Map<Criterion, Integer> methodCriteria = new LinkedHashMap<>();
+        CompiledProfile[] compiled = new CompiledProfile[profiles.size()];
+        for (int p = 0; p < profiles.size(); p++) {
+            compiled[p] = compile(profiles.get(p), classColumns, methodCriteria);
+        }
+
+        int classCount = classes.size();
+        int chunks = (classCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        MetricType[] columnTypes = new MetricType[classColumns.size()];
+        classColumns.forEach((type, column) -> columnTypes[column] = type);
+        double[][] values = new double[columnTypes.length][classCount];
+        boolean[][] present = new boolean[columnTypes.length][classCount];
+        Criterion[] criteria = methodCriteria.keySet().toArray(new Criterion[0]);
+        long[][] methodFlags = new long[criteria.length][(classCount + 63) >>> 6];
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int to = Math.min(classCount, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < to; i++) {
+                ClassElement javaClass = classes.get(i);
+                for (int c = 0; c < columnTypes.length; c++) {
+                    Metric metric = javaClass.metric(columnTypes[c]);
+                    if (metric != null) {
+                        present[c][i] = true;
+                        values[c][i] = toDouble(metric.getPsiValue());
+                    }
+                }
+                if (criteria.length > 0) {
+                    List<MethodElement> methods = javaClass.methods().toList();
+                    for (int k = 0; k < criteria.length; k++) {
+                        if (anyMethodRegular(methods, criteria[k])) {
+                            methodFlags[k][i >>> 6] |= 1L << i;
+                        }
+                    }
+                }
+            }
+        });
+
+        long[][] bits = new long[compiled.length][(classCount + 63) >>> 6];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int to = Math.min(classCount, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < to; i++) {
+                for (int p = 0; p < compiled.length; p++) {
+                    if (compiled[p].fits(i, values, present, methodFlags)) {
+                        bits[p][i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        });
+
+        BitSet[] classesByProfile = new BitSet[compiled.length];
+        for (int p = 0; p < compiled.length; p++) {
+            classesByProfile[p] = BitSet.valueOf(bits[p]);
+        }
+        return new ClassProfileMembership(profiles, classes, classesByProfile);
+    }
+
+    private static CompiledProfile compile(FitnessFunction profile, Map<MetricType, Integer> classColumns,
+                                           Map<Criterion, Integer> methodCriteria) {
+        List<Map.Entry<MetricType, Range>> classEntries = new ArrayList<>();
+        List<Integer> methodEntries = new ArrayList<>();
+        for (Map.Entry<MetricType, Range> entry : profile.profile().entrySet()) {
+            if (entry.getKey().level() == MetricLevel.CLASS) {
+                classEntries.add(entry);
+            } else if (entry.getKey().level() == MetricLevel.METHOD) {
+                Criterion criterion = new Criterion(entry.getKey(), entry.getValue());
+                methodEntries.add(methodCriteria.computeIfAbsent(criterion, k -> methodCriteria.size()));
+            }
+        }
+        int[] columns = new int[classEntries.size()];
+        double[] lower = new double[classEntries.size()];
+        double[] upper = new double[classEntries.size()];
+        for (int e = 0; e < classEntries.size(); e++) {
+            Criterion criterion = new Criterion(classEntries.get(e).getKey(), classEntries.get(e).getValue());
+            columns[e] = classColumns.computeIfAbsent(criterion.type, k -> classColumns.size());
+            lower[e] = criterion.lower;
+            upper[e] = criterion.upper;
+        }
+        return new CompiledProfile(columns, lower, upper, methodEntries.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static boolean anyMethodRegular(List<MethodElement> methods, Criterion criterion) {
+        for (MethodElement method : methods) {
+            Metric metric = method.metric(criterion.type);
+            if (metric == null || isRegular(toDouble(metric.getPsiValue()), criterion.lower, criterion.upper)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRegular(double value, double lower, double upper) {
+        return Double.compare(value, lower) >= 0 && Double.compare(value, upper) <= 0;
+    }
+
+    /**
+     * Values that can never be regular (undefined, infinity, missing) are mapped to NaN.
+     */
+    private static double toDouble(Value value) {
+        if (value == null || value == Value.UNDEFINED || value == Value.INFINITY) {
+            return Double.NaN;
+        }
+        return value.doubleValue();
+    }
+
+    private static final class CompiledProfile {
+        private final int[] columns;
+        private final double[] lower;
+        private final double[] upper;
+        private final int[] methodCriteria;
+
+        private CompiledProfile(int[] columns, double[] lower, double[] upper, int[] methodCriteria) {
+            this.columns = columns;
+            this.lower = lower;
+            this.upper = upper;
+            this.methodCriteria = methodCriteria;
+        }
+
+        private boolean fits(int classIndex, double[][] values, boolean[][] present, long[][] methodFlags) {
+            for (int e = 0; e < columns.length; e++) {
+                int column = columns[e];
+                if (present[column][classIndex] && !isRegular(values[column][classIndex], lower[e], upper[e])) {
+                    return false;
+                }
+            }
+            for (int criterion : methodCriteria) {
+                if ((methodFlags[criterion][classIndex >>> 6] & (1L << classIndex)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A metric together with the closed interval of its regular values. Ranges that are never regular
+     * get an empty interval.
+     */
+    private static final class Criterion {
+        private final MetricType type;
+        private final double lower;
+        private final double upper;
+
+        private Criterion(MetricType type, Range range) {
+            this.type = type;
+            if (range instanceof DerivativeMetricsRange && range != DerivativeMetricsRange.UNDEFINED) {
+                lower = range.getRegularFrom().doubleValue();
+                upper = range.getRegularTo().doubleValue();
+            } else if (range instanceof BasicMetricsRange && range != BasicMetricsRange.UNDEFINED) {
+                // regular values of a basic range are [0..regular)
+                lower = 0.0;
+                upper = Math.nextDown(range.getRegularTo().doubleValue());
+            } else {
+                lower = Double.POSITIVE_INFINITY;
+                upper = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Criterion)) return false;
+            Criterion criterion = (Criterion) o;
+            return type == criterion.type
+                    && Double.compare(lower, criterion.lower) == 0
+                    && Double.compare(upper, criterion.upper) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, lower, upper);
+        }
+    }
+}
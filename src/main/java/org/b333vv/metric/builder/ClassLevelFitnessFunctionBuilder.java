@@ -18,14 +18,11 @@ package org.b333vv.metric.builder;
 
 import com.intellij.openapi.project.Project;
 import org.b333vv.metric.model.code.ClassElement;
-import org.b333vv.metric.model.code.MethodElement;
 import org.b333vv.metric.model.code.ProjectElement;
-import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricLevel;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.metric.value.DerivativeMetricsRange;
 import org.b333vv.metric.model.metric.value.Range;
-import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.model.metric.value.Value;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
 import org.b333vv.metric.ui.settings.fitnessfunction.FitnessFunctionItem;
@@ -36,47 +33,13 @@ import java.util.*;
 
 public class ClassLevelFitnessFunctionBuilder {
     public static Map<FitnessFunction, Set<ClassElement>> classesByMetricsProfileDistribution(Project project, ProjectElement projectElement) {
-        Map<FitnessFunction, Set<ClassElement>> fitnessFunctionResult = new TreeMap<>();
-        for (FitnessFunction profile : fitnessFunctionResult(project)) {
-            Set<ClassElement> classes = new HashSet<>();
-            projectElement.allClasses()
-                    .forEach(c -> {
-                        if (checkClass(c, profile)) {
-                            classes.add(c);
-                        }
-                    });
-            fitnessFunctionResult.put(profile, classes);
-        }
-        return Collections.unmodifiableMap(fitnessFunctionResult);
-    }
-
-    private static boolean checkClass(ClassElement javaClass, FitnessFunction profile) {
-        for (Map.Entry<MetricType, Range> entry : profile.profile().entrySet()) {
-            if (entry.getKey().level() == MetricLevel.CLASS) {
-                Metric m = javaClass.metric(entry.getKey());
-                if (m != null && entry.getValue().getRangeType(m.getPsiValue()) != RangeType.REGULAR) {
-                    return false;
-                }
-            } else if (entry.getKey().level() == MetricLevel.METHOD) {
-                Optional<Boolean> checkMethod = javaClass
-                        .methods()
-                        .map(javaMethod -> checkMethod(javaMethod, entry))
-                        .filter(e -> e.equals(Boolean.TRUE))
-                        .findAny();
-                if (checkMethod.isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return classesByMetricsProfileMembership(project, projectElement).toMap();
     }
 
-    private static boolean checkMethod(MethodElement javaMethod, Map.Entry<MetricType, Range> entry) {
-        Metric m = javaMethod.metric(entry.getKey());
-        return m == null || entry.getValue().getRangeType(m.getPsiValue()) == RangeType.REGULAR;
+    public static ClassProfileMembership classesByMetricsProfileMembership(Project project, ProjectElement projectElement) {
+        return new ClassFitnessFunctionEngine().evaluate(fitnessFunctionResult(project), projectElement.allClasses().toList());
     }
 
-
     private static Set<FitnessFunction> fitnessFunctionResult(Project project) {
         ClassLevelFitnessFunctions classLevelFitnessFunctions = project.getService(SettingsService.class).getClassLevelFitnessFunctions();
         Map<String, List<FitnessFunctionItem>> savedProfiles = classLevelFitnessFunctions.getProfiles();
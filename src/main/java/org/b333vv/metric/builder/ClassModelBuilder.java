@@ -17,18 +17,24 @@
 package org.b333vv.metric.builder;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
 import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.FileElement;
+import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.visitor.method.JavaMethodVisitor;
 import org.b333vv.metric.model.visitor.type.JavaClassVisitor;
+import org.b333vv.metric.service.CacheService;
 import org.b333vv.metric.ui.settings.composition.MetricsTreeSettingsStub;
 import org.b333vv.metric.util.SettingsService;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 // Do NOT import kotlin PSI here to avoid runtime classloading issues when Kotlin plugin is absent
+// (Kotlin files are built through LanguageFileBuilder)
 
+import java.util.Set;
 import java.util.stream.Stream;
 
 public class ClassModelBuilder extends ModelBuilder {
@@ -41,44 +47,51 @@ public class ClassModelBuilder extends ModelBuilder {
         return createJavaFile(psiJavaFile);
     }
 
+    /**
+     * Builds the metrics of a Java or Kotlin file for an open editor. Metrics of declarations that have
+     * not been edited since the previous build of the same file are taken from the snapshot kept in
+     * {@link CacheService}, so after an edit only the changed classes and methods are visited again,
+     * together with the metrics depending on other files.
+     */
+    @Nullable
+    public FileElement buildFileIncrementally(@NotNull PsiFile psiFile) {
+        CacheService cacheService = project.getService(CacheService.class);
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        Set<MetricType> enabledMetrics = enabledMetricTypes(project);
+        FileMetricsSnapshot previous = virtualFile != null ? cacheService.getFileMetricsSnapshot(virtualFile) : null;
+        if (previous != null && !previous.isCompatibleWith(enabledMetrics)) {
+            previous = null;
+        }
+        FileMetricsSnapshot current = new FileMetricsSnapshot(enabledMetrics);
+        FileElement fileElement = null;
+        if (psiFile instanceof PsiJavaFile) {
+            previousSnapshot = previous;
+            currentSnapshot = current;
+            try {
+                fileElement = createJavaFile((PsiJavaFile) psiFile);
+            } finally {
+                previousSnapshot = null;
+                currentSnapshot = null;
+            }
+        } else {
+            LanguageFileBuilder languageFileBuilder = LanguageFileBuilder.forFile(psiFile);
+            if (languageFileBuilder != null) {
+                fileElement = languageFileBuilder.createFileBuilder(project).buildFile(psiFile, previous, current);
+            }
+        }
+        if (fileElement != null && virtualFile != null) {
+            cacheService.putFileMetricsSnapshot(virtualFile, current);
+        }
+        return fileElement;
+    }
+
     public FileElement buildFile(@NotNull PsiFile psiFile) {
         if (psiFile instanceof PsiJavaFile) {
             return buildJavaFile((PsiJavaFile) psiFile);
         }
-        // Reflectively handle Kotlin file via KotlinModelBuilder to avoid touching ModelBuilder's methods
-        try {
-            if ("Kotlin".equals(psiFile.getFileType().getName()) || "KOTLIN".equals(psiFile.getFileType().getName())) {
-                Class<?> kmbClass = Class.forName("org.b333vv.metric.builder.KotlinModelBuilder");
-                java.lang.reflect.Constructor<?> ctor = kmbClass.getConstructor(Project.class);
-                Object kmb = ctor.newInstance(project);
-
-                Class<?> paramType = psiFile.getClass();
-                java.lang.reflect.Method target = null;
-                for (java.lang.reflect.Method method : kmbClass.getDeclaredMethods()) {
-                    if (method.getName().equals("createKotlinFile") && method.getParameterCount() == 1) {
-                        Class<?> p = method.getParameterTypes()[0];
-                        if (p.isAssignableFrom(paramType)) {
-                            target = method;
-                            break;
-                        }
-                    }
-                }
-                if (target != null) {
-                    target.setAccessible(true);
-                    Object res = target.invoke(kmb, psiFile);
-                    return (FileElement) res;
-                }
-            }
-        } catch (ClassNotFoundException e) {
-            // Kotlin builder not available -> Kotlin plugin/classes missing; safely ignore
-            project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                    .printInfo("[ClassModelBuilder] KotlinModelBuilder not found in classloader");
-        } catch (LinkageError e) {
-            // Kotlin PSI or transitive deps missing in classloader; safely ignore for non-Java files
-            project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                    .printInfo("[ClassModelBuilder] Linkage error during Kotlin reflection: " + e.getClass().getSimpleName());
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Failed to build Kotlin file via reflection", e);
+        LanguageFileBuilder languageFileBuilder = LanguageFileBuilder.forFile(psiFile);
+        if (languageFileBuilder != null) {
+            return languageFileBuilder.createFileBuilder(project).buildFile(psiFile);
         }
         return null;
     }
@@ -90,7 +103,7 @@ public class ClassModelBuilder extends ModelBuilder {
                 .getClassMetricsTreeSettings()
                 .getMetricsList().stream()
                 .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                .map(m -> m.getType().visitor())
+                .map(m -> m.getType().createVisitor())
                 .filter(m -> m instanceof JavaClassVisitor);
     }
 
@@ -102,7 +115,7 @@ public class ClassModelBuilder extends ModelBuilder {
                 .getClassMetricsTreeSettings()
                 .getMetricsList().stream()
                 .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                .map(m -> m.getType().visitor())
+                .map(m -> m.getType().createVisitor())
                 .filter(m -> m instanceof JavaMethodVisitor);
     }
 
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Result of evaluating class level fitness functions: a class by profile bitset. Bit {@code i} of profile
+ * {@code p} is set when {@code getClasses().get(i)} fits {@code getProfiles().get(p)}. The charts work on the
+ * bitsets directly, the rest of the UI uses the {@link #toMap() map view}.
+ */
+public final class ClassProfileMembership {
+    private final List<FitnessFunction> profiles;
+    private final List<ClassElement> classes;
+    private final BitSet[] classesByProfile;
+    private final Map<FitnessFunction, Integer> profileIndex = new HashMap<>();
+    private volatile Map<FitnessFunction, Set<ClassElement>> map;
+
+    ClassProfileMembership(@NotNull List<FitnessFunction> profiles, @NotNull List<ClassElement> classes,
+                           @NotNull BitSet[] classesByProfile) {
+        this.profiles = List.copyOf(profiles);
+        this.classes = List.copyOf(classes);
+        this.classesByProfile = classesByProfile;
+        for (int i = 0; i < this.profiles.size(); i++) {
+            profileIndex.put(this.profiles.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the membership the map was created from, or indexes a map that was built elsewhere.
+     */
+    public static ClassProfileMembership from(@NotNull Map<FitnessFunction, Set<ClassElement>> classesByProfile) {
+        if (classesByProfile instanceof MembershipMap) {
+            return ((MembershipMap) classesByProfile).membership;
+        }
+        List<FitnessFunction> profiles = new ArrayList<>(classesByProfile.keySet());
+        Collections.sort(profiles);
+        Map<ClassElement, Integer> classIndex = new LinkedHashMap<>();
+        BitSet[] bits = new BitSet[profiles.size()];
+        for (int p = 0; p < profiles.size(); p++) {
+            bits[p] = new BitSet();
+            Set<ClassElement> classes = classesByProfile.get(profiles.get(p));
+            if (classes != null) {
+                for (ClassElement c : classes) {
+                    bits[p].set(classIndex.computeIfAbsent(c, k -> classIndex.size()));
+                }
+            }
+        }
+        return new ClassProfileMembership(profiles, new ArrayList<>(classIndex.keySet()), bits);
+    }
+
+    /**
+     * Profiles in their natural order.
+     */
+    public List<FitnessFunction> getProfiles() {
+        return profiles;
+    }
+
+    public List<ClassElement> getClasses() {
+        return classes;
+    }
+
+    public int indexOf(@NotNull FitnessFunction profile) {
+        Integer index = profileIndex.get(profile);
+        return index == null ? -1 : index;
+    }
+
+    public BitSet classesOf(int profile) {
+        return (BitSet) classesByProfile[profile].clone();
+    }
+
+    public Stream<ClassElement> classes(int profile) {
+        return classesByProfile[profile].stream().mapToObj(classes::get);
+    }
+
+    public int classCount(int profile) {
+        return classesByProfile[profile].cardinality();
+    }
+
+    public int intersectionSize(int profile1, int profile2) {
+        BitSet intersection = classesOf(profile1);
+        intersection.and(classesByProfile[profile2]);
+        return intersection.cardinality();
+    }
+
+    public int unionSize(int profile1, int profile2) {
+        BitSet union = classesOf(profile1);
+        union.or(classesByProfile[profile2]);
+        return union.cardinality();
+    }
+
+    /**
+     * Unmodifiable view of the result as classes by profile, ordered by profile.
+     */
+    public Map<FitnessFunction, Set<ClassElement>> toMap() {
+        Map<FitnessFunction, Set<ClassElement>> result = map;
+        if (result == null) {
+            Map<FitnessFunction, Set<ClassElement>> classesMap = new TreeMap<>();
+            for (int p = 0; p < profiles.size(); p++) {
+                Set<ClassElement> profileClasses = new HashSet<>();
+                classes(p).forEach(profileClasses::add);
+                classesMap.put(profiles.get(p), Collections.unmodifiableSet(profileClasses));
+            }
+            result = new MembershipMap(this, Collections.unmodifiableMap(classesMap));
+            map = result;
+        }
+        return result;
+    }
+
+    private static final class MembershipMap extends AbstractMap<FitnessFunction, Set<ClassElement>> {
+        private final ClassProfileMembership membership;
+        private final Map<FitnessFunction, Set<ClassElement>> delegate;
+
+        private MembershipMap(ClassProfileMembership membership, Map<FitnessFunction, Set<ClassElement>> delegate) {
+            this.membership = membership;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Set<Entry<FitnessFunction, Set<ClassElement>>> entrySet() {
+            return delegate.entrySet();
+        }
+
+        @Override
+        public Set<ClassElement> get(Object key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return delegate.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+    }
+}
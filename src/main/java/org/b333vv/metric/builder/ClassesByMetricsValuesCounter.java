@@ -17,25 +17,14 @@
 package org.b333vv.metric.builder;
 
 import com.intellij.openapi.project.Project;
-import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.ProjectElement;
-import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.util.SettingsService;
 
-import java.util.*;
-import java.util.function.BiConsumer;
-import java.util.function.BinaryOperator;
-import java.util.function.Function;
-import java.util.function.Supplier;
-import java.util.stream.Collector;
-
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
+import java.util.Map;
 
 public class ClassesByMetricsValuesCounter {
-    private long numberOfClasses;
     private final Project project;
 
     public ClassesByMetricsValuesCounter(Project myProject) {
@@ -43,59 +32,10 @@ public class ClassesByMetricsValuesCounter {
     }
 
     public Map<MetricType, Map<RangeType, Double>> classesByMetricsValuesDistribution(ProjectElement projectElement) {
-        numberOfClasses = projectElement.allClasses().count();
-        return Collections.unmodifiableMap(projectElement.allClasses().flatMap(
-                inner -> inner.metrics()
-                        .filter(metric -> metric.getType().isLongValue()
-                                && project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) != RangeType.UNDEFINED)
-                        .collect(groupingBy(Metric::getType, groupingBy(i -> inner)))
-                        .entrySet()
-                        .stream())
-                .collect(groupingBy(Map.Entry::getKey, mapping(Map.Entry::getValue, new ClassesByRangeTypeDistributionCollector()))));
+        return histogram(projectElement).toRelativeDistribution();
     }
 
-    private class ClassesByRangeTypeDistributionCollector
-            implements Collector<Map<ClassElement, List<Metric>>, Map<RangeType, Long>, Map<RangeType, Double>>
-    {
-
-        @Override
-        public Supplier<Map<RangeType, Long>> supplier() {
-            return () -> new EnumMap<>(RangeType.class);
-        }
-
-        @Override
-        public BiConsumer<Map<RangeType, Long>, Map<ClassElement, List<Metric>>> accumulator() {
-            return (map, val) -> {
-                Map.Entry<ClassElement, List<Metric>> entry = val.entrySet().iterator().next();
-                Metric metric = entry.getValue().get(0);
-                RangeType rangeType = project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue());
-                map.merge(rangeType, 1L, Long::sum);
-            };
-        }
-
-        @Override
-        public Function<Map<RangeType, Long>, Map<RangeType, Double>> finisher() {
-            return ClassesByMetricsValuesCounter.this::makeValuesRelative;
-        }
-
-        @Override
-        public Set<Characteristics> characteristics() {
-            return Set.of();
-        }
-
-        @Override
-        public BinaryOperator<Map<RangeType, Long>> combiner() {
-            return (map1, map2) -> {
-                map2.forEach(map1::put);
-                return map1;
-            };
-        }
-    }
-    private Map<RangeType, Double> makeValuesRelative(Map<RangeType, Long> map) {
-        Map<RangeType, Double> classesPercentsByRangeType = new EnumMap<>(RangeType.class);
-        for (Map.Entry<RangeType, Long> entry : map.entrySet()) {
-            classesPercentsByRangeType.put(entry.getKey(), (double) entry.getValue() / (double) numberOfClasses);
-        }
-        return classesPercentsByRangeType;
+    public MetricsValuesHistogram histogram(ProjectElement projectElement) {
+        return MetricsValuesHistogram.of(projectElement, project.getService(SettingsService.class).getRangeTable());
     }
 }
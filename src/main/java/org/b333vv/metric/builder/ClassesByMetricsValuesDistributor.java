@@ -21,67 +21,67 @@ import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.ProjectElement;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeTable;
 import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.util.SettingsService;
-import org.b333vv.metric.util.CollectionUtils;
 
 import java.util.*;
-import java.util.function.BiConsumer;
-import java.util.function.BinaryOperator;
-import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.stream.Collector;
 
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
-
 public class ClassesByMetricsValuesDistributor {
-    public static Map<MetricType, Map<ClassElement, Metric>> classesByMetricsValuesDistribution(ProjectElement projectElement, Project project) {
-        return Collections.unmodifiableMap(projectElement.allClasses().flatMap(
-                inner -> inner.metrics()
-                        .filter(metric -> metric.getType().isLongValue()
-                                && project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) != RangeType.UNDEFINED)
-                        .collect(groupingBy(Metric::getType, groupingBy(i -> inner)))
-                        .entrySet()
-                        .stream())
-                .collect(groupingBy(Map.Entry::getKey, mapping(Map.Entry::getValue, new SortedByMetricsValuesClassesCollector()))));
+
+    /**
+     * Ranks the classes above the regular range of every metric type. The classes are collected in parallel, each
+     * thread keeping the top classes of every metric and range type in bounded heaps that are merged afterwards.
+     */
+    public static Map<MetricType, ClassesRanking> classesByMetricsValuesDistribution(ProjectElement projectElement, Project project) {
+        RangeTable rangeTable = project.getService(SettingsService.class).getRangeTable();
+        return Collections.unmodifiableMap(projectElement.allClasses()
+                .parallel()
+                .collect(Collector.of(
+                        () -> new Candidates(rangeTable),
+                        Candidates::add,
+                        Candidates::merge,
+                        Candidates::toRankings)));
     }
 
-    private static class SortedByMetricsValuesClassesCollector
-            implements Collector<Map<ClassElement, List<Metric>>, Map<ClassElement, Metric>, Map<ClassElement, Metric>>
-    {
+    private static class Candidates {
+        private final RangeTable rangeTable;
+        private final Map<MetricType, Map<RangeType, ClassesRanking.TopClasses>> byMetricType = new EnumMap<>(MetricType.class);
+
+        Candidates(RangeTable rangeTable) {
+            this.rangeTable = rangeTable;
+        }
 
-        @Override
-        public Supplier<Map<ClassElement, Metric>> supplier() {
-            return LinkedHashMap::new;
+        void add(ClassElement javaClass) {
+            javaClass.metrics()
+                    .filter(metric -> metric.getType().isLongValue())
+                    .forEach(metric -> add(javaClass, metric));
         }
 
-        @Override
-        public BiConsumer<Map<ClassElement, Metric>, Map<ClassElement, List<Metric>>> accumulator() {
-            return (map, val) -> {
-                Map.Entry<ClassElement, List<Metric>> entry = val.entrySet().iterator().next();
-                ClassElement javaClass = entry.getKey();
-                Metric metric = entry.getValue().get(0);
-                map.put(javaClass, metric);
-            };
+        private void add(ClassElement javaClass, Metric metric) {
+            RangeType rangeType = rangeTable.classify(metric.getType(), metric.getPsiValue());
+            if (rangeType != RangeType.UNDEFINED && rangeType != RangeType.REGULAR) {
+                topClasses(metric.getType(), rangeType).add(new ClassesRanking.Entry(javaClass, metric));
+            }
         }
 
-        @Override
-        public Function<Map<ClassElement, Metric>, Map<ClassElement, Metric>> finisher() {
-            return CollectionUtils::sortByValueReversed;
+        private ClassesRanking.TopClasses topClasses(MetricType metricType, RangeType rangeType) {
+            return byMetricType.computeIfAbsent(metricType, t -> new EnumMap<>(RangeType.class))
+                    .computeIfAbsent(rangeType, t -> new ClassesRanking.TopClasses(ClassesRanking.LIMIT));
         }
 
-        @Override
-        public Set<Characteristics> characteristics() {
-            return Set.of();
+        Candidates merge(Candidates other) {
+            other.byMetricType.forEach((metricType, byRangeType) ->
+                    byRangeType.forEach((rangeType, top) -> topClasses(metricType, rangeType).addAll(top)));
+            return this;
         }
 
-        @Override
-        public BinaryOperator<Map<ClassElement, Metric>> combiner() {
-            return (map1, map2) -> {
-                map2.forEach(map1::put);
-                return map1;
-            };
+        Map<MetricType, ClassesRanking> toRankings() {
+            Map<MetricType, ClassesRanking> rankings = new EnumMap<>(MetricType.class);
+            byMetricType.forEach((metricType, byRangeType) ->
+                    rankings.put(metricType, ClassesRanking.of(metricType, byRangeType)));
+            return rankings;
         }
     }
 }
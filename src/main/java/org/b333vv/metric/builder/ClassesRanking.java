@@ -0,0 +1,130 @@
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Classes whose value of one metric type lies above the regular range, ranked by descending value per range type.
+ * <p>
+ * Only the {@link #LIMIT} classes with the greatest values of a range type are kept, selected with a bounded heap
+ * while the classes are collected, so a ranking holds at most that many classes per range type however large the
+ * project is. The classes beyond are only counted.
+ * </p>
+ */
+public final class ClassesRanking {
+    public static final int PAGE_SIZE = 100;
+    public static final int LIMIT = 10 * PAGE_SIZE;
+
+    private static final Comparator<Entry> ASCENDING = Comparator
+            .comparing((Entry e) -> e.metric().getPsiValue())
+            .thenComparing(e -> e.javaClass().getName(), Comparator.reverseOrder());
+
+    private final MetricType metricType;
+    private final Map<RangeType, List<Entry>> ranked = new EnumMap<>(RangeType.class);
+    private final Map<RangeType, Integer> counts = new EnumMap<>(RangeType.class);
+
+    public record Entry(@NotNull ClassElement javaClass, @NotNull Metric metric) {
+    }
+
+    /**
+     * The classes of one range type with the greatest values, at most a limit of them, in a min-heap so that the
+     * next class only has to be compared with the least one kept.
+     */
+    static final class TopClasses {
+        private final int limit;
+        private final PriorityQueue<Entry> heap = new PriorityQueue<>(ASCENDING);
+        private int count;
+
+        TopClasses(int limit) {
+            this.limit = limit;
+        }
+
+        void add(@NotNull Entry entry) {
+            count++;
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (limit > 0 && ASCENDING.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        void addAll(@NotNull TopClasses other) {
+            other.heap.forEach(this::add);
+            count += other.count - other.heap.size();
+        }
+
+        private List<Entry> descending() {
+            List<Entry> entries = new ArrayList<>(heap);
+            entries.sort(ASCENDING.reversed());
+            return List.copyOf(entries);
+        }
+    }
+
+    ClassesRanking(@NotNull MetricType metricType, @NotNull Map<RangeType, List<Entry>> candidates) {
+        this(metricType, candidates, LIMIT);
+    }
+
+    ClassesRanking(@NotNull MetricType metricType, @NotNull Map<RangeType, List<Entry>> candidates, int limit) {
+        this.metricType = metricType;
+        candidates.forEach((rangeType, entries) -> {
+            TopClasses top = new TopClasses(limit);
+            entries.forEach(top::add);
+            add(rangeType, top);
+        });
+    }
+
+    private ClassesRanking(@NotNull MetricType metricType) {
+        this.metricType = metricType;
+    }
+
+    static ClassesRanking of(@NotNull MetricType metricType, @NotNull Map<RangeType, TopClasses> topClasses) {
+        ClassesRanking ranking = new ClassesRanking(metricType);
+        topClasses.forEach(ranking::add);
+        return ranking;
+    }
+
+    private void add(RangeType rangeType, TopClasses top) {
+        ranked.put(rangeType, top.descending());
+        counts.put(rangeType, top.count);
+    }
+
+    public static ClassesRanking empty(@NotNull MetricType metricType) {
+        return new ClassesRanking(metricType);
+    }
+
+    public MetricType getMetricType() {
+        return metricType;
+    }
+
+    /**
+     * @return number of classes of the range type, including the ones beyond the ranked ones
+     */
+    public int count(@NotNull RangeType rangeType) {
+        return counts.getOrDefault(rangeType, 0);
+    }
+
+    /**
+     * @return number of classes of the range type that pages can show
+     */
+    public int rankedCount(@NotNull RangeType rangeType) {
+        return ranked.getOrDefault(rangeType, List.of()).size();
+    }
+
+    public boolean isEmpty() {
+        return counts.values().stream().allMatch(count -> count == 0);
+    }
+
+    /**
+     * @return at most {@code limit} classes of the range type, the one with the greatest value first
+     */
+    public List<Entry> top(@NotNull RangeType rangeType, int limit) {
+        List<Entry> all = ranked.getOrDefault(rangeType, List.of());
+        return all.subList(0, Math.max(0, Math.min(limit, all.size())));
+    }
+}
@@ -27,6 +27,7 @@ import org.jetbrains.kotlin.psi.*;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class DependenciesBuilder {
@@ -54,6 +55,49 @@ public class DependenciesBuilder {
         });
     }
 
+    /**
+     * Records the dependencies of one class, a light class for Kotlin, as {@link #build} records them for the class
+     * when it visits its file. Anonymous and local classes belong to the class, classes nested in it are not visited.
+     */
+    public void buildClass(PsiClass psiClass) {
+        if (psiClass.getNavigationElement() instanceof KtClassOrObject) {
+            KtClassOrObject classOrObject = (KtClassOrObject) psiClass.getNavigationElement();
+            classOrObject.accept(new KotlinDependenciesVisitor(classOrObject));
+        } else {
+            psiClass.accept(new DependenciesVisitor(psiClass));
+        }
+    }
+
+    /**
+     * Adds the dependencies recorded by another builder for the classes accepted by the filter, as if these classes
+     * had been visited by this builder. Builders of modules are merged this way into the builder of the project.
+     */
+    public void merge(DependenciesBuilder other, Predicate<PsiClass> include) {
+        other.classesDependencies.forEach((currentClass, referencedClasses) -> {
+            if (!include.test(currentClass)) {
+                return;
+            }
+            final PsiPackage aPackage = ClassUtils.findPackage(currentClass);
+            for (PsiClass referencedClass : referencedClasses.getContents()) {
+                int count = referencedClasses.getCountForObject(referencedClass);
+                add(currentClass, referencedClass, count, classesDependencies);
+                add(referencedClass, currentClass, count, classesDependents);
+                final PsiPackage dependencyPackage = ClassUtils.findPackage(referencedClass);
+                if (dependencyPackage != null) {
+                    add(currentClass, dependencyPackage, count, packagesDependencies);
+                }
+                if (aPackage != null) {
+                    add(referencedClass, aPackage, count, packagesDependents);
+                }
+            }
+        });
+        other.unresolvedDependencies.forEach((currentClass, typeNames) -> {
+            if (include.test(currentClass)) {
+                unresolvedDependencies.computeIfAbsent(currentClass, k -> new HashSet<>()).addAll(typeNames);
+            }
+        });
+    }
+
     public Set<PsiClass> getClassesDependents(PsiClass psiClass) {
         Optional<Bag<PsiClass>> classesDependentsForClass = Optional.ofNullable(classesDependents.get(psiClass));
         return classesDependentsForClass
@@ -86,6 +130,15 @@ public class DependenciesBuilder {
                 .orElse(Collections.emptySet());
     }
 
+    /**
+     * @return number of classes having dependencies or dependents
+     */
+    public int size() {
+        Set<PsiClass> classes = new HashSet<>(classesDependencies.keySet());
+        classes.addAll(classesDependents.keySet());
+        return classes.size();
+    }
+
     public int getTotalCouplingCount(PsiClass psiClass) {
         Set<PsiClass> dependencies = getClassesDependencies(psiClass);
         Set<PsiClass> dependents = getClassesDependents(psiClass);
@@ -102,6 +155,10 @@ public class DependenciesBuilder {
         map.computeIfAbsent(k, (unused) -> new Bag<>()).add(v);
     }
 
+    private <K, V> void add(K k, V v, int count, Map<K, Bag<V>> map) {
+        map.computeIfAbsent(k, (unused) -> new Bag<>()).add(v, count);
+    }
+
     private void addDependencyForClass(PsiClass currentClass, PsiClass referencedClass) {
         if (currentClass == null || referencedClass == null || referencedClass.equals(currentClass)) {
             return;
@@ -182,10 +239,23 @@ public class DependenciesBuilder {
     private class DependenciesVisitor extends JavaRecursiveElementVisitor {
 
         private final ConcurrentStack<PsiClass> classStack = new ConcurrentStack<>();
+        private final PsiClass rootClass;
         private PsiClass currentClass = null;
 
+        DependenciesVisitor() {
+            this(null);
+        }
+
+        // Visits the root class only, if any, without the classes nested in it
+        DependenciesVisitor(@Nullable PsiClass rootClass) {
+            this.rootClass = rootClass;
+        }
+
         @Override
         public void visitClass(PsiClass psiClass) {
+            if (rootClass != null && psiClass != rootClass && !ClassUtils.isAnonymous(psiClass)) {
+                return;
+            }
             if (!ClassUtils.isAnonymous(psiClass)) {
                 classStack.push(currentClass);
                 currentClass = psiClass;
@@ -282,8 +352,18 @@ public class DependenciesBuilder {
 
     private class KotlinDependenciesVisitor extends KtTreeVisitorVoid {
         private final ConcurrentStack<PsiClass> classStack = new ConcurrentStack<>();
+        private final KtClassOrObject rootClass;
         private PsiClass currentClass = null;
 
+        KotlinDependenciesVisitor() {
+            this(null);
+        }
+
+        // Visits the root class only, if any, without the classes nested in it
+        KotlinDependenciesVisitor(@Nullable KtClassOrObject rootClass) {
+            this.rootClass = rootClass;
+        }
+
         @Override
         public void visitClass(KtClass ktClass) {
             handleClass(ktClass, () -> super.visitClass(ktClass));
@@ -296,6 +376,10 @@ public class DependenciesBuilder {
 
         private void handleClass(KtClassOrObject classOrObject, Runnable superCall) {
             PsiClass psiClass = toLightClass(classOrObject);
+            if (rootClass != null && classOrObject != rootClass && psiClass != null
+                    && !ClassUtils.isAnonymous(psiClass)) {
+                return;
+            }
             if (psiClass != null && !ClassUtils.isAnonymous(psiClass)) {
                 classStack.push(currentClass);
                 currentClass = psiClass;
@@ -21,6 +21,7 @@ import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -33,6 +34,9 @@ import org.b333vv.metric.builder.DependenciesBuilder;
 public class DependenciesCalculator {
 
     private final AnalysisScope scope;
+    private final FileInventory inventory;
+    private final Project project;
+    private final boolean includeTests;
     private final DependenciesBuilder dependenciesBuilder;
 
     private ProgressIndicator indicator;
@@ -41,6 +45,18 @@ public class DependenciesCalculator {
 
     public DependenciesCalculator(AnalysisScope scope, DependenciesBuilder dependenciesBuilder) {
         this.scope = scope;
+        this.inventory = null;
+        this.project = scope.getProject();
+        this.includeTests = true;
+        this.dependenciesBuilder = dependenciesBuilder;
+    }
+
+    public DependenciesCalculator(Project project, FileInventory inventory, boolean includeTests,
+                                  DependenciesBuilder dependenciesBuilder) {
+        this.scope = null;
+        this.inventory = inventory;
+        this.project = project;
+        this.includeTests = includeTests;
         this.dependenciesBuilder = dependenciesBuilder;
     }
 
@@ -50,17 +66,19 @@ public class DependenciesCalculator {
             // In test environment, use EmptyProgressIndicator
             indicator = new EmptyProgressIndicator();
         }
-        filesCount = scope.getFileCount();
-        indicator.setText("Calculating dependencies");
-        scope.accept(new PsiJavaFileVisitor());
-        return dependenciesBuilder;
+        return calculateDependencies(indicator);
     }
 
     public DependenciesBuilder calculateDependencies(ProgressIndicator progressIndicator) {
         this.indicator = progressIndicator;
-        filesCount = scope.getFileCount();
         indicator.setText("Calculating dependencies");
-        scope.accept(new PsiJavaFileVisitor());
+        if (inventory != null) {
+            filesCount = inventory.files(includeTests).size();
+            inventory.forEachPsiFile(project, includeTests, indicator, this::buildFile);
+        } else {
+            filesCount = scope.getFileCount();
+            scope.accept(new PsiJavaFileVisitor());
+        }
         return dependenciesBuilder;
     }
 
@@ -83,12 +101,16 @@ public class DependenciesCalculator {
             if (fileIndex.isExcluded(virtualFile) || !fileIndex.isInContent(virtualFile)) {
                 return;
             }
-            final String fileName = psiFile.getName();
-            indicator.setText("Calculating dependencies: processing file " + fileName + "...");
-            progress++;
-            dependenciesBuilder.build(psiFile);
-            indicator.setIndeterminate(false);
-            indicator.setFraction((double) progress / (double) filesCount);
+            buildFile(psiFile);
         }
     }
+
+    private void buildFile(PsiFile psiFile) {
+        final String fileName = psiFile.getName();
+        indicator.setText("Calculating dependencies: processing file " + fileName + "...");
+        progress++;
+        dependenciesBuilder.build(psiFile);
+        indicator.setIndeterminate(false);
+        indicator.setFraction((double) progress / (double) filesCount);
+    }
 }
@@ -0,0 +1,140 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ContentIterator;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiCompiledElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import org.b333vv.metric.service.ProfilingService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The Java and Kotlin source files of a module, or of the whole project, collected with a single walk of the
+ * project file index. Calculation stages iterate the inventory instead of walking an
+ * {@link com.intellij.analysis.AnalysisScope} each, so the content, exclusion and test source checks run once per
+ * file. Kept in {@link org.b333vv.metric.service.CacheService} and updated from VFS events; it goes stale as soon
+ * as the project roots change.
+ */
+public final class FileInventory {
+
+    public enum Kind {
+        JAVA, KOTLIN
+    }
+
+    public record Entry(@NotNull VirtualFile file, @NotNull Kind kind, boolean test, long modificationStamp) {
+    }
+
+    private final long rootsModificationCount;
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+    private FileInventory(long rootsModificationCount) {
+        this.rootsModificationCount = rootsModificationCount;
+    }
+
+    public static FileInventory build(@NotNull Project project, @Nullable Module module) {
+        ProjectRootManager rootManager = ProjectRootManager.getInstance(project);
+        ProjectFileIndex fileIndex = rootManager.getFileIndex();
+        FileInventory inventory = new FileInventory(rootManager.getModificationCount());
+        ContentIterator iterator = file -> {
+            Kind kind = kindOf(file);
+            if (kind != null && !fileIndex.isExcluded(file) && fileIndex.isInContent(file)
+                    && !fileIndex.isInLibrarySource(file)) {
+                inventory.put(new Entry(file, kind, fileIndex.isInTestSourceContent(file), file.getModificationStamp()));
+            }
+            return true;
+        };
+        ReadAction.run(() -> {
+            if (module != null) {
+                ModuleRootManager.getInstance(module).getFileIndex().iterateContent(iterator);
+            } else {
+                fileIndex.iterateContent(iterator);
+            }
+        });
+        return inventory;
+    }
+
+    @Nullable
+    public static Kind kindOf(@NotNull VirtualFile file) {
+        if (file.isDirectory()) {
+            return null;
+        }
+        FileType fileType = file.getFileType();
+        if (fileType.isBinary()) {
+            return null;
+        }
+        String name = fileType.getName();
+        if ("JAVA".equals(name)) {
+            return Kind.JAVA;
+        }
+        if ("Kotlin".equals(name) || "KOTLIN".equals(name)) {
+            return Kind.KOTLIN;
+        }
+        return null;
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.file().getPath(), entry);
+    }
+
+    public boolean isUpToDate(@NotNull Project project) {
+        return rootsModificationCount == ProjectRootManager.getInstance(project).getModificationCount();
+    }
+
+    /**
+     * Records the new modification stamp of a changed file of the inventory.
+     */
+    public void update(@NotNull VirtualFile file) {
+        entries.computeIfPresent(file.getPath(),
+                (path, entry) -> new Entry(file, entry.kind(), entry.test(), file.getModificationStamp()));
+    }
+
+    public void remove(@NotNull String path) {
+        entries.remove(path);
+    }
+
+    /**
+     * @return the files in path order, test sources only if {@code includeTests} is set
+     */
+    public List<Entry> files(boolean includeTests) {
+        return entries.values().stream()
+                .filter(entry -> includeTests || !entry.test())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Runs the action for the source PSI file of every file of the inventory, each in its own read action like
+     * {@link com.intellij.analysis.AnalysisScope#accept} does.
+     */
+    public void forEachPsiFile(@NotNull Project project, boolean includeTests, @NotNull ProgressIndicator indicator,
+                               @NotNull Consumer<PsiFile> action) {
+        PsiManager psiManager = PsiManager.getInstance(project);
+        List<Entry> entries = files(includeTests);
+        for (Entry entry : entries) {
+            indicator.checkCanceled();
+            ReadAction.run(() -> {
+                if (!entry.file().isValid()) {
+                    return;
+                }
+                PsiFile psiFile = psiManager.findFile(entry.file());
+                if (psiFile != null && !(psiFile instanceof PsiCompiledElement)) {
+                    action.accept(psiFile);
+                }
+            });
+        }
+        project.getService(ProfilingService.class).filesProcessed(entries.size());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.builder;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.b333vv.metric.model.code.CodeElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.b333vv.metric.model.metric.MetricType.*;
+
+/**
+ * Metrics of the declarations (classes, methods, constructors) of a single file, keyed by declaration.
+ * A model builder that is given the snapshot of the previous build reuses the metrics of every declaration
+ * that has not been edited since, and runs the visitors only for the edited ones. Edits are reported by
+ * {@link #invalidate(PsiElement, PsiElement)} before they are applied to the PSI. An entry is only restored while
+ * the length and the hash of the declaration text are those it was stored with, so that an edit no PSI event
+ * reported is not covered by stale metrics. Metrics depending on other files are not kept and are always
+ * calculated anew.
+ */
+public final class FileMetricsSnapshot {
+    /** Metrics whose values change with the declarations of other files. */
+    private static final Set<MetricType> DEPENDENT_METRICS = EnumSet.of(DIT, NOC, CBO, RFC, NOOM, NOAM, MPC, DAC,
+            ATFD, LAA, FDP, CINT, CDISP);
+
+    private final Set<MetricType> enabledMetrics;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Keys of the stored entries by the declarations they were calculated for. */
+    private final Map<PsiElement, Set<String>> declarations = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public FileMetricsSnapshot(@NotNull Set<MetricType> enabledMetrics) {
+        this.enabledMetrics = Set.copyOf(enabledMetrics);
+    }
+
+    /**
+     * A snapshot may only be reused when it was built with the same set of enabled metrics.
+     */
+    public boolean isCompatibleWith(@NotNull Set<MetricType> enabledMetrics) {
+        return this.enabledMetrics.equals(enabledMetrics);
+    }
+
+    public Set<MetricType> getEnabledMetrics() {
+        return enabledMetrics;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if the metric depends on other files, so that it is calculated even for unchanged declarations
+     */
+    public static boolean isDependent(@NotNull MetricType type) {
+        return DEPENDENT_METRICS.contains(type);
+    }
+
+    /**
+     * Drops the entries of the declarations containing a PSI element about to change. A change outside of all
+     * known declarations drops every entry.
+     *
+     * @param parent the element whose children change
+     * @param child  the child added, removed or replaced, if any
+     */
+    public void invalidate(@Nullable PsiElement parent, @Nullable PsiElement child) {
+        boolean found = invalidateAncestors(parent);
+        invalidateAncestors(child);
+        if (!found) {
+            entries.clear();
+        }
+    }
+
+    private boolean invalidateAncestors(@Nullable PsiElement element) {
+        boolean found = false;
+        for (PsiElement e = element; e != null; e = e instanceof PsiFile ? null : e.getParent()) {
+            Set<String> keys = declarations.remove(e);
+            if (keys != null) {
+                keys.forEach(entries::remove);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Copies the stored metrics of the declaration into {@code target} if the declaration is unchanged.
+     *
+     * @return {@code true} if the metrics were restored and only the dependent metrics need calculating
+     */
+    boolean restore(@NotNull String key, @NotNull PsiElement declaration, @NotNull CodeElement target) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.length != declaration.getTextLength() || entry.textHash != textHash(declaration)) {
+            return false;
+        }
+        entry.metrics.forEach(target::addMetric);
+        return true;
+    }
+
+    void store(@NotNull String key, @NotNull PsiElement declaration, @NotNull CodeElement target) {
+        entries.put(key, new Entry(declaration.getTextLength(), textHash(declaration), target.metrics()
+                .filter(metric -> !isDependent(metric.getType()))
+                .toList()));
+        declarations.computeIfAbsent(declaration, d -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    // Hashes the characters of the tree node, which file-based PSI provides without copying them
+    private static int textHash(@NotNull PsiElement declaration) {
+        ASTNode node = declaration.getNode();
+        return StringUtil.stringHashCode(node != null ? node.getChars() : declaration.getText());
+    }
+
+    private static final class Entry {
+        private final int length;
+        private final int textHash;
+        private final List<Metric> metrics;
+
+        private Entry(int length, int textHash, List<Metric> metrics) {
+            this.length = length;
+            this.textHash = textHash;
+            this.metrics = metrics;
+        }
+    }
+}
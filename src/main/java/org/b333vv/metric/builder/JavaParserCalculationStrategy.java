@@ -1,24 +1,28 @@
 package org.b333vv.metric.builder;
 
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ParseResult;
-import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.util.Computable;
-import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.util.TypeConversionUtil;
 import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.CodeElement;
 import org.b333vv.metric.model.code.MethodElement;
+import org.b333vv.metric.model.code.PackageElement;
 import org.b333vv.metric.model.code.ProjectElement;
-import org.b333vv.metric.model.javaparser.util.TypeSolverProvider;
+import org.b333vv.metric.model.javaparser.util.JavaParserDeclarationIndex;
+import org.b333vv.metric.model.javaparser.util.JavaParserTypeIndex;
 import org.b333vv.metric.model.javaparser.visitor.JavaParserClassVisitor;
 import org.b333vv.metric.model.javaparser.visitor.JavaParserMethodVisitor;
 import org.b333vv.metric.model.javaparser.visitor.method.*;
@@ -30,18 +34,23 @@ import org.b333vv.metric.model.javaparser.visitor.type.JavaParserNumberOfChildre
 import org.b333vv.metric.model.javaparser.visitor.type.JavaParserNumberOfOverriddenMethodsVisitor;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.value.Value;
+import org.b333vv.metric.service.TypeSolverService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.ArrayList;
 
 import static org.b333vv.metric.model.metric.MetricType.*;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class JavaParserCalculationStrategy implements MetricCalculationStrategy {
+public class JavaParserCalculationStrategy implements MetricCalculationStrategy, LanguageBackend {
+    private static final Logger LOG = Logger.getInstance(JavaParserCalculationStrategy.class);
 
     private final List<JavaParserClassVisitor> classVisitors;
     private final List<JavaParserMethodVisitor> methodVisitors;
@@ -95,129 +104,210 @@ public class JavaParserCalculationStrategy implements MetricCalculationStrategy
     @Override
     public void augment(ProjectElement projectElement, Project project, List<CompilationUnit> allUnits,
             ProgressIndicator indicator) {
+        calculate(new Context(project, null, indicator, allUnits)).mergeInto(projectElement, indicator);
+    }
+
+    /**
+     * Resolves the compilation units and computes the metrics of all their classes and methods. Nothing of the
+     * model is read here, so this runs alongside the PSI backend; the values are matched to the classes and
+     * methods of the model when the result is merged.
+     */
+    @Override
+    @NotNull
+    public Result calculate(@NotNull Context context) {
+        ProgressIndicator indicator = context.indicator();
+        List<CompilationUnit> allUnits = context.compilationUnits();
         indicator.setText("Calculating metrics with JavaParser");
 
-        TypeSolverProvider typeSolverProvider = new TypeSolverProvider();
-        ParserConfiguration parserConfiguration = new ParserConfiguration()
-                .setSymbolResolver(new JavaSymbolSolver(typeSolverProvider.getTypeSolver(project, allUnits)));
+        TypeSolverService typeSolverService = context.project().getService(TypeSolverService.class);
+        return calculate(context, typeSolverService.getTypeSolver(allUnits));
+    }
 
-        // Re-parse ALL units together with the enhanced TypeSolver to ensure shared
-        // context
-        List<CompilationUnit> enhancedUnits = new ArrayList<>();
-        for (CompilationUnit originalUnit : allUnits) {
+    /**
+     * Resolves on the parsed units themselves, the declarations the type solver indexed for them, rather than on
+     * copies: unchanged units keep their identity and the resolved types stored in them between calculations.
+     */
+    private Result calculate(Context context, TypeSolver typeSolver) {
+        ProgressIndicator indicator = context.indicator();
+        List<CompilationUnit> allUnits = context.compilationUnits();
+        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
+        for (CompilationUnit unit : allUnits) {
+            symbolSolver.inject(unit);
+        }
+
+        List<ClassOrInterfaceDeclaration> allClassDeclarations = allUnits.stream()
+                .flatMap(cu -> cu.findAll(ClassOrInterfaceDeclaration.class).stream())
+                .collect(Collectors.toList());
+        JavaParserTypeIndex typeIndex = JavaParserTypeIndex.build(allClassDeclarations);
+        JavaParserNumberOfChildrenVisitor numberOfChildrenVisitor = new JavaParserNumberOfChildrenVisitor(typeIndex);
+        JavaParserForeignDataProvidersVisitor foreignDataProvidersVisitor = new JavaParserForeignDataProvidersVisitor(
+                typeIndex);
+
+        JavaParserResult result = new JavaParserResult(JavaParserDeclarationIndex.build(allUnits));
+        Predicate<CompilationUnit> inScope = scopeFilter(context);
+        for (ClassOrInterfaceDeclaration classDeclaration : allClassDeclarations) {
+            indicator.checkCanceled();
+            if (!classDeclaration.findCompilationUnit().map(inScope::test).orElse(true)) {
+                continue;
+            }
+            List<Metric> classMetrics = new ArrayList<>();
+            result.classMetrics.put(classDeclaration, classMetrics);
             try {
-                JavaParser enhancedParser = new JavaParser(parserConfiguration);
-                ParseResult<CompilationUnit> result = enhancedParser.parse(originalUnit.toString());
-                if (result.isSuccessful()) {
-                    enhancedUnits.add(result.getResult().get());
-                } else {
-                    System.err.println("Failed to re-parse unit with enhanced context: " + result.getProblems());
+                for (JavaParserClassVisitor visitor : classVisitors) {
+                    visitor.visit(classDeclaration, classMetrics::add);
+                }
+                // Handle context-dependent visitors separately
+                numberOfChildrenVisitor.visit(classDeclaration, classMetrics::add);
+                foreignDataProvidersVisitor.visit(classDeclaration, classMetrics::add);
+
+                for (MethodDeclaration methodDeclaration : classDeclaration.findAll(MethodDeclaration.class)) {
+                    if (!result.methodMetrics.containsKey(methodDeclaration)) {
+                        List<Metric> methodMetrics = new ArrayList<>();
+                        for (JavaParserMethodVisitor visitor : methodVisitors) {
+                            visitor.visit(methodDeclaration, methodMetrics::add);
+                        }
+                        result.methodMetrics.put(methodDeclaration, methodMetrics);
+                    }
                 }
             } catch (Exception e) {
-                System.err.println("Exception during enhanced parsing: " + e.getMessage());
+                result.incomplete.put(classDeclaration, Boolean.TRUE);
+                LOG.warn("Failed to process class " + classDeclaration.getNameAsString(), e);
             }
         }
+        return result;
+    }
 
-        System.out.println("Enhanced parsing complete. " + enhancedUnits.size() + " units processed.");
+    /**
+     * All units are parsed for symbol resolution, but for a module only the classes of its files can end up in the
+     * model. Units that are not stored in a file are always considered.
+     */
+    private static Predicate<CompilationUnit> scopeFilter(Context context) {
+        if (context.module() == null) {
+            return unit -> true;
+        }
+        List<Path> contentRoots = ApplicationManager.getApplication().runReadAction(
+                (Computable<List<Path>>) () -> Arrays.stream(ModuleRootManager.getInstance(context.module()).getContentRoots())
+                        .filter(root -> root.isInLocalFileSystem())
+                        .map(root -> root.toNioPath())
+                        .collect(Collectors.toList()));
+        return unit -> unit.getStorage()
+                .map(storage -> contentRoots.stream().anyMatch(root -> storage.getPath().startsWith(root)))
+                .orElse(true);
+    }
 
-        // Build class declarations from enhanced units
-        List<ClassOrInterfaceDeclaration> allClassDeclarations = enhancedUnits.stream()
-                .flatMap(cu -> cu.findAll(ClassOrInterfaceDeclaration.class).stream())
-                .collect(Collectors.toList());
+    /**
+     * Metrics computed per declaration, set as JavaParser values of the metrics of the matching classes and methods
+     * of the model.
+     */
+    private final class JavaParserResult implements Result {
+        private final JavaParserDeclarationIndex declarationIndex;
+        private final Map<ClassOrInterfaceDeclaration, List<Metric>> classMetrics = new IdentityHashMap<>();
+        private final Map<MethodDeclaration, List<Metric>> methodMetrics = new IdentityHashMap<>();
+        private final Map<ClassOrInterfaceDeclaration, Boolean> incomplete = new IdentityHashMap<>();
+
+        private JavaParserResult(JavaParserDeclarationIndex declarationIndex) {
+            this.declarationIndex = declarationIndex;
+        }
 
-        // Create mapping from class names to their enhanced compilation units
-        Map<String, CompilationUnit> enhancedUnitsByClass = new HashMap<>();
-        for (CompilationUnit unit : enhancedUnits) {
-            String packageName = unit.getPackageDeclaration()
-                    .map(pd -> pd.getNameAsString())
-                    .orElse("");
-
-            unit.findAll(ClassOrInterfaceDeclaration.class).forEach(classDecl -> {
-                String key = packageName.isEmpty() ? classDecl.getNameAsString()
-                        : packageName + "." + classDecl.getNameAsString();
-                enhancedUnitsByClass.put(key, unit);
-                enhancedUnitsByClass.put(classDecl.getNameAsString(), unit); // fallback key
+        @Override
+        public void mergeInto(@NotNull ProjectElement projectElement, @NotNull ProgressIndicator indicator) {
+            Map<ClassElement, ClassKey> psiKeys = capturePsiKeys(projectElement, indicator);
+
+            projectElement.allClasses().forEach(javaClass -> {
+                indicator.setText2("Processing class: " + javaClass.getName());
+                if (indicator.isCanceled()) {
+                    return;
+                }
+                ClassKey classKey = psiKeys.get(javaClass);
+                if (classKey == null) {
+                    return;
+                }
+                ClassOrInterfaceDeclaration classDeclaration = declarationIndex.findClass(classKey.qualifiedName(),
+                        classKey.name());
+                if (classDeclaration == null) {
+                    return;
+                }
+                setJavaParserValues(javaClass, classMetrics.get(classDeclaration));
+                javaClass.methods().forEach(javaMethod -> {
+                    MethodKey methodKey = classKey.methods().get(javaMethod);
+                    // constructors are matched too, but only method declarations have JavaParser metrics
+                    CallableDeclaration<?> methodDeclaration = methodKey == null ? null
+                            : declarationIndex.findMethod(classDeclaration, methodKey.signature(),
+                                    methodKey.name(), methodKey.arity());
+                    List<Metric> metrics = methodDeclaration == null ? null : methodMetrics.get(methodDeclaration);
+                    if (metrics != null) {
+                        setJavaParserValues(javaMethod, metrics);
+                        calculateDerivativeMethodMetrics(javaMethod);
+                    }
+                });
+                if (!incomplete.containsKey(classDeclaration)) {
+                    calculateDerivativeClassMetrics(javaClass);
+                }
             });
         }
 
-        projectElement.allClasses().forEach(javaClass -> {
-            indicator.setText2("Processing class: " + javaClass.getName());
-            if (indicator.isCanceled()) {
+        private void setJavaParserValues(CodeElement element, @Nullable List<Metric> metrics) {
+            if (metrics == null) {
                 return;
             }
-            try {
-                // Find the enhanced compilation unit for this class
-                CompilationUnit cu = null;
-
-                // Try with package qualification first
-                String className = javaClass.getName();
-                String packageName = ApplicationManager.getApplication().runReadAction((Computable<String>) () -> {
-                    PsiClass psiClass = javaClass.getPsiClass();
-                    if (psiClass.getContainingFile() instanceof PsiJavaFile) {
-                        return ((PsiJavaFile) psiClass.getContainingFile()).getPackageName();
-                    }
-                    return "";
-                });
+            for (Metric m : metrics) {
+                Metric metric = element.metric(m.getType());
+                if (metric != null) {
+                    metric.setJavaParserValue(m.getValue());
+                }
+            }
+        }
+    }
+
+    private record ClassKey(@Nullable String qualifiedName, String name, Map<MethodElement, MethodKey> methods) {
+    }
 
-                String qualifiedKey = packageName.isEmpty() ? className : packageName + "." + className;
-                cu = enhancedUnitsByClass.get(qualifiedKey);
+    private record MethodKey(String signature, String name, int arity) {
+    }
 
-                // Fallback to simple class name
-                if (cu == null) {
-                    cu = enhancedUnitsByClass.get(className);
-                }
-                if (cu != null) {
-                    cu.findFirst(ClassOrInterfaceDeclaration.class,
-                            c -> c.getNameAsString().equals(javaClass.getName()))
-                            .ifPresent(classDeclaration -> {
-                                Consumer<Metric> classMetricConsumer = (m) -> {
-                                    Metric metric = javaClass.metric(m.getType());
-                                    if (metric != null) {
-                                        metric.setJavaParserValue(m.getValue());
-                                    }
-                                };
-
-                                for (JavaParserClassVisitor visitor : classVisitors) {
-                                    visitor.visit(classDeclaration, classMetricConsumer);
-                                }
-                                // Handle context-dependent visitors separately
-                                new JavaParserNumberOfChildrenVisitor(allClassDeclarations).visit(classDeclaration,
-                                        classMetricConsumer);
-                                new JavaParserForeignDataProvidersVisitor(allClassDeclarations).visit(classDeclaration,
-                                        classMetricConsumer);
-
-                                javaClass.methods().forEach(javaMethod -> {
-                                    PsiMethod psiMethod = javaMethod.getPsiMethod();
-                                    String methodName = ApplicationManager.getApplication()
-                                            .runReadAction((Computable<String>) psiMethod::getName);
-                                    int paramCount = ApplicationManager.getApplication()
-                                            .runReadAction((Computable<Integer>) () -> psiMethod.getParameterList()
-                                                    .getParametersCount());
-                                    classDeclaration
-                                            .findFirst(MethodDeclaration.class,
-                                                    m -> m.getNameAsString().equals(methodName) &&
-                                                            m.getParameters().size() == paramCount)
-                                            .ifPresent(methodDeclaration -> {
-                                                Consumer<Metric> methodMetricConsumer = (m) -> {
-                                                    Metric metric = javaMethod.metric(m.getType());
-                                                    if (metric != null) {
-                                                        metric.setJavaParserValue(m.getValue());
-                                                    }
-                                                };
-
-                                                for (JavaParserMethodVisitor visitor : methodVisitors) {
-                                                    visitor.visit(methodDeclaration, methodMetricConsumer);
-                                                }
-                                                calculateDerivativeMethodMetrics(javaMethod);
-                                            });
-                                });
-                                calculateDerivativeClassMetrics(javaClass);
-                            });
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to process class " + javaClass.getName() + ": " + e.getMessage());
+    /**
+     * Captures the keys JavaParser declarations are matched by for every Java class, taking one read
+     * action per file, so that matching itself runs without touching PSI.
+     */
+    private Map<ClassElement, ClassKey> capturePsiKeys(ProjectElement projectElement, ProgressIndicator indicator) {
+        Map<ClassElement, ClassKey> keys = new IdentityHashMap<>();
+        projectElement.allPackages().flatMap(PackageElement::files).forEach(file -> {
+            if (!indicator.isCanceled()) {
+                ApplicationManager.getApplication().runReadAction(
+                        () -> file.classes().forEach(javaClass -> captureKeys(javaClass, keys)));
             }
         });
+        projectElement.allClasses()
+                .filter(javaClass -> javaClass.getPsiClass() != null && !keys.containsKey(javaClass))
+                .forEach(javaClass -> ApplicationManager.getApplication()
+                        .runReadAction(() -> captureKeys(javaClass, keys)));
+        return keys;
+    }
+
+    private static void captureKeys(ClassElement javaClass, Map<ClassElement, ClassKey> keys) {
+        PsiClass psiClass = javaClass.getPsiClass();
+        if (psiClass != null && !keys.containsKey(javaClass)) {
+            Map<MethodElement, MethodKey> methods = new IdentityHashMap<>();
+            javaClass.methods().forEach(javaMethod -> {
+                PsiMethod psiMethod = javaMethod.getPsiMethod();
+                if (psiMethod != null) {
+                    methods.put(javaMethod, methodKey(psiMethod));
+                }
+            });
+            keys.put(javaClass, new ClassKey(psiClass.getQualifiedName(), javaClass.getName(), methods));
+        }
+        javaClass.innerClasses().forEach(innerClass -> captureKeys(innerClass, keys));
+    }
+
+    private static MethodKey methodKey(PsiMethod psiMethod) {
+        PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
+        List<String> parameterTypes = new ArrayList<>(parameters.length);
+        for (PsiParameter parameter : parameters) {
+            parameterTypes.add(JavaParserDeclarationIndex.simpleTypeName(
+                    TypeConversionUtil.erasure(parameter.getType()).getCanonicalText()));
+        }
+        String name = psiMethod.getName();
+        return new MethodKey(JavaParserDeclarationIndex.signature(name, parameterTypes), name, parameters.length);
     }
 
     private void calculateDerivativeClassMetrics(ClassElement javaClass) {
@@ -332,91 +422,4 @@ public class JavaParserCalculationStrategy implements MetricCalculationStrategy
             }
         }
     }
-
-    /**
-     * Parse a compilation unit for a given JavaClass, handling both file-based and
-     * string-based parsing.
-     * In test environments with temp filesystem, falls back to string-based
-     * parsing.
-     */
-    private CompilationUnit parseClassCompilationUnit(ClassElement javaClass, JavaParser javaParser) {
-        return ApplicationManager.getApplication().runReadAction((Computable<CompilationUnit>) () -> {
-            try {
-                PsiClass psiClass = javaClass.getPsiClass();
-                VirtualFile virtualFile = psiClass.getContainingFile().getVirtualFile();
-                String filePath = virtualFile.getPath();
-
-                // Try file-based parsing first (for production environment)
-                try {
-                    return javaParser.parse(Paths.get(filePath)).getResult().orElse(null);
-                } catch (Exception e) {
-                    // Fall back to string-based parsing (for test environment)
-                    System.out.println("File-based parsing failed, trying string-based parsing: " + e.getMessage());
-
-                    try {
-                        String sourceCode = new String(virtualFile.contentsToByteArray(), virtualFile.getCharset());
-                        System.out.println("Source code length: " + sourceCode.length() + " characters");
-                        ParseResult<CompilationUnit> parseResult = javaParser.parse(sourceCode);
-                        if (parseResult.isSuccessful()) {
-                            System.out.println("String-based parsing successful for: " + javaClass.getName());
-                            return parseResult.getResult().orElse(null);
-                        } else {
-                            System.err.println("String-based parsing failed for " + javaClass.getName() + ": "
-                                    + parseResult.getProblems());
-                            return null;
-                        }
-                    } catch (Exception stringParseException) {
-                        System.err.println("Both file and string parsing failed for " + javaClass.getName() + ": "
-                                + stringParseException.getMessage());
-                        return null;
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to parse class " + javaClass.getName() + ": " + e.getMessage());
-                return null;
-            }
-        });
-    }
-
-    /**
-     * Find the compilation unit that contains the given JavaClass from the
-     * pre-indexed map.
-     */
-    private CompilationUnit findCompilationUnitForClass(ClassElement javaClass,
-            Map<String, CompilationUnit> unitsByClass) {
-        return ApplicationManager.getApplication().runReadAction((Computable<CompilationUnit>) () -> {
-            try {
-                PsiClass psiClass = javaClass.getPsiClass();
-                String className = psiClass.getName();
-                String packageName = "";
-
-                // Get package name if available
-                if (psiClass.getContainingFile() instanceof PsiJavaFile) {
-                    PsiJavaFile javaFile = (PsiJavaFile) psiClass.getContainingFile();
-                    packageName = javaFile.getPackageName();
-                }
-
-                // Create the key to look up the compilation unit
-                String key = packageName.isEmpty() ? className : packageName + "." + className;
-                CompilationUnit unit = unitsByClass.get(key);
-
-                if (unit != null) {
-                    return unit;
-                }
-
-                // Fallback: try just the class name
-                unit = unitsByClass.get(className);
-                if (unit != null) {
-                    return unit;
-                }
-
-                // Last resort: use the original parsing method
-                return parseClassCompilationUnit(javaClass, new JavaParser());
-            } catch (Exception e) {
-                System.err.println(
-                        "Failed to find compilation unit for class " + javaClass.getName() + ": " + e.getMessage());
-                return null;
-            }
-        });
-    }
-}
\ No newline at end of file
+}
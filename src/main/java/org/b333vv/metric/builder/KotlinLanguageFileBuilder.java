@@ -0,0 +1,29 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.psi.KtFile;
+
+/**
+ * Kotlin support, registered in {@code metricstree-kotlin.xml} when the Kotlin plugin is enabled.
+ */
+public final class KotlinLanguageFileBuilder implements LanguageFileBuilder {
+
+    @Override
+    public boolean isApplicable(@NotNull PsiFile psiFile) {
+        return psiFile instanceof KtFile;
+    }
+
+    @Override
+    @NotNull
+    public String getPackageName(@NotNull PsiFile psiFile) {
+        return ((KtFile) psiFile).getPackageFqName().asString();
+    }
+
+    @Override
+    @NotNull
+    public FileBuilder createFileBuilder(@NotNull Project project) {
+        return new KotlinModelBuilder(project);
+    }
+}
@@ -13,43 +13,80 @@ import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.value.Value;
 import org.b333vv.metric.model.visitor.method.JavaMethodVisitor;
 import org.b333vv.metric.model.visitor.type.JavaClassVisitor;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusedTraversal;
+import org.b333vv.metric.model.visitor.kotlin.KotlinResolveSession;
 import org.b333vv.metric.model.visitor.kotlin.method.*;
 import org.b333vv.metric.model.visitor.kotlin.type.*;
 import org.b333vv.metric.ui.settings.composition.MetricsTreeSettingsStub;
 import org.b333vv.metric.util.SettingsService;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.psi.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.b333vv.metric.model.metric.MetricType.*;
 
 /**
  * Kotlin-specific model builder extracted to avoid hard dependency from core
- * classes at startup.
+ * classes at startup. Core classes reach it through {@link KotlinLanguageFileBuilder}.
  */
-public class KotlinModelBuilder extends ModelBuilder {
+public class KotlinModelBuilder extends ModelBuilder implements LanguageFileBuilder.FileBuilder {
+    // Metrics are added in this order, Halstead metrics follow them
+    private static final MetricType[] CLASS_METRICS = {WMC, ATFD, DAC, NOM, NOA, NCSS, RFC, CBO, MPC, LCOM, DIT,
+            NOC, TCC, NOAC, NOAM, NOO, NOOM, NOPA, SIZE2, WOC};
+    private static final MetricType[] FILE_METRICS = {WMC, NOM, NOA, NCSS, SIZE2, ATFD, CBO, DAC, MPC, RFC, TCC,
+            WOC, DIT, NOC, NOAC, NOAM, NOO, NOOM, LCOM, NOPA};
+    private static final MetricType[] METHOD_METRICS = {LOC, MetricType.CC, CND, LND, CCM, MND, NOPM, NOL, LAA,
+            FDP, CINT, CDISP, NOAV};
 
     private final Project project;
+    // Resolution shared by the visitors of the file being built
+    private KotlinResolveSession resolveSession = KotlinResolveSession.direct();
 
     public KotlinModelBuilder(Project project) {
         this.project = project;
     }
 
-    /**
-     * Reflective bridge for {@link #createKotlinFile(KtFile)} to avoid compile-time
-     * dependency
-     * from callers that only have a PsiFile instance. Public for reflective
-     * invocation.
-     */
-    public org.b333vv.metric.model.code.FileElement createKotlinFileBridge(com.intellij.psi.PsiFile psiFile) {
+    @Override
+    public FileElement buildFile(@NotNull com.intellij.psi.PsiFile psiFile) {
         if (psiFile instanceof KtFile) {
             return createKotlinFile((KtFile) psiFile);
         }
         return null;
     }
 
+    @Override
+    public FileElement buildFile(@NotNull com.intellij.psi.PsiFile psiFile,
+                                 @Nullable FileMetricsSnapshot previous,
+                                 @NotNull FileMetricsSnapshot current) {
+        if (!(psiFile instanceof KtFile)) {
+            return null;
+        }
+        previousSnapshot = previous;
+        currentSnapshot = current;
+        try {
+            return createKotlinFile((KtFile) psiFile);
+        } finally {
+            previousSnapshot = null;
+            currentSnapshot = null;
+        }
+    }
+
     protected FileElement createKotlinFile(@NotNull KtFile ktFile) {
+        resolveSession = KotlinResolveSession.open();
+        try {
+            return buildKotlinFile(ktFile);
+        } finally {
+            resolveSession.close();
+            resolveSession = KotlinResolveSession.direct();
+        }
+    }
+
+    private FileElement buildKotlinFile(@NotNull KtFile ktFile) {
         FileElement kotlinFile = new FileElement(ktFile.getName());
         Project project = ktFile.getProject();
         boolean anyClasses = false;
@@ -58,136 +95,7 @@ public class KotlinModelBuilder extends ModelBuilder {
                 KtClassOrObject ktClass = (KtClassOrObject) decl;
                 ClassElement klass = new ClassElement(ktClass);
 
-                // Apply Kotlin class-level visitors where applicable
-                if (ktClass instanceof KtClassOrObject) {
-                    if (isMetricEnabled(project, WMC)) {
-                        KotlinWeightedMethodCountVisitor wmc = new KotlinWeightedMethodCountVisitor();
-                        wmc.computeFor(ktClass);
-                        if (wmc.getMetric() != null)
-                            klass.addMetric(wmc.getMetric());
-                    }
-                    if (isMetricEnabled(project, ATFD)) {
-                        KotlinAccessToForeignDataVisitor atfd = new KotlinAccessToForeignDataVisitor();
-                        atfd.computeFor(ktClass);
-                        if (atfd.getMetric() != null)
-                            klass.addMetric(atfd.getMetric());
-                    }
-                    if (isMetricEnabled(project, DAC)) {
-                        KotlinDataAbstractionCouplingVisitor dac = new KotlinDataAbstractionCouplingVisitor();
-                        dac.computeFor(ktClass);
-                        if (dac.getMetric() != null)
-                            klass.addMetric(dac.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOM)) {
-                        KotlinNumberOfMethodsVisitor nom = new KotlinNumberOfMethodsVisitor();
-                        nom.computeFor(ktClass);
-                        if (nom.getMetric() != null)
-                            klass.addMetric(nom.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOA)) {
-                        KotlinNumberOfAttributesVisitor noa = new KotlinNumberOfAttributesVisitor();
-                        noa.computeFor(ktClass);
-                        if (noa.getMetric() != null)
-                            klass.addMetric(noa.getMetric());
-                    }
-                    if (isMetricEnabled(project, NCSS)) {
-                        KotlinNonCommentingSourceStatementsVisitor ncss = new KotlinNonCommentingSourceStatementsVisitor();
-                        ncss.computeFor(ktClass);
-                        if (ncss.getMetric() != null)
-                            klass.addMetric(ncss.getMetric());
-                    }
-                    if (isMetricEnabled(project, RFC)) {
-                        KotlinResponseForClassVisitor rfc = new KotlinResponseForClassVisitor();
-                        rfc.computeFor(ktClass);
-                        if (rfc.getMetric() != null)
-                            klass.addMetric(rfc.getMetric());
-                    }
-                    if (isMetricEnabled(project, CBO)) {
-                        KotlinCouplingBetweenObjectsVisitor cbo = new KotlinCouplingBetweenObjectsVisitor();
-                        cbo.computeFor(ktClass);
-                        if (cbo.getMetric() != null)
-                            klass.addMetric(cbo.getMetric());
-                    }
-                    if (isMetricEnabled(project, MPC)) {
-                        KotlinMessagePassingCouplingVisitor mpc = new KotlinMessagePassingCouplingVisitor();
-                        mpc.computeFor(ktClass);
-                        if (mpc.getMetric() != null)
-                            klass.addMetric(mpc.getMetric());
-                    }
-                    if (isMetricEnabled(project, LCOM)) {
-                        KotlinLackOfCohesionOfMethodsVisitor lcom = new KotlinLackOfCohesionOfMethodsVisitor();
-                        lcom.computeFor(ktClass);
-                        if (lcom.getMetric() != null)
-                            klass.addMetric(lcom.getMetric());
-                    }
-                    if (isMetricEnabled(project, DIT)) {
-                        KotlinDepthOfInheritanceTreeVisitor dit = new KotlinDepthOfInheritanceTreeVisitor();
-                        dit.computeFor(ktClass);
-                        if (dit.getMetric() != null)
-                            klass.addMetric(dit.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOC)) {
-                        KotlinNumberOfChildrenVisitor noc = new KotlinNumberOfChildrenVisitor();
-                        noc.computeFor(ktClass);
-                        if (noc.getMetric() != null)
-                            klass.addMetric(noc.getMetric());
-                    }
-                    if (isMetricEnabled(project, TCC)) {
-                        KotlinTightClassCohesionVisitor tcc = new KotlinTightClassCohesionVisitor();
-                        tcc.computeFor(ktClass);
-                        if (tcc.getMetric() != null)
-                            klass.addMetric(tcc.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOAC)) {
-                        KotlinNumberOfAccessorMethodsVisitor noac = new KotlinNumberOfAccessorMethodsVisitor();
-                        noac.computeFor(ktClass);
-                        if (noac.getMetric() != null)
-                            klass.addMetric(noac.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOAM)) {
-                        KotlinNumberOfAddedMethodsVisitor noam = new KotlinNumberOfAddedMethodsVisitor();
-                        noam.computeFor(ktClass);
-                        if (noam.getMetric() != null)
-                            klass.addMetric(noam.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOO)) {
-                        KotlinNumberOfOperationsVisitor noo = new KotlinNumberOfOperationsVisitor();
-                        noo.computeFor(ktClass);
-                        if (noo.getMetric() != null)
-                            klass.addMetric(noo.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOOM)) {
-                        KotlinNumberOfOverriddenMethodsVisitor noom = new KotlinNumberOfOverriddenMethodsVisitor();
-                        noom.computeFor(ktClass);
-                        if (noom.getMetric() != null)
-                            klass.addMetric(noom.getMetric());
-                    }
-                    if (isMetricEnabled(project, NOPA)) {
-                        KotlinNumberOfPublicAttributesVisitor nopa = new KotlinNumberOfPublicAttributesVisitor();
-                        nopa.computeFor(ktClass);
-                        if (nopa.getMetric() != null)
-                            klass.addMetric(nopa.getMetric());
-                    }
-                    if (isMetricEnabled(project, SIZE2)) {
-                        KotlinNumberOfAttributesAndMethodsVisitor size2 = new KotlinNumberOfAttributesAndMethodsVisitor();
-                        size2.computeFor(ktClass);
-                        if (size2.getMetric() != null)
-                            klass.addMetric(size2.getMetric());
-                    }
-                    if (isMetricEnabled(project, WOC)) {
-                        KotlinWeightOfAClassVisitor woc = new KotlinWeightOfAClassVisitor();
-                        woc.computeFor(ktClass);
-                        if (woc.getMetric() != null)
-                            klass.addMetric(woc.getMetric());
-                    }
-
-                    // Always compute Kotlin Halstead class metrics (mirrors Java pipeline behavior)
-                    KotlinHalsteadClassVisitor kh = new KotlinHalsteadClassVisitor();
-                    kh.computeFor(ktClass);
-                    for (org.b333vv.metric.model.metric.Metric m : kh.buildMetrics()) {
-                        klass.addMetric(m);
-                    }
-                }
+                applyKotlinClassVisitors(project, klass, ktClass);
 
                 kotlinFile.addClass(klass);
 
@@ -213,15 +121,21 @@ public class KotlinModelBuilder extends ModelBuilder {
                     KtNamedFunction f = (KtNamedFunction) d;
                     MethodElement m = new MethodElement(f, synthetic);
                     synthetic.addMethod(m);
-                    try {
-                        applyKotlinMethodVisitors(m, f);
-                    } catch (Throwable t) {
-                        project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                                .printInfo(
-                                        "[KotlinModelBuilder] Skipped method visitors for top-level function due to: "
-                                                + t.getClass().getSimpleName());
+                    String key = "<file>#" + functionKey(f, m);
+                    if (restoreMetrics(key, f, m)) {
+                        applyDependentMethodVisitors(m, f);
+                    } else {
+                        try {
+                            applyKotlinMethodVisitors(m, f);
+                        } catch (Throwable t) {
+                            project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
+                                    .printInfo(
+                                            "[KotlinModelBuilder] Skipped method visitors for top-level function due to: "
+                                                    + t.getClass().getSimpleName());
+                        }
+                        addMaintainabilityIndexForMethod(m);
                     }
-                    addMaintainabilityIndexForMethod(m);
+                    storeMetrics(key, f, m);
                 }
             }
             addMaintainabilityIndexForClass(synthetic);
@@ -229,136 +143,145 @@ public class KotlinModelBuilder extends ModelBuilder {
             addCognitiveComplexityForClass(synthetic);
 
             // Apply class-level metrics to the synthetic class (file level)
-            if (isMetricEnabled(project, WMC)) {
-                KotlinWeightedMethodCountVisitor wmc = new KotlinWeightedMethodCountVisitor();
-                wmc.computeFor(ktFile);
-                if (wmc.getMetric() != null)
-                    synthetic.addMetric(wmc.getMetric());
-            }
-            if (isMetricEnabled(project, NOM)) {
-                KotlinNumberOfMethodsVisitor nom = new KotlinNumberOfMethodsVisitor();
-                nom.computeFor(ktFile);
-                if (nom.getMetric() != null)
-                    synthetic.addMetric(nom.getMetric());
-            }
-            if (isMetricEnabled(project, NOA)) {
-                KotlinNumberOfAttributesVisitor noa = new KotlinNumberOfAttributesVisitor();
-                noa.computeFor(ktFile);
-                if (noa.getMetric() != null)
-                    synthetic.addMetric(noa.getMetric());
-            }
-            if (isMetricEnabled(project, NCSS)) {
-                KotlinNonCommentingSourceStatementsVisitor ncss = new KotlinNonCommentingSourceStatementsVisitor();
-                ncss.computeFor(ktFile);
-                if (ncss.getMetric() != null)
-                    synthetic.addMetric(ncss.getMetric());
-            }
-            if (isMetricEnabled(project, SIZE2)) {
-                KotlinNumberOfAttributesAndMethodsVisitor size2 = new KotlinNumberOfAttributesAndMethodsVisitor();
-                size2.computeFor(ktFile);
-                if (size2.getMetric() != null)
-                    synthetic.addMetric(size2.getMetric());
-            }
-            if (isMetricEnabled(project, ATFD)) {
-                KotlinAccessToForeignDataVisitor atfd = new KotlinAccessToForeignDataVisitor();
-                atfd.computeFor(ktFile);
-                if (atfd.getMetric() != null)
-                    synthetic.addMetric(atfd.getMetric());
-            }
-            if (isMetricEnabled(project, CBO)) {
-                KotlinCouplingBetweenObjectsVisitor cbo = new KotlinCouplingBetweenObjectsVisitor();
-                cbo.computeFor(ktFile);
-                if (cbo.getMetric() != null)
-                    synthetic.addMetric(cbo.getMetric());
-            }
-            if (isMetricEnabled(project, DAC)) {
-                KotlinDataAbstractionCouplingVisitor dac = new KotlinDataAbstractionCouplingVisitor();
-                dac.computeFor(ktFile);
-                if (dac.getMetric() != null)
-                    synthetic.addMetric(dac.getMetric());
-            }
-            if (isMetricEnabled(project, MPC)) {
-                KotlinMessagePassingCouplingVisitor mpc = new KotlinMessagePassingCouplingVisitor();
-                mpc.computeFor(ktFile);
-                if (mpc.getMetric() != null)
-                    synthetic.addMetric(mpc.getMetric());
-            }
-            if (isMetricEnabled(project, RFC)) {
-                KotlinResponseForClassVisitor rfc = new KotlinResponseForClassVisitor();
-                rfc.computeFor(ktFile);
-                if (rfc.getMetric() != null)
-                    synthetic.addMetric(rfc.getMetric());
-            }
-            if (isMetricEnabled(project, TCC)) {
-                KotlinTightClassCohesionVisitor tcc = new KotlinTightClassCohesionVisitor();
-                tcc.computeFor(ktFile);
-                if (tcc.getMetric() != null)
-                    synthetic.addMetric(tcc.getMetric());
-            }
-            if (isMetricEnabled(project, WOC)) {
-                KotlinWeightOfAClassVisitor woc = new KotlinWeightOfAClassVisitor();
-                woc.computeFor(ktFile);
-                if (woc.getMetric() != null)
-                    synthetic.addMetric(woc.getMetric());
-            }
-            if (isMetricEnabled(project, DIT)) {
-                KotlinDepthOfInheritanceTreeVisitor dit = new KotlinDepthOfInheritanceTreeVisitor();
-                dit.computeFor(ktFile);
-                if (dit.getMetric() != null)
-                    synthetic.addMetric(dit.getMetric());
-            }
-            if (isMetricEnabled(project, NOC)) {
-                KotlinNumberOfChildrenVisitor noc = new KotlinNumberOfChildrenVisitor();
-                noc.computeFor(ktFile);
-                if (noc.getMetric() != null)
-                    synthetic.addMetric(noc.getMetric());
-            }
-            if (isMetricEnabled(project, NOAC)) {
-                KotlinNumberOfAccessorMethodsVisitor noac = new KotlinNumberOfAccessorMethodsVisitor();
-                noac.computeFor(ktFile);
-                if (noac.getMetric() != null)
-                    synthetic.addMetric(noac.getMetric());
-            }
-            if (isMetricEnabled(project, NOAM)) {
-                KotlinNumberOfAddedMethodsVisitor noam = new KotlinNumberOfAddedMethodsVisitor();
-                noam.computeFor(ktFile);
-                if (noam.getMetric() != null)
-                    synthetic.addMetric(noam.getMetric());
-            }
-            if (isMetricEnabled(project, NOO)) {
-                KotlinNumberOfOperationsVisitor noo = new KotlinNumberOfOperationsVisitor();
-                noo.computeFor(ktFile);
-                if (noo.getMetric() != null)
-                    synthetic.addMetric(noo.getMetric());
+            applyKotlinFileVisitors(project, synthetic, ktFile);
+            addToAllClasses(synthetic);
+        }
+        return kotlinFile;
+    }
+
+    protected void applyKotlinClassVisitors(@NotNull Project project, @NotNull ClassElement klass,
+            @NotNull KtClassOrObject ktClass) {
+        String key = kotlinDeclarationKey(ktClass);
+        if (restoreMetrics(key, ktClass, klass)) {
+            applyDependentClassVisitors(project, klass, ktClass, CLASS_METRICS);
+        } else {
+            applyClassVisitors(project, klass, ktClass, CLASS_METRICS);
+        }
+        storeMetrics(key, ktClass, klass);
+    }
+
+    protected void applyKotlinFileVisitors(@NotNull Project project, @NotNull ClassElement synthetic,
+            @NotNull KtFile ktFile) {
+        String key = "<file>";
+        if (restoreMetrics(key, ktFile, synthetic)) {
+            applyDependentClassVisitors(project, synthetic, ktFile, FILE_METRICS);
+        } else {
+            applyClassVisitors(project, synthetic, ktFile, FILE_METRICS);
+        }
+        storeMetrics(key, ktFile, synthetic);
+    }
+
+    /**
+     * Computes the enabled metrics of {@code order} and the Halstead metrics, which are always
+     * computed (mirrors Java pipeline behavior). The visitors share one traversal of the
+     * declaration; should it fail, each visitor walks again on its own, so that the metrics
+     * computed before the failing visitor are kept.
+     */
+    private void applyClassVisitors(@NotNull Project project, @NotNull ClassElement klass,
+            @NotNull KtElement element, @NotNull MetricType[] order) {
+        Set<MetricType> enabled = enabledMetricTypes(project);
+        List<KotlinClassVisitor> visitors = createClassVisitors(enabled, order);
+        KotlinFusedTraversal traversal = KotlinFusedTraversal.fused();
+        try {
+            for (KotlinClassVisitor visitor : visitors) {
+                visitor.setResolveSession(resolveSession);
+                visitor.computeFor(element, traversal);
             }
-            if (isMetricEnabled(project, NOOM)) {
-                KotlinNumberOfOverriddenMethodsVisitor noom = new KotlinNumberOfOverriddenMethodsVisitor();
-                noom.computeFor(ktFile);
-                if (noom.getMetric() != null)
-                    synthetic.addMetric(noom.getMetric());
+            traversal.run();
+        } catch (RuntimeException e) {
+            for (KotlinClassVisitor visitor : createClassVisitors(enabled, order)) {
+                visitor.setResolveSession(resolveSession);
+                visitor.computeFor(element, KotlinFusedTraversal.immediate());
+                addClassMetrics(klass, visitor);
             }
-            if (isMetricEnabled(project, LCOM)) {
-                KotlinLackOfCohesionOfMethodsVisitor lcom = new KotlinLackOfCohesionOfMethodsVisitor();
-                lcom.computeFor(ktFile);
-                if (lcom.getMetric() != null)
-                    synthetic.addMetric(lcom.getMetric());
+            return;
+        }
+        for (KotlinClassVisitor visitor : visitors) {
+            addClassMetrics(klass, visitor);
+        }
+    }
+
+    // Metrics depending on other files are calculated even for declarations restored from a snapshot
+    private void applyDependentClassVisitors(@NotNull Project project, @NotNull ClassElement klass,
+            @NotNull KtElement element, @NotNull MetricType[] order) {
+        Set<MetricType> enabled = enabledMetricTypes(project);
+        for (MetricType type : order) {
+            if (enabled.contains(type) && FileMetricsSnapshot.isDependent(type)) {
+                KotlinClassVisitor visitor = createClassVisitor(type);
+                visitor.setResolveSession(resolveSession);
+                visitor.computeFor(element, KotlinFusedTraversal.immediate());
+                addClassMetrics(klass, visitor);
             }
-            if (isMetricEnabled(project, NOPA)) {
-                KotlinNumberOfPublicAttributesVisitor nopa = new KotlinNumberOfPublicAttributesVisitor();
-                nopa.computeFor(ktFile);
-                if (nopa.getMetric() != null)
-                    synthetic.addMetric(nopa.getMetric());
+        }
+    }
+
+    private static List<KotlinClassVisitor> createClassVisitors(@NotNull Set<MetricType> enabled,
+            @NotNull MetricType[] order) {
+        List<KotlinClassVisitor> visitors = new ArrayList<>();
+        for (MetricType type : order) {
+            if (enabled.contains(type)) {
+                visitors.add(createClassVisitor(type));
             }
+        }
+        visitors.add(new KotlinHalsteadClassVisitor());
+        return visitors;
+    }
+
+    static KotlinClassVisitor createClassVisitor(@NotNull MetricType type) {
+        switch (type) {
+            case WMC:
+                return new KotlinWeightedMethodCountVisitor();
+            case ATFD:
+                return new KotlinAccessToForeignDataVisitor();
+            case DAC:
+                return new KotlinDataAbstractionCouplingVisitor();
+            case NOM:
+                return new KotlinNumberOfMethodsVisitor();
+            case NOA:
+                return new KotlinNumberOfAttributesVisitor();
+            case NCSS:
+                return new KotlinNonCommentingSourceStatementsVisitor();
+            case RFC:
+                return new KotlinResponseForClassVisitor();
+            case CBO:
+                return new KotlinCouplingBetweenObjectsVisitor();
+            case MPC:
+                return new KotlinMessagePassingCouplingVisitor();
+            case LCOM:
+                return new KotlinLackOfCohesionOfMethodsVisitor();
+            case DIT:
+                return new KotlinDepthOfInheritanceTreeVisitor();
+            case NOC:
+                return new KotlinNumberOfChildrenVisitor();
+            case TCC:
+                return new KotlinTightClassCohesionVisitor();
+            case NOAC:
+                return new KotlinNumberOfAccessorMethodsVisitor();
+            case NOAM:
+                return new KotlinNumberOfAddedMethodsVisitor();
+            case NOO:
+                return new KotlinNumberOfOperationsVisitor();
+            case NOOM:
+                return new KotlinNumberOfOverriddenMethodsVisitor();
+            case NOPA:
+                return new KotlinNumberOfPublicAttributesVisitor();
+            case SIZE2:
+                return new KotlinNumberOfAttributesAndMethodsVisitor();
+            case WOC:
+                return new KotlinWeightOfAClassVisitor();
+            default:
+                throw new IllegalArgumentException("No Kotlin class visitor for " + type);
+        }
+    }
 
-            // Always compute Kotlin Halstead metrics for synthetic class
-            KotlinHalsteadClassVisitor kh = new KotlinHalsteadClassVisitor();
-            kh.computeFor(ktFile);
-            for (org.b333vv.metric.model.metric.Metric m : kh.buildMetrics()) {
-                synthetic.addMetric(m);
+    private static void addClassMetrics(@NotNull ClassElement klass, @NotNull KotlinClassVisitor visitor) {
+        if (visitor instanceof KotlinHalsteadClassVisitor) {
+            for (Metric m : ((KotlinHalsteadClassVisitor) visitor).buildMetrics()) {
+                klass.addMetric(m);
             }
-            addToAllClasses(synthetic);
+        } else if (visitor.getMetric() != null) {
+            klass.addMetric(visitor.getMetric());
         }
-        return kotlinFile;
     }
 
     protected void buildKotlinConstructors(@NotNull ClassElement klass, @NotNull KtClassOrObject ktClass) {
@@ -368,26 +291,38 @@ public class KotlinModelBuilder extends ModelBuilder {
             if (primary != null) {
                 MethodElement ctorEl = new MethodElement(primary, klass);
                 klass.addMethod(ctorEl);
-                try {
-                    applyKotlinMethodVisitors(ctorEl, primary);
-                } catch (Throwable t) {
-                    project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                            .printInfo("[KotlinModelBuilder] Skipped visitors for primary ctor due to: "
-                                    + t.getClass().getSimpleName());
+                String key = kotlinDeclarationKey(ktClass) + "#" + functionKey(primary, ctorEl);
+                if (restoreMetrics(key, ktClass, ctorEl)) {
+                    applyDependentMethodVisitors(ctorEl, primary);
+                } else {
+                    try {
+                        applyKotlinMethodVisitors(ctorEl, primary);
+                    } catch (Throwable t) {
+                        project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
+                                .printInfo("[KotlinModelBuilder] Skipped visitors for primary ctor due to: "
+                                        + t.getClass().getSimpleName());
+                    }
+                    addMaintainabilityIndexForMethod(ctorEl);
                 }
-                addMaintainabilityIndexForMethod(ctorEl);
+                storeMetrics(key, ktClass, ctorEl);
             }
             for (KtSecondaryConstructor s : ((KtClass) ktClass).getSecondaryConstructors()) {
                 MethodElement ctorEl = new MethodElement(s, klass);
                 klass.addMethod(ctorEl);
-                try {
-                    applyKotlinMethodVisitors(ctorEl, s);
-                } catch (Throwable t) {
-                    project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                            .printInfo("[KotlinModelBuilder] Skipped visitors for secondary ctor due to: "
-                                    + t.getClass().getSimpleName());
+                String key = kotlinDeclarationKey(ktClass) + "#" + functionKey(s, ctorEl);
+                if (restoreMetrics(key, s, ctorEl)) {
+                    applyDependentMethodVisitors(ctorEl, s);
+                } else {
+                    try {
+                        applyKotlinMethodVisitors(ctorEl, s);
+                    } catch (Throwable t) {
+                        project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
+                                .printInfo("[KotlinModelBuilder] Skipped visitors for secondary ctor due to: "
+                                        + t.getClass().getSimpleName());
+                    }
+                    addMaintainabilityIndexForMethod(ctorEl);
                 }
-                addMaintainabilityIndexForMethod(ctorEl);
+                storeMetrics(key, s, ctorEl);
             }
         }
     }
@@ -398,14 +333,20 @@ public class KotlinModelBuilder extends ModelBuilder {
                 KtNamedFunction f = (KtNamedFunction) d;
                 MethodElement m = new MethodElement(f, klass);
                 klass.addMethod(m);
-                try {
-                    applyKotlinMethodVisitors(m, f);
-                } catch (Throwable t) {
-                    project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                            .printInfo("[KotlinModelBuilder] Skipped visitors for function due to: "
-                                    + t.getClass().getSimpleName());
+                String key = kotlinDeclarationKey(ktClass) + "#" + functionKey(f, m);
+                if (restoreMetrics(key, f, m)) {
+                    applyDependentMethodVisitors(m, f);
+                } else {
+                    try {
+                        applyKotlinMethodVisitors(m, f);
+                    } catch (Throwable t) {
+                        project.getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
+                                .printInfo("[KotlinModelBuilder] Skipped visitors for function due to: "
+                                        + t.getClass().getSimpleName());
+                    }
+                    addMaintainabilityIndexForMethod(m);
                 }
-                addMaintainabilityIndexForMethod(m);
+                storeMetrics(key, f, m);
             }
             if (d instanceof KtClassOrObject) {
                 buildKotlinConstructors(klass, (KtClassOrObject) d);
@@ -434,91 +375,97 @@ public class KotlinModelBuilder extends ModelBuilder {
         applyAllKotlinMethodVisitors(method, ctor);
     }
 
+    /**
+     * Computes the metrics of a function or constructor. The visitors share one traversal of the
+     * body; should it fail, each visitor walks again on its own, so that the metrics computed
+     * before the failing visitor are kept.
+     */
     private void applyAllKotlinMethodVisitors(@NotNull MethodElement method, @NotNull KtElement element) {
-        Project project = element.getProject();
-        if (isMetricEnabled(project, LOC)) {
-            KotlinLinesOfCodeVisitor visitor = new KotlinLinesOfCodeVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, MetricType.CC)) {
-            KotlinMcCabeCyclomaticComplexityVisitor visitor = new KotlinMcCabeCyclomaticComplexityVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, CND)) {
-            KotlinConditionNestingDepthVisitor visitor = new KotlinConditionNestingDepthVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, LND)) {
-            KotlinLoopNestingDepthVisitor visitor = new KotlinLoopNestingDepthVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, CCM)) {
-            KotlinCognitiveComplexityVisitor visitor = new KotlinCognitiveComplexityVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, MND)) {
-            KotlinMaximumNestingDepthVisitor visitor = new KotlinMaximumNestingDepthVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, NOPM)) {
-            KotlinNumberOfParametersVisitor visitor = new KotlinNumberOfParametersVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, NOL)) {
-            KotlinNumberOfLoopsVisitor visitor = new KotlinNumberOfLoopsVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
-        }
-        if (isMetricEnabled(project, LAA)) {
-            KotlinLocalityOfAttributeAccessesVisitor visitor = new KotlinLocalityOfAttributeAccessesVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
+        Set<MetricType> enabled = enabledMetricTypes(element.getProject());
+        List<KotlinMethodVisitor> visitors = createMethodVisitors(enabled);
+        KotlinFusedTraversal traversal = KotlinFusedTraversal.fused();
+        try {
+            for (KotlinMethodVisitor visitor : visitors) {
+                visitor.setResolveSession(resolveSession);
+                visitor.computeFor(element, traversal);
+            }
+            traversal.run();
+        } catch (RuntimeException e) {
+            for (KotlinMethodVisitor visitor : createMethodVisitors(enabled)) {
+                visitor.setResolveSession(resolveSession);
+                visitor.computeFor(element, KotlinFusedTraversal.immediate());
+                addMethodMetrics(method, visitor);
+            }
+            return;
         }
-        if (isMetricEnabled(project, FDP)) {
-            KotlinForeignDataProvidersVisitor visitor = new KotlinForeignDataProvidersVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
+        for (KotlinMethodVisitor visitor : visitors) {
+            addMethodMetrics(method, visitor);
         }
-        if (isMetricEnabled(project, CINT)) {
-            KotlinCouplingIntensityVisitor visitor = new KotlinCouplingIntensityVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
+    }
+
+    private void applyDependentMethodVisitors(@NotNull MethodElement method, @NotNull KtElement element) {
+        Set<MetricType> enabled = enabledMetricTypes(element.getProject());
+        for (MetricType type : METHOD_METRICS) {
+            if (enabled.contains(type) && FileMetricsSnapshot.isDependent(type)) {
+                KotlinMethodVisitor visitor = createMethodVisitor(type);
+                visitor.setResolveSession(resolveSession);
+                visitor.computeFor(element, KotlinFusedTraversal.immediate());
+                addMethodMetrics(method, visitor);
+            }
         }
-        if (isMetricEnabled(project, CDISP)) {
-            KotlinCouplingDispersionVisitor visitor = new KotlinCouplingDispersionVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
+    }
+
+    private static List<KotlinMethodVisitor> createMethodVisitors(@NotNull Set<MetricType> enabled) {
+        List<KotlinMethodVisitor> visitors = new ArrayList<>();
+        for (MetricType type : METHOD_METRICS) {
+            if (enabled.contains(type)) {
+                visitors.add(createMethodVisitor(type));
+            }
         }
-        if (isMetricEnabled(project, NOAV)) {
-            KotlinNumberOfAccessedVariablesVisitor visitor = new KotlinNumberOfAccessedVariablesVisitor();
-            computeFor(visitor, element);
-            if (visitor.getMetric() != null)
-                method.addMetric(visitor.getMetric());
+        visitors.add(new KotlinHalsteadMethodVisitor());
+        return visitors;
+    }
+
+    static KotlinMethodVisitor createMethodVisitor(@NotNull MetricType type) {
+        switch (type) {
+            case LOC:
+                return new KotlinLinesOfCodeVisitor();
+            case CC:
+                return new KotlinMcCabeCyclomaticComplexityVisitor();
+            case CND:
+                return new KotlinConditionNestingDepthVisitor();
+            case LND:
+                return new KotlinLoopNestingDepthVisitor();
+            case CCM:
+                return new KotlinCognitiveComplexityVisitor();
+            case MND:
+                return new KotlinMaximumNestingDepthVisitor();
+            case NOPM:
+                return new KotlinNumberOfParametersVisitor();
+            case NOL:
+                return new KotlinNumberOfLoopsVisitor();
+            case LAA:
+                return new KotlinLocalityOfAttributeAccessesVisitor();
+            case FDP:
+                return new KotlinForeignDataProvidersVisitor();
+            case CINT:
+                return new KotlinCouplingIntensityVisitor();
+            case CDISP:
+                return new KotlinCouplingDispersionVisitor();
+            case NOAV:
+                return new KotlinNumberOfAccessedVariablesVisitor();
+            default:
+                throw new IllegalArgumentException("No Kotlin method visitor for " + type);
         }
+    }
 
-        KotlinHalsteadMethodVisitor hal = new KotlinHalsteadMethodVisitor();
-        computeFor(hal, element);
-        for (org.b333vv.metric.model.metric.Metric m : hal.buildMetrics()) {
-            method.addMetric(m);
+    private static void addMethodMetrics(@NotNull MethodElement method, @NotNull KotlinMethodVisitor visitor) {
+        if (visitor instanceof KotlinHalsteadMethodVisitor) {
+            for (Metric m : ((KotlinHalsteadMethodVisitor) visitor).buildMetrics()) {
+                method.addMetric(m);
+            }
+        } else if (visitor.getMetric() != null) {
+            method.addMetric(visitor.getMetric());
         }
     }
 
@@ -589,15 +536,17 @@ public class KotlinModelBuilder extends ModelBuilder {
         }
     }
 
-    private void computeFor(KotlinMethodVisitor visitor, KtElement element) {
-        if (element instanceof KtNamedFunction)
-            visitor.computeFor((KtNamedFunction) element);
-        else if (element instanceof KtPrimaryConstructor)
-            visitor.computeFor((KtPrimaryConstructor) element);
-        else if (element instanceof KtSecondaryConstructor)
-            visitor.computeFor((KtSecondaryConstructor) element);
-        else if (element instanceof KtAnonymousInitializer)
-            visitor.computeFor((KtAnonymousInitializer) element);
+    // The receiver tells apart extension functions of the same name and parameters
+    private static String functionKey(@NotNull KtFunction function, @NotNull MethodElement method) {
+        KtTypeReference receiver = function.getReceiverTypeReference();
+        return receiver != null ? receiver.getText() + "." + method.getName() : method.getName();
+    }
+
+    private static String kotlinDeclarationKey(@NotNull KtClassOrObject ktClass) {
+        if (ktClass.getFqName() != null) {
+            return ktClass.getFqName().asString();
+        }
+        return ktClass.getName() != null ? ktClass.getName() : "<anonymous>";
     }
 
     @Override
@@ -612,7 +561,7 @@ public class KotlinModelBuilder extends ModelBuilder {
                 .getClassMetricsTreeSettings()
                 .getMetricsList().stream()
                 .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                .map(m -> m.getType().visitor())
+                .map(m -> m.getType().createVisitor())
                 .filter(m -> m instanceof JavaClassVisitor);
     }
 
@@ -623,7 +572,7 @@ public class KotlinModelBuilder extends ModelBuilder {
                 .getClassMetricsTreeSettings()
                 .getMetricsList().stream()
                 .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                .map(m -> m.getType().visitor())
+                .map(m -> m.getType().createVisitor())
                 .filter(m -> m instanceof JavaMethodVisitor);
     }
 }
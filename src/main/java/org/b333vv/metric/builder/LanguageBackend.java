@@ -0,0 +1,55 @@
+package org.b333vv.metric.builder;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Engine computing class and method metrics for the files of a calculation, run by {@link CalculationPipeline}.
+ * <p>
+ * The backends of a pipeline calculate concurrently and must not depend on each other while doing so. Exactly one
+ * of them builds the code model; the results of the others are merged into that model afterwards, value by value
+ * into the {@link org.b333vv.metric.model.metric.Metric}s the model backend has created.
+ * </p>
+ */
+public interface LanguageBackend {
+
+    record Context(@NotNull Project project, @Nullable Module module, @NotNull ProgressIndicator indicator,
+                   @NotNull List<CompilationUnit> compilationUnits) {
+    }
+
+    @NotNull
+    Result calculate(@NotNull Context context);
+
+    interface Result {
+        /**
+         * @return the code model built by the backend, {@code null} for a backend that only adds values
+         */
+        @Nullable
+        default ProjectElement getModel() {
+            return null;
+        }
+
+        /**
+         * Adds the values of the backend to the model. Called on the pipeline thread once all backends have
+         * finished calculating.
+         */
+        default void mergeInto(@NotNull ProjectElement model, @NotNull ProgressIndicator indicator) {
+        }
+
+        static Result of(@NotNull ProjectElement model) {
+            return new Result() {
+                @Override
+                public ProjectElement getModel() {
+                    return model;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import org.b333vv.metric.model.code.FileElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Builds the code model of files in a language whose PSI is provided by an optional plugin. Implementations
+ * are registered in the config file of the optional dependency on that plugin, so they are only loaded when
+ * the plugin is present and may refer to its PSI classes directly.
+ */
+public interface LanguageFileBuilder {
+    ExtensionPointName<LanguageFileBuilder> EP_NAME =
+            ExtensionPointName.create("org.b333vv.metricstree.languageFileBuilder");
+
+    @Nullable
+    static LanguageFileBuilder forFile(@NotNull PsiFile psiFile) {
+        for (LanguageFileBuilder languageFileBuilder : EP_NAME.getExtensionList()) {
+            if (languageFileBuilder.isApplicable(psiFile)) {
+                return languageFileBuilder;
+            }
+        }
+        return null;
+    }
+
+    boolean isApplicable(@NotNull PsiFile psiFile);
+
+    /**
+     * @return qualified name of the package of the file, empty for the default package
+     */
+    @NotNull
+    String getPackageName(@NotNull PsiFile psiFile);
+
+    /**
+     * Creates a builder that is meant to be reused for all files of a calculation. A builder is not
+     * thread-safe.
+     */
+    @NotNull
+    FileBuilder createFileBuilder(@NotNull Project project);
+
+    interface FileBuilder {
+        @Nullable
+        FileElement buildFile(@NotNull PsiFile psiFile);
+
+        /**
+         * Same as {@link #buildFile(PsiFile)}, but restores metrics of declarations whose text is unchanged
+         * since {@code previous} was taken and records the metrics of the new build into {@code current}.
+         */
+        @Nullable
+        FileElement buildFile(@NotNull PsiFile psiFile, @Nullable FileMetricsSnapshot previous,
+                              @NotNull FileMetricsSnapshot current);
+    }
+}
@@ -0,0 +1,153 @@
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.CodeElement;
+import org.b333vv.metric.model.code.PackageElement;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Count, sum, mean, variance and maximum of every metric type over the classes, methods and packages of a project,
+ * accumulated in one parallel pass into primitive columns indexed by level and metric type. Means and variances use
+ * Welford's online algorithm; partial results of the parallel pass are merged with Chan's formula. All project
+ * level MOOD, QMOOD, Halstead and maintainability aggregates are read from one such aggregation.
+ */
+public final class MetricsAggregation {
+    public enum Level {
+        CLASS, METHOD, PACKAGE
+    }
+
+    private static final int METRIC_TYPES = MetricType.values().length;
+    private static final int LEVELS = Level.values().length;
+
+    private final long[][] counts = new long[LEVELS][METRIC_TYPES];
+    private final double[][] sums = new double[LEVELS][METRIC_TYPES];
+    private final double[][] means = new double[LEVELS][METRIC_TYPES];
+    private final double[][] squaredDeviations = new double[LEVELS][METRIC_TYPES];
+    private final double[][] maxima = new double[LEVELS][METRIC_TYPES];
+    private double inheritance;
+
+    private MetricsAggregation() {
+        for (double[] levelMaxima : maxima) {
+            Arrays.fill(levelMaxima, Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    public static MetricsAggregation of(@NotNull ProjectElement projectElement) {
+        return Stream.<CodeElement>concat(projectElement.allClasses(), projectElement.allPackages())
+                .parallel()
+                .collect(Collector.of(
+                        MetricsAggregation::new,
+                        MetricsAggregation::add,
+                        MetricsAggregation::merge,
+                        Collector.Characteristics.UNORDERED));
+    }
+
+    private void add(CodeElement element) {
+        if (element instanceof ClassElement) {
+            ClassElement javaClass = (ClassElement) element;
+            javaClass.forEachMetric(metric -> add(Level.CLASS, metric));
+            javaClass.methods().forEach(javaMethod -> javaMethod.forEachMetric(metric -> add(Level.METHOD, metric)));
+            addInheritance(javaClass);
+        } else if (element instanceof PackageElement) {
+            element.forEachMetric(metric -> add(Level.PACKAGE, metric));
+        }
+    }
+
+    private void add(Level level, Metric metric) {
+        int l = level.ordinal();
+        int type = metric.getType().ordinal();
+        double value = metric.getPsiValue().doubleValue();
+        long count = ++counts[l][type];
+        double delta = value - means[l][type];
+        means[l][type] += delta / count;
+        squaredDeviations[l][type] += delta * (value - means[l][type]);
+        sums[l][type] += value;
+        maxima[l][type] = Math.max(maxima[l][type], value);
+    }
+
+    private void addInheritance(ClassElement javaClass) {
+        Metric nom = javaClass.metric(MetricType.NOM);
+        if (nom == null || nom.getPsiValue().doubleValue() <= 0.0) {
+            return;
+        }
+        Metric noom = javaClass.metric(MetricType.NOOM);
+        double overriding = noom != null ? noom.getPsiValue().doubleValue() : 0.0;
+        inheritance += overriding / (nom.getPsiValue().doubleValue() * 100);
+    }
+
+    private MetricsAggregation merge(MetricsAggregation other) {
+        for (int l = 0; l < LEVELS; l++) {
+            for (int type = 0; type < METRIC_TYPES; type++) {
+                long otherCount = other.counts[l][type];
+                if (otherCount == 0) {
+                    continue;
+                }
+                long count = counts[l][type];
+                long total = count + otherCount;
+                double delta = other.means[l][type] - means[l][type];
+                means[l][type] += delta * otherCount / total;
+                squaredDeviations[l][type] += other.squaredDeviations[l][type]
+                        + delta * delta * count * otherCount / total;
+                counts[l][type] = total;
+                sums[l][type] += other.sums[l][type];
+                maxima[l][type] = Math.max(maxima[l][type], other.maxima[l][type]);
+            }
+        }
+        inheritance += other.inheritance;
+        return this;
+    }
+
+    public long count(@NotNull Level level, @NotNull MetricType metricType) {
+        return counts[level.ordinal()][metricType.ordinal()];
+    }
+
+    public double sum(@NotNull Level level, @NotNull MetricType metricType) {
+        return sums[level.ordinal()][metricType.ordinal()];
+    }
+
+    public double mean(@NotNull Level level, @NotNull MetricType metricType) {
+        return means[level.ordinal()][metricType.ordinal()];
+    }
+
+    /**
+     * @return population variance of the values, 0.0 if there are none
+     */
+    public double variance(@NotNull Level level, @NotNull MetricType metricType) {
+        long count = count(level, metricType);
+        return count == 0 ? 0.0 : squaredDeviations[level.ordinal()][metricType.ordinal()] / count;
+    }
+
+    /**
+     * @return the largest value, 0.0 if there are none
+     */
+    public double max(@NotNull Level level, @NotNull MetricType metricType) {
+        return count(level, metricType) == 0 ? 0.0 : maxima[level.ordinal()][metricType.ordinal()];
+    }
+
+    /**
+     * Z-score of the maximum value, i.e. how many standard deviations it lies above the mean.
+     *
+     * @return {@code (max - mean) / std_dev}, or 0.0 if there are no values or the standard deviation is zero
+     */
+    public double zScore(@NotNull Level level, @NotNull MetricType metricType) {
+        double std = Math.sqrt(variance(level, metricType));
+        if (std == 0.0) {
+            return 0.0;
+        }
+        return (max(level, metricType) - mean(level, metricType)) / std;
+    }
+
+    /**
+     * @return sum of {@code NOOM / (NOM * 100)} over the classes having methods
+     */
+    public double getInheritance() {
+        return inheritance;
+    }
+}
@@ -0,0 +1,89 @@
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeTable;
+import org.b333vv.metric.model.metric.value.RangeType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Number of classes per metric type and range type, counted in one parallel pass over the classes of a project
+ * into a primitive matrix. All class distribution charts are built from one such histogram.
+ */
+public final class MetricsValuesHistogram {
+    private static final MetricType[] METRIC_TYPES = MetricType.values();
+    private static final RangeType[] RANGE_TYPES = RangeType.values();
+
+    private final int[][] counts = new int[METRIC_TYPES.length][RANGE_TYPES.length];
+    private int numberOfClasses;
+
+    private MetricsValuesHistogram() {
+    }
+
+    public static MetricsValuesHistogram of(@NotNull ProjectElement projectElement, @NotNull RangeTable rangeTable) {
+        return projectElement.allClasses()
+                .parallel()
+                .collect(Collector.of(
+                        MetricsValuesHistogram::new,
+                        (histogram, javaClass) -> histogram.add(javaClass, rangeTable),
+                        MetricsValuesHistogram::merge,
+                        Collector.Characteristics.UNORDERED));
+    }
+
+    private void add(ClassElement javaClass, RangeTable rangeTable) {
+        numberOfClasses++;
+        javaClass.metrics().forEach(metric -> add(metric, rangeTable));
+    }
+
+    private void add(Metric metric, RangeTable rangeTable) {
+        counts[metric.getType().ordinal()][rangeTable.classify(metric.getType(), metric.getPsiValue()).ordinal()]++;
+    }
+
+    private MetricsValuesHistogram merge(MetricsValuesHistogram other) {
+        numberOfClasses += other.numberOfClasses;
+        for (int type = 0; type < counts.length; type++) {
+            for (int range = 0; range < counts[type].length; range++) {
+                counts[type][range] += other.counts[type][range];
+            }
+        }
+        return this;
+    }
+
+    public int getNumberOfClasses() {
+        return numberOfClasses;
+    }
+
+    public int count(@NotNull MetricType metricType, @NotNull RangeType rangeType) {
+        return counts[metricType.ordinal()][rangeType.ordinal()];
+    }
+
+    /**
+     * Share of the classes in each range type, for the integer metric types having at least one value in a range.
+     */
+    public Map<MetricType, Map<RangeType, Double>> toRelativeDistribution() {
+        Map<MetricType, Map<RangeType, Double>> distribution = new EnumMap<>(MetricType.class);
+        for (MetricType metricType : METRIC_TYPES) {
+            if (!metricType.isLongValue()) {
+                continue;
+            }
+            Map<RangeType, Double> classesPercentsByRangeType = new EnumMap<>(RangeType.class);
+            for (RangeType rangeType : RANGE_TYPES) {
+                int count = count(metricType, rangeType);
+                if (rangeType != RangeType.UNDEFINED && count > 0) {
+                    classesPercentsByRangeType.put(rangeType, (double) count / (double) numberOfClasses);
+                }
+            }
+            if (!classesPercentsByRangeType.isEmpty()) {
+                distribution.put(metricType, classesPercentsByRangeType);
+            }
+        }
+        return Collections.unmodifiableMap(distribution);
+    }
+}
@@ -19,6 +19,8 @@ package org.b333vv.metric.builder;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
 import org.b333vv.metric.model.visitor.kotlin.method.KotlinLinesOfCodeVisitor;
@@ -30,6 +32,7 @@ import org.b333vv.metric.model.visitor.kotlin.method.KotlinLocalityOfAttributeAc
 import org.b333vv.metric.model.visitor.kotlin.method.KotlinForeignDataProvidersVisitor;
 import org.b333vv.metric.model.visitor.kotlin.method.KotlinNumberOfAccessedVariablesVisitor;
 import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.CodeElement;
 import org.b333vv.metric.model.code.FileElement;
 import org.b333vv.metric.model.code.MethodElement;
 import org.b333vv.metric.model.metric.Metric;
@@ -41,9 +44,16 @@ import org.b333vv.metric.model.visitor.type.HalsteadClassVisitor;
 import org.b333vv.metric.model.visitor.type.JavaClassVisitor;
 import org.b333vv.metric.ui.settings.composition.MetricsTreeSettingsStub;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.b333vv.metric.service.ProfilingService;
 import org.b333vv.metric.util.SettingsService;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.b333vv.metric.model.metric.MetricType.*;
@@ -52,12 +62,17 @@ public abstract class ModelBuilder {
 
     protected List<JavaClassVisitor> javaClassVisitorList = null;
     protected List<JavaMethodVisitor> javaMethodVisitorList = null;
+    protected List<JavaClassVisitor> dependentClassVisitorList = null;
+    protected List<JavaMethodVisitor> dependentMethodVisitorList = null;
+
+    protected FileMetricsSnapshot previousSnapshot = null;
+    protected FileMetricsSnapshot currentSnapshot = null;
 
     protected List<JavaClassVisitor> getClassVisitorList(Project project) {
         if (javaClassVisitorList == null) {
             javaClassVisitorList = project.getService(SettingsService.class).getClassMetricsTreeSettings().getMetricsList().stream()
                     .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                    .map(m -> m.getType().visitor())
+                    .map(m -> m.getType().createVisitor())
                     .filter(m -> m instanceof JavaClassVisitor)
                     .map(m -> (JavaClassVisitor) m)
                     .toList();
@@ -74,11 +89,21 @@ public abstract class ModelBuilder {
                 .anyMatch(stub -> stub.isNeedToConsider() && stub.getType() == type);
     }
 
+    protected Set<MetricType> enabledMetricTypes(@NotNull Project project) {
+        return project.getService(SettingsService.class)
+                .getClassMetricsTreeSettings()
+                .getMetricsList()
+                .stream()
+                .filter(MetricsTreeSettingsStub::isNeedToConsider)
+                .map(MetricsTreeSettingsStub::getType)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(MetricType.class)));
+    }
+
     protected List<JavaMethodVisitor> getMethodVisitorList(Project project) {
         if (javaMethodVisitorList == null) {
             javaMethodVisitorList = project.getService(SettingsService.class).getClassMetricsTreeSettings().getMetricsList().stream()
                     .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                    .map(m -> m.getType().visitor())
+                    .map(m -> m.getType().createVisitor())
                     .filter(m -> m instanceof JavaMethodVisitor)
                     .map(m -> (JavaMethodVisitor) m)
                     .toList();
@@ -86,16 +111,40 @@ public abstract class ModelBuilder {
         return javaMethodVisitorList;
     }
 
+    // Visitors of the metrics that are calculated even for declarations restored from a snapshot
+    protected List<JavaClassVisitor> getDependentClassVisitorList(Project project) {
+        if (dependentClassVisitorList == null) {
+            dependentClassVisitorList = project.getService(SettingsService.class).getClassMetricsTreeSettings().getMetricsList().stream()
+                    .filter(MetricsTreeSettingsStub::isNeedToConsider)
+                    .filter(m -> FileMetricsSnapshot.isDependent(m.getType()))
+                    .map(m -> m.getType().createVisitor())
+                    .filter(m -> m instanceof JavaClassVisitor)
+                    .map(m -> (JavaClassVisitor) m)
+                    .toList();
+        }
+        return dependentClassVisitorList;
+    }
+
+    protected List<JavaMethodVisitor> getDependentMethodVisitorList(Project project) {
+        if (dependentMethodVisitorList == null) {
+            dependentMethodVisitorList = project.getService(SettingsService.class).getClassMetricsTreeSettings().getMetricsList().stream()
+                    .filter(MetricsTreeSettingsStub::isNeedToConsider)
+                    .filter(m -> FileMetricsSnapshot.isDependent(m.getType()))
+                    .map(m -> m.getType().createVisitor())
+                    .filter(m -> m instanceof JavaMethodVisitor)
+                    .map(m -> (JavaMethodVisitor) m)
+                    .toList();
+        }
+        return dependentMethodVisitorList;
+    }
+
     protected FileElement createJavaFile(@NotNull PsiJavaFile psiJavaFile) {
         FileElement javaFile = new FileElement(psiJavaFile.getName());
         Project project = psiJavaFile.getProject();
         for (PsiClass psiClass : psiJavaFile.getClasses()) {
             ClassElement javaClass = new ClassElement(psiClass);
 
-            getClassVisitorList(project).forEach(javaClass::accept);
-
-            HalsteadClassVisitor halsteadClassVisitor = new HalsteadClassVisitor();
-            javaClass.accept(halsteadClassVisitor);
+            applyClassVisitors(project, javaClass);
 
             javaFile.addClass(javaClass);
             buildConstructors(javaClass);
@@ -119,12 +168,7 @@ public abstract class ModelBuilder {
             MethodElement javaMethod = new MethodElement(aConstructor, javaClass);
             javaClass.addMethod(javaMethod);
 
-            getMethodVisitorList(project).forEach(javaMethod::accept);
-
-            HalsteadMethodVisitor halsteadMethodVisitor = new HalsteadMethodVisitor();
-            javaMethod.accept(halsteadMethodVisitor);
-
-            addMaintainabilityIndexForMethod(javaMethod);
+            applyMethodVisitors(project, javaMethod);
         }
     }
 
@@ -134,13 +178,73 @@ public abstract class ModelBuilder {
             MethodElement javaMethod = new MethodElement(aMethod, javaClass);
             javaClass.addMethod(javaMethod);
 
-            getMethodVisitorList(project).forEach(javaMethod::accept);
+            applyMethodVisitors(project, javaMethod);
+        }
+    }
+
+    // Visitors are timed one by one while profiling is on
+    protected void applyVisitors(@NotNull Project project, @NotNull List<? extends PsiElementVisitor> visitors,
+                                 @NotNull Consumer<PsiElementVisitor> accept) {
+        ProfilingService profilingService = project.getService(ProfilingService.class);
+        for (PsiElementVisitor visitor : visitors) {
+            ProfilingService.Probe probe = profilingService.start();
+            accept.accept(visitor);
+            profilingService.visitorFinished(probe, visitor);
+        }
+    }
+
+    protected void applyClassVisitors(@NotNull Project project, @NotNull ClassElement javaClass) {
+        PsiClass psiClass = javaClass.getPsiClass();
+        String key = declarationKey(psiClass, javaClass);
+        if (restoreMetrics(key, psiClass, javaClass)) {
+            applyVisitors(project, getDependentClassVisitorList(project), javaClass::accept);
+        } else {
+            applyVisitors(project, getClassVisitorList(project), javaClass::accept);
+
+            HalsteadClassVisitor halsteadClassVisitor = new HalsteadClassVisitor();
+            javaClass.accept(halsteadClassVisitor);
+        }
+        storeMetrics(key, psiClass, javaClass);
+    }
+
+    protected void applyMethodVisitors(@NotNull Project project, @NotNull MethodElement javaMethod) {
+        PsiMethod psiMethod = javaMethod.getPsiMethod();
+        String key = declarationKey(javaMethod.getJavaClass().getPsiClass(), javaMethod.getJavaClass())
+                + "#" + methodKey(psiMethod);
+        if (restoreMetrics(key, psiMethod, javaMethod)) {
+            applyVisitors(project, getDependentMethodVisitorList(project), javaMethod::accept);
+        } else {
+            applyVisitors(project, getMethodVisitorList(project), javaMethod::accept);
 
             HalsteadMethodVisitor halsteadMethodVisitor = new HalsteadMethodVisitor();
             javaMethod.accept(halsteadMethodVisitor);
 
             addMaintainabilityIndexForMethod(javaMethod);
         }
+        storeMetrics(key, psiMethod, javaMethod);
+    }
+
+    private static String declarationKey(@Nullable PsiClass psiClass, @NotNull ClassElement javaClass) {
+        String qualifiedName = psiClass != null ? psiClass.getQualifiedName() : null;
+        return qualifiedName != null ? qualifiedName : javaClass.getName();
+    }
+
+    // Qualified parameter types tell apart overloads whose types share a simple name
+    private static String methodKey(@NotNull PsiMethod psiMethod) {
+        return psiMethod.getName() + Arrays.stream(psiMethod.getParameterList().getParameters())
+                .map(parameter -> parameter.getType().getCanonicalText())
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    protected boolean restoreMetrics(@NotNull String key, @Nullable PsiElement declaration,
+                                     @NotNull CodeElement target) {
+        return previousSnapshot != null && declaration != null && previousSnapshot.restore(key, declaration, target);
+    }
+
+    protected void storeMetrics(@NotNull String key, @Nullable PsiElement declaration, @NotNull CodeElement target) {
+        if (currentSnapshot != null && declaration != null) {
+            currentSnapshot.store(key, declaration, target);
+        }
     }
 
     protected void buildInnerClasses(PsiClass aClass, ClassElement parentClass) {
@@ -149,10 +253,7 @@ public abstract class ModelBuilder {
             ClassElement javaClass = new ClassElement(psiClass);
             parentClass.addClass(javaClass);
 
-            getClassVisitorList(project).forEach(javaClass::accept);
-
-            HalsteadClassVisitor halsteadClassVisitor = new HalsteadClassVisitor();
-            javaClass.accept(halsteadClassVisitor);
+            applyClassVisitors(project, javaClass);
 
             buildConstructors(javaClass);
             buildMethods(javaClass);
@@ -0,0 +1,228 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.util.Query;
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.MoodCounters;
+import org.b333vv.metric.model.code.MoodCounters.ClassKind;
+import org.b333vv.metric.model.util.ClassUtils;
+import org.b333vv.metric.model.util.MethodSignatureTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.psi.KtClass;
+import org.jetbrains.kotlin.psi.KtClassOrObject;
+import org.jetbrains.kotlin.psi.KtObjectDeclaration;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.jetbrains.kotlin.asJava.LightClassUtilsKt.toLightClass;
+
+/**
+ * Collects the {@link MoodCounters} of a class while the class model is built. Must be called in a read action.
+ * <p>
+ * The counters keep the semantics of the former PSI pass over the project files: anonymous and local Java classes
+ * are counted along with the class declaring them, subclasses are searched in all scope and member visibility is
+ * only counted for Kotlin classes. Couplings are the dependencies that {@link DependenciesBuilder} records for the
+ * class, other than its supertypes.
+ */
+public final class MoodCountersCollector {
+
+    private MoodCountersCollector() {
+    }
+
+    /**
+     * Sets the counters of a class element. They are collected again on every build of the model, since they depend
+     * on the supertypes and inheritors of the class, which may have changed while the element stayed cached. Kotlin
+     * classes are handled through their light classes, synthetic elements get no counters.
+     */
+    public static void collect(@NotNull ClassElement classElement) {
+        PsiClass psiClass = classElement.getPsiClass();
+        if (psiClass == null) {
+            KtClassOrObject ktClass = classElement.getKtClassOrObject();
+            psiClass = ktClass == null ? null : toLightClass(ktClass);
+        }
+        classElement.setMoodCounters(psiClass == null ? null : collect(psiClass));
+    }
+
+    @NotNull
+    public static MoodCounters collect(@NotNull PsiClass psiClass) {
+        boolean kotlin = psiClass.getNavigationElement() instanceof KtClassOrObject;
+        return collect(psiClass, kotlin, kotlin ? List.of() : localClasses(psiClass));
+    }
+
+    private static MoodCounters collect(@NotNull PsiClass psiClass, boolean kotlin,
+                                        @NotNull List<MoodCounters> localClasses) {
+        int[] fields = new int[2];
+        collectAvailableFields(psiClass, fields);
+        MethodSignatureTable signatures = MethodSignatureTable.of(psiClass);
+        int[] methods = new int[2];
+        collectAvailableMethods(psiClass, signatures, methods);
+        int newMethods = 0;
+        int overridingMethods = 0;
+        for (PsiMethod method : psiClass.getMethods()) {
+            if (!signatures.hasSuperMethod(method)) {
+                newMethods++;
+            } else {
+                overridingMethods++;
+            }
+        }
+        String packageName = ClassUtils.calculatePackageName(psiClass);
+        int[] subclasses = new int[2];
+        collectSubclasses(psiClass, packageName, subclasses);
+        // Java members have never been counted towards AHF and MHF
+        return new MoodCounters(packageName, kinds(psiClass),
+                kotlin ? visibility(psiClass, psiClass.getFields()) : MoodCounters.Visibility.NONE,
+                kotlin ? visibility(psiClass, psiClass.getMethods()) : MoodCounters.Visibility.NONE,
+                fields[0], fields[1], methods[0], methods[1], newMethods, overridingMethods,
+                subclasses[0], subclasses[1], couplings(psiClass), localClasses);
+    }
+
+    private static int couplings(@NotNull PsiClass psiClass) {
+        DependenciesBuilder dependencies = new DependenciesBuilder();
+        dependencies.buildClass(psiClass);
+        return (int) dependencies.getClassesDependencies(psiClass).stream()
+                .filter(c -> !psiClass.isInheritor(c, true))
+                .count();
+    }
+
+    // Anonymous and local classes of a class, and the classes nested in them, which the model has no elements for
+    private static List<MoodCounters> localClasses(@NotNull PsiClass psiClass) {
+        List<MoodCounters> localClasses = new ArrayList<>();
+        psiClass.acceptChildren(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitClass(@NotNull PsiClass aClass) {
+                // member classes are classes of the model, with counters of their own
+                if (aClass.getParent() != psiClass) {
+                    localClasses.add(collect(aClass, false, List.of()));
+                    super.visitClass(aClass);
+                }
+            }
+
+            @Override
+            public void visitTypeParameter(@NotNull PsiTypeParameter classParameter) {
+            }
+        });
+        return localClasses.isEmpty() ? List.of() : List.copyOf(localClasses);
+    }
+
+    // Non-interface inheritors outside libraries, and those of them in other packages than the class
+    private static void collectSubclasses(@NotNull PsiClass psiClass, @NotNull String packageName, int[] counters) {
+        Query<PsiClass> query = ClassInheritorsSearch.search(psiClass,
+                GlobalSearchScope.allScope(psiClass.getProject()), true, true, true);
+        for (PsiClass inheritor : query) {
+            if (inheritor.isInterface() || isInLibrary(inheritor)) {
+                continue;
+            }
+            counters[0]++;
+            if (!packageName.equals(ClassUtils.calculatePackageName(inheritor))) {
+                counters[1]++;
+            }
+        }
+    }
+
+    private static Set<ClassKind> kinds(@NotNull PsiClass psiClass) {
+        Set<ClassKind> kinds = EnumSet.noneOf(ClassKind.class);
+        PsiElement navElement = psiClass.getNavigationElement();
+        boolean isKotlinObject = navElement instanceof KtObjectDeclaration;
+        if (ClassUtils.isConcreteClass(psiClass)) {
+            kinds.add(ClassKind.CONCRETE);
+        }
+        if (ClassUtils.isAbstractClass(psiClass)) {
+            kinds.add(ClassKind.ABSTRACT);
+        }
+        // Kotlin objects are counted as objects and companion objects, not as static classes
+        if (ClassUtils.isStaticClass(psiClass) && !isKotlinObject) {
+            kinds.add(ClassKind.STATIC);
+        }
+        if (psiClass.isInterface()) {
+            kinds.add(ClassKind.INTERFACE);
+        }
+        if (navElement instanceof KtClass) {
+            KtClass ktClass = (KtClass) navElement;
+            if (ktClass.isData()) {
+                kinds.add(ClassKind.DATA_CLASS);
+            }
+            if (ktClass.isSealed()) {
+                kinds.add(ClassKind.SEALED_CLASS);
+            }
+        } else if (isKotlinObject) {
+            kinds.add(((KtObjectDeclaration) navElement).isCompanion()
+                    ? ClassKind.COMPANION_OBJECT : ClassKind.KOTLIN_OBJECT);
+        }
+        return kinds;
+    }
+
+    private static MoodCounters.Visibility visibility(@NotNull PsiClass psiClass, PsiModifierListOwner[] members) {
+        int publicMembers = 0;
+        int packageVisibleMembers = 0;
+        int protectedMembers = 0;
+        for (PsiModifierListOwner member : members) {
+            if (member.hasModifierProperty(PsiModifier.PRIVATE) || psiClass.hasModifierProperty(PsiModifier.PRIVATE)) {
+                // private: not visible outside
+            } else if (member.hasModifierProperty(PsiModifier.PROTECTED)
+                    || psiClass.hasModifierProperty(PsiModifier.PROTECTED)) {
+                protectedMembers++;
+            } else if ((member.hasModifierProperty(PsiModifier.PUBLIC) || psiClass.isInterface())
+                    && psiClass.hasModifierProperty(PsiModifier.PUBLIC)) {
+                publicMembers++;
+            } else {
+                packageVisibleMembers++;
+            }
+        }
+        return new MoodCounters.Visibility(members.length, publicMembers, packageVisibleMembers, protectedMembers);
+    }
+
+    // Own fields and non-private fields of superclasses other than Object
+    private static void collectAvailableFields(@NotNull PsiClass psiClass, int[] counters) {
+        for (PsiField field : psiClass.getAllFields()) {
+            final PsiClass containingClass = field.getContainingClass();
+            if (containingClass == null) {
+                continue;
+            }
+            if (containingClass.equals(psiClass)) {
+                counters[0]++;
+            } else if (!"java.lang.Object".equals(containingClass.getName())
+                    && !field.hasModifierProperty(PsiModifier.PRIVATE)) {
+                counters[0]++;
+                counters[1]++;
+            }
+        }
+    }
+
+    // Own methods and non-private methods of project superclasses that no other available method overrides
+    private static void collectAvailableMethods(@NotNull PsiClass psiClass, @NotNull MethodSignatureTable signatures,
+                                                int[] counters) {
+        for (PsiMethod method : signatures.getNonOverriddenMethods()) {
+            final PsiClass containingClass = method.getContainingClass();
+            if (containingClass == null) {
+                continue;
+            }
+            if (containingClass.equals(psiClass)) {
+                counters[0]++;
+            } else if (!isInLibrary(containingClass) && !method.hasModifierProperty(PsiModifier.PRIVATE)) {
+                counters[0]++;
+                counters[1]++;
+            }
+        }
+    }
+
+    /**
+     * @return true if the class is indexed as a library, is outside the content and source roots or has no file
+     */
+    private static boolean isInLibrary(@NotNull PsiClass psiClass) {
+        PsiFile file = psiClass.getContainingFile();
+        VirtualFile vFile = file == null ? null : file.getVirtualFile();
+        if (vFile == null) {
+            return true;
+        }
+        ProjectFileIndex index = ProjectRootManager.getInstance(file.getProject()).getFileIndex();
+        return index.isInLibrary(vFile) || !(index.isInContent(vFile) || index.isInSource(vFile));
+    }
+}
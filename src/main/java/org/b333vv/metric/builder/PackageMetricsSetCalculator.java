@@ -32,10 +32,12 @@ import org.jetbrains.kotlin.psi.KtClass;
 import org.jetbrains.kotlin.psi.KtClassOrObject;
 import org.jetbrains.kotlin.psi.KtObjectDeclaration;
 
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.b333vv.metric.model.metric.MetricType.*;
@@ -83,9 +85,15 @@ import static org.jetbrains.kotlin.asJava.LightClassUtilsKt.toLightClass;
  * Maintainability Index ({@link MetricType#PAMI}).
  */
 public class PackageMetricsSetCalculator {
+    private static final int NO_PACKAGE = -1;
+
     private final AnalysisScope scope;
     private final DependenciesBuilder dependenciesBuilder;
     private final ProjectElement projectElement;
+    // Ids of project and library packages, couplings of a package are collected as bitsets of these ids
+    private final Map<PsiPackage, Integer> packageIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPackageId = new AtomicInteger();
+    private final Map<PsiClass, Integer> classPackageIds = new ConcurrentHashMap<>();
 
     public PackageMetricsSetCalculator(AnalysisScope scope, DependenciesBuilder dependenciesBuilder,
             ProjectElement projectElement) {
@@ -94,11 +102,41 @@ public class PackageMetricsSetCalculator {
         this.projectElement = projectElement;
     }
 
+    public PackageMetricsSetCalculator(DependenciesBuilder dependenciesBuilder, ProjectElement projectElement) {
+        this(null, dependenciesBuilder, projectElement);
+    }
+
+    /**
+     * Finds the packages of all classes of the model once, then handles the packages in parallel. Each package only
+     * writes its own metrics.
+     */
     public void calculate() {
+        projectElement.allClasses()
+                .parallel()
+                .forEach(classElement -> ApplicationManager.getApplication().runReadAction(() -> {
+                    PsiClass psiClass = getPsiClass(classElement);
+                    if (psiClass != null) {
+                        classPackageId(psiClass);
+                    }
+                }));
         projectElement.allPackages()
+                .collect(Collectors.toList())
+                .parallelStream()
                 .forEach(this::handlePackage);
     }
 
+    private int packageId(PsiPackage psiPackage) {
+        if (psiPackage == null) {
+            return NO_PACKAGE;
+        }
+        return packageIds.computeIfAbsent(psiPackage, k -> nextPackageId.getAndIncrement());
+    }
+
+    // Dependents outside the model, such as local classes, are looked up on first use
+    private int classPackageId(PsiClass psiClass) {
+        return classPackageIds.computeIfAbsent(psiClass, c -> packageId(ClassUtils.findPackage(c)));
+    }
+
     private void handlePackage(@NotNull PackageElement p) {
         ApplicationManager.getApplication().runReadAction(() -> {
             PsiPackage psiPackage = p.getPsiPackage();
@@ -106,8 +144,9 @@ public class PackageMetricsSetCalculator {
                 return;
             }
 
-            Set<PsiPackage> efferentPackages = new HashSet<>();
-            Set<PsiPackage> afferentPackages = new HashSet<>();
+            int packageId = packageId(psiPackage);
+            BitSet efferentPackages = new BitSet();
+            BitSet afferentPackages = new BitSet();
             int classesNumber = 0;
             int abstractClassesNumber = 0;
 
@@ -124,30 +163,25 @@ public class PackageMetricsSetCalculator {
                     abstractClassesNumber++;
                 }
 
-                Set<PsiClass> dependentClasses = dependenciesBuilder.getDependentsSet(psiClass, psiPackage);
-                if (dependentClasses != null && !dependentClasses.isEmpty()) {
-                    for (PsiClass dependentClass : dependentClasses) {
-                        if (dependentClass == null)
-                            continue;
-                        PsiPackage dependentPackage = ClassUtils.findPackage(dependentClass);
-                        if (dependentPackage != null && !dependentPackage.equals(psiPackage)) {
-                            afferentPackages.add(dependentPackage);
-                        }
+                for (PsiClass dependentClass : dependenciesBuilder.getClassesDependents(psiClass)) {
+                    if (dependentClass == null)
+                        continue;
+                    int dependentPackageId = classPackageId(dependentClass);
+                    if (dependentPackageId != NO_PACKAGE && dependentPackageId != packageId) {
+                        afferentPackages.set(dependentPackageId);
                     }
                 }
 
-                Set<PsiPackage> packageDependencies = dependenciesBuilder.getPackagesDependencies(psiClass);
-                if (packageDependencies != null) {
-                    for (PsiPackage dependentPackage : packageDependencies) {
-                        if (dependentPackage != null && !dependentPackage.equals(psiPackage)) {
-                            efferentPackages.add(dependentPackage);
-                        }
+                for (PsiPackage dependencyPackage : dependenciesBuilder.getPackagesDependencies(psiClass)) {
+                    int dependencyPackageId = packageId(dependencyPackage);
+                    if (dependencyPackageId != NO_PACKAGE && dependencyPackageId != packageId) {
+                        efferentPackages.set(dependencyPackageId);
                     }
                 }
             }
 
-            int afferentCoupling = afferentPackages.size();
-            int efferentCoupling = efferentPackages.size();
+            int afferentCoupling = afferentPackages.cardinality();
+            int efferentCoupling = efferentPackages.cardinality();
 
             Value instability = (afferentCoupling + efferentCoupling) == 0
                     ? Value.of(0.0)
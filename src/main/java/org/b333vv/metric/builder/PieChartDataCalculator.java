@@ -10,6 +10,10 @@ public class PieChartDataCalculator {
 
     public List<MetricPieChartBuilder.PieChartStructure> calculate(ProjectElement projectElement, Project project) {
         ClassesByMetricsValuesCounter counter = new ClassesByMetricsValuesCounter(project);
-        return new MetricPieChartBuilder().createChart(counter.classesByMetricsValuesDistribution(projectElement));
+        return calculate(counter.histogram(projectElement));
+    }
+
+    public List<MetricPieChartBuilder.PieChartStructure> calculate(MetricsValuesHistogram histogram) {
+        return new MetricPieChartBuilder().createChart(histogram.toRelativeDistribution());
     }
 }
\ No newline at end of file
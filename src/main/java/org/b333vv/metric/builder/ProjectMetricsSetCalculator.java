@@ -16,44 +16,31 @@
 
 package org.b333vv.metric.builder;
 
-import com.intellij.analysis.AnalysisScope;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProgressIndicator;
-import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.progress.ProgressManager;
-import com.intellij.openapi.roots.ProjectFileIndex;
-import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.*;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
+import com.intellij.psi.PsiClass;
 import org.b333vv.metric.model.code.ClassElement;
-import org.b333vv.metric.model.code.CodeElement;
+import org.b333vv.metric.model.code.MoodCounters;
 import org.b333vv.metric.model.code.ProjectElement;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.metric.value.Value;
 import org.b333vv.metric.model.util.Bag;
-import org.b333vv.metric.model.util.ClassUtils;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.asJava.LightClassUtilsKt;
-import org.jetbrains.kotlin.psi.KtClass;
-import org.jetbrains.kotlin.psi.KtClassOrObject;
-import org.jetbrains.kotlin.psi.KtDeclaration;
-import org.jetbrains.kotlin.psi.KtFile;
-import org.jetbrains.kotlin.psi.KtObjectDeclaration;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.b333vv.metric.builder.MetricsAggregation.Level.*;
+import static org.b333vv.metric.model.code.MoodCounters.ClassKind.*;
 import static org.b333vv.metric.model.metric.MetricType.*;
 
 /**
  * <h1>Project Metrics Set Calculator</h1>
  *
- * <p>Calculates project-level software quality metrics by traversing the PSI (Program Structure Interface) tree
- * and aggregating class/package-level metrics. This calculator computes three major metric suites:</p>
+ * <p>Calculates project-level software quality metrics by aggregating the class model, the raw MOOD inputs
+ * collected with it and class/package-level metrics. This calculator computes three major metric suites:</p>
  * <ul>
  *   <li><b>MOOD Metrics</b> (Metrics for Object-Oriented Design) - AHF, MHF, AIF, MIF, CF, PF</li>
  *   <li><b>QMOOD Metrics</b> (Quality Model for Object-Oriented Design) - Reusability, Flexibility,
@@ -67,17 +54,17 @@ import static org.b333vv.metric.model.metric.MetricType.*;
  *
  * <p>The calculator operates in two phases:</p>
  * <ol>
- *   <li><b>Collection Phase:</b> Traverses all Java and Kotlin classes in the project scope using a
- *       {@link JavaRecursiveElementVisitor}. During traversal, it:
+ *   <li><b>Collection Phase:</b> Sums the {@link MoodCounters} that {@link ProjectModelBuilder} collected for
+ *       each class, and each anonymous or local class declared in it, while building the class model. It:
  *       <ul>
- *         <li>Collects raw counts (classes, methods, fields, LOC, etc.)</li>
+ *         <li>Collects raw counts (classes, methods, fields, class kinds)</li>
  *         <li>Accumulates visibility information per class and package</li>
- *         <li>Computes inheritance relationships and coupling dependencies</li>
- *         <li>Aggregates class-level metrics (WMC, DIT, LCOM, etc.) from already-calculated values</li>
+ *         <li>Sums the couplings of each class to the classes it depends on, other than its supertypes</li>
  *       </ul>
  *   </li>
- *   <li><b>Calculation Phase:</b> After traversal completes, computes final project-level metrics using
- *       the collected data and formulas specific to each metric suite.</li>
+ *   <li><b>Calculation Phase:</b> After collection completes, computes final project-level metrics using
+ *       the collected data and formulas specific to each metric suite. Sums, means, standard deviations and
+ *       maxima of class, method and package metrics come from a single {@link MetricsAggregation} pass.</li>
  * </ol>
  *
  * <h2>MOOD Metrics (Metrics for Object-Oriented Design)</h2>
@@ -98,13 +85,14 @@ import static org.b333vv.metric.model.metric.MetricType.*;
  *   <li><b>protected</b>: contributes (classes_in_same_package - 1) + subclasses_outside_package</li>
  *   <li><b>public</b>: contributes (total_classes - 1)</li>
  * </ul>
+ * <p>Only the attributes of Kotlin classes are counted.</p>
  *
  * <h3>2. Method Hiding Factor (MHF)</h3>
  * <p>Measures the ratio of hidden (non-visible) methods to total possible method visibility.</p>
  * <pre>
  *   MHF = 1 - (total_method_visibility / (total_methods * (classes - 1)))
  * </pre>
- * <p>Uses the same visibility contribution rules as AHF.</p>
+ * <p>Uses the same visibility contribution rules as AHF. Only the methods of Kotlin classes are counted.</p>
  *
  * <h3>3. Attribute Inheritance Factor (AIF)</h3>
  * <p>Measures the ratio of inherited attributes to total available attributes in subclasses.</p>
@@ -223,29 +211,25 @@ import static org.b333vv.metric.model.metric.MetricType.*;
  *
  * <h2>Kotlin Support</h2>
  *
- * <p>Kotlin classes are processed by converting {@link KtClassOrObject} to light Java {@link PsiClass}
- * representations using {@link LightClassUtilsKt#toLightClass}. This enables uniform processing of
- * Java and Kotlin code through the same PSI visitor logic.</p>
+ * <p>Kotlin classes are counted through their light Java {@link PsiClass} representations, which
+ * {@link MoodCountersCollector} obtains with {@link LightClassUtilsKt#toLightClass}.</p>
  *
  * <h2>Thread Safety and Progress Reporting</h2>
  *
  * <p>This calculator is designed to run on a background thread with progress indication. It uses
- * {@link ProgressIndicator#checkCanceled()} to support user cancellation and reports progress
- * during PSI traversal.</p>
+ * {@link ProgressIndicator#checkCanceled()} to support user cancellation.</p>
  *
  * @author b333vv
  * @see ProjectElement
- * @see DependenciesBuilder
  * @see MetricType
  */
 public class ProjectMetricsSetCalculator {
-    private final AnalysisScope scope;
-    private final DependenciesBuilder dependenciesBuilder;
     private final ProjectElement projectElement;
 
     private ProgressIndicator indicator;
-    private int filesCount;
-    private int progress = 0;
+
+    /** MOOD counters of the classes of the model, collected while the model was built. */
+    private List<MoodCounters> classes;
 
     // Attribute-related counters for MOOD metrics
     private int attributesNumber = 0;
@@ -255,17 +239,6 @@ public class ProjectMetricsSetCalculator {
     private final Bag<String> classesPerPackage = new Bag<>();
     private final Bag<String> packageVisibleAttributesPerPackage = new Bag<>();
 
-    /**
-     * Number of protected fields per declaring class.
-     * Protected visibility requires a package-aware calculation performed after traversal.
-     */
-    private final Map<PsiClass, Integer> protectedFieldsPerClass = new HashMap<>();
-
-    private final Map<PsiClass, Integer> subclassesPerClass = new HashMap<>();
-
-    /** Cached number of subclasses outside the declaring class package. */
-    private final Map<PsiClass, Integer> subclassesOutsidePackagePerClass = new HashMap<>();
-
     private int availableFields = 0;
     private int inheritedFields = 0;
 
@@ -277,12 +250,6 @@ public class ProjectMetricsSetCalculator {
     private Value totalMethodsVisibility = Value.of(0.0);
     private final Bag<String> packageVisibleMethodsPerPackage = new Bag<>();
 
-    /**
-     * Number of protected methods per declaring class.
-     * Protected visibility requires a package-aware calculation performed after traversal.
-     */
-    private final Map<PsiClass, Integer> protectedMethodsPerClass = new HashMap<>();
-
     private int availableMethods = 0;
     private int inheritedMethods = 0;
 
@@ -304,16 +271,16 @@ public class ProjectMetricsSetCalculator {
 
     double halsteadVolume = 0.0;
 
+    /** Class, method and package metric aggregates, collected once after collection. */
+    private MetricsAggregation aggregation;
+
     /**
      * Constructs a new ProjectMetricsSetCalculator.
      *
-     * @param scope the analysis scope defining which files to process
-     * @param dependenciesBuilder the builder providing class dependency information
-     * @param projectElement the project model element to which calculated metrics will be added
+     * @param projectElement the project model element to which calculated metrics will be added, its classes
+     *                       carry the {@link MoodCounters} collected by {@link ProjectModelBuilder}
      */
-    public ProjectMetricsSetCalculator(AnalysisScope scope, DependenciesBuilder dependenciesBuilder, ProjectElement projectElement) {
-        this.scope = scope;
-        this.dependenciesBuilder = dependenciesBuilder;
+    public ProjectMetricsSetCalculator(ProjectElement projectElement) {
         this.projectElement = projectElement;
     }
 
@@ -322,20 +289,24 @@ public class ProjectMetricsSetCalculator {
      *
      * <p>This method orchestrates the two-phase calculation:</p>
      * <ol>
-     *   <li>Traverses the PSI tree to collect raw data</li>
+     *   <li>Collects raw data from the {@link MoodCounters} of the classes of the model</li>
      *   <li>Computes final metrics from collected data</li>
      * </ol>
      *
-     * <p>Progress is reported via {@link ProgressIndicator} and can be canceled by the user.</p>
+     * <p>PSI is not visited again, progress can be canceled by the user.</p>
      */
     public void calculate() {
         indicator = ProgressManager.getInstance().getProgressIndicator();
         indicator.setText("Initializing");
-        filesCount = scope.getFileCount();
-
-        scope.accept(new Visitor());
+        classes = projectElement.allClasses()
+                .map(ClassElement::getMoodCounters)
+                .filter(Objects::nonNull)
+                .flatMap(counters -> Stream.concat(Stream.of(counters), counters.localClasses().stream()))
+                .collect(Collectors.toList());
+        collectFromClasses();
 
         indicator.setText("Calculating metrics");
+        aggregation = MetricsAggregation.of(projectElement);
 
         calculateMood();
         calculateStatistics();
@@ -352,17 +323,18 @@ public class ProjectMetricsSetCalculator {
      * Functionality, Extendibility, and Effectiveness.</p>
      */
     private void calculateQmood() {
-        double zCoupling = calculateZCoupling();
-        double zCohesion = calculateZCohesion();
-        double zMessaging = calculateZMessaging();
-        double zDesignSize = calculateZDesignSize();
+        double zCoupling = aggregation.zScore(PACKAGE, Ce);
+        double zLackOfCohesion = aggregation.zScore(CLASS, LCOM);
+        double zCohesion = zLackOfCohesion == 0.0 ? 0.0 : 1.0 / zLackOfCohesion;
+        double zMessaging = aggregation.zScore(CLASS, NOM);
+        double zDesignSize = aggregation.zScore(PACKAGE, PNOCC);
         double zEncapsulation = 1.0;
-        double zComposition = calculateZComposition();
-        double zPolymorphism = calculateZPolymorphism();
-        double zAbstraction = calculateZAbstraction();
-        double zComplexity = calculateZComplexity();
-        double zHierarchies = calculateZHierarchies();
-        double zInheritance = calculateZInheritance();
+        double zComposition = aggregation.zScore(CLASS, NOA);
+        double zPolymorphism = aggregation.zScore(CLASS, NOOM);
+        double zAbstraction = aggregation.zScore(PACKAGE, A);
+        double zComplexity = aggregation.zScore(CLASS, WMC);
+        double zHierarchies = aggregation.zScore(CLASS, DIT);
+        double zInheritance = aggregation.getInheritance();
 
         double Reusability = -0.25 * zCoupling + 0.25 * zCohesion + 0.5 * zMessaging + 0.5 * zDesignSize;
         double Flexibility = 0.25 * zEncapsulation - 0.25 * zCoupling + 0.5 * zComposition + 0.5 * zPolymorphism;
@@ -414,12 +386,12 @@ public class ProjectMetricsSetCalculator {
      * If all inputs are zero, MI is reported as 0.0.</p>
      */
     private void calculateMaintainabilityIndex() {
-        final double projectCC = sumMethodMetric(CC);
+        final double projectCC = aggregation.sum(METHOD, CC);
 
         // Prefer the already-computed aggregated LOC (PLOC), but fall back to per-method sum if needed.
         double loc = (double) linesOfCode;
         if (loc <= 0.0) {
-            loc = sumMethodMetric(LOC);
+            loc = aggregation.sum(METHOD, LOC);
         }
 
         // Prefer the computed field value (filled by calculateHalstead), but keep a robust fallback.
@@ -431,7 +403,7 @@ public class ProjectMetricsSetCalculator {
             }
         }
         if (volume <= 0.0) {
-            volume = sumPackageMetric(PAHVL);
+            volume = aggregation.sum(PACKAGE, PAHVL);
         }
 
         double maintainabilityIndex = computeMaintainabilityIndex(volume, projectCC, loc);
@@ -464,42 +436,6 @@ public class ProjectMetricsSetCalculator {
         return mi;
     }
 
-    /**
-     * Sums a method-level metric across the whole project.
-     *
-     * @param metricType a method-level metric type
-     * @return sum of metric values across all methods, or 0.0 if none exist
-     */
-    private double sumMethodMetric(@NotNull MetricType metricType) {
-        return projectElement
-                .allClasses()
-                .flatMap(ClassElement::methods)
-                .map(javaMethod -> {
-                    Metric m = javaMethod.metric(metricType);
-                    return m != null ? m.getPsiValue() : Value.ZERO;
-                })
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .doubleValue();
-    }
-
-    /**
-     * Sums a package-level metric across the whole project.
-     *
-     * @param metricType a package-level metric type
-     * @return sum of metric values across all packages, or 0.0 if none exist
-     */
-    private double sumPackageMetric(@NotNull MetricType metricType) {
-        return projectElement
-                .allPackages()
-                .flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == metricType)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .doubleValue();
-    }
-
     /**
      * Aggregates Halstead metrics from package-level metrics.
      *
@@ -514,53 +450,12 @@ public class ProjectMetricsSetCalculator {
      * </ul>
      */
     private void calculateHalstead() {
-        halsteadVolume = projectElement
-                .allPackages().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == PAHVL)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .doubleValue();
-
-        double halsteadDifficulty = projectElement
-                .allPackages().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == PAHD)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .doubleValue();
-
-        long halsteadLength = projectElement
-                .allPackages().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == PACHL)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .longValue();
-
-        double halsteadEffort = projectElement
-                .allPackages().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == PACHEF)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .doubleValue();
-
-        long halsteadVocabulary = projectElement
-                .allPackages().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == PACHVC)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .longValue();
-
-        double halsteadErrors = projectElement
-                .allPackages().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == PACHER)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .doubleValue();
+        halsteadVolume = aggregation.sum(PACKAGE, PAHVL);
+        double halsteadDifficulty = aggregation.sum(PACKAGE, PAHD);
+        long halsteadLength = (long) aggregation.sum(PACKAGE, PACHL);
+        double halsteadEffort = aggregation.sum(PACKAGE, PACHEF);
+        long halsteadVocabulary = (long) aggregation.sum(PACKAGE, PACHVC);
+        double halsteadErrors = aggregation.sum(PACKAGE, PACHER);
 
         projectElement.addMetric(Metric.of(PRHVL, halsteadVolume));
         projectElement.addMetric(Metric.of(PRHD, halsteadDifficulty));
@@ -570,173 +465,13 @@ public class ProjectMetricsSetCalculator {
         projectElement.addMetric(Metric.of(PRCHER, halsteadErrors));
     }
 
-    private double calculateZCoupling() {
-        return calculateZScore(
-                projectElement.allPackages().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == Ce)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZCohesion() {
-        double z = calculateZScore(
-                projectElement.allClasses().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == LCOM)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-        return z == 0.0 ? 0.0 : 1.0 / z;
-    }
-
-    private double calculateZMessaging() {
-        return calculateZScore(
-                projectElement.allClasses().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == NOM)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZDesignSize() {
-        return calculateZScore(
-                projectElement.allPackages().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == PNOCC)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZComposition() {
-        return calculateZScore(
-                projectElement.allClasses().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == NOA)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZPolymorphism() {
-        return calculateZScore(
-                projectElement.allClasses().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == NOOM)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZAbstraction() {
-        return calculateZScore(
-                projectElement.allPackages().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == A)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZComplexity() {
-        return calculateZScore(
-                projectElement.allClasses().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == WMC)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    private double calculateZHierarchies() {
-        return calculateZScore(
-                projectElement.allClasses().flatMap(CodeElement::metrics)
-                        .filter(metric -> metric.getType() == DIT)
-                        .map(Metric::getValue)
-                        .collect(Collectors.toUnmodifiableList())
-        );
-    }
-
-    /**
-     * Calculates inheritance factor as the average ratio of overridden methods to total methods
-     * across all classes.
-     *
-     * @return sum of (NOOM/NOM) ratios across classes, or 0 if no classes with methods exist
-     */
-    private double calculateZInheritance() {
-        List<CodeElement> classes = projectElement.allClasses()
-                .collect(Collectors.toUnmodifiableList());
-        double zInheritance = 0.0;
-        for (CodeElement aClass : classes) {
-            Metric nomMetric = aClass.metric(MetricType.NOM);
-            if (nomMetric == null) {
-                continue;
-            }
-            Value nom = nomMetric.getPsiValue();
-            if (nom.isEqualsOrLessThan(Value.ZERO)) {
-                continue;
-            }
-            Metric noomMetric = aClass.metric(NOOM);
-            Value noom = noomMetric != null ? noomMetric.getPsiValue() : Value.ZERO;
-            zInheritance = zInheritance + (noom.divide(nom.times(Value.of(100)))).doubleValue();
-        }
-        return zInheritance;
-    }
-
-    /**
-     * Calculates z-score for a list of metric values.
-     *
-     * <p>The z-score measures how many standard deviations the maximum value is from the mean:</p>
-     * <pre>
-     *   z = (max - mean) / std_dev
-     * </pre>
-     *
-     * <p><b>Note:</b> This implementation computes the z-score of the maximum value in the distribution,
-     * which is useful for identifying extreme outliers in design properties. For per-element z-scores,
-     * a different approach would be needed.</p>
-     *
-     * @param source list of metric values
-     * @return z-score of the maximum value, or 0.0 if list is empty or standard deviation is zero
-     */
-    private double calculateZScore(List<Value> source) {
-        if (source == null || source.isEmpty()) {
-            return 0.0;
-        }
-
-        Value max = source.stream().max(Value::compareTo).orElse(Value.ZERO);
-        Value avg = source.stream().reduce(Value::plus).orElse(Value.ZERO)
-                .divide(Value.of(source.size()));
-
-        Value dispersion = source.stream()
-                .map(v -> v.minus(avg).pow(2))
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .divide(Value.of(source.size()));
-
-        Value std = Value.of(Math.sqrt(dispersion.doubleValue()));
-        if (std.equals(Value.ZERO)) {
-            return 0.0;
-        }
-
-        Value zScore = max.minus(avg).divide(std);
-        return zScore.doubleValue();
-    }
-
     private void addClassesNonCommentingSourceStatements() {
-        long nonCommentingSourceStatements = projectElement.allClasses().flatMap(CodeElement::metrics)
-                .filter(metric -> metric.getType() == NCSS)
-                .map(Metric::getValue)
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .longValue();
+        long nonCommentingSourceStatements = (long) aggregation.sum(CLASS, NCSS);
         projectElement.addMetric(Metric.of(PNCSS, nonCommentingSourceStatements));
     }
 
     private void addLinesOfCode() {
-        linesOfCode = projectElement.allClasses()
-                .flatMap(ClassElement::methods)
-                .map(javaMethod -> {
-                    Metric m = javaMethod.metric(LOC);
-                    return m != null ? m.getPsiValue() : Value.ZERO;
-                })
-                .reduce(Value::plus)
-                .orElse(Value.ZERO)
-                .longValue();
+        linesOfCode = (long) aggregation.sum(METHOD, LOC);
         projectElement.addMetric(Metric.of(PLOC, linesOfCode));
     }
 
@@ -814,19 +549,14 @@ public class ProjectMetricsSetCalculator {
         }
 
         // Protected methods: visible within the same package and to subclasses in other packages.
-        for (Map.Entry<PsiClass, Integer> entry : protectedMethodsPerClass.entrySet()) {
-            PsiClass declaringClass = entry.getKey();
-            if (declaringClass == null) {
-                continue;
-            }
-            int protectedMembersCount = entry.getValue();
+        for (MoodCounters counters : classes) {
+            int protectedMembersCount = counters.methods().protectedMembers();
             if (protectedMembersCount <= 0) {
                 continue;
             }
-            String declaringPackage = ClassUtils.calculatePackageName(declaringClass);
-            int classesInPackage = classesPerPackage.getCountForObject(declaringPackage);
+            int classesInPackage = classesPerPackage.getCountForObject(counters.packageName());
             int visibleInSamePackage = Math.max(0, classesInPackage - 1);
-            int subclassesOutsidePackage = getSubclassesOutsidePackageCount(declaringClass, declaringPackage);
+            int subclassesOutsidePackage = counters.subclassesOutsidePackage();
 
             totalMethodsVisibility = totalMethodsVisibility.plus(
                     Value.of(protectedMembersCount)
@@ -920,19 +650,14 @@ public class ProjectMetricsSetCalculator {
         }
 
         // Protected fields: visible within the same package and to subclasses in other packages.
-        for (Map.Entry<PsiClass, Integer> entry : protectedFieldsPerClass.entrySet()) {
-            PsiClass declaringClass = entry.getKey();
-            if (declaringClass == null) {
-                continue;
-            }
-            int protectedMembersCount = entry.getValue();
+        for (MoodCounters counters : classes) {
+            int protectedMembersCount = counters.attributes().protectedMembers();
             if (protectedMembersCount <= 0) {
                 continue;
             }
-            String declaringPackage = ClassUtils.calculatePackageName(declaringClass);
-            int classesInPackage = classesPerPackage.getCountForObject(declaringPackage);
+            int classesInPackage = classesPerPackage.getCountForObject(counters.packageName());
             int visibleInSamePackage = Math.max(0, classesInPackage - 1);
-            int subclassesOutsidePackage = getSubclassesOutsidePackageCount(declaringClass, declaringPackage);
+            int subclassesOutsidePackage = counters.subclassesOutsidePackage();
 
             totalAttributesVisibility = totalAttributesVisibility.plus(
                     Value.of(protectedMembersCount)
@@ -954,398 +679,67 @@ public class ProjectMetricsSetCalculator {
     }
 
     /**
-     * Computes and caches the number of subclasses outside the declaring class's package.
+     * Collects the MOOD inputs and class statistics from the counters of the classes of the model.
      *
-     * <p>Used for calculating protected member visibility in AHF and MHF metrics.
-     * Subclasses within the same package are not counted here since they're already
-     * included in the package-private visibility calculation.</p>
-     *
-     * @param psiClass the declaring class
-     * @param declaringPackage the package name of the declaring class
-     * @return number of subclasses located in different packages
+     * <p>Couplings are the dependencies of a class that it does not inherit from.</p>
      */
-    private int getSubclassesOutsidePackageCount(@NotNull PsiClass psiClass, @NotNull String declaringPackage) {
-        if (subclassesOutsidePackagePerClass.containsKey(psiClass)) {
-            return subclassesOutsidePackagePerClass.get(psiClass);
-        }
-
-        int subclassesNumber = 0;
-        final GlobalSearchScope globalScope = GlobalSearchScope.allScope(scope.getProject());
-        final Query<PsiClass> query = ClassInheritorsSearch.search(
-                psiClass, globalScope, true, true, true);
-        for (final PsiClass inheritor : query) {
-            if (inheritor.isInterface()) {
-                continue;
-            }
-            if (classIsInLibrary(inheritor)) {
-                continue;
-            }
-            String inheritorPackage = ClassUtils.calculatePackageName(inheritor);
-            if (!declaringPackage.equals(inheritorPackage)) {
-                subclassesNumber++;
-            }
-        }
-
-        subclassesOutsidePackagePerClass.put(psiClass, subclassesNumber);
-        return subclassesNumber;
-    }
+    private void collectFromClasses() {
+        for (MoodCounters counters : classes) {
+            indicator.checkCanceled();
+            classesNumber++;
+            classesPerPackage.add(counters.packageName());
 
-    /**
-     * Determines if a class is part of an external library (not project source code).
-     *
-     * <p>A class is considered a library class if:</p>
-     * <ul>
-     *   <li>Its containing file cannot be resolved, OR</li>
-     *   <li>Its virtual file is indexed as a library by IntelliJ, OR</li>
-     *   <li>Its virtual file is not in content roots or source roots</li>
-     * </ul>
-     *
-     * <p>Kotlin source files are correctly identified as non-library even when converted
-     * to light classes.</p>
-     *
-     * @param psiClass the class to check
-     * @return true if the class is from a library, false if it's project source code
-     */
-    private boolean classIsInLibrary(@NotNull PsiClass psiClass) {
-        return ApplicationManager.getApplication().runReadAction((Computable<Boolean>) () -> {
-            PsiFile file = psiClass.getContainingFile();
-            if (file == null) {
-                // If we cannot resolve a file for the class, treat it as library to be safe
-                return true;
+            attributesNumber += counters.attributes().total();
+            publicAttributesNumber += counters.attributes().publicMembers();
+            if (counters.attributes().packageVisibleMembers() > 0) {
+                packageVisibleAttributesPerPackage.add(counters.packageName(),
+                        counters.attributes().packageVisibleMembers());
             }
-            VirtualFile vFile = file.getVirtualFile();
-            if (vFile == null) {
-                return true;
+            methodsNumber += counters.methods().total();
+            publicMethodsNumber += counters.methods().publicMembers();
+            if (counters.methods().packageVisibleMembers() > 0) {
+                packageVisibleMethodsPerPackage.add(counters.packageName(),
+                        counters.methods().packageVisibleMembers());
             }
-            ProjectFileIndex index = ProjectRootManager.getInstance(file.getProject()).getFileIndex();
-            // Class is considered in library only if it is indexed as library; Kotlin sources are in content/source
-            boolean inLibrary = index.isInLibrary(vFile);
-            boolean inContentOrSource = index.isInContent(vFile) || index.isInSource(vFile);
-            return inLibrary || !inContentOrSource;
-        });
-    }
 
-    /**
-     * Processes member visibility for a given class and accumulates visibility counts.
-     *
-     * <p>This method is called both for Java classes (via {@link #visitClass}) and
-     * Kotlin classes (via {@link #visitFile} after conversion to light classes).</p>
-     *
-     * <p>Processes:</p>
-     * <ul>
-     *   <li>All methods: counts and categorizes by visibility (public/protected/package-private)</li>
-     *   <li>All fields: counts and categorizes by visibility</li>
-     * </ul>
-     *
-     * @param psiClass the class whose members to process
-     */
-    private void processMemberVisibility(@NotNull PsiClass psiClass) {
-        for (PsiMethod psiMethod : psiClass.getMethods()) {
-            methodsNumber++;
-            final PsiClass containingClass = psiMethod.getContainingClass();
-            if (containingClass == null) {
-                continue;
-            }
+            availableFields += counters.availableFields();
+            inheritedFields += counters.inheritedFields();
+            availableMethods += counters.availableMethods();
+            inheritedMethods += counters.inheritedMethods();
 
-            if (psiMethod.hasModifierProperty(PsiModifier.PRIVATE) ||
-                    containingClass.hasModifierProperty(PsiModifier.PRIVATE)) {
-                // private: not visible outside
-            } else if (psiMethod.hasModifierProperty(PsiModifier.PROTECTED) ||
-                    containingClass.hasModifierProperty(PsiModifier.PROTECTED)) {
-                protectedMethodsPerClass.merge(containingClass, 1, Integer::sum);
-            } else if ((psiMethod.hasModifierProperty(PsiModifier.PUBLIC) || containingClass.isInterface()) &&
-                    containingClass.hasModifierProperty(PsiModifier.PUBLIC)) {
-                publicMethodsNumber++;
-            } else {
-                final String packageName = ClassUtils.calculatePackageName(containingClass);
-                packageVisibleMethodsPerPackage.add(packageName);
-            }
-        }
+            overridePotentialsNumber += counters.newMethods() * counters.subclasses();
+            overridingMethodsNumber += counters.overridingMethods();
 
-        for (PsiField psiField : psiClass.getFields()) {
-            attributesNumber++;
-            final PsiClass containingClass = psiField.getContainingClass();
-            if (containingClass == null) {
-                continue;
-            }
+            totalCoupling += counters.couplings();
 
-            if (psiField.hasModifierProperty(PsiModifier.PRIVATE) ||
-                    containingClass.hasModifierProperty(PsiModifier.PRIVATE)) {
-                // private: not visible outside
-            } else if (psiField.hasModifierProperty(PsiModifier.PROTECTED) ||
-                    containingClass.hasModifierProperty(PsiModifier.PROTECTED)) {
-                protectedFieldsPerClass.merge(containingClass, 1, Integer::sum);
-            } else if ((psiField.hasModifierProperty(PsiModifier.PUBLIC) || containingClass.isInterface()) &&
-                    containingClass.hasModifierProperty(PsiModifier.PUBLIC)) {
-                publicAttributesNumber++;
-            } else {
-                final String packageName = ClassUtils.calculatePackageName(containingClass);
-                packageVisibleAttributesPerPackage.add(packageName);
-            }
+            addClassKinds(counters);
         }
     }
 
-    /**
-     * PSI visitor that traverses Java and Kotlin files to collect raw metric data.
-     *
-     * <p>For Java files, the standard {@link JavaRecursiveElementVisitor} mechanism is used.
-     * For Kotlin files, we explicitly process {@link KtFile} by converting Kotlin classes
-     * to light Java {@link PsiClass} representations.</p>
-     */
-    private class Visitor extends JavaRecursiveElementVisitor {
-        @Override
-        public void visitFile(PsiFile psiFile) {
-            super.visitFile(psiFile);
-            // Include Kotlin files by converting Kt classes to light Java PsiClass
-            if (psiFile instanceof KtFile) {
-                KtFile ktFile = (KtFile) psiFile;
-                for (KtDeclaration decl : ktFile.getDeclarations()) {
-                    if (decl instanceof KtClassOrObject) {
-                        PsiClass light = LightClassUtilsKt.toLightClass((KtClassOrObject) decl);
-                        if (light != null) {
-                            indicator.checkCanceled();
-
-                            // Process same as for Java classes
-                            processAttributeInheritanceFactor(light);
-                            processAttributeAndMethodHidingFactor(light);
-                            processCouplingFactor(light);
-                            processMethodInheritanceFactor(light);
-                            processPolymorphismFactor(light);
-                            processStatisticMetrics(light);
-                            processMemberVisibility(light);
-
-                            indicator.setText("Calculating metrics on project level: processing class " + light.getName() + "...");
-                            progress++;
-                            indicator.setIndeterminate(false);
-                            indicator.setFraction((double) progress / (double) filesCount);
-                        }
-                    }
-                }
-            }
+    private void addClassKinds(MoodCounters counters) {
+        if (counters.is(CONCRETE)) {
+            concreteClassesNumber++;
         }
-
-        @Override
-        public void visitClass(PsiClass aClass) {
-            indicator.checkCanceled();
-
-            // Collect class-level inputs before descending into members.
-            processAttributeInheritanceFactor(aClass);
-            processAttributeAndMethodHidingFactor(aClass);
-            processCouplingFactor(aClass);
-            processMethodInheritanceFactor(aClass);
-            processPolymorphismFactor(aClass);
-            processStatisticMetrics(aClass);
-
-            super.visitClass(aClass);
-
-            indicator.setText("Calculating metrics on project level: processing class " + aClass.getName() + "...");
-            progress++;
-            indicator.setIndeterminate(false);
-            indicator.setFraction((double) progress / (double) filesCount);
+        if (counters.is(ABSTRACT)) {
+            abstractClassesNumber++;
         }
-
-        /**
-         * Collects class type statistics (concrete, abstract, static, interface).
-         */
-        private void processStatisticMetrics(@NotNull PsiClass psiClass) {
-            PsiElement navElement = psiClass.getNavigationElement();
-            boolean isKotlinObject = navElement instanceof KtObjectDeclaration;
-
-            if (ClassUtils.isConcreteClass(psiClass)) {
-                concreteClassesNumber++;
-            }
-            if (ClassUtils.isAbstractClass(psiClass)) {
-                abstractClassesNumber++;
-            }
-            
-            // For Kotlin, we exclude objects from "Static Classes" count to avoid double counting,
-            // as they are covered by PNOKOBJ and PNOKCO.
-            if (ClassUtils.isStaticClass(psiClass) && !isKotlinObject) {
-                staticClassesNumber++;
-            }
-            if (psiClass.isInterface()) {
-                interfacesNumber++;
-            }
-            
-            if (navElement instanceof KtClass) {
-                KtClass ktClass = (KtClass) navElement;
-                if (ktClass.isData()) {
-                    dataClassesNumber++;
-                }
-                if (ktClass.isSealed()) {
-                    sealedClassesNumber++;
-                }
-            } else if (isKotlinObject) {
-                KtObjectDeclaration ktObj = (KtObjectDeclaration) navElement;
-                if (ktObj.isCompanion()) {
-                    companionObjectsNumber++;
-                } else {
-                    kotlinObjectsNumber++;
-                }
-            }
+        if (counters.is(STATIC)) {
+            staticClassesNumber++;
         }
-
-        /**
-         * Processes polymorphism information for a class.
-         *
-         * <p>Counts:</p>
-         * <ul>
-         *   <li>New methods (not overriding any superclass method)</li>
-         *   <li>Overridden methods (having at least one super method)</li>
-         * </ul>
-         *
-         * <p>Override potentials = new_methods * subclass_count</p>
-         */
-        private void processPolymorphismFactor(@NotNull PsiClass psiClass) {
-            int newMethodsCount = 0;
-            int overriddenMethodsCount = 0;
-            final PsiMethod[] methods = psiClass.getMethods();
-            for (PsiMethod method : methods) {
-                final PsiMethod[] superMethods = method.findSuperMethods();
-                if (superMethods.length == 0) {
-                    newMethodsCount++;
-                } else {
-                    overriddenMethodsCount++;
-                }
-            }
-            overridePotentialsNumber += newMethodsCount * getSubclassCount(psiClass);
-            overridingMethodsNumber += overriddenMethodsCount;
+        if (counters.is(INTERFACE)) {
+            interfacesNumber++;
         }
-
-        /**
-         * Processes method inheritance information for a class.
-         *
-         * <p>Computes the set of non-overridden methods available to the class (own + inherited).
-         * Counts available methods and inherited methods for MIF calculation.</p>
-         */
-        private void processMethodInheritanceFactor(@NotNull PsiClass psiClass) {
-            final PsiMethod[] allMethods = psiClass.getAllMethods();
-            final Set<PsiMethod> nonOverriddenMethods = new HashSet<>();
-            for (PsiMethod method : allMethods) {
-                boolean overrideFound = false;
-                for (PsiMethod testMethod : allMethods) {
-                    if (overrides(testMethod, method)) {
-                        overrideFound = true;
-                        break;
-                    }
-                }
-                if (!overrideFound) {
-                    nonOverriddenMethods.add(method);
-                }
-            }
-            for (PsiMethod method : nonOverriddenMethods) {
-                final PsiClass containingClass = method.getContainingClass();
-                if (containingClass == null) {
-                    continue;
-                }
-                if (containingClass.equals(psiClass)) {
-                    availableMethods++;
-                } else if (!classIsInLibrary(containingClass) && !method.hasModifierProperty(PsiModifier.PRIVATE)) {
-                    availableMethods++;
-                    inheritedMethods++;
-                }
-            }
-        }
-
-        /**
-         * Checks if testMethod overrides method (not reflexive).
-         */
-        private boolean overrides(PsiMethod testMethod, PsiMethod method) {
-            if (testMethod.equals(method)) {
-                return false;
-            }
-            final PsiMethod[] superMethods = testMethod.findSuperMethods();
-            for (PsiMethod superMethod : superMethods) {
-                if (superMethod.equals(method)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        /**
-         * Processes coupling information for a class.
-         *
-         * <p>Counts the number of classes this class depends on, excluding inheritance relationships.</p>
-         */
-        private void processCouplingFactor(PsiClass psiClass) {
-            final Set<PsiClass> dependencies = dependenciesBuilder.getClassesDependencies(psiClass);
-            totalCoupling += dependencies.stream()
-                    .filter(c -> !psiClass.isInheritor(c, true))
-                    .count();
-        }
-
-        /**
-         * Tracks class count per package for AHF/MHF calculation.
-         */
-        private void processAttributeAndMethodHidingFactor(PsiClass psiClass) {
-            classesNumber++;
-            final String packageName = ClassUtils.calculatePackageName(psiClass);
-            classesPerPackage.add(packageName);
+        if (counters.is(KOTLIN_OBJECT)) {
+            kotlinObjectsNumber++;
         }
-
-        /**
-         * Processes attribute inheritance information for a class.
-         *
-         * <p>Counts available fields and inherited fields for AIF calculation.
-         * Excludes fields from java.lang.Object and private fields in superclasses.</p>
-         */
-        private void processAttributeInheritanceFactor(PsiClass psiClass) {
-            final PsiField[] allFields = psiClass.getAllFields();
-            for (PsiField field : allFields) {
-                final PsiClass containingClass = field.getContainingClass();
-                if (containingClass == null) {
-                    continue;
-                }
-                final String className = containingClass.getName();
-                if (containingClass.equals(psiClass)) {
-                    availableFields++;
-                } else if (!"java.lang.Object".equals(className) && !field.hasModifierProperty(PsiModifier.PRIVATE)) {
-                    availableFields++;
-                    inheritedFields++;
-                }
-            }
+        if (counters.is(COMPANION_OBJECT)) {
+            companionObjectsNumber++;
         }
-
-        @Override
-        public void visitMethod(PsiMethod psiMethod) {
-            super.visitMethod(psiMethod);
-            // Note: For Java classes, visibility is now handled by processMemberVisibility
-            // which is called from visitClass. However, for backwards compatibility and
-            // to handle any edge cases where visitMethod might be called independently,
-            // we still include the logic here. The counts will be correct because
-            // visitMethod is called during super.visitClass(), and processMemberVisibility
-            // is called before super.visitClass(), so there's no duplication.
+        if (counters.is(DATA_CLASS)) {
+            dataClassesNumber++;
         }
-
-        @Override
-        public void visitField(PsiField psiField) {
-            super.visitField(psiField);
-            // Note: Same as visitMethod - kept for edge cases and backwards compatibility.
-        }
-
-        /**
-         * Computes and caches the total number of (non-interface, non-library) subclasses
-         * for a given class.
-         *
-         * @param psiClass the class to find subclasses for
-         * @return total subclass count
-         */
-        private int getSubclassCount(final PsiClass psiClass) {
-            if (subclassesPerClass.containsKey(psiClass)) {
-                return subclassesPerClass.get(psiClass);
-            }
-            int subclassesNumber = 0;
-            final GlobalSearchScope globalScope = GlobalSearchScope.allScope(scope.getProject());
-            final Query<PsiClass> query = ClassInheritorsSearch.search(
-                    psiClass, globalScope, true, true, true);
-            for (final PsiClass inheritor : query) {
-                if (!inheritor.isInterface() && !classIsInLibrary(inheritor)) {
-                    subclassesNumber++;
-                }
-            }
-            subclassesPerClass.put(psiClass, subclassesNumber);
-            return subclassesNumber;
+        if (counters.is(SEALED_CLASS)) {
+            sealedClassesNumber++;
         }
     }
 }
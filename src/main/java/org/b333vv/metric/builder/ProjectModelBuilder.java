@@ -19,6 +19,7 @@ package org.b333vv.metric.builder;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiPackage;
 import com.intellij.psi.impl.file.PsiPackageImpl;
@@ -32,26 +33,30 @@ import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.ProjectElement;
 import org.b333vv.metric.model.util.ClassUtils;
 import org.b333vv.metric.service.CacheService;
-import org.b333vv.metric.ui.settings.composition.MetricsTreeSettingsStub;
 import org.jetbrains.annotations.NotNull;
-import org.b333vv.metric.util.SettingsService;
-// Avoid direct Kotlin imports to keep startup safe
+// Avoid direct Kotlin imports to keep startup safe, Kotlin files are built through LanguageFileBuilder
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 public class ProjectModelBuilder extends ModelBuilder {
 
     private final ProjectElement projectElement;
     private final boolean includeTestFiles;
+    private final List<LanguageFileBuilder> languageFileBuilders;
+    // Reused for all files of the calculation
+    private final Map<LanguageFileBuilder, LanguageFileBuilder.FileBuilder> fileBuilders = new HashMap<>();
 
     public ProjectModelBuilder(ProjectElement projectElement, boolean includeTestFiles) {
         super();
         this.projectElement = projectElement;
         this.includeTestFiles = includeTestFiles;
+        this.languageFileBuilders = LanguageFileBuilder.EP_NAME.getExtensionList();
     }
 
     private PackageElement findOrCreatePackageByFqn(@NotNull Project project, @NotNull String fqn) {
@@ -112,42 +117,35 @@ public class ProjectModelBuilder extends ModelBuilder {
         findOrCreateJavaPackage(psiJavaFile).addFile(createJavaFile(psiJavaFile));
     }
 
-    public void addKotlinFileToProjectReflective(@NotNull com.intellij.psi.PsiFile psiFile) {
-        try {
-            if ("Kotlin".equals(psiFile.getFileType().getName()) || "KOTLIN".equals(psiFile.getFileType().getName())) {
-                // Read package FQN via reflection: ktFile.getPackageFqName().toString()
-                java.lang.reflect.Method getPkg = psiFile.getClass().getMethod("getPackageFqName");
-                Object fqNameObj = getPkg.invoke(psiFile);
-                String fqn = String.valueOf(fqNameObj); // FqName#toString
-                if (fqn == null || "<root>".equals(fqn) || "ROOT".equals(fqn)) {
-                    fqn = ""; // normalize to default package
-                }
-
-                // Build FileElement via KotlinModelBuilder
-                Class<?> kmbClass = Class.forName("org.b333vv.metric.builder.KotlinModelBuilder");
-                java.lang.reflect.Constructor<?> ctor = kmbClass.getConstructor(Project.class);
-                Object kmb = ctor.newInstance(((com.intellij.psi.PsiFile) psiFile).getProject());
-
-                java.lang.reflect.Method bridge = kmbClass.getMethod("createKotlinFileBridge",
-                        com.intellij.psi.PsiFile.class);
-                if (bridge != null) {
-                    Object fileEl = bridge.invoke(kmb, psiFile);
-                    if (fileEl instanceof org.b333vv.metric.model.code.FileElement) {
-                        org.b333vv.metric.model.code.FileElement fe = (org.b333vv.metric.model.code.FileElement) fileEl;
-                        PackageElement pkg = findOrCreatePackageByFqn(psiFile.getProject(), fqn);
-                        pkg.addFile(fe);
-                        // Ensure ProjectElement.allClasses is populated for Kotlin classes
-                        long count = fe.classes().peek(projectElement::addToAllClasses).count();
-                        // psiFile.getProject().getMessageBus().syncPublisher(org.b333vv.metric.event.MetricsEventListener.TOPIC)
-                        // .printInfo("[ProjectModelBuilder] Kotlin file '" + psiFile.getName() + "' ->
-                        // added " + count + " classes into package '" + fqn + "'");
-                    }
-                }
+    /**
+     * Adds a file of a language supported through {@link LanguageFileBuilder}, such as Kotlin. Nothing
+     * is added if no supporting plugin is enabled.
+     */
+    public void addLanguageFileToProjectElement(@NotNull PsiFile psiFile) {
+        LanguageFileBuilder languageFileBuilder = null;
+        for (LanguageFileBuilder candidate : languageFileBuilders) {
+            if (candidate.isApplicable(psiFile)) {
+                languageFileBuilder = candidate;
+                break;
             }
-        } catch (ClassNotFoundException | LinkageError e) {
-            // Kotlin not available; skip safely
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Failed to add Kotlin file reflectively", e);
+        }
+        if (languageFileBuilder == null) {
+            return;
+        }
+        Project project = psiFile.getProject();
+        CacheService cacheService = project.getService(CacheService.class);
+        FileElement fileElement = cacheService.getJavaFile(psiFile.getVirtualFile());
+        if (fileElement == null) {
+            fileElement = fileBuilders
+                    .computeIfAbsent(languageFileBuilder, b -> b.createFileBuilder(project))
+                    .buildFile(psiFile);
+            if (fileElement != null) {
+                cacheService.addJavaFile(psiFile.getVirtualFile(), fileElement);
+            }
+        }
+        if (fileElement != null) {
+            findOrCreatePackageByFqn(project, languageFileBuilder.getPackageName(psiFile)).addFile(fileElement);
+            fileElement.classes().forEach(this::addToAllClasses);
         }
     }
 
@@ -168,11 +166,7 @@ public class ProjectModelBuilder extends ModelBuilder {
 
             // classVisitors().forEach(javaClass::accept);
 
-            project.getService(SettingsService.class).getClassMetricsTreeSettings().getMetricsList().stream()
-                    .filter(MetricsTreeSettingsStub::isNeedToConsider)
-                    .map(m -> m.getType().visitor())
-                    .filter(m -> m instanceof JavaClassVisitor)
-                    .forEach(javaClass::accept);
+            applyVisitors(project, getClassVisitorList(project), javaClass::accept);
 
             HalsteadClassVisitor halsteadClassVisitor = new HalsteadClassVisitor();
             javaClass.accept(halsteadClassVisitor);
@@ -257,6 +251,8 @@ public class ProjectModelBuilder extends ModelBuilder {
 
     @Override
     protected void addToAllClasses(@NotNull ClassElement javaClass) {
+        // MOOD inputs are collected here, so that project metrics need no second pass over PSI
+        MoodCountersCollector.collect(javaClass);
         projectElement.addToAllClasses(javaClass);
     }
 
@@ -268,7 +264,7 @@ public class ProjectModelBuilder extends ModelBuilder {
     @Override
     protected Stream<JavaRecursiveElementVisitor> classVisitors() {
         return Arrays.stream(MetricType.values())
-                .map(MetricType::visitor)
+                .map(MetricType::createVisitor)
                 .filter(m -> m instanceof JavaClassVisitor);
     }
 
@@ -282,7 +278,7 @@ public class ProjectModelBuilder extends ModelBuilder {
     @Override
     protected Stream<JavaRecursiveElementVisitor> methodVisitors() {
         return Arrays.stream(MetricType.values())
-                .map(MetricType::visitor)
+                .map(MetricType::createVisitor)
                 .filter(m -> m instanceof JavaMethodVisitor);
     }
 
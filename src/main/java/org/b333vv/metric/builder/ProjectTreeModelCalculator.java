@@ -1,6 +1,5 @@
 package org.b333vv.metric.builder;
 
-import com.intellij.analysis.AnalysisScope;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
@@ -20,14 +19,6 @@ public class ProjectTreeModelCalculator {
     }
 
     public DefaultTreeModel calculate(@org.jetbrains.annotations.Nullable com.intellij.openapi.module.Module module) {
-        AnalysisScope scope;
-        if (module != null) {
-            scope = new AnalysisScope(module);
-            scope.setIncludeTestSource(true);
-        } else {
-            scope = new AnalysisScope(project);
-            scope.setIncludeTestSource(false);
-        }
         ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
 
         // Ensure the project metrics are built before creating the tree
@@ -1,20 +1,15 @@
 package org.b333vv.metric.builder;
 
-import com.intellij.analysis.AnalysisScope;
-import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.roots.ProjectFileIndex;
-import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiCompiledElement;
-import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
 import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.service.CacheService;
 import org.b333vv.metric.util.SettingsService;
+import org.jetbrains.annotations.NotNull;
 
-public class PsiCalculationStrategy implements MetricCalculationStrategy {
+public class PsiCalculationStrategy implements MetricCalculationStrategy, LanguageBackend {
 
     private ProgressIndicator indicator;
     private int filesCount;
@@ -24,65 +19,39 @@ public class PsiCalculationStrategy implements MetricCalculationStrategy {
     public ProjectElement calculate(Project project, ProgressIndicator indicator,
             @org.jetbrains.annotations.Nullable com.intellij.openapi.module.Module module) {
         this.indicator = indicator;
-        AnalysisScope scope;
         boolean includeTestFiles;
         if (module != null) {
-            scope = new AnalysisScope(module);
-            scope.setIncludeTestSource(true);
             includeTestFiles = true;
         } else {
-            scope = new AnalysisScope(project);
             includeTestFiles = project.getService(SettingsService.class).getOtherSettings().isIncludeTestFiles();
-            scope.setIncludeTestSource(includeTestFiles);
         }
         ProjectElement projectElement = new ProjectElement(project.getName());
         ProjectModelBuilder projectModelBuilder = new ProjectModelBuilder(projectElement, includeTestFiles);
 
         indicator.setText("Initializing");
-        filesCount = scope.getFileCount();
+        FileInventory inventory = project.getService(CacheService.class).getFileInventory(module);
+        filesCount = inventory.files(includeTestFiles).size();
         indicator.setText("Calculating metrics");
-        scope.accept(new PsiJavaFileVisitor(projectModelBuilder));
+        inventory.forEachPsiFile(project, includeTestFiles, indicator, psiFile -> addFile(projectModelBuilder, psiFile));
         return projectElement;
     }
 
-    private class PsiJavaFileVisitor extends PsiElementVisitor {
-        private final ProjectModelBuilder projectModelBuilder;
-
-        public PsiJavaFileVisitor(ProjectModelBuilder projectModelBuilder) {
-            this.projectModelBuilder = projectModelBuilder;
-        }
+    @Override
+    @NotNull
+    public Result calculate(@NotNull Context context) {
+        return Result.of(calculate(context.project(), context.indicator(), context.module()));
+    }
 
-        @Override
-        public void visitFile(PsiFile psiFile) {
-            super.visitFile(psiFile);
-            indicator.checkCanceled();
-            if (psiFile instanceof PsiCompiledElement) {
-                return;
-            }
-            final FileType fileType = psiFile.getFileType();
-            final String ftName = fileType.getName();
-            final boolean isJava = "JAVA".equals(ftName);
-            final boolean isKotlin = "Kotlin".equals(ftName) || "KOTLIN".equals(ftName);
-            if ((!isJava && !isKotlin) || fileType.isBinary()) {
-                return;
-            }
-            final VirtualFile virtualFile = psiFile.getVirtualFile();
-            final ProjectRootManager rootManager = ProjectRootManager.getInstance(psiFile.getProject());
-            final ProjectFileIndex fileIndex = rootManager.getFileIndex();
-            if (fileIndex.isExcluded(virtualFile) || !fileIndex.isInContent(virtualFile)) {
-                return;
-            }
-            final String fileName = psiFile.getName();
-            indicator.setText("Calculating metrics on class and method levels: processing file " + fileName + "...");
-            progress++;
-            if (isJava) {
-                PsiJavaFile psiJavaFile = (PsiJavaFile) psiFile;
-                projectModelBuilder.addJavaFileToProjectElement(psiJavaFile);
-            } else if (isKotlin) {
-                projectModelBuilder.addKotlinFileToProjectReflective(psiFile);
-            }
-            indicator.setIndeterminate(false);
-            indicator.setFraction((double) progress / (double) filesCount);
+    private void addFile(ProjectModelBuilder projectModelBuilder, PsiFile psiFile) {
+        final String fileName = psiFile.getName();
+        indicator.setText("Calculating metrics on class and method levels: processing file " + fileName + "...");
+        progress++;
+        if (psiFile instanceof PsiJavaFile) {
+            projectModelBuilder.addJavaFileToProjectElement((PsiJavaFile) psiFile);
+        } else {
+            projectModelBuilder.addLanguageFileToProjectElement(psiFile);
         }
+        indicator.setIndeterminate(false);
+        indicator.setFraction((double) progress / (double) filesCount);
     }
 }
\ No newline at end of file
@@ -2,14 +2,22 @@ package org.b333vv.metric.builder;
 
 import com.intellij.openapi.project.Project;
 import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.ui.tree.builder.SortedByMetricsValuesClassesTreeBuilder;
 
 import javax.swing.tree.DefaultTreeModel;
+import java.util.Map;
+
+import static org.b333vv.metric.builder.ClassesByMetricsValuesDistributor.classesByMetricsValuesDistribution;
 
 public class SortedClassesTreeModelCalculator {
 
     public DefaultTreeModel calculate(ProjectElement projectElement, Project project) {
+        return calculate(projectElement, classesByMetricsValuesDistribution(projectElement, project));
+    }
+
+    public DefaultTreeModel calculate(ProjectElement projectElement, Map<MetricType, ClassesRanking> classesByMetricTypes) {
         SortedByMetricsValuesClassesTreeBuilder builder = new SortedByMetricsValuesClassesTreeBuilder();
-        return builder.createMetricTreeModel(projectElement, project);
+        return builder.createMetricTreeModel(projectElement, classesByMetricTypes);
     }
 }
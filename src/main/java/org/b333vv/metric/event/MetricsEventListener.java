@@ -20,6 +20,7 @@ import com.intellij.util.messages.Topic;
 import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.PackageElement;
 import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeTable;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
 import org.jetbrains.annotations.NotNull;
 
@@ -81,6 +82,9 @@ public interface MetricsEventListener {
         default void printInfo(String info) {
         }
 
+        default void validRangesChanged(@NotNull RangeTable rangeTable) {
+        }
+
         default void categoryChartIsReady(
                         @org.jetbrains.annotations.Nullable com.intellij.openapi.module.Module module) {
         }
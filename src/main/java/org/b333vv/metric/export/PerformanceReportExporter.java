@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.export;
+
+import com.intellij.openapi.project.Project;
+import org.b333vv.metric.event.MetricsEventListener;
+import org.b333vv.metric.service.CacheBudget;
+import org.b333vv.metric.service.CacheService;
+import org.b333vv.metric.service.ProfilingService;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the figures recorded by {@link ProfilingService} as JSON next to a metrics export, e.g.
+ * {@code metrics-performance.json} for {@code metrics.xml}.
+ */
+public class PerformanceReportExporter {
+
+    private final Project project;
+
+    public PerformanceReportExporter(Project project) {
+        this.project = project;
+    }
+
+    public static String reportFileName(String exportFileName) {
+        int dot = exportFileName.lastIndexOf('.');
+        int separator = Math.max(exportFileName.lastIndexOf('/'), exportFileName.lastIndexOf('\\'));
+        String baseName = dot > separator ? exportFileName.substring(0, dot) : exportFileName;
+        return baseName + "-performance.json";
+    }
+
+    public void export(String exportFileName) {
+        ProfilingService profilingService = project.getService(ProfilingService.class);
+        CacheBudget.Statistics cache = project.getService(CacheService.class).getCacheStatistics();
+        File jsonOutputFile = new File(reportFileName(exportFileName));
+        try (PrintWriter printWriter = new PrintWriter(jsonOutputFile)) {
+            printWriter.print(toJson(profilingService.getStages(), profilingService.getVisitors(), cache));
+        } catch (FileNotFoundException e) {
+            this.project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
+                    .printInfo(e.getMessage());
+        }
+        if (jsonOutputFile.exists()) {
+            this.project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
+                    .printInfo("Performance figures have been exported in " + jsonOutputFile.getAbsolutePath());
+        }
+    }
+
+    static String toJson(List<ProfilingService.Row> stages, List<ProfilingService.Row> visitors,
+                         CacheBudget.Statistics cache) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"stages\": ");
+        appendRows(json, stages);
+        json.append(",\n  \"visitors\": ");
+        appendRows(json, visitors);
+        long lookups = cache.hits() + cache.misses();
+        json.append(",\n  \"cache\": {")
+                .append("\"hits\": ").append(cache.hits())
+                .append(", \"misses\": ").append(cache.misses())
+                .append(", \"hitRatio\": ").append(format(lookups == 0 ? 0.0 : (double) cache.hits() / lookups))
+                .append(", \"evictions\": ").append(cache.evictions())
+                .append(", \"entries\": ").append(cache.entries())
+                .append(", \"bytes\": ").append(cache.bytes())
+                .append(", \"budget\": ").append(cache.budget())
+                .append("}\n}\n");
+        return json.toString();
+    }
+
+    private static void appendRows(StringBuilder json, List<ProfilingService.Row> rows) {
+        json.append('[');
+        for (int i = 0; i < rows.size(); i++) {
+            ProfilingService.Row row = rows.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(escape(row.name())).append('"')
+                    .append(", \"calls\": ").append(row.calls())
+                    .append(", \"wallNanos\": ").append(row.wallNanos())
+                    .append(", \"cpuNanos\": ").append(row.cpuNanos())
+                    .append(", \"allocatedBytes\": ").append(row.allocatedBytes())
+                    .append(", \"files\": ").append(row.files())
+                    .append(", \"filesPerSecond\": ").append(format(row.filesPerSecond()))
+                    .append('}');
+        }
+        json.append(rows.isEmpty() ? "]" : "\n  ]");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -17,6 +17,7 @@
 package org.b333vv.metric.model.code;
 
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import org.b333vv.metric.model.visitor.type.JavaClassVisitor;
 import org.jetbrains.annotations.NotNull;
@@ -30,6 +31,7 @@ import java.util.stream.Stream;
 public class ClassElement extends CodeElement {
     private final PsiClass psiClass;
     private final KtClassOrObject ktClass;
+    private MoodCounters moodCounters;
 
     public ClassElement(@NotNull PsiClass psiClass) {
         super(Objects.requireNonNull(psiClass.getName()));
@@ -81,6 +83,12 @@ public class ClassElement extends CodeElement {
 
     public @Nullable KtClassOrObject getKtClassOrObject() { return ktClass; }
 
+    public @Nullable PsiElement getPsiElement() { return psiClass != null ? psiClass : ktClass; }
+
+    public @Nullable MoodCounters getMoodCounters() { return moodCounters; }
+
+    public void setMoodCounters(@Nullable MoodCounters moodCounters) { this.moodCounters = moodCounters; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
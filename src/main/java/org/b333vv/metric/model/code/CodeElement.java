@@ -26,6 +26,7 @@ import java.util.Comparator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public abstract class CodeElement {
@@ -49,6 +50,13 @@ public abstract class CodeElement {
                 .sorted(metricComparator);
     }
 
+    /**
+     * Runs the action for every metric of the element, in no particular order and without sorting.
+     */
+    public void forEachMetric(@NotNull Consumer<Metric> action) {
+        metrics.values().forEach(action);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -16,6 +16,7 @@
 
 package org.b333vv.metric.model.code;
 
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiSubstitutor;
@@ -130,6 +131,16 @@ public class MethodElement extends CodeElement {
 
     public @Nullable KtSecondaryConstructor getKtSecondaryConstructor() { return ktSecondaryConstructor; }
 
+    public @Nullable PsiElement getPsiElement() {
+        if (psiMethod != null) {
+            return psiMethod;
+        }
+        if (ktFunction != null) {
+            return ktFunction;
+        }
+        return ktPrimaryConstructor != null ? ktPrimaryConstructor : ktSecondaryConstructor;
+    }
+
     public ClassElement getJavaClass() {
         return javaClass;
     }
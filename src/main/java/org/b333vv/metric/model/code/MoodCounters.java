@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.model.code;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Raw inputs of the MOOD metrics and project statistics for one class. They are collected while the class model is
+ * built, so that project metrics are aggregated from the model without visiting PSI again.
+ *
+ * @param packageName              qualified name of the package of the class
+ * @param kinds                    kinds of the class counted by the project statistics
+ * @param attributes               visibility of the fields declared in the class, Kotlin classes only
+ * @param methods                  visibility of the methods declared in the class, Kotlin classes only
+ * @param availableFields          own fields and non-private fields inherited from project classes
+ * @param inheritedFields          non-private fields inherited from project classes
+ * @param availableMethods         own methods and non-private, non-overridden methods inherited from project classes
+ * @param inheritedMethods         non-private, non-overridden methods inherited from project classes
+ * @param newMethods               declared methods overriding no super method
+ * @param overridingMethods        declared methods overriding a super method
+ * @param subclasses               non-interface inheritors of the class outside libraries, in any module
+ * @param subclassesOutsidePackage those of the {@code subclasses} in other packages than the class
+ * @param couplings                classes the class depends on, other than its supertypes
+ * @param localClasses             counters of the anonymous and local classes declared in the class, which have no
+ *                                 elements in the model
+ */
+public record MoodCounters(@NotNull String packageName, @NotNull Set<ClassKind> kinds,
+                           @NotNull Visibility attributes, @NotNull Visibility methods,
+                           int availableFields, int inheritedFields, int availableMethods, int inheritedMethods,
+                           int newMethods, int overridingMethods, int subclasses, int subclassesOutsidePackage,
+                           int couplings, @NotNull List<MoodCounters> localClasses) {
+
+    public enum ClassKind {
+        CONCRETE, ABSTRACT, STATIC, INTERFACE, KOTLIN_OBJECT, COMPANION_OBJECT, DATA_CLASS, SEALED_CLASS
+    }
+
+    /**
+     * Numbers of members by visibility. Private members only count in {@code total}.
+     */
+    public record Visibility(int total, int publicMembers, int packageVisibleMembers, int protectedMembers) {
+        public static final Visibility NONE = new Visibility(0, 0, 0, 0);
+    }
+
+    public boolean is(@NotNull ClassKind kind) {
+        return kinds.contains(kind);
+    }
+}
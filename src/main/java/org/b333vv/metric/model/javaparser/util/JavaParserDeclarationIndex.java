@@ -0,0 +1,167 @@
+package org.b333vv.metric.model.javaparser.util;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Class, method and constructor declarations of the parsed compilation units keyed the way PSI elements
+ * can be keyed without resolving anything: classes by fully qualified name, methods and constructors by
+ * name and erased simple parameter type names, e.g. {@code put(Object,Object)} or
+ * {@code format(String,Object[])}. Only the members declared directly in a class are indexed for it.
+ * Overloads that differ only in the packages of their parameter types share a key, which is ambiguous and
+ * therefore not indexed.
+ */
+public final class JavaParserDeclarationIndex {
+    private final Map<String, ClassOrInterfaceDeclaration> classesByQualifiedName = new HashMap<>();
+    private final Map<String, List<ClassOrInterfaceDeclaration>> classesByName = new HashMap<>();
+    private final Map<ClassOrInterfaceDeclaration, Map<String, CallableDeclaration<?>>> callablesBySignature = new IdentityHashMap<>();
+    private final Map<ClassOrInterfaceDeclaration, Map<String, List<CallableDeclaration<?>>>> callablesByArity = new IdentityHashMap<>();
+
+    private JavaParserDeclarationIndex() {
+    }
+
+    public static JavaParserDeclarationIndex build(@NotNull Collection<CompilationUnit> units) {
+        JavaParserDeclarationIndex index = new JavaParserDeclarationIndex();
+        for (CompilationUnit unit : units) {
+            for (ClassOrInterfaceDeclaration declaration : unit.findAll(ClassOrInterfaceDeclaration.class)) {
+                declaration.getFullyQualifiedName()
+                        .ifPresent(name -> index.classesByQualifiedName.putIfAbsent(name, declaration));
+                index.classesByName.computeIfAbsent(declaration.getNameAsString(), name -> new ArrayList<>())
+                        .add(declaration);
+                Map<String, CallableDeclaration<?>> bySignature = new HashMap<>();
+                Map<String, List<CallableDeclaration<?>>> byArity = new HashMap<>();
+                Set<String> ambiguous = new HashSet<>();
+                List<CallableDeclaration<?>> callables = new ArrayList<>(declaration.getConstructors());
+                callables.addAll(declaration.getMethods());
+                for (CallableDeclaration<?> callable : callables) {
+                    String signature = signature(callable);
+                    if (bySignature.putIfAbsent(signature, callable) != null) {
+                        ambiguous.add(signature);
+                    }
+                    byArity.computeIfAbsent(nameAndArity(callable.getNameAsString(), callable.getParameters().size()),
+                            key -> new ArrayList<>()).add(callable);
+                }
+                ambiguous.forEach(bySignature::remove);
+                index.callablesBySignature.put(declaration, bySignature);
+                index.callablesByArity.put(declaration, byArity);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Finds a class by its qualified name, falling back to the simple name for local classes and
+     * classes whose qualified name is not known, as long as the simple name is not ambiguous.
+     */
+    @Nullable
+    public ClassOrInterfaceDeclaration findClass(@Nullable String qualifiedName, @NotNull String name) {
+        ClassOrInterfaceDeclaration declaration = qualifiedName == null ? null : classesByQualifiedName.get(qualifiedName);
+        if (declaration != null) {
+            return declaration;
+        }
+        List<ClassOrInterfaceDeclaration> candidates = classesByName.get(name);
+        return candidates != null && candidates.size() == 1 ? candidates.get(0) : null;
+    }
+
+    /**
+     * Finds a method or constructor declared in the class by its erased signature. Declarations that
+     * cannot be matched exactly, e.g. because a parameter type is written differently, are matched by
+     * name and arity, provided that the class declares no other overload of that arity.
+     */
+    @Nullable
+    public CallableDeclaration<?> findMethod(@NotNull ClassOrInterfaceDeclaration declaration,
+                                             @NotNull String signature, @NotNull String name, int arity) {
+        Map<String, CallableDeclaration<?>> bySignature = callablesBySignature.get(declaration);
+        CallableDeclaration<?> callable = bySignature == null ? null : bySignature.get(signature);
+        if (callable != null) {
+            return callable;
+        }
+        Map<String, List<CallableDeclaration<?>>> byArity = callablesByArity.get(declaration);
+        List<CallableDeclaration<?>> candidates = byArity == null ? null : byArity.get(nameAndArity(name, arity));
+        return candidates != null && candidates.size() == 1 ? candidates.get(0) : null;
+    }
+
+    public static String signature(@NotNull String name, @NotNull List<String> erasedParameterTypes) {
+        return name + "(" + String.join(",", erasedParameterTypes) + ")";
+    }
+
+    /**
+     * Simple name of an erased canonical type text, e.g. {@code java.util.Map.Entry} becomes
+     * {@code Entry} and {@code java.lang.String...} becomes {@code String[]}.
+     */
+    public static String simpleTypeName(@NotNull String canonicalText) {
+        String text = canonicalText.replace("...", "[]");
+        int generic = text.indexOf('<');
+        if (generic >= 0) {
+            int arrays = text.indexOf('[', text.lastIndexOf('>'));
+            text = text.substring(0, generic) + (arrays >= 0 ? text.substring(arrays) : "");
+        }
+        return text.substring(text.lastIndexOf('.') + 1);
+    }
+
+    private static String nameAndArity(String name, int arity) {
+        return name + "/" + arity;
+    }
+
+    private static String signature(CallableDeclaration<?> callable) {
+        Map<String, String> typeParameters = typeParameterErasures(callable);
+        List<String> types = new ArrayList<>(callable.getParameters().size());
+        for (Parameter parameter : callable.getParameters()) {
+            types.add(erasure(parameter.getType(), typeParameters) + (parameter.isVarArgs() ? "[]" : ""));
+        }
+        return signature(callable.getNameAsString(), types);
+    }
+
+    private static String erasure(Type type, Map<String, String> typeParameters) {
+        if (type.isArrayType()) {
+            return erasure(type.asArrayType().getComponentType(), typeParameters) + "[]";
+        }
+        if (type.isClassOrInterfaceType()) {
+            ClassOrInterfaceType classType = type.asClassOrInterfaceType();
+            String name = classType.getNameAsString();
+            if (classType.getScope().isEmpty() && typeParameters.containsKey(name)) {
+                return typeParameters.get(name);
+            }
+            return name;
+        }
+        return simpleTypeName(type.asString());
+    }
+
+    // Type variables in scope of the method or constructor, innermost first, mapped to the simple name of their erasure
+    private static Map<String, String> typeParameterErasures(CallableDeclaration<?> callable) {
+        Map<String, String> erasures = new HashMap<>();
+        Node node = callable;
+        while (node != null) {
+            NodeList<TypeParameter> typeParameters = null;
+            if (node instanceof CallableDeclaration) {
+                typeParameters = ((CallableDeclaration<?>) node).getTypeParameters();
+            } else if (node instanceof ClassOrInterfaceDeclaration) {
+                ClassOrInterfaceDeclaration declaration = (ClassOrInterfaceDeclaration) node;
+                typeParameters = declaration.getTypeParameters();
+                if (declaration.isStatic()) {
+                    node = null;
+                }
+            }
+            if (typeParameters != null) {
+                for (TypeParameter typeParameter : typeParameters) {
+                    String bound = typeParameter.getTypeBound().isEmpty() ? "Object"
+                            : typeParameter.getTypeBound().get(0).getNameAsString();
+                    erasures.putIfAbsent(typeParameter.getNameAsString(), bound);
+                }
+            }
+            node = node == null ? null : node.getParentNode().orElse(null);
+        }
+        return erasures;
+    }
+}
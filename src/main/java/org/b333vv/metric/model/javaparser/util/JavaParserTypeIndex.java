@@ -0,0 +1,149 @@
+package org.b333vv.metric.model.javaparser.util;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Project-wide relations between the parsed declarations, resolved once per calculation: qualified
+ * names, direct subclasses and the classes that access fields of a class. Visitors that need the
+ * whole project (NOC, FDP) query it instead of resolving every other declaration per class.
+ */
+public final class JavaParserTypeIndex {
+    private final Map<ClassOrInterfaceDeclaration, String> qualifiedNames = new IdentityHashMap<>();
+    private final Map<String, ClassOrInterfaceDeclaration> declarations = new HashMap<>();
+    private final Map<String, Integer> numberOfChildren = new HashMap<>();
+    private final Map<String, Set<String>> fieldAccessors = new HashMap<>();
+    private final Set<String> unresolvedFieldAccessors = new HashSet<>();
+    private int unresolvedDeclarations;
+
+    private JavaParserTypeIndex() {
+    }
+
+    /**
+     * Resolves the declarations of every file into a partial index, the files in parallel, and merges the
+     * partial indexes in the order of the files. All declarations of a file are resolved by one thread, since
+     * resolution stores the types it resolves in the nodes of the file.
+     */
+    public static JavaParserTypeIndex build(@NotNull Collection<ClassOrInterfaceDeclaration> allClasses) {
+        Map<Node, List<ClassOrInterfaceDeclaration>> declarationsByFile = new IdentityHashMap<>();
+        List<List<ClassOrInterfaceDeclaration>> files = new ArrayList<>();
+        for (ClassOrInterfaceDeclaration declaration : allClasses) {
+            Node file = declaration.findCompilationUnit().<Node>map(unit -> unit).orElse(declaration);
+            declarationsByFile.computeIfAbsent(file, f -> {
+                List<ClassOrInterfaceDeclaration> declarations = new ArrayList<>();
+                files.add(declarations);
+                return declarations;
+            }).add(declaration);
+        }
+        List<JavaParserTypeIndex> partialIndexes = files.parallelStream()
+                .map(JavaParserTypeIndex::resolve)
+                .collect(Collectors.toList());
+        JavaParserTypeIndex index = new JavaParserTypeIndex();
+        partialIndexes.forEach(index::merge);
+        return index;
+    }
+
+    private static JavaParserTypeIndex resolve(List<ClassOrInterfaceDeclaration> declarations) {
+        JavaParserTypeIndex index = new JavaParserTypeIndex();
+        for (ClassOrInterfaceDeclaration declaration : declarations) {
+            index.addSupertypes(declaration);
+            String qualifiedName;
+            try {
+                qualifiedName = declaration.resolve().getQualifiedName();
+            } catch (Exception e) {
+                index.unresolvedDeclarations++;
+                continue;
+            }
+            index.qualifiedNames.put(declaration, qualifiedName);
+            index.declarations.putIfAbsent(qualifiedName, declaration);
+            index.addFieldAccesses(declaration, qualifiedName);
+        }
+        return index;
+    }
+
+    private void merge(JavaParserTypeIndex partialIndex) {
+        qualifiedNames.putAll(partialIndex.qualifiedNames);
+        partialIndex.declarations.forEach(declarations::putIfAbsent);
+        partialIndex.numberOfChildren.forEach((supertype, children) ->
+                numberOfChildren.merge(supertype, children, Integer::sum));
+        partialIndex.fieldAccessors.forEach((provider, accessors) ->
+                fieldAccessors.computeIfAbsent(provider, k -> new HashSet<>()).addAll(accessors));
+        unresolvedFieldAccessors.addAll(partialIndex.unresolvedFieldAccessors);
+        unresolvedDeclarations += partialIndex.unresolvedDeclarations;
+    }
+
+    private void addSupertypes(ClassOrInterfaceDeclaration declaration) {
+        Set<String> supertypes = new HashSet<>();
+        for (ClassOrInterfaceType extendedType : declaration.getExtendedTypes()) {
+            try {
+                supertypes.add(extendedType.resolve().asReferenceType().getQualifiedName());
+            } catch (Exception e) {
+                // unresolved supertypes are not counted
+            }
+        }
+        for (String supertype : supertypes) {
+            numberOfChildren.merge(supertype, 1, Integer::sum);
+        }
+    }
+
+    private void addFieldAccesses(ClassOrInterfaceDeclaration declaration, String qualifiedName) {
+        Set<String> providers = new HashSet<>();
+        try {
+            declaration.walk(FieldAccessExpr.class, fieldAccess -> providers.add(
+                    fieldAccess.resolve().asField().declaringType().getQualifiedName()));
+        } catch (Exception e) {
+            unresolvedFieldAccessors.add(qualifiedName);
+            return;
+        }
+        providers.remove(qualifiedName);
+        for (String provider : providers) {
+            fieldAccessors.computeIfAbsent(provider, k -> new HashSet<>()).add(qualifiedName);
+        }
+    }
+
+    @Nullable
+    public String getQualifiedName(@NotNull ClassOrInterfaceDeclaration declaration) {
+        String qualifiedName = qualifiedNames.get(declaration);
+        if (qualifiedName == null) {
+            try {
+                qualifiedName = declaration.resolve().getQualifiedName();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return qualifiedName;
+    }
+
+    @Nullable
+    public ClassOrInterfaceDeclaration getDeclaration(@NotNull String qualifiedName) {
+        return declarations.get(qualifiedName);
+    }
+
+    public int getNumberOfChildren(@NotNull String qualifiedName) {
+        return numberOfChildren.getOrDefault(qualifiedName, 0);
+    }
+
+    /**
+     * Classes accessing fields declared in the class, or {@code null} if field accesses of some other
+     * class could not be resolved and the set is therefore unknown.
+     */
+    @Nullable
+    public Set<String> getFieldAccessors(@NotNull String qualifiedName) {
+        if (unresolvedDeclarations > 0) {
+            return null;
+        }
+        for (String unresolved : unresolvedFieldAccessors) {
+            if (!unresolved.equals(qualifiedName)) {
+                return null;
+            }
+        }
+        return fieldAccessors.getOrDefault(qualifiedName, Set.of());
+    }
+}
@@ -0,0 +1,338 @@
+package org.b333vv.metric.model.javaparser.util;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.declarations.JavaParserClassDeclaration;
+import com.github.javaparser.symbolsolver.javaparsermodel.declarations.JavaParserInterfaceDeclaration;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ClassLoaderTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Type solver kept for the lifetime of a project. Library solvers survive between calculations and
+ * are only re-indexed when their JAR changes, source declarations are replaced per file, and type
+ * lookups are memoized in a bounded cache that is dropped whenever any of these change.
+ * <p>
+ * Every delegate solver has this solver as its root, so nested lookups made while resolving go
+ * through the cache as well. Lookups are answered in the order of the former combined solver:
+ * JRE, plugin class loader, project declarations, source roots, libraries.
+ * <p>
+ * Lookups may run concurrently and take no lock of this solver; only the methods changing its
+ * delegates are synchronized. They publish new delegates by replacing the collections lookups read.
+ */
+public final class ProjectTypeSolver implements TypeSolver {
+    private static final Logger LOG = Logger.getInstance(ProjectTypeSolver.class);
+    public static final int DEFAULT_CACHE_SIZE = 50_000;
+
+    private final int cacheSize;
+    private final TypeSolver reflectionTypeSolver;
+    private final TypeSolver classLoaderTypeSolver;
+    private final Map<String, ResolvedReferenceTypeDeclaration> declarations = new ConcurrentHashMap<>();
+    private final Map<Path, FileDeclarations> declarationsByFile = new HashMap<>();
+    private final Map<CompilationUnit, Map<String, ResolvedReferenceTypeDeclaration>> unstoredDeclarations =
+            new IdentityHashMap<>();
+    private volatile Map<String, LibrarySolver> librarySolvers = Map.of();
+    private volatile Map<Path, TypeSolver> sourceRootSolvers = Map.of();
+    private volatile ResolutionCache resolved;
+    private TypeSolver parent;
+
+    private record FileDeclarations(CompilationUnit unit, Map<String, ResolvedReferenceTypeDeclaration> declarations) {
+    }
+
+    private record LibrarySolver(long lastModified, TypeSolver solver) {
+    }
+
+    /**
+     * Lookup results of one state of the delegates. The oldest lookups are evicted first once the
+     * cache is full; a change of the delegates replaces the whole cache, so lookups still running on
+     * the former delegates store their results in a cache no longer read.
+     */
+    private static final class ResolutionCache {
+        private final int capacity;
+        private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> references = new ConcurrentHashMap<>();
+        private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+        private ResolutionCache(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private SymbolReference<ResolvedReferenceTypeDeclaration> get(String name) {
+            return references.get(name);
+        }
+
+        private SymbolReference<ResolvedReferenceTypeDeclaration> putIfAbsent(
+                String name, SymbolReference<ResolvedReferenceTypeDeclaration> reference) {
+            SymbolReference<ResolvedReferenceTypeDeclaration> previous = references.putIfAbsent(name, reference);
+            if (previous != null) {
+                return previous;
+            }
+            insertionOrder.add(name);
+            while (references.size() > capacity) {
+                String eldest = insertionOrder.poll();
+                if (eldest == null) {
+                    break;
+                }
+                references.remove(eldest);
+            }
+            return reference;
+        }
+
+        private int size() {
+            return references.size();
+        }
+    }
+
+    public ProjectTypeSolver(@NotNull ClassLoader classLoader) {
+        this(classLoader, DEFAULT_CACHE_SIZE);
+    }
+
+    public ProjectTypeSolver(@NotNull ClassLoader classLoader, int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.resolved = new ResolutionCache(cacheSize);
+        reflectionTypeSolver = new ReflectionTypeSolver();
+        reflectionTypeSolver.setParent(this);
+        classLoaderTypeSolver = new ClassLoaderTypeSolver(classLoader);
+        classLoaderTypeSolver.setParent(this);
+    }
+
+    /**
+     * Replaces the declarations of the files whose compilation unit is not the one indexed before and
+     * drops the declarations of files that are no longer part of the project. Only the solvers of the
+     * source roots containing such files are created anew.
+     */
+    public synchronized void updateDeclarations(@NotNull Collection<CompilationUnit> units) {
+        boolean changed = false;
+        Set<Path> changedFiles = new HashSet<>();
+        Set<Path> paths = new HashSet<>();
+        Map<CompilationUnit, Boolean> unstored = new IdentityHashMap<>();
+        for (CompilationUnit unit : units) {
+            Path path = unit.getStorage().map(CompilationUnit.Storage::getPath).orElse(null);
+            if (path == null) {
+                unstored.put(unit, Boolean.TRUE);
+                if (!unstoredDeclarations.containsKey(unit)) {
+                    unstoredDeclarations.put(unit, addDeclarations(unit));
+                    changed = true;
+                }
+                continue;
+            }
+            paths.add(path);
+            FileDeclarations previous = declarationsByFile.get(path);
+            if (previous == null || previous.unit() != unit) {
+                if (previous != null) {
+                    removeDeclarations(previous.declarations());
+                }
+                declarationsByFile.put(path, new FileDeclarations(unit, addDeclarations(unit)));
+                changedFiles.add(path);
+                changed = true;
+            }
+        }
+        Iterator<Map.Entry<Path, FileDeclarations>> files = declarationsByFile.entrySet().iterator();
+        while (files.hasNext()) {
+            Map.Entry<Path, FileDeclarations> file = files.next();
+            if (!paths.contains(file.getKey())) {
+                removeDeclarations(file.getValue().declarations());
+                files.remove();
+                changedFiles.add(file.getKey());
+                changed = true;
+            }
+        }
+        Iterator<Map.Entry<CompilationUnit, Map<String, ResolvedReferenceTypeDeclaration>>> others =
+                unstoredDeclarations.entrySet().iterator();
+        while (others.hasNext()) {
+            Map.Entry<CompilationUnit, Map<String, ResolvedReferenceTypeDeclaration>> other = others.next();
+            if (!unstored.containsKey(other.getKey())) {
+                removeDeclarations(other.getValue());
+                others.remove();
+                changed = true;
+            }
+        }
+        if (changed) {
+            // the source root solvers keep the files they parsed, which may be among the changed ones
+            sourceRootSolvers = recreateSourceRootSolvers(changedFiles);
+            resolved = new ResolutionCache(cacheSize);
+        }
+    }
+
+    private Map<String, ResolvedReferenceTypeDeclaration> addDeclarations(CompilationUnit unit) {
+        Map<String, ResolvedReferenceTypeDeclaration> added = new HashMap<>();
+        for (ClassOrInterfaceDeclaration classDecl : unit.findAll(ClassOrInterfaceDeclaration.class)) {
+            try {
+                String qualifiedName = classDecl.getFullyQualifiedName().orElse(classDecl.getNameAsString());
+                ResolvedReferenceTypeDeclaration resolvedDecl = classDecl.isInterface()
+                        ? new JavaParserInterfaceDeclaration(classDecl, this)
+                        : new JavaParserClassDeclaration(classDecl, this);
+                declarations.put(qualifiedName, resolvedDecl);
+                added.put(qualifiedName, resolvedDecl);
+            } catch (Exception e) {
+                LOG.warn("Failed to add class declaration to TypeSolver: " + classDecl.getNameAsString(), e);
+            }
+        }
+        return added;
+    }
+
+    // A name may have been taken over by a declaration of another file, which must survive
+    private void removeDeclarations(Map<String, ResolvedReferenceTypeDeclaration> removed) {
+        removed.forEach(declarations::remove);
+    }
+
+    private Map<Path, TypeSolver> recreateSourceRootSolvers(Set<Path> changedFiles) {
+        Map<Path, TypeSolver> solvers = new LinkedHashMap<>(sourceRootSolvers);
+        for (Map.Entry<Path, TypeSolver> solver : solvers.entrySet()) {
+            if (changedFiles.stream().anyMatch(file -> file.startsWith(solver.getKey()))) {
+                solver.setValue(createSourceRootSolver(solver.getKey()));
+            }
+        }
+        return Collections.unmodifiableMap(solvers);
+    }
+
+    /**
+     * Source root solvers keep the files they parse, so the solvers of new roots are created and
+     * the ones of roots no longer used are dropped.
+     */
+    public synchronized void setSourceRoots(@NotNull Collection<Path> sourceRoots) {
+        List<Path> roots = List.copyOf(sourceRoots);
+        Map<Path, TypeSolver> current = sourceRootSolvers;
+        if (roots.equals(new ArrayList<>(current.keySet()))) {
+            return;
+        }
+        Map<Path, TypeSolver> solvers = new LinkedHashMap<>();
+        for (Path root : roots) {
+            TypeSolver solver = current.get(root);
+            solvers.put(root, solver != null ? solver : createSourceRootSolver(root));
+        }
+        sourceRootSolvers = Collections.unmodifiableMap(solvers);
+        resolved = new ResolutionCache(cacheSize);
+    }
+
+    private TypeSolver createSourceRootSolver(Path sourceRoot) {
+        TypeSolver solver = new JavaParserTypeSolver(sourceRoot);
+        solver.setParent(this);
+        return solver;
+    }
+
+    /**
+     * Keeps the solvers of the JARs that are unchanged since they were indexed, indexes new and
+     * modified JARs and drops the ones no longer used.
+     */
+    public synchronized void setLibraries(@NotNull Collection<String> jarPaths) {
+        Map<String, LibrarySolver> current = librarySolvers;
+        Map<String, LibrarySolver> solvers = new LinkedHashMap<>();
+        boolean changed = false;
+        for (String path : jarPaths) {
+            if (solvers.containsKey(path)) {
+                continue;
+            }
+            long lastModified = new File(path).lastModified();
+            LibrarySolver library = current.get(path);
+            if (library == null || library.lastModified() != lastModified) {
+                try {
+                    TypeSolver solver = new JarTypeSolver(path);
+                    solver.setParent(this);
+                    library = new LibrarySolver(lastModified, solver);
+                } catch (IOException e) {
+                    LOG.warn("Failed to add library to TypeSolver: " + path, e);
+                    continue;
+                }
+                changed = true;
+            }
+            solvers.put(path, library);
+        }
+        changed |= !new ArrayList<>(solvers.keySet()).equals(new ArrayList<>(current.keySet()));
+        if (changed) {
+            librarySolvers = Collections.unmodifiableMap(solvers);
+            resolved = new ResolutionCache(cacheSize);
+        }
+    }
+
+    @Nullable
+    TypeSolver getLibrarySolver(@NotNull String jarPath) {
+        LibrarySolver library = librarySolvers.get(jarPath);
+        return library == null ? null : library.solver();
+    }
+
+    @Nullable
+    TypeSolver getSourceRootSolver(@NotNull Path sourceRoot) {
+        return sourceRootSolvers.get(sourceRoot);
+    }
+
+    int getCachedResolutionsCount() {
+        return resolved.size();
+    }
+
+    public synchronized void clear() {
+        declarations.clear();
+        declarationsByFile.clear();
+        unstoredDeclarations.clear();
+        librarySolvers = Map.of();
+        sourceRootSolvers = Map.of();
+        resolved = new ResolutionCache(cacheSize);
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        ResolutionCache cache = resolved;
+        SymbolReference<ResolvedReferenceTypeDeclaration> reference = cache.get(name);
+        if (reference == null) {
+            reference = cache.putIfAbsent(name, solve(name));
+        }
+        return reference;
+    }
+
+    private SymbolReference<ResolvedReferenceTypeDeclaration> solve(String name) {
+        SymbolReference<ResolvedReferenceTypeDeclaration> reference = reflectionTypeSolver.tryToSolveType(name);
+        if (reference.isSolved()) {
+            return reference;
+        }
+        reference = classLoaderTypeSolver.tryToSolveType(name);
+        if (reference.isSolved()) {
+            return reference;
+        }
+        ResolvedReferenceTypeDeclaration declaration = declarations.get(name);
+        if (declaration != null) {
+            return SymbolReference.solved(declaration);
+        }
+        for (TypeSolver solver : sourceRootSolvers.values()) {
+            // a source root solver parses and caches files on lookup, which is not thread-safe
+            synchronized (solver) {
+                reference = solver.tryToSolveType(name);
+            }
+            if (reference.isSolved()) {
+                return reference;
+            }
+        }
+        for (LibrarySolver library : librarySolvers.values()) {
+            reference = library.solver().tryToSolveType(name);
+            if (reference.isSolved()) {
+                return reference;
+            }
+        }
+        return SymbolReference.unsolved();
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+}
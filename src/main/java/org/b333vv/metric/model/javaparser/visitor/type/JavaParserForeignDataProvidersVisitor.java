@@ -1,42 +1,35 @@
 package org.b333vv.metric.model.javaparser.visitor.type;
 
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.expr.FieldAccessExpr;
+import org.b333vv.metric.model.javaparser.util.JavaParserTypeIndex;
 import org.b333vv.metric.model.javaparser.visitor.JavaParserClassVisitor;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.metric.value.Value;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
 public class JavaParserForeignDataProvidersVisitor extends JavaParserClassVisitor {
-    private final List<ClassOrInterfaceDeclaration> allClasses;
+    private final JavaParserTypeIndex typeIndex;
 
     public JavaParserForeignDataProvidersVisitor(List<ClassOrInterfaceDeclaration> allClasses) {
-        this.allClasses = allClasses;
+        this(JavaParserTypeIndex.build(allClasses));
+    }
+
+    public JavaParserForeignDataProvidersVisitor(JavaParserTypeIndex typeIndex) {
+        this.typeIndex = typeIndex;
     }
 
     @Override
     public void visit(ClassOrInterfaceDeclaration n, Consumer<Metric> collector) {
-        try {
-            Set<String> fdp = new HashSet<>();
-            String currentClassName = n.resolve().getQualifiedName();
-            for (ClassOrInterfaceDeclaration otherClass : allClasses) {
-                if (otherClass.resolve().getQualifiedName().equals(currentClassName)) {
-                    continue;
-                }
-                otherClass.walk(FieldAccessExpr.class, fae -> {
-                    if (fae.resolve().asField().declaringType().getQualifiedName().equals(currentClassName)) {
-                        fdp.add(otherClass.resolve().getQualifiedName());
-                    }
-                });
-            }
-            collector.accept(Metric.of(MetricType.FDP, Value.of(fdp.size())));
-        } catch (Exception e) {
+        String currentClassName = typeIndex.getQualifiedName(n);
+        Set<String> fdp = currentClassName == null ? null : typeIndex.getFieldAccessors(currentClassName);
+        if (fdp == null) {
             collector.accept(Metric.of(MetricType.FDP, Value.UNDEFINED));
+        } else {
+            collector.accept(Metric.of(MetricType.FDP, Value.of(fdp.size())));
         }
     }
 }
@@ -1,6 +1,7 @@
 package org.b333vv.metric.model.javaparser.visitor.type;
 
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import org.b333vv.metric.model.javaparser.util.JavaParserTypeIndex;
 import org.b333vv.metric.model.javaparser.visitor.JavaParserClassVisitor;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
@@ -10,32 +11,24 @@ import java.util.List;
 import java.util.function.Consumer;
 
 public class JavaParserNumberOfChildrenVisitor extends JavaParserClassVisitor {
-    private final List<ClassOrInterfaceDeclaration> allClasses;
+    private final JavaParserTypeIndex typeIndex;
 
     public JavaParserNumberOfChildrenVisitor(List<ClassOrInterfaceDeclaration> allClasses) {
-        this.allClasses = allClasses;
+        this(JavaParserTypeIndex.build(allClasses));
+    }
+
+    public JavaParserNumberOfChildrenVisitor(JavaParserTypeIndex typeIndex) {
+        this.typeIndex = typeIndex;
     }
 
     @Override
     public void visit(ClassOrInterfaceDeclaration n, Consumer<Metric> collector) {
         super.visit(n, collector);
-        try {
-            String currentClassQualifiedName = n.resolve().getQualifiedName();
-            long numberOfChildren = allClasses.stream()
-                    .filter(c -> c.getExtendedTypes().stream()
-                            .anyMatch(et -> {
-                                try {
-                                    return et.resolve().asReferenceType().getQualifiedName().equals(currentClassQualifiedName);
-                                } catch (Exception e) {
-                                    return false;
-                                }
-                            }))
-                    .count();
-            Metric metric = Metric.of(MetricType.NOC, Value.of(numberOfChildren));
-            collector.accept(metric);
-        } catch (Exception e) {
-            Metric metric = Metric.of(MetricType.NOC, Value.UNDEFINED);
-            collector.accept(metric);
+        String currentClassQualifiedName = typeIndex.getQualifiedName(n);
+        if (currentClassQualifiedName == null) {
+            collector.accept(Metric.of(MetricType.NOC, Value.UNDEFINED));
+        } else {
+            collector.accept(Metric.of(MetricType.NOC, Value.of(typeIndex.getNumberOfChildren(currentClassQualifiedName))));
         }
     }
 }
@@ -25,28 +25,29 @@ import static org.b333vv.metric.model.metric.MetricSet.*;
 import static org.b333vv.metric.model.metric.MetricSet.UNDEFINED;
 
 import java.util.Set; // Added import
+import java.util.function.Supplier;
 
 public enum MetricType {
     //Method level metrics
-    CND("Condition Nesting Depth", UNDEFINED, METHOD, new ConditionNestingDepthVisitor()),
-    LND("Loop Nesting Depth", UNDEFINED, METHOD, new LoopNestingDepthVisitor()),
-    CC("McCabe Cyclomatic Complexity", UNDEFINED, METHOD, new McCabeCyclomaticComplexityVisitor()),
-    NOL("Number Of Loops", UNDEFINED, METHOD, new NumberOfLoopsVisitor()),
-    LOC("Lines Of Code", UNDEFINED, METHOD, new LinesOfCodeVisitor()),
-    NOPM("Number Of Parameters", UNDEFINED, METHOD, new NumberOfParametersVisitor()),
-    LAA("Locality Of Attribute Accesses", LANZA_MARINESCU, METHOD, new LocalityOfAttributeAccessesVisitor()),
-    FDP("Foreign Data Providers", LANZA_MARINESCU, METHOD, new ForeignDataProvidersVisitor()),
-    NOAV("Number Of Accessed Variables", LANZA_MARINESCU, METHOD, new NumberOfAccessedVariablesVisitor()),
-    MND("Maximum Nesting Depth", LANZA_MARINESCU, METHOD, new MaximumNestingDepthVisitor()),
-    CINT("Coupling Intensity", LANZA_MARINESCU, METHOD, new CouplingIntensityVisitor()),
-    CDISP("Coupling Dispersion", LANZA_MARINESCU, METHOD, new CouplingDispersionVisitor()),
+    CND("Condition Nesting Depth", UNDEFINED, METHOD, ConditionNestingDepthVisitor::new),
+    LND("Loop Nesting Depth", UNDEFINED, METHOD, LoopNestingDepthVisitor::new),
+    CC("McCabe Cyclomatic Complexity", UNDEFINED, METHOD, McCabeCyclomaticComplexityVisitor::new),
+    NOL("Number Of Loops", UNDEFINED, METHOD, NumberOfLoopsVisitor::new),
+    LOC("Lines Of Code", UNDEFINED, METHOD, LinesOfCodeVisitor::new),
+    NOPM("Number Of Parameters", UNDEFINED, METHOD, NumberOfParametersVisitor::new),
+    LAA("Locality Of Attribute Accesses", LANZA_MARINESCU, METHOD, LocalityOfAttributeAccessesVisitor::new),
+    FDP("Foreign Data Providers", LANZA_MARINESCU, METHOD, ForeignDataProvidersVisitor::new),
+    NOAV("Number Of Accessed Variables", LANZA_MARINESCU, METHOD, NumberOfAccessedVariablesVisitor::new),
+    MND("Maximum Nesting Depth", LANZA_MARINESCU, METHOD, MaximumNestingDepthVisitor::new),
+    CINT("Coupling Intensity", LANZA_MARINESCU, METHOD, CouplingIntensityVisitor::new),
+    CDISP("Coupling Dispersion", LANZA_MARINESCU, METHOD, CouplingDispersionVisitor::new),
     HVL("Halstead Volume", HALSTEAD_METHOD, METHOD, null),
     HD("Halstead Difficulty", HALSTEAD_METHOD, METHOD, null),
     HL("Halstead Length", HALSTEAD_METHOD, METHOD, null),
     HEF("Halstead Effort", HALSTEAD_METHOD, METHOD, null),
     HVC("Halstead Vocabulary", HALSTEAD_METHOD, METHOD, null),
     HER("Halstead Errors", HALSTEAD_METHOD, METHOD, null),
-    CCM("Cognitive Complexity", CAMPBELL_METHOD, METHOD, new CognitiveComplexityVisitor()),
+    CCM("Cognitive Complexity", CAMPBELL_METHOD, METHOD, CognitiveComplexityVisitor::new),
 
     // Class level metrics
     CLOC("Lines of Code", STATISTIC, CLASS, null),
@@ -61,36 +62,36 @@ public enum MetricType {
     CHER("Halstead Errors", HALSTEAD_CLASS, CLASS, null),
 
     //Chidamber-Kemerer metrics set
-    WMC("Weighted Methods Per Class", CHIDAMBER_KEMERER, CLASS, new WeightedMethodCountVisitor()),
-    DIT("Depth Of Inheritance Tree", CHIDAMBER_KEMERER, CLASS, new DepthOfInheritanceTreeVisitor()),
-    CBO("Coupling Between Objects", CHIDAMBER_KEMERER, CLASS, new CouplingBetweenObjectsVisitor()),
-    RFC("Response For A Class", CHIDAMBER_KEMERER, CLASS, new ResponseForClassVisitor()),
-    LCOM("Lack Of Cohesion Of Methods", CHIDAMBER_KEMERER, CLASS, new LackOfCohesionOfMethodsVisitor()),
-    NOC("Number Of Children", CHIDAMBER_KEMERER, CLASS, new NumberOfChildrenVisitor()),
+    WMC("Weighted Methods Per Class", CHIDAMBER_KEMERER, CLASS, WeightedMethodCountVisitor::new),
+    DIT("Depth Of Inheritance Tree", CHIDAMBER_KEMERER, CLASS, DepthOfInheritanceTreeVisitor::new),
+    CBO("Coupling Between Objects", CHIDAMBER_KEMERER, CLASS, CouplingBetweenObjectsVisitor::new),
+    RFC("Response For A Class", CHIDAMBER_KEMERER, CLASS, ResponseForClassVisitor::new),
+    LCOM("Lack Of Cohesion Of Methods", CHIDAMBER_KEMERER, CLASS, LackOfCohesionOfMethodsVisitor::new),
+    NOC("Number Of Children", CHIDAMBER_KEMERER, CLASS, NumberOfChildrenVisitor::new),
 
     //Lorenz-Kidd metrics set
-    NOA("Number Of Attributes", LORENZ_KIDD, CLASS, new NumberOfAttributesVisitor()),
-    NOO("Number Of Operations", LORENZ_KIDD, CLASS, new NumberOfOperationsVisitor()),
-    NOOM("Number Of Overridden Methods", LORENZ_KIDD, CLASS, new NumberOfOverriddenMethodsVisitor()),
-    NOAM("Number Of Added Methods", LORENZ_KIDD, CLASS, new NumberOfAddedMethodsVisitor()),
+    NOA("Number Of Attributes", LORENZ_KIDD, CLASS, NumberOfAttributesVisitor::new),
+    NOO("Number Of Operations", LORENZ_KIDD, CLASS, NumberOfOperationsVisitor::new),
+    NOOM("Number Of Overridden Methods", LORENZ_KIDD, CLASS, NumberOfOverriddenMethodsVisitor::new),
+    NOAM("Number Of Added Methods", LORENZ_KIDD, CLASS, NumberOfAddedMethodsVisitor::new),
 
     //Li-Henry metrics set
-    SIZE2("Number Of Attributes And Methods", LI_HENRY, CLASS, new NumberOfAttributesAndMethodsVisitor()),
-    NOM("Number Of Methods", LI_HENRY, CLASS, new NumberOfMethodsVisitor()),
-    MPC("Message Passing Coupling", LI_HENRY, CLASS, new MessagePassingCouplingVisitor()),
-    DAC("Data Abstraction Coupling", LI_HENRY, CLASS, new DataAbstractionCouplingVisitor()),
+    SIZE2("Number Of Attributes And Methods", LI_HENRY, CLASS, NumberOfAttributesAndMethodsVisitor::new),
+    NOM("Number Of Methods", LI_HENRY, CLASS, NumberOfMethodsVisitor::new),
+    MPC("Message Passing Coupling", LI_HENRY, CLASS, MessagePassingCouplingVisitor::new),
+    DAC("Data Abstraction Coupling", LI_HENRY, CLASS, DataAbstractionCouplingVisitor::new),
 
     //Lanza-Marinescu metrics set
-    ATFD("Access To Foreign Data", LANZA_MARINESCU, CLASS, new AccessToForeignDataVisitor()),
-    NOPA("Number Of Public Attributes", LANZA_MARINESCU, CLASS, new NumberOfPublicAttributesVisitor()),
-    NOAC("Number Of Accessor Methods", LANZA_MARINESCU, CLASS, new NumberOfAccessorMethodsVisitor()),
-    WOC("Weight Of A Class", LANZA_MARINESCU, CLASS, new WeightOfAClassVisitor()),
+    ATFD("Access To Foreign Data", LANZA_MARINESCU, CLASS, AccessToForeignDataVisitor::new),
+    NOPA("Number Of Public Attributes", LANZA_MARINESCU, CLASS, NumberOfPublicAttributesVisitor::new),
+    NOAC("Number Of Accessor Methods", LANZA_MARINESCU, CLASS, NumberOfAccessorMethodsVisitor::new),
+    WOC("Weight Of A Class", LANZA_MARINESCU, CLASS, WeightOfAClassVisitor::new),
 
     //Bieman-Kang metrics set
-    TCC("Tight Class Cohesion", BIEMAN_KANG, CLASS, new TightClassCohesionVisitor()),
+    TCC("Tight Class Cohesion", BIEMAN_KANG, CLASS, TightClassCohesionVisitor::new),
 
     //Chr. Clemens Lee metrics set
-    NCSS("Non-Commenting Source Statements", CLEMENS_LEE, CLASS, new NonCommentingSourceStatementsVisitor()),
+    NCSS("Non-Commenting Source Statements", CLEMENS_LEE, CLASS, NonCommentingSourceStatementsVisitor::new),
 
     //Robert C. Martin metrics set
     Ce("Efferent Coupling", R_MARTIN, PACKAGE, null),
@@ -156,14 +157,17 @@ public enum MetricType {
     private final String url;
     private final MetricSet set;
     private final MetricLevel level;
+    private final Supplier<? extends JavaRecursiveElementVisitor> visitorFactory;
     private final JavaRecursiveElementVisitor visitor;
 
-    MetricType(String description, MetricSet set, MetricLevel level, JavaRecursiveElementVisitor visitor) {
+    MetricType(String description, MetricSet set, MetricLevel level,
+               Supplier<? extends JavaRecursiveElementVisitor> visitorFactory) {
         this.description = description;
         this.url = "/html/" + name() + ".html";
         this.set = set;
         this.level = level;
-        this.visitor = visitor;
+        this.visitorFactory = visitorFactory;
+        this.visitor = visitorFactory == null ? null : visitorFactory.get();
     }
 
     public String description() {
@@ -182,10 +186,21 @@ public enum MetricType {
         return level;
     }
 
+    /**
+     * @return the visitor instance shared by all callers; visitors keep state while visiting, so model builders
+     * that may run concurrently take their own instances from {@link #createVisitor()}
+     */
     public JavaRecursiveElementVisitor visitor() {
         return visitor;
     }
 
+    /**
+     * @return a new instance of the visitor of the metric, or null if the metric is not calculated by a visitor
+     */
+    public JavaRecursiveElementVisitor createVisitor() {
+        return visitorFactory == null ? null : visitorFactory.get();
+    }
+
     public boolean isLongValue() {
         Set<MetricType> doubleValueMetricTypes = Set.of(TCC, I, A, D, MHF, AHF, MIF, AIF, CF, PF, LAA, CDISP, WOC, CCC, CCM);
         return !doubleValueMetricTypes.contains(this);
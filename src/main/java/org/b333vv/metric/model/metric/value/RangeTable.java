@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.b333vv.metric.model.metric.value;
+
+import org.b333vv.metric.model.metric.MetricType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Function;
+
+import static org.b333vv.metric.model.metric.value.RangeType.*;
+
+/**
+ * Immutable snapshot of the valid ranges of all metric types, indexed by {@link MetricType#ordinal()}.
+ * Range bounds are kept as primitives, so classifying a value neither looks up settings nor allocates.
+ * A new table with a greater {@link #getVersion() version} is built whenever the range settings change.
+ */
+public final class RangeTable {
+    private static final byte NONE = 0;
+    private static final byte BASIC = 1;
+    private static final byte DERIVATIVE = 2;
+
+    public static final RangeTable EMPTY = of(0L, type -> BasicMetricsRange.UNDEFINED);
+
+    private final long version;
+    private final Range[] ranges;
+    private final byte[] kinds;
+    // basic ranges: regular, high and very high bounds; derivative ranges: from and to in lower and middle
+    private final double[] lower;
+    private final double[] middle;
+    private final double[] upper;
+
+    private RangeTable(long version, Range[] ranges) {
+        this.version = version;
+        this.ranges = ranges;
+        this.kinds = new byte[ranges.length];
+        this.lower = new double[ranges.length];
+        this.middle = new double[ranges.length];
+        this.upper = new double[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            Range range = ranges[i];
+            if (range instanceof BasicMetricsRange && range != BasicMetricsRange.UNDEFINED) {
+                kinds[i] = BASIC;
+                lower[i] = range.getRegularTo().doubleValue();
+                middle[i] = range.getHighTo().doubleValue();
+                upper[i] = range.getVeryHighTo().doubleValue();
+            } else if (range instanceof DerivativeMetricsRange && range != DerivativeMetricsRange.UNDEFINED) {
+                kinds[i] = DERIVATIVE;
+                lower[i] = range.getRegularFrom().doubleValue();
+                middle[i] = range.getRegularTo().doubleValue();
+            } else {
+                kinds[i] = NONE;
+            }
+        }
+    }
+
+    public static RangeTable of(long version, @NotNull Function<MetricType, Range> rangeProvider) {
+        MetricType[] types = MetricType.values();
+        Range[] ranges = new Range[types.length];
+        for (MetricType type : types) {
+            Range range = rangeProvider.apply(type);
+            ranges[type.ordinal()] = range != null ? range : BasicMetricsRange.UNDEFINED;
+        }
+        return new RangeTable(version, ranges);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Range getRange(@NotNull MetricType type) {
+        return ranges[type.ordinal()];
+    }
+
+    public RangeType classify(@NotNull MetricType type, @NotNull Value value) {
+        if (value == Value.UNDEFINED) {
+            return RangeType.UNDEFINED;
+        }
+        if (value == Value.INFINITY) {
+            return ranges[type.ordinal()].getRangeType(value);
+        }
+        return classify(type.ordinal(), value.doubleValue());
+    }
+
+    public RangeType classify(@NotNull MetricType type, double value) {
+        return classify(type.ordinal(), value);
+    }
+
+    public boolean isNotRegular(@NotNull MetricType type, @NotNull Value value) {
+        RangeType rangeType = classify(type, value);
+        return rangeType != RangeType.UNDEFINED && rangeType != REGULAR;
+    }
+
+    private RangeType classify(int index, double value) {
+        switch (kinds[index]) {
+            case BASIC:
+                if (Double.compare(value, upper[index]) >= 0) {
+                    return EXTREME;
+                }
+                if (Double.compare(value, middle[index]) >= 0) {
+                    return VERY_HIGH;
+                }
+                if (Double.compare(value, lower[index]) >= 0) {
+                    return HIGH;
+                }
+                if (Double.compare(value, 0.0) >= 0) {
+                    return REGULAR;
+                }
+                return RangeType.UNDEFINED;
+            case DERIVATIVE:
+                if (Double.compare(value, middle[index]) > 0 || Double.compare(value, lower[index]) < 0) {
+                    return HIGH;
+                }
+                return REGULAR;
+            default:
+                return RangeType.UNDEFINED;
+        }
+    }
+}
@@ -28,6 +28,10 @@ public class Bag<T> {
         contents.merge(obj, 1, Integer::sum);
     }
 
+    public void add(T obj, int count) {
+        contents.merge(obj, count, Integer::sum);
+    }
+
     public Set<T> getContents() {
         return contents.keySet();
     }
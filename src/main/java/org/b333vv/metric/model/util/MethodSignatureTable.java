@@ -0,0 +1,329 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.model.util;
+
+import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.MethodSignature;
+import com.intellij.psi.util.MethodSignatureUtil;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.TypeConversionUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Erased signature hashes of the methods of a class and of all its supertypes, with type parameters of the
+ * supertypes substituted as seen from the class. Override relations within the hierarchy are answered by binary
+ * searches in sorted hash arrays instead of super method searches. Two methods with the same name and the same
+ * erased parameter types share a hash, every hash hit is confirmed by comparing the erased signatures.
+ * Must be used in a read action.
+ */
+public final class MethodSignatureTable {
+
+    private static final long[] NO_HASHES = new long[0];
+    private static final int[] NO_INDICES = new int[0];
+
+    /** The class itself first, then its supertypes. */
+    private final List<Level> levels = new ArrayList<>();
+
+    private static final class Level {
+        private final PsiClass psiClass;
+        private final String packageName;
+        private final PsiMethod[] methods;
+        /** Signatures of {@link #methods} as seen from the class of the table, in the same order. */
+        private final MethodSignature[] signatures;
+        /** Hashes of {@link #methods}, in the same order. */
+        private final long[] hashes;
+        /** The instance methods that take part in overriding from any package. */
+        private final HashIndex overridable;
+        /** The package-private instance methods, which only take part within their package. */
+        private final HashIndex packageOverridable;
+        /** The instance methods that are not abstract. */
+        private final HashIndex concrete;
+        /** Levels of the supertypes of the class, transitively. */
+        private final BitSet supers = new BitSet();
+
+        private Level(PsiClass psiClass, PsiSubstitutor substitutor) {
+            this.psiClass = psiClass;
+            this.packageName = ClassUtils.calculatePackageName(psiClass);
+            this.methods = psiClass.getMethods();
+            this.signatures = new MethodSignature[methods.length];
+            this.hashes = new long[methods.length];
+            int[] overridable = new int[methods.length];
+            int[] packageOverridable = new int[methods.length];
+            int[] concrete = new int[methods.length];
+            int overridableCount = 0;
+            int packageCount = 0;
+            int concreteCount = 0;
+            for (int i = 0; i < methods.length; i++) {
+                PsiMethod method = methods[i];
+                signatures[i] = method.getSignature(substitutor);
+                hashes[i] = hash(signatures[i]);
+                if (!canOverride(method)) {
+                    continue;
+                }
+                if (method.hasModifierProperty(PsiModifier.PACKAGE_LOCAL) && !psiClass.isInterface()) {
+                    packageOverridable[packageCount++] = i;
+                } else {
+                    overridable[overridableCount++] = i;
+                }
+                if (!MethodUtils.isAbstract(method)) {
+                    concrete[concreteCount++] = i;
+                }
+            }
+            this.overridable = new HashIndex(hashes, overridable, overridableCount);
+            this.packageOverridable = new HashIndex(hashes, packageOverridable, packageCount);
+            this.concrete = new HashIndex(hashes, concrete, concreteCount);
+        }
+
+        private boolean hasOverridable(long hash, MethodSignature signature, String fromPackage) {
+            return overridable.contains(this, hash, signature)
+                    || (packageName.equals(fromPackage) && packageOverridable.contains(this, hash, signature));
+        }
+    }
+
+    /**
+     * Indices of methods of a level sorted by their hashes.
+     */
+    private static final class HashIndex {
+        private final long[] hashes;
+        private final int[] methods;
+
+        private HashIndex(long[] methodHashes, int[] indices, int count) {
+            if (count == 0) {
+                hashes = NO_HASHES;
+                methods = NO_INDICES;
+                return;
+            }
+            Integer[] sorted = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = indices[i];
+            }
+            Arrays.sort(sorted, Comparator.comparingLong(i -> methodHashes[i]));
+            hashes = new long[count];
+            methods = new int[count];
+            for (int i = 0; i < count; i++) {
+                methods[i] = sorted[i];
+                hashes[i] = methodHashes[sorted[i]];
+            }
+        }
+
+        private boolean contains(Level level, long hash, MethodSignature signature) {
+            int found = Arrays.binarySearch(hashes, hash);
+            if (found < 0) {
+                return false;
+            }
+            // several methods may share the hash, so each of them is compared
+            int first = found;
+            while (first > 0 && hashes[first - 1] == hash) {
+                first--;
+            }
+            for (int i = first; i < hashes.length && hashes[i] == hash; i++) {
+                if (sameErasure(level.signatures[methods[i]], signature)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private MethodSignatureTable(@NotNull PsiClass psiClass) {
+        levels.add(new Level(psiClass, PsiSubstitutor.EMPTY));
+        Set<PsiClass> superClasses = new LinkedHashSet<>();
+        InheritanceUtil.getSuperClasses(psiClass, superClasses, true);
+        for (PsiClass superClass : superClasses) {
+            if (!superClass.equals(psiClass)) {
+                levels.add(new Level(superClass, TypeConversionUtil.getSuperClassSubstitutor(superClass, psiClass,
+                        PsiSubstitutor.EMPTY)));
+            }
+        }
+        linkSupers();
+    }
+
+    // Sets the supers of every level from the direct supertypes of its class, once for the table
+    private void linkSupers() {
+        Map<PsiClass, Integer> indices = new HashMap<>();
+        for (int i = 0; i < levels.size(); i++) {
+            indices.put(levels.get(i).psiClass, i);
+        }
+        BitSet linked = new BitSet();
+        for (int i = 0; i < levels.size(); i++) {
+            linkSupers(i, indices, linked);
+        }
+    }
+
+    private void linkSupers(int index, Map<PsiClass, Integer> indices, BitSet linked) {
+        if (linked.get(index)) {
+            return;
+        }
+        // marked first, so that a cyclic hierarchy in broken code ends
+        linked.set(index);
+        Level level = levels.get(index);
+        for (PsiClass superClass : level.psiClass.getSupers()) {
+            Integer superIndex = indices.get(superClass);
+            if (superIndex != null && superIndex != index) {
+                linkSupers(superIndex, indices, linked);
+                level.supers.set(superIndex);
+                level.supers.or(levels.get(superIndex).supers);
+            }
+        }
+    }
+
+    /**
+     * @return the table of the class, cached until the next PSI change
+     */
+    @NotNull
+    public static MethodSignatureTable of(@NotNull PsiClass psiClass) {
+        return CachedValuesManager.getCachedValue(psiClass, () -> CachedValueProvider.Result.create(
+                new MethodSignatureTable(psiClass), PsiModificationTracker.MODIFICATION_COUNT));
+    }
+
+    /**
+     * @return true if a method declared in the class overrides or implements a method of a supertype
+     */
+    public boolean hasSuperMethod(@NotNull PsiMethod method) {
+        if (!canOverride(method)) {
+            return false;
+        }
+        Level own = levels.get(0);
+        MethodSignature signature = signatureOfDeclared(own, method);
+        long hash = hash(signature);
+        for (int i = 1; i < levels.size(); i++) {
+            if (levels.get(i).hasOverridable(hash, signature, own.packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a method declared in the class overrides a non-abstract method of a supertype that is the
+     * nearest declaration of the method along its path in the hierarchy, the super methods
+     * {@link com.intellij.psi.search.searches.SuperMethodsSearch} finds: an abstract redeclaration in a supertype
+     * in between hides the concrete method further up
+     */
+    public boolean hasConcreteSuperMethod(@NotNull PsiMethod method) {
+        if (!canOverride(method)) {
+            return false;
+        }
+        Level own = levels.get(0);
+        MethodSignature signature = signatureOfDeclared(own, method);
+        long hash = hash(signature);
+        for (int i = 1; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            if (level.concrete.contains(level, hash, signature)
+                    && level.hasOverridable(hash, signature, own.packageName)
+                    && !isRedeclaredBelow(i, hash, signature, own.packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The methods of the class and its supertypes, as returned by {@link PsiClass#getAllMethods()}, that no other
+     * method of the class or of a supertype between the class and their declaring class overrides.
+     */
+    @NotNull
+    public List<PsiMethod> getNonOverriddenMethods() {
+        List<PsiMethod> result = new ArrayList<>();
+        for (int index = 0; index < levels.size(); index++) {
+            Level level = levels.get(index);
+            List<Level> derived = derivedLevels(index);
+            for (int i = 0; i < level.methods.length; i++) {
+                if (!isOverridden(level, i, derived)) {
+                    result.add(level.methods[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    // A supertype deriving from the class of the level declares the method as well
+    private boolean isRedeclaredBelow(int index, long hash, MethodSignature signature, String fromPackage) {
+        for (int i = 1; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            if (i != index && level.supers.get(index) && level.hasOverridable(hash, signature, fromPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isOverridden(Level level, int index, List<Level> derived) {
+        PsiMethod method = level.methods[index];
+        if (!canOverride(method)) {
+            return false;
+        }
+        long hash = level.hashes[index];
+        MethodSignature signature = level.signatures[index];
+        // a package-private method is only overridden from its own package
+        boolean packageLocal = method.hasModifierProperty(PsiModifier.PACKAGE_LOCAL) && !level.psiClass.isInterface();
+        for (Level subLevel : derived) {
+            if (packageLocal && !level.packageName.equals(subLevel.packageName)) {
+                continue;
+            }
+            if (subLevel.overridable.contains(subLevel, hash, signature)
+                    || subLevel.packageOverridable.contains(subLevel, hash, signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Levels of the class and of the supertypes deriving from the class of the level at the given index
+    private List<Level> derivedLevels(int index) {
+        List<Level> derived = new ArrayList<>();
+        for (int i = 0; i < levels.size(); i++) {
+            if (i != index && (i == 0 || levels.get(i).supers.get(index))) {
+                derived.add(levels.get(i));
+            }
+        }
+        return derived;
+    }
+
+    private MethodSignature signatureOfDeclared(Level own, PsiMethod method) {
+        for (int i = 0; i < own.methods.length; i++) {
+            if (own.methods[i] == method) {
+                return own.signatures[i];
+            }
+        }
+        return method.getSignature(PsiSubstitutor.EMPTY);
+    }
+
+    // Constructors, static and private methods neither override nor are overridden
+    private static boolean canOverride(PsiMethod method) {
+        return !method.isConstructor() && !method.hasModifierProperty(PsiModifier.STATIC)
+                && !method.hasModifierProperty(PsiModifier.PRIVATE);
+    }
+
+    private static boolean sameErasure(MethodSignature first, MethodSignature second) {
+        return first.getName().equals(second.getName()) && MethodSignatureUtil.areErasedParametersEqual(first, second);
+    }
+
+    private static long hash(MethodSignature signature) {
+        PsiType[] parameterTypes = MethodSignatureUtil.calcErasedParameterTypes(signature);
+        int parametersHash = parameterTypes.length;
+        for (PsiType parameterType : parameterTypes) {
+            parametersHash = 31 * parametersHash + parameterType.getCanonicalText().hashCode();
+        }
+        return ((long) signature.getName().hashCode() << 32) | (parametersHash & 0xFFFFFFFFL);
+    }
+}
@@ -20,10 +20,7 @@ import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiModifier;
 import com.intellij.psi.PsiSubstitutor;
-import com.intellij.psi.search.searches.SuperMethodsSearch;
-import com.intellij.psi.util.MethodSignatureBackedByPsiMethod;
 import com.intellij.psi.util.PsiFormatUtil;
-import com.intellij.util.Query;
 
 import static com.intellij.psi.util.PsiFormatUtilBase.*;
 
@@ -34,11 +31,9 @@ public final class MethodUtils {
     }
 
     public static boolean hasConcreteSuperMethod(PsiMethod psiMethod) {
-        final Query<MethodSignatureBackedByPsiMethod> search = SuperMethodsSearch.search(psiMethod,
-                null, true, false);
-        return !search.forEach(superMethod -> {
-            return isAbstract(superMethod.getMethod());
-        });
+        final PsiClass containingClass = psiMethod.getContainingClass();
+        return containingClass != null
+                && MethodSignatureTable.of(containingClass).hasConcreteSuperMethod(psiMethod);
     }
 
     public static boolean isAbstract(PsiMethod psiMethod) {
@@ -0,0 +1,174 @@
+/*
+ * Kotlin visitors - fused traversal
+ */
+package org.b333vv.metric.model.visitor.kotlin;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Schedules the subtree walks of Kotlin metric visitors.
+ * <p>
+ * The {@link #immediate()} traversal walks every subtree as soon as it is requested, which is how
+ * a visitor computes a single metric on its own. A {@link #fused()} traversal collects the walks
+ * requested by all visitors of a declaration and performs them in {@link #run()} as one pass over
+ * the PSI tree: every element is read once and handed to each visitor whose walk covers it, in the
+ * same pre-order each visitor would see walking alone. Work that depends on the result of a walk is
+ * registered with {@link #then(Runnable)} and runs after all walks, in registration order.
+ * </p>
+ */
+public final class KotlinFusedTraversal {
+    private static final KotlinFusedTraversal IMMEDIATE = new KotlinFusedTraversal(false);
+
+    private final boolean fused;
+    private final Map<PsiElement, List<Walk>> walks = new LinkedHashMap<>();
+    private final List<PsiElement> pendingRoots = new ArrayList<>();
+    private final List<Runnable> completions = new ArrayList<>();
+
+    private static final class Walk {
+        final KotlinFusibleVisitor visitor;
+        final Consumer<RuntimeException> onFailure;
+        boolean failed;
+
+        Walk(KotlinFusibleVisitor visitor, Consumer<RuntimeException> onFailure) {
+            this.visitor = visitor;
+            this.onFailure = onFailure;
+        }
+    }
+
+    private KotlinFusedTraversal(boolean fused) {
+        this.fused = fused;
+    }
+
+    public static KotlinFusedTraversal immediate() {
+        return IMMEDIATE;
+    }
+
+    public static KotlinFusedTraversal fused() {
+        return new KotlinFusedTraversal(true);
+    }
+
+    public void walk(@Nullable PsiElement root, @NotNull KotlinFusibleVisitor visitor) {
+        walk(root, visitor, null);
+    }
+
+    /**
+     * Walks the subtree of {@code root} with the visitor.
+     *
+     * @param onFailure receives an exception thrown by the visitor, which then stops walking while
+     *                  the other visitors go on; without it the exception is propagated
+     */
+    public void walk(@Nullable PsiElement root, @NotNull KotlinFusibleVisitor visitor,
+                     @Nullable Consumer<RuntimeException> onFailure) {
+        if (root == null) {
+            return;
+        }
+        if (!fused) {
+            try {
+                root.accept(visitor);
+            } catch (RuntimeException e) {
+                if (onFailure == null) {
+                    throw e;
+                }
+                onFailure.accept(e);
+            }
+            return;
+        }
+        visitor.fused = true;
+        walks.computeIfAbsent(root, r -> new ArrayList<>()).add(new Walk(visitor, onFailure));
+    }
+
+    public void then(@NotNull Runnable completion) {
+        if (fused) {
+            completions.add(completion);
+        } else {
+            completion.run();
+        }
+    }
+
+    /**
+     * Performs the collected walks and then the completions. Nothing happens for an immediate
+     * traversal, whose walks are done already.
+     */
+    public void run() {
+        if (!fused) {
+            return;
+        }
+        try {
+            pendingRoots.addAll(walks.keySet());
+            for (PsiElement root : walks.keySet()) {
+                if (pendingRoots.contains(root) && !hasRegisteredAncestor(root)) {
+                    visit(root, List.of());
+                }
+            }
+            for (Runnable completion : completions) {
+                completion.run();
+            }
+        } finally {
+            walks.clear();
+            pendingRoots.clear();
+            completions.clear();
+        }
+    }
+
+    private boolean hasRegisteredAncestor(PsiElement root) {
+        for (PsiElement other : walks.keySet()) {
+            if (PsiTreeUtil.isAncestor(other, root, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void visit(PsiElement element, List<Walk> active) {
+        List<Walk> starting = walks.get(element);
+        if (starting != null && pendingRoots.remove(element)) {
+            List<Walk> all = new ArrayList<>(active.size() + starting.size());
+            all.addAll(active);
+            all.addAll(starting);
+            active = all;
+        }
+        List<Walk> descending = new ArrayList<>(active.size());
+        for (Walk walk : active) {
+            if (!walk.failed && dispatch(walk, element)) {
+                descending.add(walk);
+            }
+        }
+        if (descending.isEmpty() && !hasPendingRootBelow(element)) {
+            return;
+        }
+        for (PsiElement child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            visit(child, descending);
+        }
+        for (Walk walk : descending) {
+            walk.visitor.leave(element);
+        }
+    }
+
+    private boolean dispatch(Walk walk, PsiElement element) {
+        try {
+            return walk.visitor.dispatch(element);
+        } catch (RuntimeException e) {
+            if (walk.onFailure == null) {
+                throw e;
+            }
+            walk.failed = true;
+            walk.onFailure.accept(e);
+            return false;
+        }
+    }
+
+    private boolean hasPendingRootBelow(PsiElement element) {
+        for (PsiElement root : pendingRoots) {
+            if (PsiTreeUtil.isAncestor(element, root, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
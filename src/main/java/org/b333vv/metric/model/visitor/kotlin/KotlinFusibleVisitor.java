@@ -0,0 +1,66 @@
+/*
+ * Kotlin visitors - fused traversal
+ */
+package org.b333vv.metric.model.visitor.kotlin;
+
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.psi.KtTreeVisitorVoid;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Recursive Kotlin visitor that can either walk a subtree on its own or take part in a walk shared
+ * with other visitors through {@link KotlinFusedTraversal}.
+ * <p>
+ * Overridden {@code visit*} methods do their work before calling {@code super}, as with
+ * {@link KtTreeVisitorVoid}: calling {@code super} means "descend into the children", not calling
+ * it prunes the subtree. Work that has to wait until the children are walked, e.g. leaving a
+ * nesting level, must not follow the {@code super} call, since in a shared walk the children are
+ * visited only after the method returns. Nesting levels are tracked with {@link #nest(PsiElement)}
+ * instead, which keeps an element counted until its children have been walked.
+ * </p>
+ */
+public abstract class KotlinFusibleVisitor extends KtTreeVisitorVoid {
+    private final Deque<PsiElement> nesting = new ArrayDeque<>();
+    boolean fused;
+    private boolean descend;
+
+    @Override
+    public void visitElement(@NotNull PsiElement element) {
+        if (fused) {
+            descend = true;
+            return;
+        }
+        super.visitElement(element);
+        leave(element);
+    }
+
+    /**
+     * Enters a nesting level that lasts until the children of the element have been walked.
+     *
+     * @return the nesting depth including the new level
+     */
+    protected int nest(@NotNull PsiElement element) {
+        nesting.push(element);
+        return nesting.size();
+    }
+
+    /**
+     * Visits a single element of a shared walk.
+     *
+     * @return whether the visitor wants the children of the element
+     */
+    boolean dispatch(@NotNull PsiElement element) {
+        descend = false;
+        element.accept(this);
+        return descend;
+    }
+
+    void leave(@NotNull PsiElement element) {
+        while (!nesting.isEmpty() && nesting.peek() == element) {
+            nesting.pop();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Kotlin visitors - shared resolution
+ */
+package org.b333vv.metric.model.visitor.kotlin;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.idea.caches.resolve.ResolutionUtils;
+import org.jetbrains.kotlin.psi.KtElement;
+import org.jetbrains.kotlin.resolve.BindingContext;
+import org.jetbrains.kotlin.resolve.lazy.BodyResolveMode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolution results shared by the Kotlin visitors of one file.
+ * <p>
+ * Several visitors resolve the same references of a declaration, e.g. ATFD, MPC, CBO and the
+ * method-level FDP all look at the same qualified expressions, and Kotlin resolution is by far the
+ * most expensive part of a Kotlin calculation. A session resolves every reference and analyzes
+ * every declaration once and hands the result to all visitors asking again. It must not outlive
+ * the read action the file is processed in and is {@link #close() closed} when the file is done.
+ * </p>
+ * The {@link #direct()} session caches nothing and is used by visitors computing a single metric.
+ */
+public final class KotlinResolveSession implements AutoCloseable {
+    private static final KotlinResolveSession DIRECT = new KotlinResolveSession(false);
+
+    private final boolean caching;
+    private final Map<ReferenceKey, PsiElement> resolved = new HashMap<>();
+    private final Map<AnalysisKey, BindingContext> bindingContexts = new HashMap<>();
+
+    private record ReferenceKey(PsiElement element, TextRange range, Class<?> type) {
+    }
+
+    private record AnalysisKey(KtElement element, BodyResolveMode mode) {
+    }
+
+    private KotlinResolveSession(boolean caching) {
+        this.caching = caching;
+    }
+
+    public static KotlinResolveSession direct() {
+        return DIRECT;
+    }
+
+    public static KotlinResolveSession open() {
+        return new KotlinResolveSession(true);
+    }
+
+    /**
+     * Same as {@link PsiReference#resolve()}, {@code null} for a missing reference.
+     */
+    @Nullable
+    public PsiElement resolve(@Nullable PsiReference reference) {
+        if (reference == null) {
+            return null;
+        }
+        if (!caching) {
+            return reference.resolve();
+        }
+        ReferenceKey key = new ReferenceKey(reference.getElement(), reference.getRangeInElement(), reference.getClass());
+        if (resolved.containsKey(key)) {
+            return resolved.get(key);
+        }
+        PsiElement target = reference.resolve();
+        resolved.put(key, target);
+        return target;
+    }
+
+    /**
+     * Analyzes the element, {@code null} if resolution is unavailable. A failed analysis is not
+     * retried within the session.
+     */
+    @Nullable
+    public BindingContext analyze(@NotNull KtElement element, @NotNull BodyResolveMode mode) {
+        if (!caching) {
+            return analyzeOrNull(element, mode);
+        }
+        AnalysisKey key = new AnalysisKey(element, mode);
+        if (bindingContexts.containsKey(key)) {
+            return bindingContexts.get(key);
+        }
+        BindingContext bindingContext = analyzeOrNull(element, mode);
+        bindingContexts.put(key, bindingContext);
+        return bindingContext;
+    }
+
+    @Nullable
+    private static BindingContext analyzeOrNull(@NotNull KtElement element, @NotNull BodyResolveMode mode) {
+        try {
+            return ResolutionUtils.analyze(element, mode);
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        resolved.clear();
+        bindingContexts.clear();
+    }
+}
@@ -4,6 +4,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -109,14 +110,12 @@ public class KotlinConditionNestingDepthVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        int depth = maxConditionalDepth(function.getBodyExpression());
-        metric = Metric.of(CND, depth);
+        maxConditionalDepth(function.getBodyExpression());
     }
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        int depth = maxConditionalDepth(constructor.getBodyExpression());
-        metric = Metric.of(CND, depth);
+        maxConditionalDepth(constructor.getBodyExpression());
     }
 
     @Override
@@ -126,32 +125,27 @@ public class KotlinConditionNestingDepthVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitAnonymousInitializer(@NotNull KtAnonymousInitializer initializer) {
-        int depth = maxConditionalDepth(initializer.getBody());
-        metric = Metric.of(CND, depth);
+        maxConditionalDepth(initializer.getBody());
     }
 
     /**
-     * Calculates the maximum conditional nesting depth within the given expression.
+     * Calculates the maximum conditional nesting depth within the given expression and sets the
+     * metric once the expression has been walked, 0 if body is null.
      * 
      * @param body the body expression to analyze (may be null)
-     * @return the maximum conditional nesting depth, or 0 if body is null
      */
-    private int maxConditionalDepth(KtExpression body) {
-        if (body == null)
-            return 0;
-
+    private void maxConditionalDepth(KtExpression body) {
         final int[] max = { 0 };
-        body.accept(new ConditionalDepthVisitor(max));
-        return max[0];
+        traversal.walk(body, new ConditionalDepthVisitor(max));
+        traversal.then(() -> metric = Metric.of(CND, max[0]));
     }
 
     /**
      * Internal visitor that traverses the PSI tree and tracks conditional nesting
      * depth.
      */
-    private static class ConditionalDepthVisitor extends KtTreeVisitorVoid {
+    private static class ConditionalDepthVisitor extends KotlinFusibleVisitor {
         private final int[] max;
-        private int current = 0;
 
         ConditionalDepthVisitor(int[] max) {
             this.max = max;
@@ -159,26 +153,20 @@ public class KotlinConditionNestingDepthVisitor extends KotlinMethodVisitor {
 
         @Override
         public void visitIfExpression(@NotNull KtIfExpression expression) {
-            current++;
-            max[0] = Math.max(max[0], current);
+            max[0] = Math.max(max[0], nest(expression));
             super.visitIfExpression(expression);
-            current--;
         }
 
         @Override
         public void visitWhenExpression(@NotNull KtWhenExpression expression) {
-            current++;
-            max[0] = Math.max(max[0], current);
+            max[0] = Math.max(max[0], nest(expression));
             super.visitWhenExpression(expression);
-            current--;
         }
 
         @Override
         public void visitTryExpression(@NotNull KtTryExpression expression) {
-            current++;
-            max[0] = Math.max(max[0], current);
+            max[0] = Math.max(max[0], nest(expression));
             super.visitTryExpression(expression);
-            current--;
         }
 
         @Override
@@ -192,10 +180,8 @@ public class KotlinConditionNestingDepthVisitor extends KotlinMethodVisitor {
             // Elvis operator (?:) represents conditional logic: a ?: b means "if a is null,
             // use b"
             if (expression.getOperationReference().getText().equals("?:")) {
-                current++;
-                max[0] = Math.max(max[0], current);
+                max[0] = Math.max(max[0], nest(expression));
                 super.visitBinaryExpression(expression);
-                current--;
             } else {
                 super.visitBinaryExpression(expression);
             }
@@ -1,6 +1,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.b333vv.metric.model.metric.value.Value;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
@@ -72,7 +73,7 @@ public class KotlinCouplingDispersionVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        metric = Metric.of(CDISP, compute(function.getBodyExpression()));
+        compute(function.getBodyExpression());
     }
 
     @Override
@@ -80,7 +81,7 @@ public class KotlinCouplingDispersionVisitor extends KotlinMethodVisitor {
         // Primary constructors may have init blocks in the containing class
         KtClassOrObject containingClass = constructor.getContainingClassOrObject();
         if (containingClass instanceof KtClass) {
-            metric = Metric.of(CDISP, computeForClass((KtClass) containingClass));
+            computeForClass((KtClass) containingClass);
         } else {
             metric = Metric.of(CDISP, 0.0);
         }
@@ -88,13 +89,13 @@ public class KotlinCouplingDispersionVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        metric = Metric.of(CDISP, compute(constructor.getBodyExpression()));
+        compute(constructor.getBodyExpression());
     }
 
     /**
      * Computes CDISP for a class (used for primary constructors with init blocks).
      */
-    private double computeForClass(KtClass ktClass) {
+    private void computeForClass(KtClass ktClass) {
         final Set<String> providers = new HashSet<>();
         final Set<String> usedCalls = new HashSet<>();
 
@@ -112,29 +113,32 @@ public class KotlinCouplingDispersionVisitor extends KotlinMethodVisitor {
             }
         }
 
-        return calculateDispersion(providers.size(), usedCalls.size());
+        traversal.then(() -> metric = Metric.of(CDISP,
+                calculateDispersion(providers.size(), usedCalls.size())));
     }
 
     /**
      * Computes CDISP for a function body expression.
      */
-    private double compute(KtExpression body) {
+    private void compute(KtExpression body) {
         if (body == null) {
-            return 0.0;
+            metric = Metric.of(CDISP, 0.0);
+            return;
         }
 
         final Set<String> providers = new HashSet<>();
         final Set<String> usedCalls = new HashSet<>();
         collectCalls(body, providers, usedCalls);
 
-        return calculateDispersion(providers.size(), usedCalls.size());
+        traversal.then(() -> metric = Metric.of(CDISP,
+                calculateDispersion(providers.size(), usedCalls.size())));
     }
 
     /**
      * Collects all external calls and their providers from the given expression.
      */
     private void collectCalls(KtExpression expression, Set<String> providers, Set<String> usedCalls) {
-        expression.accept(new KtTreeVisitorVoid() {
+        traversal.walk(expression, new KotlinFusibleVisitor() {
 
             // Standard qualified calls: receiver.method()
             @Override
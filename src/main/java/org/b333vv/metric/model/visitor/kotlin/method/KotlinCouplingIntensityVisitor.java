@@ -1,6 +1,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -80,21 +81,19 @@ public class KotlinCouplingIntensityVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        long cintValue = 0;
         // Handle expression body
         if (function.getBodyExpression() != null && !function.hasBlockBody()) {
-            cintValue = count(function, function.getBodyExpression());
+            count(function, function.getBodyExpression());
         }
         // Handle block body
-        else if (function.getBodyBlockExpression() != null) {
-            cintValue = count(function, function.getBodyBlockExpression());
+        else {
+            count(function, function.getBodyBlockExpression());
         }
-        metric = Metric.of(CINT, cintValue);
     }
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        metric = Metric.of(CINT, count(constructor, constructor.getBodyExpression()));
+        count(constructor, constructor.getBodyExpression());
     }
 
     @Override
@@ -104,7 +103,7 @@ public class KotlinCouplingIntensityVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitAnonymousInitializer(@NotNull KtAnonymousInitializer initializer) {
-        metric = Metric.of(CINT, count(initializer, initializer.getBody()));
+        count(initializer, initializer.getBody());
     }
 
     /**
@@ -112,16 +111,17 @@ public class KotlinCouplingIntensityVisitor extends KotlinMethodVisitor {
      *
      * @param context The function or constructor context
      * @param body    The body expression to analyze
-     * @return Number of distinct coupling points
      */
-    private long count(@NotNull KtElement context, KtExpression body) {
-        if (body == null)
-            return 0;
+    private void count(@NotNull KtElement context, KtExpression body) {
+        if (body == null) {
+            metric = Metric.of(CINT, 0);
+            return;
+        }
 
         KtClassOrObject owner = findOwnerClass(context);
         final Set<String> couplingPoints = new HashSet<>();
 
-        body.accept(new KtTreeVisitorVoid() {
+        traversal.walk(body, new KotlinFusibleVisitor() {
 
             @Override
             public void visitQualifiedExpression(@NotNull KtQualifiedExpression expression) {
@@ -202,7 +202,7 @@ public class KotlinCouplingIntensityVisitor extends KotlinMethodVisitor {
             }
         });
 
-        return couplingPoints.size();
+        traversal.then(() -> metric = Metric.of(CINT, couplingPoints.size()));
     }
 
     /**
@@ -22,6 +22,7 @@ import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.util.PropertyUtil;
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.asJava.classes.KtLightClass;
@@ -130,7 +131,7 @@ public class KotlinForeignDataProvidersVisitor extends KotlinMethodVisitor {
         KtClassOrObject ownerClass = findOwnerClass(context);
         final Set<String> foreignProviderFqns = new HashSet<>();
 
-        body.accept(new KtTreeVisitorVoid() {
+        traversal.walk(body, new KotlinFusibleVisitor() {
             @Override
             public void visitDotQualifiedExpression(@NotNull KtDotQualifiedExpression expression) {
                 processQualifiedExpression(expression.getSelectorExpression(),
@@ -156,7 +157,7 @@ public class KotlinForeignDataProvidersVisitor extends KotlinMethodVisitor {
             }
         });
 
-        metric = Metric.of(FDP, foreignProviderFqns.size());
+        traversal.then(() -> metric = Metric.of(FDP, foreignProviderFqns.size()));
     }
 
     /**
@@ -189,7 +190,7 @@ public class KotlinForeignDataProvidersVisitor extends KotlinMethodVisitor {
             @Nullable KtClassOrObject ownerClass,
             @NotNull Set<String> foreignProviderFqns) {
         for (var ref : callExpression.getReferences()) {
-            PsiElement resolved = ref.resolve();
+            PsiElement resolved = resolveSession.resolve(ref);
             if (resolved instanceof PsiMethod) {
                 PsiMethod method = (PsiMethod) resolved;
 
@@ -222,7 +223,7 @@ public class KotlinForeignDataProvidersVisitor extends KotlinMethodVisitor {
         }
 
         for (var ref : selector.getReferences()) {
-            PsiElement resolved = ref.resolve();
+            PsiElement resolved = resolveSession.resolve(ref);
 
             // Handle Kotlin properties
             if (resolved instanceof KtProperty) {
@@ -274,7 +275,7 @@ public class KotlinForeignDataProvidersVisitor extends KotlinMethodVisitor {
             KtTypeReference typeRef = superTypeEntry.getTypeReference();
             if (typeRef != null) {
                 for (var ref : typeRef.getReferences()) {
-                    PsiElement resolved = ref.resolve();
+                    PsiElement resolved = resolveSession.resolve(ref);
 
                     // Handle Kotlin classes
                     if (resolved instanceof KtClassOrObject) {
@@ -2,6 +2,7 @@ package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.value.Value;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -138,7 +139,7 @@ public class KotlinHalsteadMethodVisitor extends KotlinMethodVisitor {
         operands.clear();
         
         if (body != null) {
-            body.accept(new KtTreeVisitorVoid() {
+            traversal.walk(body, new KotlinFusibleVisitor() {
                 
                 @Override
                 public void visitBinaryExpression(@NotNull KtBinaryExpression expression) {
@@ -371,7 +372,7 @@ public class KotlinHalsteadMethodVisitor extends KotlinMethodVisitor {
         }
         
         // Store primary metric (HVL) in metric field for compatibility
-        metric = Metric.of(HVL, volume());
+        traversal.then(() -> metric = Metric.of(HVL, volume()));
     }
 
     /**
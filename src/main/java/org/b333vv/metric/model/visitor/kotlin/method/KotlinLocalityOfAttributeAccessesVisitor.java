@@ -4,6 +4,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMember;
@@ -149,7 +150,7 @@ public class KotlinLocalityOfAttributeAccessesVisitor extends KotlinMethodVisito
         final int[] own = { 0 };
         final int[] total = { 0 };
 
-        body.accept(new KtTreeVisitorVoid() {
+        traversal.walk(body, new KotlinFusibleVisitor() {
             @Override
             public void visitDotQualifiedExpression(@NotNull KtDotQualifiedExpression expression) {
                 processQualifiedExpression(expression.getReceiverExpression(),
@@ -193,11 +194,13 @@ public class KotlinLocalityOfAttributeAccessesVisitor extends KotlinMethodVisito
             }
         });
 
-        if (total[0] == 0) {
-            metric = Metric.of(LAA, 0.0);
-        } else {
-            metric = Metric.of(LAA, ((double) own[0]) / ((double) total[0]));
-        }
+        traversal.then(() -> {
+            if (total[0] == 0) {
+                metric = Metric.of(LAA, 0.0);
+            } else {
+                metric = Metric.of(LAA, ((double) own[0]) / ((double) total[0]));
+            }
+        });
     }
 
     /**
@@ -264,7 +267,7 @@ public class KotlinLocalityOfAttributeAccessesVisitor extends KotlinMethodVisito
         }
 
         for (var ref : expression.getReferences()) {
-            PsiElement resolved = ref.resolve();
+            PsiElement resolved = resolveSession.resolve(ref);
 
             // Handle Java interop - PsiField from compiled Java classes
             if (resolved instanceof PsiField) {
@@ -4,6 +4,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -99,14 +100,12 @@ public class KotlinLoopNestingDepthVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        int depth = maxLoopDepth(function.getBodyExpression());
-        metric = Metric.of(LND, depth);
+        maxLoopDepth(function.getBodyExpression());
     }
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        int depth = maxLoopDepth(constructor.getBodyExpression());
-        metric = Metric.of(LND, depth);
+        maxLoopDepth(constructor.getBodyExpression());
     }
 
     @Override
@@ -116,45 +115,35 @@ public class KotlinLoopNestingDepthVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitAnonymousInitializer(@NotNull KtAnonymousInitializer initializer) {
-        int depth = maxLoopDepth(initializer.getBody());
-        metric = Metric.of(LND, depth);
+        maxLoopDepth(initializer.getBody());
     }
 
     /**
-     * Calculates the maximum loop nesting depth within the given expression.
+     * Calculates the maximum loop nesting depth within the given expression and sets the metric
+     * once the expression has been walked.
      * 
      * @param body the expression to analyze (function or constructor body)
-     * @return the maximum nesting depth of loop constructs
      */
-    private int maxLoopDepth(KtExpression body) {
-        if (body == null)
-            return 0;
+    private void maxLoopDepth(KtExpression body) {
         final int[] max = { 0 };
-        body.accept(new KtTreeVisitorVoid() {
-            private int current = 0;
+        traversal.walk(body, new KotlinFusibleVisitor() {
 
             @Override
             public void visitForExpression(@NotNull KtForExpression expression) {
-                current++;
-                max[0] = Math.max(max[0], current);
+                max[0] = Math.max(max[0], nest(expression));
                 super.visitForExpression(expression);
-                current--;
             }
 
             @Override
             public void visitWhileExpression(@NotNull KtWhileExpression expression) {
-                current++;
-                max[0] = Math.max(max[0], current);
+                max[0] = Math.max(max[0], nest(expression));
                 super.visitWhileExpression(expression);
-                current--;
             }
 
             @Override
             public void visitDoWhileExpression(@NotNull KtDoWhileExpression expression) {
-                current++;
-                max[0] = Math.max(max[0], current);
+                max[0] = Math.max(max[0], nest(expression));
                 super.visitDoWhileExpression(expression);
-                current--;
             }
 
             @Override
@@ -165,10 +154,8 @@ public class KotlinLoopNestingDepthVisitor extends KotlinMethodVisitor {
 
                     // Check for iterating functions with lambdas
                     if (isIteratingFunction(calleeName) && hasLambdaArgument(expression)) {
-                        current++;
-                        max[0] = Math.max(max[0], current);
+                        max[0] = Math.max(max[0], nest(expression));
                         super.visitCallExpression(expression);
-                        current--;
                         return;
                     }
                 }
@@ -217,6 +204,6 @@ public class KotlinLoopNestingDepthVisitor extends KotlinMethodVisitor {
                                 .anyMatch(arg -> arg.getArgumentExpression() instanceof KtLambdaExpression);
             }
         });
-        return max[0];
+        traversal.then(() -> metric = Metric.of(LND, max[0]));
     }
 }
@@ -15,7 +15,9 @@
  */
 package org.b333vv.metric.model.visitor.kotlin.method;
 
+import com.intellij.psi.PsiElement;
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -221,14 +223,12 @@ public class KotlinMaximumNestingDepthVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        int depth = maxNestingDepth(function.getBodyExpression());
-        metric = Metric.of(MND, depth);
+        maxNestingDepth(function.getBodyExpression());
     }
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        int depth = maxNestingDepth(constructor.getBodyExpression());
-        metric = Metric.of(MND, depth);
+        maxNestingDepth(constructor.getBodyExpression());
     }
 
     @Override
@@ -239,23 +239,19 @@ public class KotlinMaximumNestingDepthVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitAnonymousInitializer(@NotNull KtAnonymousInitializer initializer) {
-        int depth = maxNestingDepth(initializer.getBody());
-        metric = Metric.of(MND, depth);
+        maxNestingDepth(initializer.getBody());
     }
 
     /**
-     * Calculates the maximum nesting depth within the given expression.
+     * Calculates the maximum nesting depth within the given expression and sets the metric once
+     * the expression has been walked, 0 if body is null.
      *
      * @param body the body expression to analyze (may be null)
-     * @return the maximum nesting depth, or 0 if body is null
      */
-    private int maxNestingDepth(KtExpression body) {
-        if (body == null)
-            return 0;
-
+    private void maxNestingDepth(KtExpression body) {
         final int[] max = { 0 };
-        body.accept(new NestingDepthVisitor(max));
-        return max[0];
+        traversal.walk(body, new NestingDepthVisitor(max));
+        traversal.then(() -> metric = Metric.of(MND, max[0]));
     }
 
     /**
@@ -265,70 +261,57 @@ public class KotlinMaximumNestingDepthVisitor extends KotlinMethodVisitor {
      * constructs, recording
      * the maximum depth encountered.
      */
-    private static class NestingDepthVisitor extends KtTreeVisitorVoid {
+    private static class NestingDepthVisitor extends KotlinFusibleVisitor {
         private final int[] max;
-        private int current = 0;
 
         NestingDepthVisitor(int[] max) {
             this.max = max;
         }
 
         /**
-         * Updates the maximum depth if the current depth exceeds it.
-         */
-        private void updateMax() {
-            max[0] = Math.max(max[0], current);
-        }
-
-        /**
-         * Enters a nesting level, updates max, traverses children, then exits the
-         * level.
+         * Enters a nesting level that lasts until the children of the element have been
+         * traversed, updates max, then traverses the children.
          */
-        private void withNesting(Runnable action) {
-            current++;
-            updateMax();
-            try {
-                action.run();
-            } finally {
-                current--;
-            }
+        private void withNesting(PsiElement element, Runnable action) {
+            max[0] = Math.max(max[0], nest(element));
+            action.run();
         }
 
         @Override
         public void visitIfExpression(@NotNull KtIfExpression expression) {
-            withNesting(() -> NestingDepthVisitor.super.visitIfExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitIfExpression(expression));
         }
 
         @Override
         public void visitWhenExpression(@NotNull KtWhenExpression expression) {
-            withNesting(() -> NestingDepthVisitor.super.visitWhenExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitWhenExpression(expression));
         }
 
         @Override
         public void visitForExpression(@NotNull KtForExpression expression) {
-            withNesting(() -> NestingDepthVisitor.super.visitForExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitForExpression(expression));
         }
 
         @Override
         public void visitWhileExpression(@NotNull KtWhileExpression expression) {
-            withNesting(() -> NestingDepthVisitor.super.visitWhileExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitWhileExpression(expression));
         }
 
         @Override
         public void visitDoWhileExpression(@NotNull KtDoWhileExpression expression) {
-            withNesting(() -> NestingDepthVisitor.super.visitDoWhileExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitDoWhileExpression(expression));
         }
 
         @Override
         public void visitTryExpression(@NotNull KtTryExpression expression) {
-            withNesting(() -> NestingDepthVisitor.super.visitTryExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitTryExpression(expression));
         }
 
         @Override
         public void visitLambdaExpression(@NotNull KtLambdaExpression lambdaExpression) {
             // Lambda expressions create a new scope and can contain nested control
             // structures
-            withNesting(() -> NestingDepthVisitor.super.visitLambdaExpression(lambdaExpression));
+            withNesting(lambdaExpression, () -> NestingDepthVisitor.super.visitLambdaExpression(lambdaExpression));
         }
 
         @Override
@@ -337,7 +320,7 @@ public class KotlinMaximumNestingDepthVisitor extends KotlinMethodVisitor {
             // We include them in the parent function's complexity measurement
             if (function.getName() == null) {
                 // Anonymous or local function inside another function
-                withNesting(() -> NestingDepthVisitor.super.visitNamedFunction(function));
+                withNesting(function, () -> NestingDepthVisitor.super.visitNamedFunction(function));
             } else {
                 // Top-level or member function is handled by the outer visitor
                 super.visitNamedFunction(function);
@@ -348,13 +331,13 @@ public class KotlinMaximumNestingDepthVisitor extends KotlinMethodVisitor {
         public void visitObjectLiteralExpression(@NotNull KtObjectLiteralExpression expression) {
             // Anonymous objects (object : Type { ... }) can contain methods with control
             // structures
-            withNesting(() -> NestingDepthVisitor.super.visitObjectLiteralExpression(expression));
+            withNesting(expression, () -> NestingDepthVisitor.super.visitObjectLiteralExpression(expression));
         }
 
         @Override
         public void visitPropertyAccessor(@NotNull KtPropertyAccessor accessor) {
             // Property getters/setters can contain control flow logic
-            withNesting(() -> NestingDepthVisitor.super.visitPropertyAccessor(accessor));
+            withNesting(accessor, () -> NestingDepthVisitor.super.visitPropertyAccessor(accessor));
         }
 
         @Override
@@ -4,6 +4,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.lexer.KtTokens;
 import org.jetbrains.kotlin.psi.*;
@@ -97,9 +98,7 @@ public class KotlinMcCabeCyclomaticComplexityVisitor extends KotlinMethodVisitor
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        int complexity = 1; // baseline
-        complexity += computeForBody(function.getBodyExpression());
-        metric = Metric.of(CC, complexity);
+        computeForBody(function.getBodyExpression());
     }
 
     @Override
@@ -110,33 +109,26 @@ public class KotlinMcCabeCyclomaticComplexityVisitor extends KotlinMethodVisitor
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        int complexity = 1; // baseline
         KtBlockExpression body = constructor.getBodyExpression();
-        complexity += computeForBody(body);
-        metric = Metric.of(CC, complexity);
+        computeForBody(body);
     }
 
     @Override
     public void visitAnonymousInitializer(@NotNull KtAnonymousInitializer initializer) {
-        int complexity = 1; // baseline
         KtExpression body = initializer.getBody();
-        complexity += computeForBody(body);
-        metric = Metric.of(CC, complexity);
+        computeForBody(body);
     }
 
     /**
-     * Recursively computes cyclomatic complexity for a given expression body.
+     * Recursively computes cyclomatic complexity for a given expression body and sets the metric
+     * once the body has been walked.
      * 
      * @param body the expression to analyze (can be null)
-     * @return the computed complexity value (excluding baseline)
      */
-    private int computeForBody(KtExpression body) {
-        if (body == null)
-            return 0;
+    private void computeForBody(KtExpression body) {
+        final int[] c = { 1 }; // baseline
         
-        final int[] c = { 0 };
-        
-        body.accept(new KtTreeVisitorVoid() {
+        traversal.walk(body, new KotlinFusibleVisitor() {
             @Override
             public void visitIfExpression(@NotNull KtIfExpression expression) {
                 c[0] += 1;
@@ -232,7 +224,6 @@ public class KotlinMcCabeCyclomaticComplexityVisitor extends KotlinMethodVisitor
                 super.visitLambdaExpression(expression);
             }
         });
-        
-        return c[0];
+        traversal.then(() -> metric = Metric.of(CC, c[0]));
     }
 }
@@ -4,8 +4,12 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusedTraversal;
+import org.b333vv.metric.model.visitor.kotlin.KotlinResolveSession;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.psi.KtAnonymousInitializer;
+import org.jetbrains.kotlin.psi.KtElement;
 import org.jetbrains.kotlin.psi.KtNamedFunction;
 import org.jetbrains.kotlin.psi.KtPrimaryConstructor;
 import org.jetbrains.kotlin.psi.KtSecondaryConstructor;
@@ -17,12 +21,22 @@ import org.jetbrains.kotlin.psi.KtVisitorVoid;
  */
 public abstract class KotlinMethodVisitor extends KtVisitorVoid {
     protected Metric metric;
+    protected KotlinFusedTraversal traversal = KotlinFusedTraversal.immediate();
+    protected KotlinResolveSession resolveSession = KotlinResolveSession.direct();
 
     @Nullable
     public Metric getMetric() {
         return metric;
     }
 
+    /**
+     * Resolves references and analyzes declarations through {@code resolveSession}, sharing the
+     * results with the other visitors of the same file.
+     */
+    public void setResolveSession(@NotNull KotlinResolveSession resolveSession) {
+        this.resolveSession = resolveSession;
+    }
+
     public void computeFor(KtNamedFunction function) {
         if (function != null) {
             function.accept(this);
@@ -46,4 +60,18 @@ public abstract class KotlinMethodVisitor extends KtVisitorVoid {
             initializer.accept(this);
         }
     }
+
+    /**
+     * Computes the metric for a function, constructor or initializer with the walks of the body
+     * scheduled on {@code traversal}. For a fused traversal the metric is available once
+     * {@link KotlinFusedTraversal#run()} has completed.
+     */
+    public void computeFor(@NotNull KtElement element, @NotNull KotlinFusedTraversal traversal) {
+        this.traversal = traversal;
+        try {
+            element.accept(this);
+        } finally {
+            this.traversal = KotlinFusedTraversal.immediate();
+        }
+    }
 }
@@ -4,6 +4,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -154,7 +155,7 @@ public class KotlinNumberOfAccessedVariablesVisitor extends KotlinMethodVisitor
         final Set<String> accessedVariables = new HashSet<>();
 
         if (body != null) {
-            body.accept(new KtTreeVisitorVoid() {
+            traversal.walk(body, new KotlinFusibleVisitor() {
                 @Override
                 public void visitSimpleNameExpression(@NotNull KtSimpleNameExpression expression) {
                     // Skip operator references like '+', '+=' which are represented as simple names
@@ -295,10 +296,12 @@ public class KotlinNumberOfAccessedVariablesVisitor extends KotlinMethodVisitor
             });
         }
 
-        // Add 'this' to allowed names for tracking
-        allowedNames.add("this");
+        traversal.then(() -> {
+            // Add 'this' to allowed names for tracking
+            allowedNames.add("this");
 
-        metric = Metric.of(NOAV, accessedVariables.size());
+            metric = Metric.of(NOAV, accessedVariables.size());
+        });
     }
 
     /**
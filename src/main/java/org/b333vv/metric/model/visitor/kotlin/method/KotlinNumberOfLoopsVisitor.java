@@ -1,6 +1,7 @@
 package org.b333vv.metric.model.visitor.kotlin.method;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -243,12 +244,12 @@ public class KotlinNumberOfLoopsVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitNamedFunction(@NotNull KtNamedFunction function) {
-        metric = Metric.of(NOL, countLoops(function.getBodyExpression()));
+        countLoops(function.getBodyExpression());
     }
 
     @Override
     public void visitSecondaryConstructor(@NotNull KtSecondaryConstructor constructor) {
-        metric = Metric.of(NOL, countLoops(constructor.getBodyExpression()));
+        countLoops(constructor.getBodyExpression());
     }
 
     @Override
@@ -258,7 +259,7 @@ public class KotlinNumberOfLoopsVisitor extends KotlinMethodVisitor {
 
     @Override
     public void visitAnonymousInitializer(@NotNull KtAnonymousInitializer initializer) {
-        metric = Metric.of(NOL, countLoops(initializer.getBody()));
+        countLoops(initializer.getBody());
     }
 
     /**
@@ -266,13 +267,10 @@ public class KotlinNumberOfLoopsVisitor extends KotlinMethodVisitor {
      * expression.
      * 
      * @param body the expression to analyze (function or constructor body)
-     * @return the total number of loop constructs found
      */
-    private long countLoops(KtExpression body) {
-        if (body == null)
-            return 0;
+    private void countLoops(KtExpression body) {
         final long[] count = { 0 };
-        body.accept(new KtTreeVisitorVoid() {
+        traversal.walk(body, new KotlinFusibleVisitor() {
             @Override
             public void visitForExpression(@NotNull KtForExpression expression) {
                 count[0]++;
@@ -348,6 +346,6 @@ public class KotlinNumberOfLoopsVisitor extends KotlinMethodVisitor {
                                 .anyMatch(arg -> arg.getArgumentExpression() instanceof KtLambdaExpression);
             }
         });
-        return count[0];
+        traversal.then(() -> metric = Metric.of(NOL, count[0]));
     }
 }
@@ -3,6 +3,7 @@ package org.b333vv.metric.model.visitor.kotlin.type;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiField;
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -127,7 +128,7 @@ public class KotlinAccessToForeignDataVisitor extends KotlinClassVisitor {
         }
 
         if (bodyToVisit != null) {
-            bodyToVisit.accept(new KtTreeVisitorVoid() {
+            traversal.walk(bodyToVisit, new KotlinFusibleVisitor() {
                 @Override
                 public void visitDotQualifiedExpression(@NotNull KtDotQualifiedExpression expression) {
                     collectFromQualified(expression.getSelectorExpression(), expression.getReceiverExpression());
@@ -185,7 +186,7 @@ public class KotlinAccessToForeignDataVisitor extends KotlinClassVisitor {
                     }
                     // Try to resolve the property reference
                     for (com.intellij.psi.PsiReference ref : propertyRef.getReferences()) {
-                        PsiElement resolved = ref.resolve();
+                        PsiElement resolved = resolveSession.resolve(ref);
                         if (resolved instanceof KtProperty) {
                             addProvider(findOwnerClass((KtProperty) resolved));
                             return;
@@ -214,7 +215,7 @@ public class KotlinAccessToForeignDataVisitor extends KotlinClassVisitor {
                     if (selector instanceof KtSimpleNameExpression) {
                         // Likely a property access (including extension properties)
                         for (com.intellij.psi.PsiReference ref : ((KtSimpleNameExpression) selector).getReferences()) {
-                            resolved = ref.resolve();
+                            resolved = resolveSession.resolve(ref);
                             if (resolved != null)
                                 break;
                         }
@@ -225,7 +226,7 @@ public class KotlinAccessToForeignDataVisitor extends KotlinClassVisitor {
                             referenceName = ((KtSimpleNameExpression) callee).getReferencedName();
                             for (com.intellij.psi.PsiReference ref : ((KtSimpleNameExpression) callee)
                                     .getReferences()) {
-                                resolved = ref.resolve();
+                                resolved = resolveSession.resolve(ref);
                                 if (resolved != null)
                                     break;
                             }
@@ -314,15 +315,17 @@ public class KotlinAccessToForeignDataVisitor extends KotlinClassVisitor {
             });
         }
 
-        // Exclude this class/object itself by its FQN if present
-        if (element instanceof KtClassOrObject) {
-            KtClassOrObject klassOrObj = (KtClassOrObject) element;
-            if (klassOrObj.getFqName() != null) {
-                providers.remove(klassOrObj.getFqName().asString());
+        traversal.then(() -> {
+            // Exclude this class/object itself by its FQN if present
+            if (element instanceof KtClassOrObject) {
+                KtClassOrObject klassOrObj = (KtClassOrObject) element;
+                if (klassOrObj.getFqName() != null) {
+                    providers.remove(klassOrObj.getFqName().asString());
+                }
             }
-        }
 
-        metric = Metric.of(ATFD, providers.size());
+            metric = Metric.of(ATFD, providers.size());
+        });
     }
 
     /**
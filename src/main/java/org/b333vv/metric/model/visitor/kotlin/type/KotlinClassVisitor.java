@@ -4,6 +4,9 @@
 package org.b333vv.metric.model.visitor.kotlin.type;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusedTraversal;
+import org.b333vv.metric.model.visitor.kotlin.KotlinResolveSession;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.psi.KtElement;
 import org.jetbrains.kotlin.psi.KtTreeVisitorVoid;
@@ -21,6 +24,8 @@ import org.jetbrains.kotlin.psi.KtTreeVisitorVoid;
  */
 public abstract class KotlinClassVisitor extends KtTreeVisitorVoid {
     protected Metric metric;
+    protected KotlinFusedTraversal traversal = KotlinFusedTraversal.immediate();
+    protected KotlinResolveSession resolveSession = KotlinResolveSession.direct();
 
     /**
      * @return last calculated metric, if any
@@ -30,6 +35,14 @@ public abstract class KotlinClassVisitor extends KtTreeVisitorVoid {
         return metric;
     }
 
+    /**
+     * Resolves references and analyzes declarations through {@code resolveSession}, sharing the
+     * results with the other visitors of the same file.
+     */
+    public void setResolveSession(@NotNull KotlinResolveSession resolveSession) {
+        this.resolveSession = resolveSession;
+    }
+
     /**
      * Entry point to compute metric for a Kotlin class, object or file. Subclasses
      * should override
@@ -43,4 +56,18 @@ public abstract class KotlinClassVisitor extends KtTreeVisitorVoid {
             ktElement.accept(this);
         }
     }
+
+    /**
+     * Same as {@link #computeFor(KtElement)}, with the subtree walks of the visitor scheduled on
+     * {@code traversal}. For a fused traversal the metric is available once
+     * {@link KotlinFusedTraversal#run()} has completed.
+     */
+    public void computeFor(@NotNull KtElement ktElement, @NotNull KotlinFusedTraversal traversal) {
+        this.traversal = traversal;
+        try {
+            ktElement.accept(this);
+        } finally {
+            this.traversal = KotlinFusedTraversal.immediate();
+        }
+    }
 }
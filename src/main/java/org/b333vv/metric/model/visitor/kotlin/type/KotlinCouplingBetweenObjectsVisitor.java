@@ -357,7 +357,7 @@ public class KotlinCouplingBetweenObjectsVisitor extends KotlinClassVisitor {
                 KtSimpleNameExpression refExpr = type.getReferenceExpression();
                 if (refExpr != null) {
                     try {
-                        PsiElement target = refExpr.getReference() != null ? refExpr.getReference().resolve() : null;
+                        PsiElement target = resolveSession.resolve(refExpr.getReference());
                         String qName = null;
 
                         if (target instanceof PsiClass) {
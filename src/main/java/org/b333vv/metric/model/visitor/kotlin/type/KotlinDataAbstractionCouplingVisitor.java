@@ -154,7 +154,7 @@ public class KotlinDataAbstractionCouplingVisitor extends KotlinClassVisitor {
                 KtSimpleNameExpression refExpr = type.getReferenceExpression();
                 if (refExpr != null) {
                     try {
-                        PsiElement target = refExpr.getReference() != null ? refExpr.getReference().resolve() : null;
+                        PsiElement target = resolveSession.resolve(refExpr.getReference());
                         String qName = null;
                         if (target instanceof PsiClass) {
                             qName = ((PsiClass) target).getQualifiedName();
@@ -241,9 +241,7 @@ public class KotlinDataAbstractionCouplingVisitor extends KotlinClassVisitor {
                 KtExpression calleeExpr = expression.getCalleeExpression();
                 if (calleeExpr instanceof KtSimpleNameExpression) {
                     try {
-                        PsiElement target = ((KtSimpleNameExpression) calleeExpr).getReference() != null
-                                ? ((KtSimpleNameExpression) calleeExpr).getReference().resolve()
-                                : null;
+                        PsiElement target = resolveSession.resolve(((KtSimpleNameExpression) calleeExpr).getReference());
 
                         if (target instanceof KtClass) {
                             KtClass targetClass = (KtClass) target;
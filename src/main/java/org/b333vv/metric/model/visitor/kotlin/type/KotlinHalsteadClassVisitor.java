@@ -1,6 +1,7 @@
 package org.b333vv.metric.model.visitor.kotlin.type;
 
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.lexer.KtTokens;
 import org.jetbrains.kotlin.psi.*;
@@ -172,7 +173,7 @@ public class KotlinHalsteadClassVisitor extends KotlinClassVisitor {
             }
         }
 
-        scope.accept(new KtTreeVisitorVoid() {
+        traversal.walk(scope, new KotlinFusibleVisitor() {
 
             @Override
             public void visitBinaryExpression(@NotNull KtBinaryExpression expression) {
@@ -401,7 +402,7 @@ public class KotlinHalsteadClassVisitor extends KotlinClassVisitor {
             }
         });
 
-        metric = Metric.of(CHVL, volume());
+        traversal.then(() -> metric = Metric.of(CHVL, volume()));
     }
 
     /**
@@ -306,7 +306,7 @@ public class KotlinLackOfCohesionOfMethodsVisitor extends KotlinClassVisitor {
                 if (contextProperty != null && "field".equals(expression.getReferencedName())) {
                     used.add(contextProperty);
                 } else {
-                    PsiElement target = expression.getReference() != null ? expression.getReference().resolve() : null;
+                    PsiElement target = resolveSession.resolve(expression.getReference());
                     if (target != null && instanceProps.contains(target)) {
                         used.add(target);
                     }
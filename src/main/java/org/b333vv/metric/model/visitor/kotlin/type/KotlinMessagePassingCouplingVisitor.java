@@ -4,6 +4,7 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiMember;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.psi.*;
 
@@ -133,7 +134,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
 
         final String finalSelfName = selfName;
 
-        element.accept(new KtTreeVisitorVoid() {
+        traversal.walk(element, new KotlinFusibleVisitor() {
             @Override
             public void visitCallExpression(@NotNull KtCallExpression expression) {
                 if (isExternalCall(expression, finalSelfName)) {
@@ -197,7 +198,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
             }
         });
 
-        metric = Metric.of(MPC, calls[0]);
+        traversal.then(() -> metric = Metric.of(MPC, calls[0]));
     }
 
     private boolean isExternalCall(KtCallExpression expression, String selfName) {
@@ -209,7 +210,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
             // Try to resolve the reference
             PsiElement resolved = null;
             if (callee instanceof KtReferenceExpression) {
-                resolved = ((KtReferenceExpression) callee).getReference().resolve();
+                resolved = resolveSession.resolve(((KtReferenceExpression) callee).getReference());
             }
 
             if (resolved == null) {
@@ -253,9 +254,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
                 return false;
             }
 
-            PsiElement resolved = expression.getOperationReference().getReference() != null
-                    ? expression.getOperationReference().getReference().resolve()
-                    : null;
+            PsiElement resolved = resolveSession.resolve(expression.getOperationReference().getReference());
 
             if (resolved == null) {
                 return false;
@@ -276,9 +275,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
      */
     private boolean isExternalUnaryOperator(KtUnaryExpression expression, String selfName) {
         try {
-            PsiElement resolved = expression.getOperationReference().getReference() != null
-                    ? expression.getOperationReference().getReference().resolve()
-                    : null;
+            PsiElement resolved = resolveSession.resolve(expression.getOperationReference().getReference());
 
             if (resolved == null) {
                 return false;
@@ -307,7 +304,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
             // For arrays, the get/set operators might be defined on the type
             // This is a simplified check - full implementation would resolve the operator
             if (arrayExpr instanceof KtReferenceExpression) {
-                PsiElement resolved = ((KtReferenceExpression) arrayExpr).getReference().resolve();
+                PsiElement resolved = resolveSession.resolve(((KtReferenceExpression) arrayExpr).getReference());
                 if (resolved != null) {
                     String containerName = getContainerName(resolved);
                     if (containerName != null && !selfName.equals(containerName) && !isStandardClass(containerName)) {
@@ -331,7 +328,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
             // Only count if it's a simple name reference (property), not a call expression
             // (call expressions are handled separately)
             if (selector instanceof KtNameReferenceExpression && !(selector.getParent() instanceof KtCallExpression)) {
-                PsiElement resolved = ((KtNameReferenceExpression) selector).getReference().resolve();
+                PsiElement resolved = resolveSession.resolve(((KtNameReferenceExpression) selector).getReference());
                 if (resolved instanceof KtProperty || resolved instanceof KtParameter) {
                     String containerName = getContainerName(resolved);
                     if (containerName != null && !selfName.equals(containerName) && !isStandardClass(containerName)) {
@@ -355,7 +352,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
                 return isExternalCall((KtCallExpression) selector, selfName);
             } else if (selector instanceof KtNameReferenceExpression) {
                 // Property access with safe call
-                PsiElement resolved = ((KtNameReferenceExpression) selector).getReference().resolve();
+                PsiElement resolved = resolveSession.resolve(((KtNameReferenceExpression) selector).getReference());
                 if (resolved != null) {
                     String containerName = getContainerName(resolved);
                     if (containerName != null && !selfName.equals(containerName) && !isStandardClass(containerName)) {
@@ -374,9 +371,7 @@ public class KotlinMessagePassingCouplingVisitor extends KotlinClassVisitor {
      */
     private boolean isExternalCallableReference(KtCallableReferenceExpression expression, String selfName) {
         try {
-            PsiElement resolved = expression.getCallableReference().getReference() != null
-                    ? expression.getCallableReference().getReference().resolve()
-                    : null;
+            PsiElement resolved = resolveSession.resolve(expression.getCallableReference().getReference());
 
             if (resolved == null) {
                 return false;
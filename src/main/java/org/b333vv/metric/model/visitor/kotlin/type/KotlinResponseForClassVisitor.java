@@ -6,12 +6,12 @@ package org.b333vv.metric.model.visitor.kotlin.type;
 import com.intellij.psi.PsiElement;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.value.Value;
+import org.b333vv.metric.model.visitor.kotlin.KotlinFusibleVisitor;
 import org.b333vv.metric.model.visitor.kotlin.KotlinMetricUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.CallableDescriptor;
 import org.jetbrains.kotlin.descriptors.FunctionDescriptor;
-import org.jetbrains.kotlin.idea.caches.resolve.ResolutionUtils;
 import org.jetbrains.kotlin.lexer.KtToken;
 import org.jetbrains.kotlin.lexer.KtTokens;
 import org.jetbrains.kotlin.psi.*;
@@ -129,13 +129,8 @@ public class KotlinResponseForClassVisitor extends KotlinClassVisitor {
         try {
             Set<String> responses = new HashSet<>();
 
-            // Get binding context for resolution
-            BindingContext bindingContext = null;
-            try {
-                bindingContext = ResolutionUtils.analyze(element, BodyResolveMode.PARTIAL);
-            } catch (Exception e) {
-                // Resolution unavailable, proceed with PSI-only analysis
-            }
+            // Get binding context for resolution, without it proceed with PSI-only analysis
+            BindingContext bindingContext = resolveSession.analyze(element, BodyResolveMode.PARTIAL);
 
             // 1. Add declared methods
             addDeclaredMethods(element, responses);
@@ -155,7 +150,8 @@ public class KotlinResponseForClassVisitor extends KotlinClassVisitor {
 
             // 5. Traverse element to collect all method calls
             BindingContext finalBindingContext = bindingContext;
-            element.accept(new KtTreeVisitorVoid() {
+            final boolean[] failed = { false };
+            traversal.walk(element, new KotlinFusibleVisitor() {
 
                 @Override
                 public void visitCallExpression(@NotNull KtCallExpression expression) {
@@ -198,9 +194,11 @@ public class KotlinResponseForClassVisitor extends KotlinClassVisitor {
                     addDestructuringCalls(declaration, responses, finalBindingContext);
                     super.visitDestructuringDeclaration(declaration);
                 }
-            });
+            }, e -> failed[0] = true);
 
-            metric = Metric.of(RFC, responses.size());
+            traversal.then(() -> metric = failed[0]
+                    ? Metric.of(RFC, Value.UNDEFINED)
+                    : Metric.of(RFC, responses.size()));
         } catch (Exception e) {
             metric = Metric.of(RFC, Value.UNDEFINED);
         }
@@ -283,9 +283,7 @@ public class KotlinTightClassCohesionVisitor extends KotlinClassVisitor {
                     used.add(contextProperty);
                 } else {
                     // Use reference resolution for accurate targeting
-                    PsiElement target = expression.getReference() != null
-                            ? expression.getReference().resolve()
-                            : null;
+                    PsiElement target = resolveSession.resolve(expression.getReference());
                     if (target != null && instanceProps.contains(target)) {
                         used.add(target);
                     }
@@ -300,9 +298,7 @@ public class KotlinTightClassCohesionVisitor extends KotlinClassVisitor {
                 if (receiver instanceof KtThisExpression) {
                     KtExpression selector = expression.getSelectorExpression();
                     if (selector instanceof KtNameReferenceExpression) {
-                        PsiElement target = ((KtNameReferenceExpression) selector).getReference() != null
-                                ? ((KtNameReferenceExpression) selector).getReference().resolve()
-                                : null;
+                        PsiElement target = resolveSession.resolve(((KtNameReferenceExpression) selector).getReference());
                         if (target != null && instanceProps.contains(target)) {
                             used.add(target);
                         }
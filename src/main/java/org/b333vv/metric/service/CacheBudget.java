@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.service;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Module keyed caches of {@link CacheService} sharing one byte budget. Every entry is charged with an estimate of
+ * its size, a value stored in several caches is charged once. When the budget is exceeded the least recently used
+ * entries are evicted, the ones cheapest to rebuild first. On low memory the UI entries are dropped and all others
+ * are kept through soft references only, until a hit makes them strong and charged again.
+ */
+public final class CacheBudget {
+
+    /**
+     * Cost of rebuilding an entry, in eviction order.
+     */
+    public enum Cost {
+        /** Trees, charts and tree maps built from the models in a moment. */
+        UI,
+        /** Distributions and rankings calculated over a model. */
+        DERIVED,
+        /** Models built from PSI. */
+        MODEL
+    }
+
+    public record Statistics(long hits, long misses, long evictions, int entries, long bytes, long budget) {
+        @Override
+        public String toString() {
+            return "hits " + hits + ", misses " + misses + ", evictions " + evictions + ", " + entries
+                    + " entries, " + bytes / 1024 + " of " + budget / 1024 + " KB";
+        }
+    }
+
+    private final long budget;
+    private final IntConsumer evictionListener;
+    private final LinkedHashMap<EntryKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Object, Charge> charges = new IdentityHashMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param evictionListener called, outside of the cache lock, with the number of entries evicted by a put
+     */
+    CacheBudget(long budget, @NotNull IntConsumer evictionListener) {
+        this.budget = budget;
+        this.evictionListener = evictionListener;
+    }
+
+    <V> Region<V> region(@NotNull Cost cost, @NotNull ToLongFunction<V> sizeEstimator) {
+        return new Region<>(cost, sizeEstimator);
+    }
+
+    public synchronized Statistics statistics() {
+        return new Statistics(hits, misses, evictions, entries.size(), bytes, budget);
+    }
+
+    /**
+     * Drops the UI entries and turns all other entries into soft references, which are no longer charged.
+     *
+     * @return number of dropped entries
+     */
+    synchronized int onLowMemory() {
+        int dropped = 0;
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.region.cost == Cost.UI) {
+                iterator.remove();
+                release(entry);
+                dropped++;
+            } else if (entry.strong != null) {
+                release(entry);
+                entry.soften();
+            }
+        }
+        evictions += dropped;
+        return dropped;
+    }
+
+    private synchronized Object get(EntryKey key) {
+        Entry entry = entries.get(key);
+        Object value = entry == null ? null : entry.value();
+        if (value == null) {
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            return null;
+        }
+        if (entry.strong == null) {
+            entry.harden(value);
+            charge(value, entry.size);
+            evict(entry);
+        }
+        hits++;
+        return value;
+    }
+
+    private synchronized int put(EntryKey key, Object value, long size) {
+        remove(key);
+        Entry entry = new Entry(key.region, value, size);
+        charge(value, size);
+        entries.put(key, entry);
+        return evict(entry);
+    }
+
+    private synchronized void remove(EntryKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    private synchronized void clear(Region<?> region) {
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.region == region) {
+                iterator.remove();
+                release(entry);
+            }
+        }
+    }
+
+    private void charge(Object value, long size) {
+        Charge charge = charges.get(value);
+        if (charge == null) {
+            charges.put(value, new Charge(size));
+            bytes += size;
+        } else {
+            charge.references++;
+        }
+    }
+
+    private void release(Entry entry) {
+        if (entry.strong == null) {
+            return;
+        }
+        Charge charge = charges.get(entry.strong);
+        if (charge != null && --charge.references == 0) {
+            charges.remove(entry.strong);
+            bytes -= charge.size;
+        }
+    }
+
+    private int evict(Entry keep) {
+        int evicted = 0;
+        for (Cost cost : Cost.values()) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext() && bytes > budget; ) {
+                Entry entry = iterator.next();
+                if (entry != keep && entry.region.cost == cost && entry.strong != null) {
+                    iterator.remove();
+                    release(entry);
+                    evicted++;
+                }
+            }
+        }
+        evictions += evicted;
+        return evicted;
+    }
+
+    public final class Region<V> {
+        private final Cost cost;
+        private final ToLongFunction<V> sizeEstimator;
+
+        private Region(Cost cost, ToLongFunction<V> sizeEstimator) {
+            this.cost = cost;
+            this.sizeEstimator = sizeEstimator;
+        }
+
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public V get(@NotNull String key) {
+            return (V) CacheBudget.this.get(new EntryKey(this, key));
+        }
+
+        /**
+         * Stores the value, a {@code null} value removes the entry.
+         */
+        public void put(@NotNull String key, @Nullable V value) {
+            if (value == null) {
+                remove(key);
+                return;
+            }
+            int evicted = CacheBudget.this.put(new EntryKey(this, key), value, sizeEstimator.applyAsLong(value));
+            if (evicted > 0) {
+                evictionListener.accept(evicted);
+            }
+        }
+
+        public void remove(@NotNull String key) {
+            CacheBudget.this.remove(new EntryKey(this, key));
+        }
+
+        public void clear() {
+            CacheBudget.this.clear(this);
+        }
+    }
+
+    private record EntryKey(Region<?> region, String key) {
+    }
+
+    private static final class Entry {
+        private final Region<?> region;
+        private final long size;
+        private Object strong;
+        private SoftReference<Object> soft;
+
+        private Entry(Region<?> region, Object value, long size) {
+            this.region = region;
+            this.size = size;
+            this.strong = value;
+        }
+
+        private Object value() {
+            return strong != null ? strong : soft.get();
+        }
+
+        private void soften() {
+            soft = new SoftReference<>(strong);
+            strong = null;
+        }
+
+        private void harden(Object value) {
+            strong = value;
+            soft = null;
+        }
+    }
+
+    private static final class Charge {
+        private final long size;
+        private int references = 1;
+
+        private Charge(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -18,19 +18,34 @@ package org.b333vv.metric.service;
 
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.LowMemoryWatcher;
 import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.openapi.util.UserDataHolderBase;
 import com.intellij.openapi.vfs.*;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.util.messages.MessageBus;
 import com.github.javaparser.ast.CompilationUnit;
+import org.b333vv.metric.builder.ClassProfileMembership;
+import org.b333vv.metric.builder.ClassesRanking;
 import org.b333vv.metric.builder.DependenciesBuilder;
+import org.b333vv.metric.builder.FileInventory;
+import org.b333vv.metric.builder.FileMetricsSnapshot;
+import org.b333vv.metric.builder.MetricsValuesHistogram;
+import org.b333vv.metric.event.MetricsEventListener;
 import org.b333vv.metric.model.code.*;
 import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeTable;
 import org.b333vv.metric.model.metric.value.RangeType;
+import org.b333vv.metric.service.CacheBudget.Cost;
 import org.b333vv.metric.task.InvalidateCachesTask;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
-import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.ui.chart.builder.MetricPieChartBuilder;
 import org.b333vv.metric.ui.chart.builder.ProfileBoxChartBuilder;
 import org.b333vv.metric.ui.chart.builder.ProfileRadarChartBuilder;
@@ -47,6 +62,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 /**
@@ -55,6 +72,7 @@ import java.util.stream.Stream;
  */
 @Service(Service.Level.PROJECT)
 public final class CacheService implements UserDataHolder, Disposable {
+    private static final Logger LOG = Logger.getInstance(CacheService.class);
     // Cache keys
     public static final Key<DependenciesBuilder> DEPENDENCIES = Key.create("DEPENDENCIES");
     public static final Key<ProjectElement> CLASS_AND_METHODS_METRICS = Key.create("CLASS_AND_METHODS_METRICS");
@@ -64,13 +82,14 @@ public final class CacheService implements UserDataHolder, Disposable {
     public static final Key<DefaultTreeModel> PROJECT_TREE = Key.create("PROJECT_TREE");
     public static final Key<ProjectMetricTreeBuilder> TREE_BUILDER = Key.create("TREE_BUILDER");
     public static final Key<DefaultTreeModel> CLASSES_BY_METRIC_TREE = Key.create("CLASSES_BY_METRIC_TREE");
-    public static final Key<Map<MetricType, Map<ClassElement, Metric>>> CLASSES_BY_METRIC_TYPES = Key
+    public static final Key<Map<MetricType, ClassesRanking>> CLASSES_BY_METRIC_TYPES = Key
             .create("CLASSES_BY_METRIC_TYPES");
     public static final Key<List<MetricPieChartBuilder.PieChartStructure>> PIE_CHART_LIST = Key
             .create("PIE_CHART_LIST");
     public static final Key<Map<MetricType, Map<RangeType, Double>>> CLASSES_BY_METRIC_TYPES_FOR_CATEGORY_CHART = Key
             .create("CLASSES_BY_METRIC_TYPES_FOR_CATEGORY_CHART");
     public static final Key<CategoryChart> CATEGORY_CHART = Key.create("CATEGORY_CHART");
+    public static final Key<MetricsValuesHistogram> METRICS_VALUES_HISTOGRAM = Key.create("METRICS_VALUES_HISTOGRAM");
     public static final Key<Map<String, Double>> INSTABILITY = Key.create("INSTABILITY");
     public static final Key<Map<String, Double>> ABSTRACTNESS = Key.create("ABSTRACTNESS");
     public static final Key<XYChart> XY_CHART = Key.create("XY_CHART");
@@ -89,29 +108,71 @@ public final class CacheService implements UserDataHolder, Disposable {
     public static final Key<XYChart> PROJECT_METRICS_HISTORY_XY_CHART = Key.create("PROJECT_METRICS_HISTORY_XY_CHART");
     public static final Key<List<CompilationUnit>> ALL_COMPILATION_UNITS = Key.create("ALL_COMPILATION_UNITS");
 
+    // Rough retained sizes used to charge the cache budget
+    private static final long CLASS_BYTES = 4 * 1024;
+    private static final long METHOD_BYTES = 1024;
+    private static final long COMPILATION_UNIT_BYTES = 64 * 1024;
+    private static final long TREE_BYTES = 2 * 1024 * 1024;
+    private static final long CHART_BYTES = 256 * 1024;
+    private static final long ENTRY_BYTES = 4 * 1024;
+    private static final long VALUE_BYTES = 64;
+
     private UserDataHolderBase userData = new UserDataHolderBase();
+    private final CacheBudget cacheBudget = new CacheBudget(Runtime.getRuntime().maxMemory() / 4,
+            evicted -> logCacheStatistics(evicted + " entries evicted"));
+    private final CacheBudget.Region<List<CompilationUnit>> compilationUnitsCache = cacheBudget.region(Cost.MODEL,
+            units -> units.size() * COMPILATION_UNIT_BYTES);
     private final ConcurrentHashMap<String, FileElement> javaFiles = new ConcurrentHashMap<>();
-    private final Map<String, ProjectElement> projectMetricsCache = new ConcurrentHashMap<>();
-    private final Map<String, ProjectElement> packageMetricsCache = new ConcurrentHashMap<>();
-    private final Map<String, ProjectElement> classAndMethodMetricsCache = new ConcurrentHashMap<>();
-    private final Map<String, DependenciesBuilder> dependenciesCache = new ConcurrentHashMap<>();
-    private final Map<String, DefaultTreeModel> projectTreeCache = new ConcurrentHashMap<>();
-    private final Map<String, List<MetricPieChartBuilder.PieChartStructure>> pieChartCache = new ConcurrentHashMap<>();
-    private final Map<String, CategoryChart> categoryChartCache = new ConcurrentHashMap<>();
-    private final Map<String, Map<MetricType, Map<RangeType, Double>>> classesByMetricTypesForCategoryChartCache = new ConcurrentHashMap<>();
-    private final Map<String, Map<MetricType, Map<ClassElement, Metric>>> classesByMetricTypesCache = new ConcurrentHashMap<>();
-    private final Map<String, XYChart> xyChartCache = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, Double>> instabilityCache = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, Double>> abstractnessCache = new ConcurrentHashMap<>();
-    private final Map<String, MetricTreeMap<CodeElement>> metricTreeMapCache = new ConcurrentHashMap<>();
-    private final Map<String, DefaultTreeModel> classesByMetricTreeCache = new ConcurrentHashMap<>();
-    private final Map<String, Map<FitnessFunction, Set<ClassElement>>> classLevelFitnessFunctionCache = new ConcurrentHashMap<>();
-    private final Map<String, Map<FitnessFunction, Set<PackageElement>>> packageLevelFitnessFunctionCache = new ConcurrentHashMap<>();
-    private final Map<String, MetricTreeMap<CodeElement>> profileTreeMapCache = new ConcurrentHashMap<>();
-    private final Map<String, List<ProfileBoxChartBuilder.BoxChartStructure>> boxChartsCache = new ConcurrentHashMap<>();
-    private final Map<String, HeatMapChart> heatMapChartCache = new ConcurrentHashMap<>();
-    private final Map<String, List<ProfileRadarChartBuilder.RadarChartStructure>> radarChartCache = new ConcurrentHashMap<>();
-    private final Map<String, CategoryChart> profileCategoryChartCache = new ConcurrentHashMap<>();
+    private final CacheBudget.Region<FileMetricsSnapshot> fileMetricsSnapshots = cacheBudget.region(Cost.DERIVED,
+            snapshot -> ENTRY_BYTES + snapshot.size() * METHOD_BYTES);
+    private final AtomicBoolean psiListenerAdded = new AtomicBoolean();
+    private final Map<String, FileInventory> fileInventories = new ConcurrentHashMap<>();
+    private final CacheBudget.Region<ProjectElement> projectMetricsCache = cacheBudget.region(Cost.MODEL,
+            CacheService::estimateModelSize);
+    private final CacheBudget.Region<ProjectElement> packageMetricsCache = cacheBudget.region(Cost.MODEL,
+            CacheService::estimateModelSize);
+    private final CacheBudget.Region<ProjectElement> classAndMethodMetricsCache = cacheBudget.region(Cost.MODEL,
+            CacheService::estimateModelSize);
+    private final CacheBudget.Region<DependenciesBuilder> dependenciesCache = cacheBudget.region(Cost.MODEL,
+            dependencies -> dependencies.size() * CLASS_BYTES);
+    private final CacheBudget.Region<DefaultTreeModel> projectTreeCache = cacheBudget.region(Cost.UI,
+            tree -> TREE_BYTES);
+    private final CacheBudget.Region<List<MetricPieChartBuilder.PieChartStructure>> pieChartCache =
+            cacheBudget.region(Cost.UI, charts -> charts.size() * CHART_BYTES);
+    private final CacheBudget.Region<CategoryChart> categoryChartCache = cacheBudget.region(Cost.UI,
+            chart -> CHART_BYTES);
+    private final CacheBudget.Region<MetricsValuesHistogram> metricsValuesHistogramCache =
+            cacheBudget.region(Cost.DERIVED, histogram -> ENTRY_BYTES);
+    private final CacheBudget.Region<Map<MetricType, Map<RangeType, Double>>> classesByMetricTypesForCategoryChartCache =
+            cacheBudget.region(Cost.DERIVED, distribution -> distribution.size() * ENTRY_BYTES);
+    private final CacheBudget.Region<Map<MetricType, ClassesRanking>> classesByMetricTypesCache =
+            cacheBudget.region(Cost.DERIVED, rankings -> rankings.size() * ENTRY_BYTES);
+    private final CacheBudget.Region<XYChart> xyChartCache = cacheBudget.region(Cost.UI, chart -> CHART_BYTES);
+    private final CacheBudget.Region<Map<String, Double>> instabilityCache = cacheBudget.region(Cost.DERIVED,
+            values -> values.size() * VALUE_BYTES);
+    private final CacheBudget.Region<Map<String, Double>> abstractnessCache = cacheBudget.region(Cost.DERIVED,
+            values -> values.size() * VALUE_BYTES);
+    private final CacheBudget.Region<MetricTreeMap<CodeElement>> metricTreeMapCache =
+            cacheBudget.region(Cost.UI, treeMap -> TREE_BYTES);
+    private final CacheBudget.Region<DefaultTreeModel> classesByMetricTreeCache = cacheBudget.region(Cost.UI,
+            tree -> TREE_BYTES);
+    private final CacheBudget.Region<Map<FitnessFunction, Set<ClassElement>>> classLevelFitnessFunctionCache =
+            cacheBudget.region(Cost.DERIVED, CacheService::estimateMembershipSize);
+    private final CacheBudget.Region<Map<FitnessFunction, Set<PackageElement>>> packageLevelFitnessFunctionCache =
+            cacheBudget.region(Cost.DERIVED, CacheService::estimateMembershipSize);
+    private final CacheBudget.Region<MetricTreeMap<CodeElement>> profileTreeMapCache =
+            cacheBudget.region(Cost.UI, treeMap -> TREE_BYTES);
+    private final CacheBudget.Region<List<ProfileBoxChartBuilder.BoxChartStructure>> boxChartsCache =
+            cacheBudget.region(Cost.UI, charts -> charts.size() * CHART_BYTES);
+    private final CacheBudget.Region<HeatMapChart> heatMapChartCache = cacheBudget.region(Cost.UI,
+            chart -> CHART_BYTES);
+    private final CacheBudget.Region<List<ProfileRadarChartBuilder.RadarChartStructure>> radarChartCache =
+            cacheBudget.region(Cost.UI, charts -> charts.size() * CHART_BYTES);
+    private final CacheBudget.Region<CategoryChart> profileCategoryChartCache = cacheBudget.region(Cost.UI,
+            chart -> CHART_BYTES);
+    private final CacheBudget.Region<ClassesByProfile> classesByProfileCache = cacheBudget.region(Cost.DERIVED,
+            classesByProfile -> classesByProfile.membership().getClasses().size() * VALUE_BYTES);
+    private final AtomicLong classProfilesVersion = new AtomicLong();
 
     private final Project project;
     private final VirtualFileListener vfsListener;
@@ -120,24 +181,69 @@ public final class CacheService implements UserDataHolder, Disposable {
         this.project = project;
         this.vfsListener = new MyVfsListener();
         VirtualFileManager.getInstance().addVirtualFileListener(vfsListener, this);
+        LowMemoryWatcher.register(this::onLowMemory, this);
+        MessageBus messageBus = project.getMessageBus();
+        if (messageBus != null) {
+            messageBus.connect(this).subscribe(MetricsEventListener.TOPIC, new MetricsEventListener() {
+                @Override
+                public void validRangesChanged(@NotNull RangeTable rangeTable) {
+                    invalidateRanges();
+                }
+            });
+        }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
+        if (key == ALL_COMPILATION_UNITS) {
+            compilationUnitsCache.put(getKey(null), (List<CompilationUnit>) value);
+            return;
+        }
         userData.putUserData(key, value);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T getUserData(@NotNull Key<T> key) {
+        if (key == ALL_COMPILATION_UNITS) {
+            return (T) compilationUnitsCache.get(getKey(null));
+        }
         return userData.getUserData(key);
     }
 
-    public ProjectElement getProject() {
-        return getUserData(CLASS_AND_METHODS_METRICS);
+    /**
+     * Hits, misses and evictions of the module caches and the bytes they are estimated to hold.
+     */
+    public CacheBudget.Statistics getCacheStatistics() {
+        return cacheBudget.statistics();
+    }
+
+    private void onLowMemory() {
+        int dropped = cacheBudget.onLowMemory();
+        logCacheStatistics("low memory, " + dropped + " entries dropped, the rest is softly referenced");
+    }
+
+    private void logCacheStatistics(String event) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Metrics cache: " + event + ": " + cacheBudget.statistics());
+        }
+    }
+
+    private static long estimateModelSize(ProjectElement projectElement) {
+        return projectElement.allClasses()
+                .mapToLong(javaClass -> CLASS_BYTES + javaClass.methods().count() * METHOD_BYTES)
+                .sum();
     }
 
-    public Map<FitnessFunction, Set<ClassElement>> getClassesByProfile() {
-        return getUserData(CLASSES_BY_PROFILE);
+    private static long estimateMembershipSize(Map<FitnessFunction, ? extends Set<?>> membership) {
+        return membership.values().stream()
+                .mapToLong(elements -> ENTRY_BYTES + elements.size() * VALUE_BYTES)
+                .sum();
+    }
+
+    public ProjectElement getProject() {
+        return getUserData(CLASS_AND_METHODS_METRICS);
     }
 
     public ProjectElement getProjectMetrics(@Nullable com.intellij.openapi.module.Module module) {
@@ -199,6 +305,15 @@ public final class CacheService implements UserDataHolder, Disposable {
         categoryChartCache.put(getKey(module), categoryChart);
     }
 
+    public MetricsValuesHistogram getMetricsValuesHistogram(@Nullable com.intellij.openapi.module.Module module) {
+        return metricsValuesHistogramCache.get(getKey(module));
+    }
+
+    public void putMetricsValuesHistogram(@Nullable com.intellij.openapi.module.Module module,
+            MetricsValuesHistogram histogram) {
+        metricsValuesHistogramCache.put(getKey(module), histogram);
+    }
+
     public Map<MetricType, Map<RangeType, Double>> getClassesByMetricTypesForCategoryChart(
             @Nullable com.intellij.openapi.module.Module module) {
         return classesByMetricTypesForCategoryChartCache.get(getKey(module));
@@ -209,13 +324,13 @@ public final class CacheService implements UserDataHolder, Disposable {
         classesByMetricTypesForCategoryChartCache.put(getKey(module), classesByMetricTypes);
     }
 
-    public Map<MetricType, Map<ClassElement, Metric>> getClassesByMetricTypes(
+    public Map<MetricType, ClassesRanking> getClassesByMetricTypes(
             @Nullable com.intellij.openapi.module.Module module) {
         return classesByMetricTypesCache.get(getKey(module));
     }
 
     public void putClassesByMetricTypes(@Nullable com.intellij.openapi.module.Module module,
-            Map<MetricType, Map<ClassElement, Metric>> classesByMetricTypes) {
+            Map<MetricType, ClassesRanking> classesByMetricTypes) {
         classesByMetricTypesCache.put(getKey(module), classesByMetricTypes);
     }
 
@@ -271,6 +386,89 @@ public final class CacheService implements UserDataHolder, Disposable {
         classLevelFitnessFunctionCache.put(getKey(module), classLevelFitnessFunctions);
     }
 
+    /**
+     * Version of the class level metric profiles the cached distributions were built against.
+     * It is incremented by {@link #invalidateClassProfiles()}.
+     */
+    public long getClassProfilesVersion() {
+        return classProfilesVersion.get();
+    }
+
+    /**
+     * Returns the class to profile distribution of the module if it was built from the given model
+     * and against the current profiles version.
+     */
+    @Nullable
+    public ClassProfileMembership getClassesByProfile(@Nullable com.intellij.openapi.module.Module module,
+            @NotNull ProjectElement model) {
+        ClassesByProfile classesByProfile = classesByProfileCache.get(getKey(module));
+        if (classesByProfile == null || classesByProfile.model() != model
+                || classesByProfile.profilesVersion() != classProfilesVersion.get()) {
+            return null;
+        }
+        return classesByProfile.membership();
+    }
+
+    /**
+     * Stores the class to profile distribution of the module. The distribution is dropped if the
+     * profiles were changed after {@code profilesVersion} was taken.
+     *
+     * @return {@code true} if the distribution was stored
+     */
+    public synchronized boolean putClassesByProfile(@Nullable com.intellij.openapi.module.Module module,
+            @NotNull ProjectElement model, long profilesVersion, @NotNull ClassProfileMembership membership) {
+        if (profilesVersion != classProfilesVersion.get()) {
+            return false;
+        }
+        Map<FitnessFunction, Set<ClassElement>> classesByProfile = membership.toMap();
+        classesByProfileCache.put(getKey(module), new ClassesByProfile(model, profilesVersion, membership));
+        classLevelFitnessFunctionCache.put(getKey(module), classesByProfile);
+        return true;
+    }
+
+    /**
+     * Drops the class to profile distributions and everything derived from them.
+     * Called when the class level metric profiles are edited.
+     */
+    public synchronized void invalidateClassProfiles() {
+        classProfilesVersion.incrementAndGet();
+        classesByProfileCache.clear();
+        classLevelFitnessFunctionCache.clear();
+        profileTreeMapCache.clear();
+        boxChartsCache.clear();
+        heatMapChartCache.clear();
+        radarChartCache.clear();
+        profileCategoryChartCache.clear();
+        putUserData(CLASS_LEVEL_FITNESS_FUNCTION, null);
+        putUserData(CLASSES_BY_PROFILE, null);
+        putUserData(BOX_CHARTS, null);
+        putUserData(PROFILE_CATEGORY_CHART, null);
+        putUserData(HEAT_MAP_CHART, null);
+        putUserData(RADAR_CHART, null);
+        putUserData(PROFILE_TREE_MAP, null);
+    }
+
+    /**
+     * Drops the charts, trees and distributions that classify metric values by their valid ranges.
+     * Called when the valid ranges are edited.
+     */
+    public synchronized void invalidateRanges() {
+        pieChartCache.clear();
+        categoryChartCache.clear();
+        metricsValuesHistogramCache.clear();
+        classesByMetricTypesForCategoryChartCache.clear();
+        classesByMetricTypesCache.clear();
+        classesByMetricTreeCache.clear();
+        metricTreeMapCache.clear();
+        putUserData(PIE_CHART_LIST, null);
+        putUserData(CATEGORY_CHART, null);
+        putUserData(METRICS_VALUES_HISTOGRAM, null);
+        putUserData(CLASSES_BY_METRIC_TYPES_FOR_CATEGORY_CHART, null);
+        putUserData(CLASSES_BY_METRIC_TYPES, null);
+        putUserData(CLASSES_BY_METRIC_TREE, null);
+        putUserData(METRIC_TREE_MAP, null);
+    }
+
     public Map<FitnessFunction, Set<PackageElement>> getPackageLevelFitnessFunctions(
             @Nullable com.intellij.openapi.module.Module module) {
         return packageLevelFitnessFunctionCache.get(getKey(module));
@@ -345,6 +543,7 @@ public final class CacheService implements UserDataHolder, Disposable {
         projectTreeCache.clear();
         pieChartCache.clear();
         categoryChartCache.clear();
+        metricsValuesHistogramCache.clear();
         classesByMetricTypesForCategoryChartCache.clear();
         classesByMetricTypesCache.clear();
         xyChartCache.clear();
@@ -359,6 +558,8 @@ public final class CacheService implements UserDataHolder, Disposable {
         heatMapChartCache.clear();
         radarChartCache.clear();
         profileCategoryChartCache.clear();
+        classesByProfileCache.clear();
+        compilationUnitsCache.clear();
     }
 
     /**
@@ -397,21 +598,121 @@ public final class CacheService implements UserDataHolder, Disposable {
         return javaFiles.values().stream();
     }
 
+    /**
+     * Gets the per-declaration metrics snapshot of a file open in the editor. PSI changes drop the entries
+     * of the edited declarations, so snapshots survive content changes and are only dropped when the file
+     * is deleted or moved, or by the cache budget.
+     *
+     * @param virtualFile the VirtualFile the snapshot was built for
+     */
+    public FileMetricsSnapshot getFileMetricsSnapshot(VirtualFile virtualFile) {
+        return fileMetricsSnapshots.get(virtualFile.getPath());
+    }
+
+    public void putFileMetricsSnapshot(VirtualFile virtualFile, FileMetricsSnapshot snapshot) {
+        if (psiListenerAdded.compareAndSet(false, true)) {
+            PsiManager.getInstance(project).addPsiTreeChangeListener(new MyPsiTreeChangeListener(), this);
+        }
+        fileMetricsSnapshots.put(virtualFile.getPath(), snapshot);
+    }
+
+    public void removeFileMetricsSnapshot(VirtualFile virtualFile) {
+        fileMetricsSnapshots.remove(virtualFile.getPath());
+    }
+
+    /**
+     * Gets the source files of the module, walking the file index only if they were not collected since the
+     * last change of the project roots. Unlike the calculation results, the inventory survives content changes.
+     */
+    public FileInventory getFileInventory(@Nullable com.intellij.openapi.module.Module module) {
+        FileInventory inventory = fileInventories.get(getKey(module));
+        if (inventory == null || !inventory.isUpToDate(project)) {
+            inventory = FileInventory.build(project, module);
+            fileInventories.put(getKey(module), inventory);
+        }
+        return inventory;
+    }
+
+    private void updateFileInventories(@NotNull VirtualFile file) {
+        if (FileInventory.kindOf(file) != null) {
+            fileInventories.values().forEach(inventory -> inventory.update(file));
+        }
+    }
+
     @Override
     public void dispose() {
         invalidateUserData();
         javaFiles.clear();
+        fileMetricsSnapshots.clear();
+        fileInventories.clear();
+    }
+
+    private record ClassesByProfile(ProjectElement model, long profilesVersion, ClassProfileMembership membership) {
+    }
+
+    // File elements of both languages are cached by path
+    private static boolean isSourceFile(@NotNull VirtualFile file) {
+        return "java".equals(file.getExtension()) || "kt".equals(file.getExtension());
+    }
+
+    /**
+     * Drops the snapshot entries of the declarations about to be edited.
+     */
+    private class MyPsiTreeChangeListener extends PsiTreeChangeAdapter {
+        @Override
+        public void beforeChildAddition(@NotNull PsiTreeChangeEvent event) {
+            invalidateFileMetricsSnapshot(event);
+        }
+
+        @Override
+        public void beforeChildRemoval(@NotNull PsiTreeChangeEvent event) {
+            invalidateFileMetricsSnapshot(event);
+        }
+
+        @Override
+        public void beforeChildReplacement(@NotNull PsiTreeChangeEvent event) {
+            invalidateFileMetricsSnapshot(event);
+        }
+
+        @Override
+        public void beforeChildMovement(@NotNull PsiTreeChangeEvent event) {
+            invalidateFileMetricsSnapshot(event);
+        }
+
+        @Override
+        public void beforeChildrenChange(@NotNull PsiTreeChangeEvent event) {
+            invalidateFileMetricsSnapshot(event);
+        }
+
+        @Override
+        public void beforePropertyChange(@NotNull PsiTreeChangeEvent event) {
+            invalidateFileMetricsSnapshot(event);
+        }
+
+        private void invalidateFileMetricsSnapshot(PsiTreeChangeEvent event) {
+            PsiFile psiFile = event.getFile();
+            VirtualFile file = psiFile == null ? null : psiFile.getVirtualFile();
+            FileMetricsSnapshot snapshot = file == null ? null : getFileMetricsSnapshot(file);
+            if (snapshot != null) {
+                PsiElement child = event.getOldChild() != null ? event.getOldChild() : event.getChild();
+                snapshot.invalidate(event.getParent(), child);
+            }
+        }
     }
 
     /**
-     * VirtualFileListener implementation that invalidates caches when Java files
-     * are modified.
+     * VirtualFileListener implementation that invalidates caches when Java or Kotlin
+     * files are modified.
      */
     private class MyVfsListener implements VirtualFileListener {
         @Override
         public void contentsChanged(@NotNull VirtualFileEvent event) {
             VirtualFile file = event.getFile();
-            if (file != null && "java".equals(file.getExtension())) {
+            if (file == null) {
+                return;
+            }
+            updateFileInventories(file);
+            if (isSourceFile(file)) {
                 // Invalidate caches immediately for unit-test consistency
                 invalidateUserData();
                 removeJavaFile(file);
@@ -421,10 +722,25 @@ public final class CacheService implements UserDataHolder, Disposable {
             }
         }
 
+        @Override
+        public void fileCreated(@NotNull VirtualFileEvent event) {
+            // Which inventories a new file belongs to is only known after the file index has been updated
+            fileInventories.clear();
+        }
+
         @Override
         public void fileDeleted(@NotNull VirtualFileEvent event) {
             VirtualFile file = event.getFile();
-            if (file != null && "java".equals(file.getExtension())) {
+            if (file == null) {
+                return;
+            }
+            removeFileMetricsSnapshot(file);
+            if (file.isDirectory()) {
+                fileInventories.clear();
+            } else {
+                fileInventories.values().forEach(inventory -> inventory.remove(file.getPath()));
+            }
+            if (isSourceFile(file)) {
                 invalidateUserData();
                 removeJavaFile(file);
                 project.getService(TaskQueueService.class)
@@ -435,7 +751,12 @@ public final class CacheService implements UserDataHolder, Disposable {
         @Override
         public void fileMoved(@NotNull VirtualFileMoveEvent event) {
             VirtualFile file = event.getFile();
-            if (file != null && "java".equals(file.getExtension())) {
+            fileInventories.clear();
+            if (file == null) {
+                return;
+            }
+            fileMetricsSnapshots.remove(event.getOldParent().getPath() + "/" + file.getName());
+            if (isSourceFile(file)) {
                 invalidateUserData();
                 removeJavaFile(file);
                 project.getService(TaskQueueService.class)
@@ -446,7 +767,17 @@ public final class CacheService implements UserDataHolder, Disposable {
         @Override
         public void propertyChanged(@NotNull VirtualFilePropertyEvent event) {
             VirtualFile file = event.getFile();
-            if (file != null && "java".equals(file.getExtension())) {
+            if (VirtualFile.PROP_NAME.equals(event.getPropertyName())) {
+                fileInventories.clear();
+                // entries of a renamed file are stored under its old path
+                VirtualFile parent = file == null ? null : file.getParent();
+                if (parent != null) {
+                    String oldPath = parent.getPath() + "/" + event.getOldValue();
+                    fileMetricsSnapshots.remove(oldPath);
+                    javaFiles.remove(oldPath);
+                }
+            }
+            if (file != null && isSourceFile(file)) {
                 invalidateUserData();
                 removeJavaFile(file);
                 project.getService(TaskQueueService.class)
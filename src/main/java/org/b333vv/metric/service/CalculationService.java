@@ -2,6 +2,7 @@ package org.b333vv.metric.service;
 
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.progress.ProgressIndicator;
+import org.b333vv.metric.builder.ClassProfileMembership;
 import org.b333vv.metric.builder.DependenciesBuilder;
 import org.b333vv.metric.model.code.ProjectElement;
 import org.jetbrains.annotations.Nullable;
@@ -15,6 +16,8 @@ public interface CalculationService {
 
     ProjectElement getOrBuildProjectMetricsModel(ProgressIndicator indicator, @Nullable Module module);
 
+    ClassProfileMembership getOrBuildClassesByProfile(ProgressIndicator indicator, @Nullable Module module);
+
     void calculateProjectTree(@Nullable Module module);
 
     void calculatePieChart(@Nullable Module module);
@@ -1,9 +1,17 @@
 package org.b333vv.metric.service;
 
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
-import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.jetbrains.annotations.Nullable;
 
 import org.b333vv.metric.builder.MetricsBackgroundableTask;
@@ -16,7 +24,11 @@ import org.b333vv.metric.util.SettingsService;
 import javax.swing.tree.DefaultTreeModel;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.b333vv.metric.builder.PieChartDataCalculator;
@@ -44,51 +56,61 @@ import org.b333vv.metric.export.XmlExporter;
 import org.b333vv.metric.export.CsvClassMetricsExporter;
 import org.b333vv.metric.export.CsvMethodMetricsExporter;
 import org.b333vv.metric.export.CsvPackageMetricsExporter;
+import org.b333vv.metric.export.PerformanceReportExporter;
 import java.util.Map;
 import java.util.Set;
-import java.util.HashMap;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
 import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.metric.MetricType;
-import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.builder.ClassFitnessFunctionCalculator;
+import org.b333vv.metric.builder.ClassProfileMembership;
 import org.b333vv.metric.builder.PackageFitnessFunctionCalculator;
 import org.b333vv.metric.builder.ClassesByMetricsValuesCounter;
+import org.b333vv.metric.builder.ClassesByMetricsValuesDistributor;
+import org.b333vv.metric.builder.ClassesRanking;
+import org.b333vv.metric.builder.MetricsValuesHistogram;
 
 // New imports for model builders
 import org.b333vv.metric.builder.DependenciesBuilder;
 import org.b333vv.metric.builder.DependenciesCalculator;
+import org.b333vv.metric.builder.FileInventory;
 import org.b333vv.metric.builder.PsiCalculationStrategy;
+import org.b333vv.metric.builder.CalculationPipeline;
+import org.b333vv.metric.builder.LanguageBackend;
 import org.b333vv.metric.builder.PackageMetricsSetCalculator;
 import org.b333vv.metric.builder.ProjectMetricsSetCalculator;
 import org.b333vv.metric.ui.settings.other.CalculationEngine;
 import org.b333vv.metric.builder.JavaParserCalculationStrategy;
 import com.github.javaparser.JavaParser;
-import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
-import com.intellij.openapi.roots.ProjectFileIndex;
-import com.intellij.openapi.roots.ProjectRootManager;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 public class CalculationServiceImpl implements CalculationService {
+    private static final Logger LOG = Logger.getInstance(CalculationServiceImpl.class);
     private final Project project;
     private final TaskQueueService taskQueueService;
     private final CacheService cacheService;
     private final SettingsService settingsService;
+    private final ProfilingService profilingService;
 
     public CalculationServiceImpl(Project project) {
         this.project = project;
         this.taskQueueService = project.getService(TaskQueueService.class);
         this.cacheService = project.getService(CacheService.class);
         this.settingsService = project.getService(SettingsService.class);
+        this.profilingService = project.getService(ProfilingService.class);
     }
 
     // Helper method to run a task synchronously and get its result
-    private <T> T runTaskSynchronously(String title, Function<ProgressIndicator, T> taskLogic,
-            ProgressIndicator indicator) {
+    private <T> T runTaskSynchronously(String title, @Nullable Module module,
+            Function<ProgressIndicator, T> stageLogic, ProgressIndicator indicator) {
+        Function<ProgressIndicator, T> taskLogic = (progressIndicator) -> profilingService.stage(title, module,
+                () -> stageLogic.apply(progressIndicator));
         if (indicator != null) {
             String oldText = indicator.getText();
             indicator.setText(title);
@@ -130,27 +152,27 @@ public class CalculationServiceImpl implements CalculationService {
         List<CompilationUnit> allUnits = cacheService.getUserData(CacheService.ALL_COMPILATION_UNITS);
         if (allUnits == null) {
             allUnits = runTaskSynchronously(
-                    "Parsing All Project Sources",
+                    "Parsing All Project Sources", null,
                     (progressIndicator) -> {
-                        List<CompilationUnit> units = new ArrayList<>();
-                        JavaParser javaParser = new JavaParser(); // Use a simple parser, no symbol solving needed here.
-                        ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
-
-                        fileIndex.iterateContent(fileOrDir -> {
-                            if (!fileOrDir.isDirectory() && "java".equals(fileOrDir.getExtension())
-                                    && !fileIndex.isInLibrarySource(fileOrDir)
-                                    && !fileIndex.isInTestSourceContent(fileOrDir)) {
-                                try {
-                                    ParseResult<CompilationUnit> result = javaParser
-                                            .parse(Paths.get(fileOrDir.getPath()));
-                                    result.ifSuccessful(units::add);
-                                } catch (Exception e) {
-                                    // Log or handle parsing errors if necessary
-                                }
-                            }
-                            return true; // continue iteration
-                        });
-                        return units;
+                        // Use a simple parser per thread, no symbol solving needed here.
+                        ThreadLocal<JavaParser> javaParser = ThreadLocal.withInitial(JavaParser::new);
+                        List<FileInventory.Entry> javaFiles = cacheService.getFileInventory(null).files(false)
+                                .stream()
+                                .filter(entry -> entry.kind() == FileInventory.Kind.JAVA)
+                                .collect(Collectors.toList());
+                        profilingService.filesProcessed(javaFiles.size());
+                        return javaFiles.parallelStream()
+                                .map(entry -> {
+                                    try {
+                                        return javaParser.get().parse(Paths.get(entry.file().getPath()))
+                                                .getResult().orElse(null);
+                                    } catch (Exception e) {
+                                        // Log or handle parsing errors if necessary
+                                        return null;
+                                    }
+                                })
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.toList());
                     },
                     indicator);
             cacheService.putUserData(CacheService.ALL_COMPILATION_UNITS, allUnits);
@@ -161,20 +183,21 @@ public class CalculationServiceImpl implements CalculationService {
     @Override
     public DependenciesBuilder getOrBuildDependencies(ProgressIndicator indicator, @Nullable Module module) {
         DependenciesBuilder dependencies = cacheService.getDependencies(module);
+        if (dependencies == null && module == null && isModuleParallelCalculation()) {
+            dependencies = runTaskSynchronously(
+                    "Calculating Modules in Parallel", null,
+                    this::calculateModulesInParallel,
+                    indicator);
+            cacheService.putDependencies(null, dependencies);
+        }
         if (dependencies == null) {
             dependencies = runTaskSynchronously(
-                    "Building Dependencies Model",
+                    "Building Dependencies Model", module,
                     (progressIndicator) -> {
-                        // Create AnalysisScope within the task to ensure proper initialization
-                        AnalysisScope analysisScope = module != null ? new AnalysisScope(module)
-                                : new AnalysisScope(project);
-                        if (module != null) {
-                            analysisScope.setIncludeTestSource(true);
-                        } else {
-                            analysisScope.setIncludeTestSource(false);
-                        }
-                        return new DependenciesCalculator(analysisScope, new DependenciesBuilder())
-                                .calculateDependencies();
+                        // Module runs include test sources, project runs do not
+                        FileInventory inventory = cacheService.getFileInventory(module);
+                        return new DependenciesCalculator(project, inventory, module != null,
+                                new DependenciesBuilder()).calculateDependencies();
                     },
                     indicator);
             cacheService.putDependencies(module, dependencies);
@@ -182,6 +205,73 @@ public class CalculationServiceImpl implements CalculationService {
         return dependencies;
     }
 
+    private boolean isModuleParallelCalculation() {
+        // JavaParser units are parsed for the whole project, so modules are only calculated in parallel with PSI
+        return settingsService.getCalculationEngine() == CalculationEngine.PSI
+                && settingsService.getOtherSettings().isModuleParallelCalculation()
+                && ModuleManager.getInstance(project).getModules().length > 1;
+    }
+
+    /**
+     * Builds the dependencies and the class and method models of all modules on a bounded pool and caches them, so
+     * that switching modules needs no calculation. The project model is then assembled from the file elements these
+     * calculations have cached, and the project dependencies are merged from the module ones, leaving out the
+     * classes of test sources as a project run does.
+     */
+    private DependenciesBuilder calculateModulesInParallel(ProgressIndicator indicator) {
+        Module[] modules = ModuleManager.getInstance(project).getModules();
+        int parallelism = Math.max(1, Math.min(modules.length, Runtime.getRuntime().availableProcessors() - 1));
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+                "Metrics Module Calculation", parallelism);
+        List<Future<DependenciesBuilder>> futures = new ArrayList<>(modules.length);
+        for (Module module : modules) {
+            futures.add(executor.submit(() -> {
+                // Modules report neither text nor fraction, only cancellation of the whole run reaches them
+                ProgressIndicator moduleIndicator = new SensitiveProgressWrapper(indicator);
+                return ProgressManager.getInstance().runProcess(() -> {
+                    getOrBuildClassAndMethodModel(moduleIndicator, module);
+                    return getOrBuildDependencies(moduleIndicator, module);
+                }, moduleIndicator);
+            }));
+        }
+        List<DependenciesBuilder> moduleDependencies = new ArrayList<>(modules.length);
+        try {
+            for (Future<DependenciesBuilder> future : futures) {
+                indicator.checkCanceled();
+                moduleDependencies.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdown();
+        }
+
+        indicator.setText("Merging dependencies of modules");
+        Set<String> projectFiles = cacheService.getFileInventory(null).files(false).stream()
+                .map(entry -> entry.file().getPath())
+                .collect(Collectors.toSet());
+        DependenciesBuilder dependencies = new DependenciesBuilder();
+        ReadAction.run(() -> {
+            for (DependenciesBuilder builder : moduleDependencies) {
+                dependencies.merge(builder, psiClass -> {
+                    VirtualFile file = PsiUtilCore.getVirtualFile(psiClass.getNavigationElement());
+                    return file != null && projectFiles.contains(file.getPath());
+                });
+            }
+        });
+        return dependencies;
+    }
+
     @Override
     public ProjectElement getOrBuildClassAndMethodModel(ProgressIndicator indicator, @Nullable Module module) {
         ProjectElement projectElement = cacheService.getClassAndMethodMetrics(module);
@@ -190,19 +280,18 @@ public class CalculationServiceImpl implements CalculationService {
             getOrBuildDependencies(indicator, module);
 
             projectElement = runTaskSynchronously(
-                    "Building Class and Method Metrics Model",
+                    "Building Class and Method Metrics Model", module,
                     (progressIndicator) -> {
-                        // Stage 1: Always run PSI
-                        PsiCalculationStrategy psiStrategy = new PsiCalculationStrategy();
-                        ProjectElement newprojectElement = psiStrategy.calculate(project, progressIndicator, module);
-
-                        // Stage 2: Conditionally augment with JavaParser
+                        // PSI always builds the model, JavaParser values are calculated alongside and merged into it
+                        List<LanguageBackend> backends = new ArrayList<>();
+                        backends.add(new PsiCalculationStrategy());
+                        List<CompilationUnit> allUnits = List.of();
                         if (settingsService.getCalculationEngine() == CalculationEngine.JAVAPARSER) {
-                            List<CompilationUnit> allUnits = getOrBuildAllCompilationUnits(progressIndicator);
-                            JavaParserCalculationStrategy javaParserStrategy = new JavaParserCalculationStrategy();
-                            javaParserStrategy.augment(newprojectElement, project, allUnits, progressIndicator);
+                            allUnits = getOrBuildAllCompilationUnits(progressIndicator);
+                            backends.add(new JavaParserCalculationStrategy());
                         }
-                        return newprojectElement;
+                        return new CalculationPipeline(backends).calculate(
+                                new LanguageBackend.Context(project, module, progressIndicator, allUnits));
                     },
                     indicator);
             cacheService.putClassAndMethodMetrics(module, projectElement);
@@ -219,18 +308,10 @@ public class CalculationServiceImpl implements CalculationService {
             ProjectElement classAndMethodModel = getOrBuildClassAndMethodModel(indicator, module);
 
             projectElement = runTaskSynchronously(
-                    "Building Package Metrics Model",
+                    "Building Package Metrics Model", module,
                     (progressIndicator) -> {
-                        // Create AnalysisScope within the task to ensure proper initialization
-                        AnalysisScope analysisScope = module != null ? new AnalysisScope(module)
-                                : new AnalysisScope(project);
-                        if (module != null) {
-                            analysisScope.setIncludeTestSource(true);
-                        } else {
-                            analysisScope.setIncludeTestSource(false);
-                        }
                         DependenciesBuilder dependencies = getOrBuildDependencies(progressIndicator, module);
-                        new PackageMetricsSetCalculator(analysisScope, dependencies, classAndMethodModel).calculate();
+                        new PackageMetricsSetCalculator(dependencies, classAndMethodModel).calculate();
                         return classAndMethodModel;
                     },
                     indicator);
@@ -248,18 +329,9 @@ public class CalculationServiceImpl implements CalculationService {
             ProjectElement packageMetricsModel = getOrBuildPackageMetricsModel(indicator, module);
 
             projectElement = runTaskSynchronously(
-                    "Building Project Metrics Model",
+                    "Building Project Metrics Model", module,
                     (progressIndicator) -> {
-                        // Create AnalysisScope within the task to ensure proper initialization
-                        AnalysisScope analysisScope = module != null ? new AnalysisScope(module)
-                                : new AnalysisScope(project);
-                        if (module != null) {
-                            analysisScope.setIncludeTestSource(true);
-                        } else {
-                            analysisScope.setIncludeTestSource(false);
-                        }
-                        DependenciesBuilder dependencies = getOrBuildDependencies(progressIndicator, module);
-                        new ProjectMetricsSetCalculator(analysisScope, dependencies, packageMetricsModel).calculate();
+                        new ProjectMetricsSetCalculator(packageMetricsModel).calculate();
                         return packageMetricsModel;
                     },
                     indicator);
@@ -269,6 +341,64 @@ public class CalculationServiceImpl implements CalculationService {
         return projectElement;
     }
 
+    @Override
+    public ClassProfileMembership getOrBuildClassesByProfile(ProgressIndicator indicator, @Nullable Module module) {
+        ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
+        ClassProfileMembership classesByProfile = cacheService.getClassesByProfile(module, projectElement);
+        if (classesByProfile == null) {
+            long profilesVersion = cacheService.getClassProfilesVersion();
+            classesByProfile = runTaskSynchronously(
+                    "Building Class Level Fitness Functions", module,
+                    (progressIndicator) -> new ClassFitnessFunctionCalculator().calculateMembership(project,
+                            projectElement),
+                    indicator);
+            if (classesByProfile != null) {
+                cacheService.putClassesByProfile(module, projectElement, profilesVersion, classesByProfile);
+            }
+        }
+        return classesByProfile;
+    }
+
+    // Derives every missing profile chart from the same class to profile distribution, concurrently
+    private void buildProfileCharts(ProgressIndicator indicator, @Nullable Module module,
+            ClassProfileMembership classesByProfile) {
+        long profilesVersion = cacheService.getClassProfilesVersion();
+        Map<FitnessFunction, Set<ClassElement>> distribution = classesByProfile.toMap();
+        ExecutorService executor = AppExecutorUtil.getAppExecutorService();
+        List<CompletableFuture<Runnable>> charts = new ArrayList<>();
+        if (cacheService.getBoxCharts(module) == null) {
+            charts.add(CompletableFuture.supplyAsync(() -> {
+                List<ProfileBoxChartBuilder.BoxChartStructure> boxCharts = new ProfileBoxChartDataCalculator()
+                        .calculate(distribution);
+                return () -> cacheService.putBoxCharts(module, boxCharts);
+            }, executor));
+        }
+        if (cacheService.getProfileCategoryChart(module) == null) {
+            charts.add(CompletableFuture.supplyAsync(() -> {
+                CategoryChart categoryChart = new ProfileCategoryChartDataCalculator().calculate(distribution);
+                return () -> cacheService.putProfileCategoryChart(module, categoryChart);
+            }, executor));
+        }
+        if (cacheService.getHeatMapChart(module) == null) {
+            charts.add(CompletableFuture.supplyAsync(() -> {
+                HeatMapChart heatMapChart = new ProfileHeatMapDataCalculator().calculate(distribution);
+                return () -> cacheService.putHeatMapChart(module, heatMapChart);
+            }, executor));
+        }
+        if (cacheService.getRadarCharts(module) == null) {
+            charts.add(CompletableFuture.supplyAsync(() -> {
+                List<ProfileRadarChartBuilder.RadarChartStructure> radarCharts = new ProfileRadarDataCalculator()
+                        .calculate(distribution, project);
+                return () -> cacheService.putRadarCharts(module, radarCharts);
+            }, executor));
+        }
+        CompletableFuture.allOf(charts.toArray(new CompletableFuture[0])).join();
+        indicator.checkCanceled();
+        if (profilesVersion == cacheService.getClassProfilesVersion()) {
+            charts.forEach(chart -> chart.join().run());
+        }
+    }
+
     @Override
     public void calculateProjectTree(@Nullable Module module) {
         project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).clearProjectMetricsTree();
@@ -287,6 +417,9 @@ public class CalculationServiceImpl implements CalculationService {
                 cacheService.putProjectTree(module, model);
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .projectMetricsTreeIsReady(model, module);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Metrics cache: " + cacheService.getCacheStatistics());
+                }
             };
             Runnable onCancelCallback = () -> project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                     .printInfo("Building tree model canceled");
@@ -307,7 +440,7 @@ public class CalculationServiceImpl implements CalculationService {
     @Override
     public void calculatePieChart(@Nullable Module module) {
         List<MetricPieChartBuilder.PieChartStructure> pieChartList = cacheService.getPieChartList(module);
-        Map<MetricType, Map<ClassElement, Metric>> classesByMetricTypes = cacheService.getClassesByMetricTypes(module);
+        Map<MetricType, ClassesRanking> classesByMetricTypes = cacheService.getClassesByMetricTypes(module);
 
         if (pieChartList != null && classesByMetricTypes != null) {
             project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).pieChartIsReady(module);
@@ -317,15 +450,17 @@ public class CalculationServiceImpl implements CalculationService {
                         .printInfo("Building classes distribution by metric values pie chart started");
                 ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
 
-                // Generate classes by metric types data
-                Map<MetricType, Map<ClassElement, Metric>> newClassesByMetricTypes = generateClassesByMetricTypes(
-                        projectElement);
-                cacheService.putClassesByMetricTypes(module, newClassesByMetricTypes);
+                // Generate classes by metric types data, unless the sorted classes tree ranked them already
+                if (cacheService.getClassesByMetricTypes(module) == null) {
+                    Map<MetricType, ClassesRanking> newClassesByMetricTypes = ClassesByMetricsValuesDistributor
+                            .classesByMetricsValuesDistribution(projectElement, project);
+                    cacheService.putClassesByMetricTypes(module, newClassesByMetricTypes);
+                }
 
                 // Generate pie chart data
                 PieChartDataCalculator calculator = new PieChartDataCalculator();
-                List<MetricPieChartBuilder.PieChartStructure> newPieChartList = calculator.calculate(projectElement,
-                        project);
+                List<MetricPieChartBuilder.PieChartStructure> newPieChartList = calculator.calculate(
+                        getOrBuildMetricsValuesHistogram(projectElement, module));
                 cacheService.putPieChartList(module, newPieChartList);
 
                 return newPieChartList;
@@ -351,17 +486,17 @@ public class CalculationServiceImpl implements CalculationService {
         }
     }
 
-    private Map<MetricType, Map<ClassElement, Metric>> generateClassesByMetricTypes(ProjectElement projectElement) {
-        Map<MetricType, Map<ClassElement, Metric>> classesByMetricTypes = new HashMap<>();
-
-        projectElement.allClasses().forEach(javaClass -> {
-            javaClass.metrics().forEach(metric -> {
-                classesByMetricTypes.computeIfAbsent(metric.getType(), k -> new HashMap<>())
-                        .put(javaClass, metric);
-            });
-        });
-
-        return classesByMetricTypes;
+    /**
+     * Counts the classes per metric and range type once for all distribution charts of the module.
+     */
+    private MetricsValuesHistogram getOrBuildMetricsValuesHistogram(ProjectElement projectElement,
+                                                                    @Nullable Module module) {
+        MetricsValuesHistogram histogram = cacheService.getMetricsValuesHistogram(module);
+        if (histogram == null) {
+            histogram = new ClassesByMetricsValuesCounter(project).histogram(projectElement);
+            cacheService.putMetricsValuesHistogram(module, histogram);
+        }
+        return histogram;
     }
 
     @Override
@@ -379,14 +514,12 @@ public class CalculationServiceImpl implements CalculationService {
                 ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
 
                 // Generate the distribution data first
-                ClassesByMetricsValuesCounter distributor = new ClassesByMetricsValuesCounter(project);
-                Map<MetricType, Map<RangeType, Double>> newClassesByMetricTypes = distributor
-                        .classesByMetricsValuesDistribution(projectElement);
-                cacheService.putClassesByMetricTypesForCategoryChart(module, newClassesByMetricTypes);
+                MetricsValuesHistogram histogram = getOrBuildMetricsValuesHistogram(projectElement, module);
+                cacheService.putClassesByMetricTypesForCategoryChart(module, histogram.toRelativeDistribution());
 
                 // Then generate the chart
                 CategoryChartDataCalculator calculator = new CategoryChartDataCalculator();
-                CategoryChart newCategoryChart = calculator.calculate(projectElement, project);
+                CategoryChart newCategoryChart = calculator.calculate(histogram);
                 cacheService.putCategoryChart(module, newCategoryChart);
                 return newCategoryChart;
             };
@@ -500,26 +633,9 @@ public class CalculationServiceImpl implements CalculationService {
             Function<ProgressIndicator, List<ProfileBoxChartBuilder.BoxChartStructure>> taskLogic = (indicator) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .printInfo("Building profile box charts started");
-                ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
-
-                // Ensure class fitness functions are calculated first
-                Map<FitnessFunction, Set<ClassElement>> classesByProfile = cacheService
-                        .getClassLevelFitnessFunctions(module);
-                if (classesByProfile == null) {
-                    // Calculate class fitness functions synchronously
-                    classesByProfile = runTaskSynchronously(
-                            "Building class level fitness functions for profile box charts",
-                            (progressIndicator) -> new ClassFitnessFunctionCalculator().calculate(project,
-                                    projectElement),
-                            indicator);
-                    cacheService.putClassLevelFitnessFunctions(module, classesByProfile);
-                    // cacheService.putUserData(CacheService.CLASSES_BY_PROFILE, classesByProfile);
-                }
-
-                ProfileBoxChartDataCalculator calculator = new ProfileBoxChartDataCalculator();
-                List<ProfileBoxChartBuilder.BoxChartStructure> newBoxCharts = calculator.calculate(classesByProfile);
-                cacheService.putBoxCharts(module, newBoxCharts);
-                return newBoxCharts;
+                ClassProfileMembership classesByProfile = getOrBuildClassesByProfile(indicator, module);
+                buildProfileCharts(indicator, module, classesByProfile);
+                return cacheService.getBoxCharts(module);
             };
             Consumer<List<ProfileBoxChartBuilder.BoxChartStructure>> onSuccessCallback = (newBoxCharts) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
@@ -551,26 +667,9 @@ public class CalculationServiceImpl implements CalculationService {
             Function<ProgressIndicator, CategoryChart> taskLogic = (indicator) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .printInfo("Building profile category chart started");
-                ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
-
-                // Ensure class fitness functions are calculated first
-                Map<FitnessFunction, Set<ClassElement>> classesByProfile = cacheService
-                        .getClassLevelFitnessFunctions(module);
-                if (classesByProfile == null) {
-                    // Calculate class fitness functions synchronously
-                    classesByProfile = runTaskSynchronously(
-                            "Building class level fitness functions for profile chart",
-                            (progressIndicator) -> new ClassFitnessFunctionCalculator().calculate(project,
-                                    projectElement),
-                            indicator);
-                    cacheService.putClassLevelFitnessFunctions(module, classesByProfile);
-                    // cacheService.putUserData(CacheService.CLASSES_BY_PROFILE, classesByProfile);
-                }
-
-                ProfileCategoryChartDataCalculator calculator = new ProfileCategoryChartDataCalculator();
-                CategoryChart newCategoryChart = calculator.calculate(classesByProfile);
-                cacheService.putProfileCategoryChart(module, newCategoryChart);
-                return newCategoryChart;
+                ClassProfileMembership classesByProfile = getOrBuildClassesByProfile(indicator, module);
+                buildProfileCharts(indicator, module, classesByProfile);
+                return cacheService.getProfileCategoryChart(module);
             };
             Consumer<CategoryChart> onSuccessCallback = (newCategoryChart) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
@@ -602,26 +701,9 @@ public class CalculationServiceImpl implements CalculationService {
             Function<ProgressIndicator, HeatMapChart> taskLogic = (indicator) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .printInfo("Building profile heat map chart started");
-                ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
-
-                // Ensure class fitness functions are calculated first
-                Map<FitnessFunction, Set<ClassElement>> classesByProfile = cacheService
-                        .getClassLevelFitnessFunctions(module);
-                if (classesByProfile == null) {
-                    // Calculate class fitness functions synchronously
-                    classesByProfile = runTaskSynchronously(
-                            "Building class level fitness functions for profile heat map chart",
-                            (progressIndicator) -> new ClassFitnessFunctionCalculator().calculate(project,
-                                    projectElement),
-                            indicator);
-                    cacheService.putClassLevelFitnessFunctions(module, classesByProfile);
-                    // cacheService.putUserData(CacheService.CLASSES_BY_PROFILE, classesByProfile);
-                }
-
-                ProfileHeatMapDataCalculator calculator = new ProfileHeatMapDataCalculator();
-                HeatMapChart newHeatMapChart = calculator.calculate(classesByProfile);
-                cacheService.putHeatMapChart(module, newHeatMapChart);
-                return newHeatMapChart;
+                ClassProfileMembership classesByProfile = getOrBuildClassesByProfile(indicator, module);
+                buildProfileCharts(indicator, module, classesByProfile);
+                return cacheService.getHeatMapChart(module);
             };
             Consumer<HeatMapChart> onSuccessCallback = (newHeatMapChart) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
@@ -653,27 +735,9 @@ public class CalculationServiceImpl implements CalculationService {
             Function<ProgressIndicator, List<ProfileRadarChartBuilder.RadarChartStructure>> taskLogic = (indicator) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .printInfo("Building profile radar charts started");
-                ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
-
-                // Ensure class fitness functions are calculated first
-                Map<FitnessFunction, Set<ClassElement>> classesByProfile = cacheService
-                        .getClassLevelFitnessFunctions(module);
-                if (classesByProfile == null) {
-                    // Calculate class fitness functions synchronously
-                    classesByProfile = runTaskSynchronously(
-                            "Building class level fitness functions for profile radar charts",
-                            (progressIndicator) -> new ClassFitnessFunctionCalculator().calculate(project,
-                                    projectElement),
-                            indicator);
-                    cacheService.putClassLevelFitnessFunctions(module, classesByProfile);
-                    // cacheService.putUserData(CacheService.CLASSES_BY_PROFILE, classesByProfile);
-                }
-
-                ProfileRadarDataCalculator calculator = new ProfileRadarDataCalculator();
-                List<ProfileRadarChartBuilder.RadarChartStructure> newRadarCharts = calculator
-                        .calculate(classesByProfile, project);
-                cacheService.putRadarCharts(module, newRadarCharts);
-                return newRadarCharts;
+                ClassProfileMembership classesByProfile = getOrBuildClassesByProfile(indicator, module);
+                buildProfileCharts(indicator, module, classesByProfile);
+                return cacheService.getRadarCharts(module);
             };
             Consumer<List<ProfileRadarChartBuilder.RadarChartStructure>> onSuccessCallback = (newRadarCharts) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
@@ -707,21 +771,7 @@ public class CalculationServiceImpl implements CalculationService {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .printInfo("Building profile tree map started");
                 ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
-
-                // Ensure class fitness functions are calculated first
-                Map<FitnessFunction, Set<ClassElement>> newClassesByProfile = cacheService
-                        .getClassLevelFitnessFunctions(module);
-                if (newClassesByProfile == null) {
-                    // Calculate class fitness functions synchronously
-                    newClassesByProfile = runTaskSynchronously(
-                            "Building class level fitness functions for profile tree map",
-                            (progressIndicator) -> new ClassFitnessFunctionCalculator().calculate(project,
-                                    projectElement),
-                            indicator);
-                    cacheService.putClassLevelFitnessFunctions(module, newClassesByProfile);
-                    // cacheService.putUserData(CacheService.CLASSES_BY_PROFILE,
-                    // newClassesByProfile);
-                }
+                getOrBuildClassesByProfile(indicator, module);
 
                 ProfileTreeMapModelCalculator calculator = new ProfileTreeMapModelCalculator();
                 MetricTreeMap<CodeElement> newProfileTreeMap = calculator.calculate(projectElement);
@@ -785,6 +835,13 @@ public class CalculationServiceImpl implements CalculationService {
         }
     }
 
+    // Recorded figures are written next to every export while profiling is on
+    private void exportPerformanceReport(String fileName) {
+        if (profilingService.isEnabled()) {
+            new PerformanceReportExporter(project).export(fileName);
+        }
+    }
+
     @Override
     public void exportToXml(String fileName) {
         MetricsBackgroundableTask<Void> genericTask = new MetricsBackgroundableTask<>(
@@ -798,6 +855,7 @@ public class CalculationServiceImpl implements CalculationService {
                     if (fileName != null) {
                         XmlExporter exporter = new XmlExporter(project);
                         exporter.export(fileName, projectElement);
+                        exportPerformanceReport(fileName);
                     }
                     return null;
                 },
@@ -824,6 +882,7 @@ public class CalculationServiceImpl implements CalculationService {
                     if (fileName != null) {
                         CsvClassMetricsExporter exporter = new CsvClassMetricsExporter(project);
                         exporter.export(fileName, projectElement);
+                        exportPerformanceReport(fileName);
                     }
                     return null;
                 },
@@ -850,6 +909,7 @@ public class CalculationServiceImpl implements CalculationService {
                     if (fileName != null) {
                         CsvMethodMetricsExporter exporter = new CsvMethodMetricsExporter(project);
                         exporter.export(fileName, projectElement);
+                        exportPerformanceReport(fileName);
                     }
                     return null;
                 },
@@ -876,6 +936,7 @@ public class CalculationServiceImpl implements CalculationService {
                     if (fileName != null) {
                         CsvPackageMetricsExporter exporter = new CsvPackageMetricsExporter(project);
                         exporter.export(fileName, projectElement);
+                        exportPerformanceReport(fileName);
                     }
                     return null;
                 },
@@ -899,20 +960,7 @@ public class CalculationServiceImpl implements CalculationService {
             Function<ProgressIndicator, Map<FitnessFunction, Set<ClassElement>>> taskLogic = (indicator) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
                         .printInfo("Building class level fitness functions started");
-                ProjectElement projectElement = getOrBuildProjectMetricsModel(indicator, module);
-                Map<FitnessFunction, Set<ClassElement>> newClassFitnessFunctions = new ClassFitnessFunctionCalculator()
-                        .calculate(project, projectElement);
-                cacheService.putClassLevelFitnessFunctions(module, newClassFitnessFunctions);
-                // Also update the global/module-aware CLASSES_BY_PROFILE if needed, but it
-                // seems CLASSES_BY_PROFILE
-                // was just an alias for CLASS_LEVEL_FITNESS_FUNCTION in the old code.
-                // cacheService.putUserData(CacheService.CLASSES_BY_PROFILE,
-                // newClassFitnessFunctions);
-                // We might need to check if CLASSES_BY_PROFILE is used elsewhere.
-                // Assuming it's the same data, we should probably deprecate CLASSES_BY_PROFILE
-                // or make it module-aware too.
-                // For now, let's stick to the new specific cache.
-                return newClassFitnessFunctions;
+                return getOrBuildClassesByProfile(indicator, module).toMap();
             };
             Consumer<Map<FitnessFunction, Set<ClassElement>>> onSuccessCallback = (newClassFitnessFunctions) -> {
                 project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC)
@@ -3,10 +3,15 @@ package org.b333vv.metric.service;
 import com.intellij.openapi.components.Service;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.progress.ProgressIndicator;
+import org.b333vv.metric.builder.ClassesRanking;
 import org.b333vv.metric.builder.SortedClassesTreeModelCalculator;
 import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.MetricType;
 
 import javax.swing.tree.DefaultTreeModel;
+import java.util.Map;
+
+import static org.b333vv.metric.builder.ClassesByMetricsValuesDistributor.classesByMetricsValuesDistribution;
 
 @Service(Service.Level.PROJECT)
 public final class ClassMetricsTreeService {
@@ -25,8 +30,13 @@ public final class ClassMetricsTreeService {
 
         if (treeModel == null) {
             ProjectElement projectElement = calculationService.getOrBuildClassAndMethodModel(indicator, module);
+            Map<MetricType, ClassesRanking> classesByMetricTypes = cacheService.getClassesByMetricTypes(module);
+            if (classesByMetricTypes == null) {
+                classesByMetricTypes = classesByMetricsValuesDistribution(projectElement, project);
+                cacheService.putClassesByMetricTypes(module, classesByMetricTypes);
+            }
             SortedClassesTreeModelCalculator calculator = new SortedClassesTreeModelCalculator();
-            treeModel = calculator.calculate(projectElement, project);
+            treeModel = calculator.calculate(projectElement, classesByMetricTypes);
             cacheService.putClassesByMetricTree(module, treeModel);
         }
         return treeModel;
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.service;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.module.Module;
+import com.intellij.psi.PsiElementVisitor;
+import org.b333vv.metric.model.metric.MetricType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Wall time, CPU time and allocated bytes of the calculation stages and of the metric visitors, taken from
+ * {@link ThreadMXBean} on the measuring thread. Recording is off by default; then {@link #start()} returns
+ * {@code null} and the finish methods return immediately, so instrumented code pays one volatile read.
+ * Stage figures are inclusive of nested stages and exclude work handed to other threads.
+ */
+@Service(Service.Level.PROJECT)
+public final class ProfilingService {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // keyed by class, since a calculation may run its own instances of the visitors
+    private static final Map<Class<?>, MetricType> VISITOR_TYPES = new HashMap<>();
+
+    static {
+        for (MetricType type : MetricType.values()) {
+            if (type.visitor() != null) {
+                VISITOR_TYPES.put(type.visitor().getClass(), type);
+            }
+        }
+    }
+
+    public record Row(String name, long calls, long wallNanos, long cpuNanos, long allocatedBytes, long files) {
+        public double filesPerSecond() {
+            return wallNanos == 0 ? 0.0 : files * 1e9 / wallNanos;
+        }
+    }
+
+    private volatile boolean enabled;
+    private final Map<String, Sample> stages = new ConcurrentHashMap<>();
+    private final Map<MetricType, Sample> visitors = new ConcurrentHashMap<>();
+    private final ThreadLocal<Sample> currentStage = new ThreadLocal<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (enabled && !THREADS.isThreadCpuTimeEnabled() && THREADS.isThreadCpuTimeSupported()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+        this.enabled = enabled;
+    }
+
+    public void reset() {
+        stages.clear();
+        visitors.clear();
+    }
+
+    public boolean isEmpty() {
+        return stages.isEmpty() && visitors.isEmpty();
+    }
+
+    /**
+     * @return a probe started on the current thread, or {@code null} if recording is off
+     */
+    @Nullable
+    public Probe start() {
+        return enabled ? new Probe() : null;
+    }
+
+    public <T> T stage(@NotNull String name, @Nullable Module module, @NotNull Supplier<T> work) {
+        Probe probe = start();
+        if (probe == null) {
+            return work.get();
+        }
+        Sample sample = stages.computeIfAbsent(module == null ? name : name + " [" + module.getName() + "]",
+                key -> new Sample());
+        Sample outer = currentStage.get();
+        currentStage.set(sample);
+        try {
+            return work.get();
+        } finally {
+            currentStage.set(outer);
+            probe.stop(sample);
+        }
+    }
+
+    public void visitorFinished(@Nullable Probe probe, @NotNull PsiElementVisitor visitor) {
+        if (probe == null) {
+            return;
+        }
+        MetricType type = VISITOR_TYPES.get(visitor.getClass());
+        if (type != null) {
+            probe.stop(visitors.computeIfAbsent(type, key -> new Sample()));
+        }
+    }
+
+    /**
+     * Counts processed files towards the stage running on the current thread.
+     */
+    public void filesProcessed(int files) {
+        Sample sample = currentStage.get();
+        if (sample != null) {
+            sample.files.add(files);
+        }
+    }
+
+    /**
+     * @return stages in the order of decreasing wall time
+     */
+    public List<Row> getStages() {
+        return rows(stages);
+    }
+
+    /**
+     * @return visitors in the order of decreasing wall time
+     */
+    public List<Row> getVisitors() {
+        return rows(visitors);
+    }
+
+    private static <K> List<Row> rows(Map<K, Sample> samples) {
+        List<Row> rows = new ArrayList<>();
+        samples.forEach((key, sample) -> rows.add(sample.toRow(key instanceof MetricType
+                ? ((MetricType) key).name() : key.toString())));
+        rows.sort(Comparator.comparingLong(Row::wallNanos).reversed());
+        return rows;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    public static final class Probe {
+        private final long wall = System.nanoTime();
+        private final long cpu = THREADS.getCurrentThreadCpuTime();
+        private final long allocated = allocatedBytes();
+
+        private Probe() {
+        }
+
+        private void stop(Sample sample) {
+            sample.calls.increment();
+            sample.wallNanos.add(System.nanoTime() - wall);
+            sample.cpuNanos.add(Math.max(0, THREADS.getCurrentThreadCpuTime() - cpu));
+            sample.allocatedBytes.add(Math.max(0, allocatedBytes() - allocated));
+        }
+    }
+
+    private static final class Sample {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder files = new LongAdder();
+
+        private Row toRow(String name) {
+            return new Row(name, calls.sum(), wallNanos.sum(), cpuNanos.sum(), allocatedBytes.sum(), files.sum());
+        }
+    }
+}
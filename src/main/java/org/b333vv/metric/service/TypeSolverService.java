@@ -0,0 +1,79 @@
+package org.b333vv.metric.service;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.b333vv.metric.model.javaparser.util.ProjectTypeSolver;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps one JavaParser type solver per project, so that repeated JavaParser calculations in a
+ * session reuse the indexed libraries and only re-read the project sources that changed.
+ */
+@Service(Service.Level.PROJECT)
+public final class TypeSolverService implements Disposable {
+    private static final Logger LOG = Logger.getInstance(TypeSolverService.class);
+    private final Project project;
+    private final ProjectTypeSolver typeSolver;
+
+    public TypeSolverService(Project project) {
+        this.project = project;
+        this.typeSolver = new ProjectTypeSolver(getClass().getClassLoader());
+    }
+
+    public synchronized TypeSolver getTypeSolver(List<CompilationUnit> allUnits) {
+        typeSolver.setSourceRoots(getSourceRoots());
+        typeSolver.setLibraries(getLibraries());
+        typeSolver.updateDeclarations(allUnits);
+        return typeSolver;
+    }
+
+    private List<Path> getSourceRoots() {
+        List<Path> sourceRoots = new ArrayList<>();
+        for (VirtualFile sourceRoot : ProjectRootManager.getInstance(project).getContentSourceRoots()) {
+            try {
+                sourceRoots.add(sourceRoot.toNioPath());
+            } catch (UnsupportedOperationException e) {
+                // In test environment, temp filesystem can't be converted to NIO Path
+                // This is OK because the project declarations handle the types
+                LOG.debug("Skipping temp filesystem source root: " + sourceRoot.getPath());
+            }
+        }
+        return sourceRoots;
+    }
+
+    // Modules usually share most of their libraries, each JAR is indexed once
+    private Set<String> getLibraries() {
+        Set<String> libraries = new LinkedHashSet<>();
+        for (Module module : ModuleManager.getInstance(project).getModules()) {
+            for (VirtualFile classesRoot : OrderEnumerator.orderEntries(module).recursively().librariesOnly().getClassesRoots()) {
+                if (!classesRoot.isDirectory()) {
+                    String path = classesRoot.getPath();
+                    if (path.contains("!/")) {
+                        path = path.substring(0, path.indexOf("!/"));
+                    }
+                    libraries.add(path);
+                }
+            }
+        }
+        return libraries;
+    }
+
+    @Override
+    public void dispose() {
+        typeSolver.clear();
+    }
+}
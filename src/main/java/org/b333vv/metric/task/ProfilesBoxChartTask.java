@@ -49,7 +49,7 @@ public class ProfilesBoxChartTask extends Task.Backgroundable {
         if (boxChartStructures == null) {
             myProject.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).printInfo(STARTED_MESSAGE);
             Map<FitnessFunction, Set<ClassElement>> classesByProfile = myProject.getService(CacheService.class)
-                    .getClassesByProfile();
+                    .getClassLevelFitnessFunctions(null);
             ProfileBoxChartDataCalculator calculator = new ProfileBoxChartDataCalculator();
             boxChartStructures = calculator.calculate(classesByProfile);
             myProject.getService(CacheService.class).putUserData(CacheService.BOX_CHARTS, boxChartStructures);
@@ -48,7 +48,7 @@ public class ProfilesCategoryChartTask extends Task.Backgroundable {
         if (categoryChart == null) {
             myProject.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).printInfo(STARTED_MESSAGE);
             Map<FitnessFunction, Set<ClassElement>> classesByProfile = myProject.getService(CacheService.class)
-                    .getClassesByProfile();
+                    .getClassLevelFitnessFunctions(null);
             ProfileCategoryChartDataCalculator calculator = new ProfileCategoryChartDataCalculator();
             categoryChart = calculator.calculate(classesByProfile);
             myProject.getService(CacheService.class).putUserData(CacheService.PROFILE_CATEGORY_CHART, categoryChart);
@@ -47,7 +47,7 @@ public class ProfilesHeatMapChartTask extends Task.Backgroundable {
         if (heatMapChart == null) {
             myProject.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).printInfo(STARTED_MESSAGE);
             Map<FitnessFunction, Set<ClassElement>> classesByProfile = myProject.getService(CacheService.class)
-                    .getClassesByProfile();
+                    .getClassLevelFitnessFunctions(null);
             ProfileHeatMapDataCalculator calculator = new ProfileHeatMapDataCalculator();
             heatMapChart = calculator.calculate(classesByProfile);
             myProject.getService(CacheService.class).putUserData(CacheService.HEAT_MAP_CHART, heatMapChart);
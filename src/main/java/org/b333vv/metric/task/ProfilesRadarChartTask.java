@@ -49,7 +49,7 @@ public class ProfilesRadarChartTask extends Task.Backgroundable {
         if (radarCharts == null) {
             myProject.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).printInfo(STARTED_MESSAGE);
             Map<FitnessFunction, Set<ClassElement>> classesByProfile = myProject.getService(CacheService.class)
-                    .getClassesByProfile();
+                    .getClassLevelFitnessFunctions(null);
             ProfileRadarDataCalculator calculator = new ProfileRadarDataCalculator();
             radarCharts = calculator.calculate(classesByProfile, myProject);
             myProject.getService(CacheService.class).putUserData(CacheService.RADAR_CHART, radarCharts);
@@ -18,8 +18,8 @@ package org.b333vv.metric.ui.chart.builder;
 
 import com.intellij.openapi.editor.colors.EditorColorsManager;
 import com.intellij.util.ui.UIUtil;
+import org.b333vv.metric.builder.ClassProfileMembership;
 import org.b333vv.metric.model.code.ClassElement;
-import org.b333vv.metric.model.code.CodeElement;
 import org.b333vv.metric.model.metric.MetricLevel;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
@@ -36,6 +36,7 @@ public class ProfileBoxChartBuilder {
 
     public List<BoxChartStructure> createChart(Map<FitnessFunction, Set<ClassElement>> classesByMetricProfile) {
         List<BoxChartStructure> boxCharts = new ArrayList<>();
+        ClassProfileMembership membership = ClassProfileMembership.from(classesByMetricProfile);
         // Map<FitnessFunction, Set<JavaClass>>
         // classesByMetricProfileWithoutEmptyMetrics =
         // classesByMetricProfile.entrySet().stream()
@@ -46,15 +47,15 @@ public class ProfileBoxChartBuilder {
         for (MetricType mt : MetricType.values()) {
             if (mt.level() == MetricLevel.CLASS) {
                 Map<String, List<Double>> series = new LinkedHashMap<>();
-                for (Map.Entry<FitnessFunction, Set<ClassElement>> profileEntry : classesByMetricProfile.entrySet()) {
-                    var values = profileEntry.getValue().stream()
-                            .flatMap(CodeElement::metrics)
-                            .filter(metric -> metric.getType() == mt)
+                for (int p = 0; p < membership.getProfiles().size(); p++) {
+                    var values = membership.classes(p)
+                            .map(javaClass -> javaClass.metric(mt))
+                            .filter(Objects::nonNull)
                             .map(metric -> metric.getPsiValue() == null ? 0.0 : metric.getPsiValue().doubleValue())
                             .filter(value -> !Double.isInfinite(value) && !Double.isNaN(value))
                             .toList();
                     if (!values.isEmpty()) {
-                        series.put(profileEntry.getKey().name(), values);
+                        series.put(membership.getProfiles().get(p).name(), values);
                     }
                 }
 
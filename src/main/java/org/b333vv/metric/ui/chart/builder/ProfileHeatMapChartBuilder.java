@@ -19,8 +19,8 @@ package org.b333vv.metric.ui.chart.builder;
 import com.intellij.openapi.editor.colors.EditorColorsManager;
 import com.intellij.ui.JBColor;
 import com.intellij.util.ui.UIUtil;
+import org.b333vv.metric.builder.ClassProfileMembership;
 import org.b333vv.metric.model.code.ClassElement;
-import org.b333vv.metric.model.util.CommonUtils;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
 import org.knowm.xchart.HeatMapChart;
 import org.knowm.xchart.HeatMapChartBuilder;
@@ -33,40 +33,33 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class ProfileHeatMapChartBuilder {
-    private Map<FitnessFunction, Set<ClassElement>> classesByMetricProfile;
-
     public HeatMapChart createChart(Map<FitnessFunction, Set<ClassElement>> classesByMetricProfile) {
-        this.classesByMetricProfile = classesByMetricProfile;
         HeatMapChart chart = new HeatMapChartBuilder()
                 .title("Correlation Between Metric Profiles")
                 .width(50)
                 .height(50)
                 .build();
 
-        Set<FitnessFunction> profiles = new TreeSet<>();
-
-        for (Map.Entry<FitnessFunction, Set<ClassElement>> profileEntry : classesByMetricProfile.entrySet()) {
-            if (profileEntry.getValue() != null && !profileEntry.getValue().isEmpty()) {
-                profiles.add(profileEntry.getKey());
+        ClassProfileMembership membership = ClassProfileMembership.from(classesByMetricProfile);
+        List<FitnessFunction> profiles = new ArrayList<>();
+        List<Integer> profileIndexes = new ArrayList<>();
+        for (int p = 0; p < membership.getProfiles().size(); p++) {
+            if (membership.classCount(p) > 0) {
+                profiles.add(membership.getProfiles().get(p));
+                profileIndexes.add(p);
             }
         }
 
         List<Number[]> heatData = new ArrayList<>();
-
-        int i = 0;
-        int j = 0;
-        for (FitnessFunction fitnessFunction1 : profiles) {
-            for (FitnessFunction fitnessFunction2 : profiles) {
+        for (int i = 0; i < profileIndexes.size(); i++) {
+            for (int j = 0; j < profileIndexes.size(); j++) {
                 Number[] numbers = {
                         i,
                         j,
-                        getHeatData(fitnessFunction1, fitnessFunction2)
+                        getHeatData(membership, profileIndexes.get(i), profileIndexes.get(j))
                 };
                 heatData.add(numbers);
-                j++;
             }
-            j = 0;
-            i++;
         }
 
         List<String> xData = profiles.stream()
@@ -117,13 +110,9 @@ public class ProfileHeatMapChartBuilder {
         return chart;
     }
 
-    private Number getHeatData(FitnessFunction profile1, FitnessFunction profile2) {
-        Set<ClassElement> classesInProfile1 = new HashSet<>(classesByMetricProfile.get(profile1));
-        Set<ClassElement> classesInProfile2 = new HashSet<>(classesByMetricProfile.get(profile2));
-        int intersectSize = CommonUtils.sizeOfIntersection(classesInProfile1, classesInProfile2);
-        classesInProfile1.addAll(classesInProfile2);
-        int unionSize = classesInProfile1.size();
-
+    private Number getHeatData(ClassProfileMembership membership, int profile1, int profile2) {
+        int intersectSize = membership.intersectionSize(profile1, profile2);
+        int unionSize = membership.unionSize(profile1, profile2);
         return Math.floor((double) intersectSize / (double) unionSize * 100) / 100;
     }
 
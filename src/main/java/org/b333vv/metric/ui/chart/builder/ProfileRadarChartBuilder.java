@@ -20,10 +20,12 @@ import com.intellij.openapi.editor.colors.EditorColorsManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.ui.JBColor;
 import com.intellij.util.ui.UIUtil;
+import org.b333vv.metric.builder.ClassProfileMembership;
 import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricLevel;
 import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeTable;
 import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
 import org.b333vv.metric.ui.settings.ranges.BasicMetricsValidRangesSettings;
@@ -40,7 +42,6 @@ import java.util.stream.Collectors;
 
 public class ProfileRadarChartBuilder {
     private final Project project;
-    private Map<FitnessFunction, Set<ClassElement>> classesByMetricProfile;
 
     public ProfileRadarChartBuilder(Project project) {
         this.project = project;
@@ -49,8 +50,6 @@ public class ProfileRadarChartBuilder {
     public List<RadarChartStructure> createChart(Map<FitnessFunction, Set<ClassElement>> classesByMetricProfile,
             Project project) {
 
-        this.classesByMetricProfile = classesByMetricProfile;
-
         BasicMetricsValidRangesSettings basicMetricsValidRangesSettings = project
                 .getService(SettingsService.class).getBasicMetricsSettings();
         // BasicMetricsValidRangesSettings basicMetricsValidRangesSettings =
@@ -71,17 +70,20 @@ public class ProfileRadarChartBuilder {
             }
         }
 
-        List<FitnessFunction> profiles = new ArrayList<>();
-        for (Map.Entry<FitnessFunction, Set<ClassElement>> profileEntry : classesByMetricProfile.entrySet()) {
-            if (profileEntry.getValue() != null && !profileEntry.getValue().isEmpty()) {
-                profiles.add(profileEntry.getKey());
+        ClassProfileMembership membership = ClassProfileMembership.from(classesByMetricProfile);
+        List<Integer> profiles = new ArrayList<>();
+        for (int p = 0; p < membership.getProfiles().size(); p++) {
+            if (membership.classCount(p) > 0) {
+                profiles.add(p);
             }
         }
         List<RadarChartStructure> chartStructures = new ArrayList<>();
-        for (FitnessFunction profile : profiles) {
+        RangeTable rangeTable = profiles.isEmpty() ? RangeTable.EMPTY : project.getService(SettingsService.class).getRangeTable();
+        for (int profileIndex : profiles) {
+            FitnessFunction profile = membership.getProfiles().get(profileIndex);
             double[] numbers = new double[metrics.size()];
             for (int i = 0; i < metrics.size(); i++) {
-                numbers[i] = getData(metrics.get(i), profile);
+                numbers[i] = getData(metrics.get(i), membership, profileIndex, rangeTable);
             }
             RadarChart chart = new RadarChartBuilder()
                     .width(200)
@@ -108,8 +110,7 @@ public class ProfileRadarChartBuilder {
             chart.getStyler().setToolTipHighlightColor(backgroundColor);
             chart.getStyler().setToolTipType(Styler.ToolTipType.xAndYLabels);
 
-            Set<ClassElement> javaClasses = classesByMetricProfile.get(profile);
-            Map<ClassElement, List<Metric>> classSetMap = javaClasses.stream()
+            Map<ClassElement, List<Metric>> classSetMap = membership.classes(profileIndex)
                     .collect(Collectors.toMap(Function.identity(), m -> m.metrics()
                             .filter(metric -> shouldInclude(metric, metrics)).collect(Collectors.toList())));
 
@@ -130,30 +131,23 @@ public class ProfileRadarChartBuilder {
         return false;
     }
 
-    private double getData(MetricType metricType, FitnessFunction profile) {
-        long classesNumber = classesByMetricProfile.entrySet().stream()
-                .filter(e -> e.getKey().equals(profile))
-                .findFirst()
-                .get().getValue().stream()
-                .flatMap(ClassElement::metrics)
-                .filter(m -> m.getType() == metricType)
-                .count();
-
+    private double getData(MetricType metricType, ClassProfileMembership membership, int profile, RangeTable rangeTable) {
+        long classesNumber = 0;
+        long invalidMetricValueClassesNumber = 0;
+        BitSet classes = membership.classesOf(profile);
+        for (int i = classes.nextSetBit(0); i >= 0; i = classes.nextSetBit(i + 1)) {
+            Metric metric = membership.getClasses().get(i).metric(metricType);
+            if (metric != null) {
+                classesNumber++;
+                if (rangeTable.classify(metricType, metric.getPsiValue()) != RangeType.REGULAR) {
+                    invalidMetricValueClassesNumber++;
+                }
+            }
+        }
         // Prevent division by zero which would produce infinity
         if (classesNumber == 0) {
             return 0.0;
         }
-
-        long invalidMetricValueClassesNumber = classesByMetricProfile.entrySet().stream()
-                .filter(e -> e.getKey().equals(profile))
-                .findFirst()
-                .get().getValue().stream()
-                .flatMap(ClassElement::metrics)
-                .filter(m -> m.getType() == metricType)
-                .filter(metric -> project.getService(SettingsService.class).getRangeForMetric(metric.getType())
-                        .getRangeType(metric.getPsiValue()) != RangeType.REGULAR)
-                .count();
-
         return Math.floor((double) invalidMetricValueClassesNumber / (double) classesNumber * 100) / 100;
     }
 
@@ -17,6 +17,7 @@ import kotlin.Unit;
 import kotlin.jvm.functions.Function2;
 import org.b333vv.metric.builder.ClassModelBuilder;
 import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.CodeElement;
 import org.b333vv.metric.model.code.FileElement;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.util.SettingsService;
@@ -25,8 +26,9 @@ import org.jetbrains.annotations.NotNull;
 
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static com.intellij.ide.util.gotoByName.ChooseByNamePopup.createPopup;
@@ -82,7 +84,7 @@ public class MetricsTreeCodeVisionProvider implements DaemonBoundCodeVisionProvi
     public @NotNull List<Pair<TextRange, CodeVisionEntry>> computeForEditor(@NotNull Editor editor, @NotNull PsiFile file) {
         List<Pair<TextRange, CodeVisionEntry>> lenses = new ArrayList<>();
         String languageId = file.getLanguage().getID();
-        if (!"JAVA".equalsIgnoreCase(languageId)) {
+        if (!"JAVA".equalsIgnoreCase(languageId) && !"kotlin".equalsIgnoreCase(languageId)) {
             return lenses;
         }
 
@@ -90,48 +92,63 @@ public class MetricsTreeCodeVisionProvider implements DaemonBoundCodeVisionProvi
             return lenses;
         }
 
-        if (!(file instanceof PsiJavaFile psiJavaFile)) {
+        Map<PsiElement, CodeElement> elements = CachedValuesManager.getCachedValue(file, () -> {
+            ClassModelBuilder classModelBuilder = new ClassModelBuilder(file.getProject());
+            FileElement fe = classModelBuilder.buildFileIncrementally(file);
+            return CachedValueProvider.Result.create(indexByPsiElement(fe), file);
+        });
+        if (elements.isEmpty()) {
             return lenses;
         }
 
-        FileElement javaFile = CachedValuesManager.getCachedValue(psiJavaFile, () -> {
-            ClassModelBuilder classModelBuilder = new ClassModelBuilder(psiJavaFile.getProject());
-            FileElement jf = classModelBuilder.buildJavaFile(psiJavaFile);
-            return CachedValueProvider.Result.create(jf, psiJavaFile);
-        });
-
+        SettingsService settingsService = file.getProject().getService(SettingsService.class);
         SyntaxTraverser<PsiElement> traverser = SyntaxTraverser.psiTraverser(file);
         for (PsiElement element : traverser) {
-            Pair<String, List<MetricType>> hint = null;
-            if (element instanceof PsiClass) {
-                hint = getHintForClass(element, javaFile);
+            CodeElement codeElement = elements.get(element);
+            if (codeElement == null) {
+                continue;
             }
-            TextRange range = InlayHintsUtils.INSTANCE.getTextRangeWithoutLeadingCommentsAndWhitespaces(element);
-            if (hint != null) {
-//                lenses.add(new Pair<>(range, new TextCodeVisionEntry(hint, getId(), null, "", "", List.of())));
-
-                lenses.add(new Pair(range, new ClickableTextCodeVisionEntry(hint.component1(), getId(),
-                        new MyClickHandler((PsiClass) element, hint.component2()), null, hint.component1(), "", List.of())));
+            Pair<String, List<MetricType>> hint = getHint(codeElement, settingsService);
+            if (hint.component1().isEmpty()) {
+                continue;
             }
+            TextRange range = InlayHintsUtils.INSTANCE.getTextRangeWithoutLeadingCommentsAndWhitespaces(element);
+            lenses.add(new Pair(range, new ClickableTextCodeVisionEntry(hint.component1(), getId(),
+                    new MyClickHandler(element, hint.component2()), null, hint.component1(), "", List.of())));
         }
         return lenses;
     }
 
-    private Pair<String, List<MetricType>> getHintForClass(PsiElement psiClass, FileElement javaFile) {
-        Optional<ClassElement> ojc = javaFile.classes().filter(c -> c.getName().equals(((PsiClass) psiClass).getName())).findFirst();
-        List<MetricType> metricTypes = new ArrayList<>();
-        if (ojc.isPresent()) {
-            String hint = ojc.get().metrics()
-                    .filter(m -> psiClass.getProject().getService(SettingsService.class).isNotRegularValue(m.getType(), m.getPsiValue()))
-                    .peek(m -> {
-                        metricTypes.add(m.getType());
-                    })
-                    .map(Object::toString)
-                    .collect(Collectors.joining(", "));
-
-            return new Pair<>(hint, metricTypes);
+    private static Map<PsiElement, CodeElement> indexByPsiElement(FileElement fileElement) {
+        Map<PsiElement, CodeElement> elements = new IdentityHashMap<>();
+        if (fileElement != null) {
+            fileElement.classes().forEach(c -> indexClass(c, elements));
         }
-        return null;
+        return elements;
+    }
+
+    private static void indexClass(ClassElement classElement, Map<PsiElement, CodeElement> elements) {
+        PsiElement psiClass = classElement.getPsiElement();
+        if (psiClass != null) {
+            elements.put(psiClass, classElement);
+        }
+        classElement.methods().forEach(m -> {
+            PsiElement psiMethod = m.getPsiElement();
+            if (psiMethod != null) {
+                elements.put(psiMethod, m);
+            }
+        });
+        classElement.innerClasses().forEach(c -> indexClass(c, elements));
+    }
+
+    private Pair<String, List<MetricType>> getHint(CodeElement codeElement, SettingsService settingsService) {
+        List<MetricType> metricTypes = new ArrayList<>();
+        String hint = codeElement.metrics()
+                .filter(m -> settingsService.isNotRegularValue(m.getType(), m.getPsiValue()))
+                .peek(m -> metricTypes.add(m.getType()))
+                .map(Object::toString)
+                .collect(Collectors.joining(", "));
+        return new Pair<>(hint, metricTypes);
     }
 
     @Override
@@ -143,11 +160,11 @@ public class MetricsTreeCodeVisionProvider implements DaemonBoundCodeVisionProvi
 
     static class MyClickHandler implements Function2<MouseEvent, Editor, Unit> {
 
-        private final PsiClass psiClass;
+        private final PsiElement psiElement;
         private final List<MetricType> metricTypes;
 
-        public MyClickHandler(PsiClass value1, List<MetricType> value2) {
-            psiClass = value1;
+        public MyClickHandler(PsiElement value1, List<MetricType> value2) {
+            psiElement = value1;
             metricTypes = value2;
         }
 
@@ -24,8 +24,11 @@ import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.metric.value.Value;
 import org.b333vv.metric.util.EditorUtils;
 
+import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 
 public class ClassesByRangesTable {
     private final Model model;
@@ -34,6 +37,15 @@ public class ClassesByRangesTable {
     private final Project project;
 
     public ClassesByRangesTable(List<ClassByRange> classByRanges, Project project) {
+        this(classByRanges, project, loaded -> List.of());
+    }
+
+    /**
+     * @param nextPage supplies the rows following the given number of rows already shown, requested whenever the
+     *                 table is scrolled to its end
+     */
+    public ClassesByRangesTable(List<ClassByRange> classByRanges, Project project,
+                                IntFunction<List<ClassByRange>> nextPage) {
         this.classByRanges = classByRanges;
         this.project = project;
 
@@ -57,6 +69,15 @@ public class ClassesByRangesTable {
         });
 
         panel = new JBScrollPane(table);
+        panel.getVerticalScrollBar().addAdjustmentListener(event -> {
+            BoundedRangeModel scroll = panel.getVerticalScrollBar().getModel();
+            if (!event.getValueIsAdjusting() && scroll.getValue() + scroll.getExtent() >= scroll.getMaximum()) {
+                List<ClassByRange> more = nextPage.apply(model.getRowCount());
+                if (!more.isEmpty()) {
+                    model.append(more);
+                }
+            }
+        });
     }
 
     public JBScrollPane getComponent() {
@@ -68,7 +89,7 @@ public class ClassesByRangesTable {
     }
 
     private class Model extends AbstractTableModel {
-        private List<ClassByRange> rows = classByRanges;
+        private List<ClassByRange> rows = new ArrayList<>(classByRanges);
 
         @Override
         public int getRowCount() {
@@ -100,10 +121,16 @@ public class ClassesByRangesTable {
         }
 
         public void set(List<ClassByRange> rows) {
-            this.rows = rows;
+            this.rows = new ArrayList<>(rows);
             fireTableDataChanged();
         }
 
+        public void append(List<ClassByRange> more) {
+            int first = rows.size();
+            rows.addAll(more);
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+
         @Override
         public Object getValueAt(int row, int column) {
             ClassByRange classByRange = rows.get(row);
@@ -154,17 +154,17 @@ public class ClassesForProfileTable {
                 cell.setForeground(UIUtil.getPanelBackground());
                 Metric metric = (Metric) value;
                 setHorizontalAlignment(SwingConstants.CENTER);
-                if (project.getService(SettingsService.class).getRangeForMetric(metric.getType())
-                        .getRangeType(metric.getPsiValue()) == RangeType.REGULAR) {
+                if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(),
+                        metric.getPsiValue()) == RangeType.REGULAR) {
                     cell.setBackground(regularColor);
-                } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType())
-                        .getRangeType(metric.getPsiValue()) == RangeType.HIGH) {
+                } else if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(),
+                        metric.getPsiValue()) == RangeType.HIGH) {
                     cell.setBackground(highColor);
-                } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType())
-                        .getRangeType(metric.getPsiValue()) == RangeType.VERY_HIGH) {
+                } else if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(),
+                        metric.getPsiValue()) == RangeType.VERY_HIGH) {
                     cell.setBackground(veryHighColor);
-                } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType())
-                        .getRangeType(metric.getPsiValue()) == RangeType.EXTREME) {
+                } else if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(),
+                        metric.getPsiValue()) == RangeType.EXTREME) {
                     cell.setBackground(extremeColor);
                 }
             } else {
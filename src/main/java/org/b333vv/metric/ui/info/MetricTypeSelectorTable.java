@@ -168,8 +168,8 @@ public class MetricTypeSelectorTable {
             return javaClasses.stream()
                     .map(javaClass -> javaClass.metric(metricType))
                     .filter(Objects::nonNull)
-                    .anyMatch(metric -> project.getService(SettingsService.class).getRangeForMetric(metricType)
-                            .getRangeType(metric.getPsiValue()) == rangeType);
+                    .anyMatch(metric -> project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metricType,
+                            metric.getPsiValue()) == rangeType);
         }
     }
 }
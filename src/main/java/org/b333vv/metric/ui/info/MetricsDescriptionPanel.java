@@ -114,19 +114,19 @@ public class MetricsDescriptionPanel {
         showDescription(metric.getType().url());
 
         if (this.project.getService(SettingsService.class).isControlValidRanges()) {
-            if (this.project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.REGULAR) {
+            if (this.project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.REGULAR) {
                 currentValue.setIcon(MetricsIcons.REGULAR_COLOR);
             }
-            if (this.project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.HIGH) {
+            if (this.project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.HIGH) {
                 currentValue.setIcon(MetricsIcons.HIGH_COLOR);
             }
-            if (this.project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.VERY_HIGH) {
+            if (this.project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.VERY_HIGH) {
                 currentValue.setIcon(MetricsIcons.VERY_HIGH_COLOR);
             }
-            if (this.project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.EXTREME) {
+            if (this.project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.EXTREME) {
                 currentValue.setIcon(MetricsIcons.EXTREME_COLOR);
             }
-            if (this.project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.UNDEFINED) {
+            if (this.project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.UNDEFINED) {
                 currentValue.setIcon(MetricsIcons.NOT_TRACKED);
             }
         } else {
@@ -222,16 +222,16 @@ public class MetricsSummaryTable {
             if (metric.getPsiValue() == Value.UNDEFINED) {
                 return MetricsIcons.NA;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.REGULAR) {
+            if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.REGULAR) {
                 return MetricsIcons.REGULAR_COLOR;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.HIGH) {
+            if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.HIGH) {
                 return MetricsIcons.HIGH_COLOR;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.VERY_HIGH) {
+            if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.VERY_HIGH) {
                 return MetricsIcons.VERY_HIGH_COLOR;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.EXTREME) {
+            if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue()) == RangeType.EXTREME) {
                 return MetricsIcons.EXTREME_COLOR;
             }
             return MetricsIcons.NOT_TRACKED;
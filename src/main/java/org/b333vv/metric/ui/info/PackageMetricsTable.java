@@ -174,8 +174,8 @@ public class PackageMetricsTable {
         }
 
         private Icon getImageForRow(double distance) {
-            if (project.getService(SettingsService.class).getRangeForMetric(MetricType.D)
-                    .getRangeType(Value.of(distance)) == RangeType.REGULAR) {
+            if (project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(MetricType.D,
+                    Value.of(distance)) == RangeType.REGULAR) {
                 return MetricsIcons.REGULAR_COLOR;
             }
             return MetricsIcons.EXTREME_COLOR;
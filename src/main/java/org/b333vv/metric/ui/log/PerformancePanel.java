@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.ui.log;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.DumbAwareToggleAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import org.b333vv.metric.service.CacheBudget;
+import org.b333vv.metric.service.CacheService;
+import org.b333vv.metric.service.ProfilingService;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.List;
+
+public class PerformancePanel extends SimpleToolWindowPanel {
+    private static final String ID = "MetricsPerformance";
+
+    private final Project project;
+    private final ProfilingService profilingService;
+    private final Model stages = new Model("Stage");
+    private final Model visitors = new Model("Visitor");
+    private final JBLabel cacheLabel = new JBLabel();
+
+    public PerformancePanel(Project project) {
+        super(false, true);
+        this.project = project;
+        this.profilingService = project.getService(ProfilingService.class);
+
+        JBSplitter splitter = new JBSplitter(true, 0.4f);
+        splitter.setFirstComponent(new JBScrollPane(createTable(stages)));
+        splitter.setSecondComponent(new JBScrollPane(createTable(visitors)));
+        JPanel content = new JPanel(new BorderLayout());
+        cacheLabel.setBorder(JBUI.Borders.empty(4));
+        content.add(cacheLabel, BorderLayout.NORTH);
+        content.add(splitter, BorderLayout.CENTER);
+        super.setContent(content);
+        addToolbar();
+        refresh();
+    }
+
+    private static JBTable createTable(Model model) {
+        JBTable table = new JBTable(model);
+        table.setShowVerticalLines(false);
+        table.getEmptyText().setText("Turn on recording and run a calculation");
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setAutoCreateRowSorter(true);
+        return table;
+    }
+
+    private void addToolbar() {
+        DefaultActionGroup actionGroup = new DefaultActionGroup();
+        actionGroup.add(new DumbAwareToggleAction("Record Performance", "Record timings of the next calculations",
+                AllIcons.Actions.Profile) {
+            @Override
+            public boolean isSelected(@NotNull AnActionEvent e) {
+                return profilingService.isEnabled();
+            }
+
+            @Override
+            public void setSelected(@NotNull AnActionEvent e, boolean state) {
+                profilingService.setEnabled(state);
+            }
+        });
+        actionGroup.add(new DumbAwareAction("Refresh", "Show the recorded timings", AllIcons.Actions.Refresh) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                refresh();
+            }
+        });
+        actionGroup.add(new DumbAwareAction("Reset", "Discard the recorded timings", AllIcons.Actions.GC) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                profilingService.reset();
+                refresh();
+            }
+        });
+        ActionToolbar mainToolbar = ActionManager.getInstance().createActionToolbar(ID, actionGroup, false);
+        mainToolbar.setTargetComponent(this);
+        Box toolBarBox = Box.createHorizontalBox();
+        toolBarBox.add(mainToolbar.getComponent());
+
+        super.setToolbar(toolBarBox);
+        mainToolbar.getComponent().setVisible(true);
+    }
+
+    private void refresh() {
+        stages.set(profilingService.getStages());
+        visitors.set(profilingService.getVisitors());
+        CacheBudget.Statistics statistics = project.getService(CacheService.class).getCacheStatistics();
+        long lookups = statistics.hits() + statistics.misses();
+        cacheLabel.setText(String.format("Metrics cache: %s, hit ratio %.1f%%", statistics,
+                lookups == 0 ? 0.0 : 100.0 * statistics.hits() / lookups));
+    }
+
+    private static class Model extends AbstractTableModel {
+        private final String title;
+        private List<ProfilingService.Row> rows = List.of();
+
+        private Model(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 7;
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            switch (column) {
+                case 0:
+                    return title;
+                case 1:
+                    return "Calls";
+                case 2:
+                    return "Wall, ms";
+                case 3:
+                    return "CPU, ms";
+                case 4:
+                    return "Allocated, KB";
+                case 5:
+                    return "Files";
+                case 6:
+                    return "Files/s";
+                default:
+                    return "";
+            }
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0:
+                    return String.class;
+                case 6:
+                    return Double.class;
+                default:
+                    return Long.class;
+            }
+        }
+
+        public void set(List<ProfilingService.Row> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ProfilingService.Row stage = rows.get(row);
+            switch (column) {
+                case 0:
+                    return stage.name();
+                case 1:
+                    return stage.calls();
+                case 2:
+                    return stage.wallNanos() / 1_000_000;
+                case 3:
+                    return stage.cpuNanos() / 1_000_000;
+                case 4:
+                    return stage.allocatedBytes() / 1024;
+                case 5:
+                    return stage.files();
+                case 6:
+                    return Math.round(stage.filesPerSecond() * 10) / 10.0;
+                default:
+                    return "";
+            }
+        }
+    }
+}
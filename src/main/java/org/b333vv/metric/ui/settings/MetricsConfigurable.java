@@ -25,6 +25,7 @@ import org.b333vv.metric.ui.settings.fitnessfunction.ClassLevelFitnessFunctions;
 import org.b333vv.metric.ui.settings.ranges.BasicMetricsValidRangesSettings;
 import org.b333vv.metric.ui.settings.ranges.DerivativeMetricsValidRangesSettings;
 import org.b333vv.metric.util.SettingsService;
+import org.b333vv.metric.event.MetricsEventListener;
 import org.b333vv.metric.service.CacheService;
 import org.jetbrains.annotations.Nls;
 
@@ -89,12 +90,21 @@ public class MetricsConfigurable implements Configurable, Configurable.NoMargin,
     @Override
     public void apply() {
         if (panel != null) {
+            boolean rangesModified = panel.isModified(basicMetricsValidRangesSettings)
+                    || panel.isModified(derivativeMetricsValidRangesSettings);
             panel.save(basicMetricsValidRangesSettings);
             panel.save(derivativeMetricsValidRangesSettings);
             basicMetricsValidRangesSettings.clearTemporaryControlledMetrics();
             basicMetricsValidRangesSettings.clearTemporaryUnControlledMetrics();
+            if (rangesModified) {
+                project.getService(SettingsService.class).rangeSettingsChanged();
+            }
             panel.save(classMetricsTreeSettings);
-            panel.save(classLevelFitnessFunctions);
+            if (panel.isModified(classLevelFitnessFunctions)) {
+                panel.save(classLevelFitnessFunctions);
+                cacheService.invalidateClassProfiles();
+                project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).clearClassFitnessFunctionPanel();
+            }
             panel.save(packageLevelFitnessFunctions);
             panel.save(otherSettings);
         }
@@ -102,8 +112,13 @@ public class MetricsConfigurable implements Configurable, Configurable.NoMargin,
 
     @Override
     public void reset() {
+        boolean rangesModified = panel != null && (panel.isModified(basicMetricsValidRangesSettings)
+                || panel.isModified(derivativeMetricsValidRangesSettings));
         basicMetricsValidRangesSettings.returnAllToUnControlledMetrics();
         basicMetricsValidRangesSettings.returnAllToControlledMetrics();
+        if (rangesModified) {
+            project.getService(SettingsService.class).rangeSettingsChanged();
+        }
     }
 
     @Override
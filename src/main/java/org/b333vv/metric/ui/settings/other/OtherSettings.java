@@ -27,6 +27,7 @@ public final class OtherSettings implements PersistentStateComponent<OtherSettin
 
     private boolean projectMetricsStampStored;
     private boolean includeTestFiles;
+    private boolean moduleParallelCalculation;
     private CalculationEngine calculationEngine = CalculationEngine.PSI;
 
     public OtherSettings() {
@@ -37,6 +38,7 @@ public final class OtherSettings implements PersistentStateComponent<OtherSettin
 
         projectMetricsStampStored = true;
         includeTestFiles = false;
+        moduleParallelCalculation = false;
 
     }
 
@@ -48,6 +50,14 @@ public final class OtherSettings implements PersistentStateComponent<OtherSettin
         this.includeTestFiles = includeTestFiles;
     }
 
+    public boolean isModuleParallelCalculation() {
+        return moduleParallelCalculation;
+    }
+
+    public void setModuleParallelCalculation(boolean moduleParallelCalculation) {
+        this.moduleParallelCalculation = moduleParallelCalculation;
+    }
+
     public boolean isProjectMetricsStampStored() {
         return projectMetricsStampStored;
     }
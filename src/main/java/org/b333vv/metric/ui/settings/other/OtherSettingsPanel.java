@@ -31,6 +31,7 @@ public class OtherSettingsPanel implements ConfigurationPanel<OtherSettings> {
     private final Project project;
     private JPanel panel;
     private JCheckBox projectMetricsStampStored;
+    private JCheckBox moduleParallelCalculation;
 
     public OtherSettingsPanel(Project project, OtherSettings settings) {
         this.project = project;
@@ -43,17 +44,20 @@ public class OtherSettingsPanel implements ConfigurationPanel<OtherSettings> {
 
     @Override
     public boolean isModified(OtherSettings settings) {
-        return settings.isProjectMetricsStampStored() != projectMetricsStampStored.isSelected();
+        return settings.isProjectMetricsStampStored() != projectMetricsStampStored.isSelected()
+                || settings.isModuleParallelCalculation() != moduleParallelCalculation.isSelected();
     }
 
     @Override
     public void save(OtherSettings settings) {
         settings.setProjectMetricsStampStored(projectMetricsStampStored.isSelected());
+        settings.setModuleParallelCalculation(moduleParallelCalculation.isSelected());
     }
 
     @Override
     public void load(OtherSettings settings) {
         projectMetricsStampStored.setSelected(settings.isProjectMetricsStampStored());
+        moduleParallelCalculation.setSelected(settings.isModuleParallelCalculation());
     }
 
     private void createUIComponents(OtherSettings settings) {
@@ -62,11 +66,17 @@ public class OtherSettingsPanel implements ConfigurationPanel<OtherSettings> {
                 "on disk during their calculation",
                 settings.isProjectMetricsStampStored());
 
+        moduleParallelCalculation = new JCheckBox("Calculate modules in parallel and assemble project " +
+                "metrics from them",
+                settings.isModuleParallelCalculation());
+
         panel = new JPanel(new GridBagLayout());
 
         JBInsets insets = JBUI.insets(2, 2, 2, 2);
 
         panel.add(projectMetricsStampStored, new GridBagConstraints(0, 0, 2, 1, 0.0, 0.0,
                 NORTHWEST, NONE, insets, 0, 0));
+        panel.add(moduleParallelCalculation, new GridBagConstraints(0, 1, 2, 1, 0.0, 0.0,
+                NORTHWEST, NONE, insets, 0, 0));
     }
 }
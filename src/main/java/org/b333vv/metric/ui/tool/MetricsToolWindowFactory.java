@@ -23,6 +23,7 @@ import com.intellij.openapi.wm.ToolWindowType;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.ui.content.Content;
 import org.b333vv.metric.ui.log.MetricsLogPanel;
+import org.b333vv.metric.ui.log.PerformancePanel;
 import org.b333vv.metric.util.EditorUtils;
 import org.jetbrains.annotations.NotNull;
 
@@ -31,6 +32,7 @@ public class MetricsToolWindowFactory implements ToolWindowFactory {
     public static final String TAB_PROJECT_METRICS_TREE = "Project Metrics";
     public static final String TAB_PROFILES = "Fitness Functions";
     public static final String TAB_LOGS = "Log";
+    public static final String TAB_PERFORMANCE = "Performance";
     public static final String TAB_METRICS_EVOLUTION = "Metrics Timeline";
 
     private static void addClassMetricsTreeTab(Project project, ToolWindow toolWindow) {
@@ -70,6 +72,13 @@ public class MetricsToolWindowFactory implements ToolWindowFactory {
         toolWindow.getContentManager().addContent(logContent);
     }
 
+    private static void addPerformanceTab(Project project, ToolWindow toolWindow) {
+        Content performanceContent = toolWindow.getContentManager().getFactory()
+                .createContent(
+                        new PerformancePanel(project), TAB_PERFORMANCE, false);
+        toolWindow.getContentManager().addContent(performanceContent);
+    }
+
     private static void addMetricsTimelineTab(Project project, ToolWindow toolWindow) {
         MetricsEvolutionPanel metricsEvolutionPanel = new MetricsEvolutionPanel(project);
         Content evolutionContent = toolWindow.getContentManager().getFactory()
@@ -85,6 +94,7 @@ public class MetricsToolWindowFactory implements ToolWindowFactory {
         addFitnessFunctionTab(project, toolWindow);
         // addMetricsTimelineTab(project, toolWindow);
         addLogTab(project, toolWindow);
+        addPerformanceTab(project, toolWindow);
         toolWindow.setType(ToolWindowType.DOCKED, null);
 
         toolWindow.setTitleActions(java.util.List.of(new org.b333vv.metric.ui.component.ModuleSelector(project, () -> {
@@ -47,8 +47,13 @@ import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nullable;
 import javax.swing.*;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 
 public abstract class MetricsTreePanel extends SimpleToolWindowPanel {
     private final String splitProportionProperty;
@@ -215,6 +220,9 @@ public abstract class MetricsTreePanel extends SimpleToolWindowPanel {
             metricsSummaryTable.set(javaMethod);
             rightPanelRepaint();
             openInEditor(javaMethod.getPsiMethod());
+        } else if (node instanceof LoadMoreNode) {
+            DefaultTreeModel model = (DefaultTreeModel) metricsTree.getModel();
+            SwingUtilities.invokeLater(() -> ((LoadMoreNode) node).loadMore(model));
         } else {
             bottomPanel.clear();
             metricsDescriptionPanel.clear();
@@ -237,6 +245,43 @@ public abstract class MetricsTreePanel extends SimpleToolWindowPanel {
         showResults(metricsTreeModel);
     }
 
+    /**
+     * Applies the current filter to the shown model and expands again the expanded nodes that are still part of it.
+     * A builder that cannot filter its model in place returns a new one, which is shown instead.
+     */
+    protected void filterTreeModel() {
+        SwingUtilities.invokeLater(() -> {
+            if (metricTreeBuilder == null) {
+                return;
+            }
+            TreeModel shownModel = metricsTree.getModel();
+            ArrayList<TreePath> expandedPaths = new ArrayList<>();
+            if (shownModel != null && shownModel.getRoot() != null) {
+                Enumeration<TreePath> expanded = metricsTree.getExpandedDescendants(new TreePath(shownModel.getRoot()));
+                if (expanded != null) {
+                    expandedPaths.addAll(Collections.list(expanded));
+                }
+            }
+            DefaultTreeModel metricsTreeModel = metricTreeBuilder.applyFilter();
+            if (metricsTreeModel != shownModel) {
+                showResults(metricsTreeModel);
+                return;
+            }
+            expandedPaths.stream()
+                    .filter(MetricsTreePanel::isInTree)
+                    .forEach(metricsTree::expandPath);
+        });
+    }
+
+    private static boolean isInTree(TreePath path) {
+        for (int i = 1; i < path.getPathCount(); i++) {
+            if (((TreeNode) path.getPathComponent(i)).getParent() != path.getPathComponent(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected void showResults(DefaultTreeModel metricsTreeModel) {
         SwingUtilities.invokeLater(() -> {
             metricsTree.setModel(metricsTreeModel);
@@ -24,12 +24,12 @@ import com.intellij.ui.ScrollPaneFactory;
 import com.intellij.ui.components.JBPanel;
 import com.intellij.ui.components.JBTabbedPane;
 import icons.MetricsIcons;
+import org.b333vv.metric.builder.ClassesRanking;
 import org.b333vv.metric.event.ButtonsEventListener;
 import org.b333vv.metric.event.MetricsEventListener;
 import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.CodeElement;
 import org.b333vv.metric.model.code.ProjectElement;
-import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.service.CacheService;
@@ -55,6 +55,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.*;
 import java.util.List;
+import java.util.function.IntFunction;
 
 import static java.util.stream.Collectors.toList;
 
@@ -131,7 +132,7 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
         rightPanel.add(scrollableTablePanel);
     }
 
-    private void showResults(Map<MetricType, Map<ClassElement, Metric>> classesByMetricTypes,
+    private void showResults(Map<MetricType, ClassesRanking> classesByMetricTypes,
             List<MetricPieChartBuilder.PieChartStructure> chartList) {
         createUIComponents(SPLIT_PROPORTION_2PANELS);
         mainPanel = new JBPanel<>(new BorderLayout());
@@ -143,7 +144,8 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
             chartPanel = new XChartPanel<>(chartStructure.pieChart());
             tabs.insertTab(chartStructure.metricType().name(), null, chartPanel,
                     chartStructure.metricType().description(), chartList.indexOf(chartStructure));
-            Map<ClassElement, Metric> classesByMetric = classesByMetricTypes.get(chartStructure.metricType());
+            ClassesRanking classesByMetric = classesByMetricTypes.getOrDefault(chartStructure.metricType(),
+                    ClassesRanking.empty(chartStructure.metricType()));
             JBTabbedPane classesByRanges = getJbTabbedPane(classesByMetric);
             rightPanelMap.put(chartList.indexOf(chartStructure), classesByRanges);
         }
@@ -208,7 +210,7 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
     }
 
     @NotNull
-    private JBTabbedPane getJbTabbedPane(Map<ClassElement, Metric> classesByMetric) {
+    private JBTabbedPane getJbTabbedPane(ClassesRanking classesByMetric) {
         JBTabbedPane classesByRanges = new JBTabbedPane();
         JBPanel<?> highRangePanel = getJbPanel(classesByMetric, RangeType.HIGH);
         classesByRanges.insertTab("High", MetricsIcons.HIGH_COLOR, highRangePanel,
@@ -223,16 +225,16 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
     }
 
     @NotNull
-    private JBPanel<?> getJbPanel(Map<ClassElement, Metric> classesByMetric, RangeType rangeType) {
-        List<ClassesByRangesTable.ClassByRange> classesByRanges = classesByMetric.entrySet().stream()
-                .filter(e -> project.getService(SettingsService.class).getRangeForMetric(e.getValue().getType())
-                        .getRangeType(e.getValue().getPsiValue()) == rangeType)
-                .map(e -> new ClassesByRangesTable.ClassByRange(e.getKey(),
-                        project.getService(SettingsService.class).getRangeForMetric(e.getValue().getType())
-                                .getRangeByRangeType(rangeType),
-                        e.getValue().getPsiValue()))
-                .collect(toList());
-        ClassesByRangesTable classesByRangesTable = new ClassesByRangesTable(classesByRanges, project);
+    private JBPanel<?> getJbPanel(ClassesRanking classesByMetric, RangeType rangeType) {
+        String range = project.getService(SettingsService.class).getRangeForMetric(classesByMetric.getMetricType())
+                .getRangeByRangeType(rangeType);
+        IntFunction<List<ClassesByRangesTable.ClassByRange>> nextPage = loaded -> {
+            List<ClassesRanking.Entry> ranked = classesByMetric.top(rangeType, loaded + ClassesRanking.PAGE_SIZE);
+            return ranked.subList(Math.min(loaded, ranked.size()), ranked.size()).stream()
+                    .map(e -> new ClassesByRangesTable.ClassByRange(e.javaClass(), range, e.metric().getPsiValue()))
+                    .collect(toList());
+        };
+        ClassesByRangesTable classesByRangesTable = new ClassesByRangesTable(nextPage.apply(0), project, nextPage);
         JBPanel<?> jbPanel = new JBPanel<>(new BorderLayout());
         jbPanel.add(classesByRangesTable.getComponent());
         return jbPanel;
@@ -300,7 +302,7 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
 
         @Override
         public void buildProjectMetricsTree() {
-            buildTreeModel();
+            filterTreeModel();
         }
 
         @Override
@@ -327,7 +329,7 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
                             project);
 //                    createUIComponents(SPLIT_PROPORTION_2PANELS);
                     showResults(treeModel);
-                    buildProjectMetricsTree();
+                    buildTreeModel();
                     project.getService(UIStateService.class).setProjectTreeActive(true);
                 } else {
                     // If still null, log an error and don't proceed
@@ -349,7 +351,7 @@ public class ProjectMetricsPanel extends MetricsTreePanel {
         @Override
         public void pieChartIsReady(@org.jetbrains.annotations.Nullable com.intellij.openapi.module.Module module) {
             SwingUtilities.invokeLater(() -> {
-                Map<MetricType, Map<ClassElement, Metric>> classesByMetricTypes = project.getService(CacheService.class)
+                Map<MetricType, ClassesRanking> classesByMetricTypes = project.getService(CacheService.class)
                         .getClassesByMetricTypes(module);
                 List<MetricPieChartBuilder.PieChartStructure> pieChartList = project.getService(CacheService.class)
                         .getPieChartList(module);
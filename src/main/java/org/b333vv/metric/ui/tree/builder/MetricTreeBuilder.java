@@ -17,7 +17,9 @@
 package org.b333vv.metric.ui.tree.builder;
 
 import com.intellij.openapi.project.Project;
+import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.CodeElement;
+import org.b333vv.metric.model.code.MethodElement;
 import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricSet;
 import org.b333vv.metric.model.metric.MetricType;
@@ -48,24 +50,51 @@ public abstract class MetricTreeBuilder {
 
     public abstract DefaultTreeModel createMetricTreeModel();
 
+    /**
+     * Applies the current filter, by building a new model unless the builder can filter its model in place.
+     *
+     * @return the model to show
+     */
+    public DefaultTreeModel applyFilter() {
+        return createMetricTreeModel();
+    }
+
+    protected ClassNode createClassNode(ClassElement javaClass) {
+        return new ClassNode(javaClass);
+    }
+
+    protected MethodNode createMethodNode(MethodElement javaMethod) {
+        return new MethodNode(javaMethod);
+    }
+
     protected void addSubClasses(ClassNode parentClassNode) {
         parentClassNode.getJavaClass().innerClasses()
-                .map(ClassNode::new)
+                .map(this::createClassNode)
                 .forEach(c -> {
                     parentClassNode.add(c);
-                    addSubClasses(c);
-                    addTypeMetricsAndMethodNodes(c);
+                    addChildren(c, () -> {
+                        addSubClasses(c);
+                        addTypeMetricsAndMethodNodes(c);
+                    });
                 });
     }
 
+    /**
+     * Adds the children of a node by running the loader, immediately unless the builder defers it until the node
+     * is first asked for its children.
+     */
+    protected void addChildren(AbstractNode node, Runnable loader) {
+        loader.run();
+    }
+
     protected void addTypeMetricsAndMethodNodes(ClassNode classNode) {
         if (getMetricsTreeFilter().isMethodMetricsVisible()) {
             classNode.getJavaClass().methods()
-                    .map(MethodNode::new)
+                    .map(this::createMethodNode)
                     .forEach(m -> {
                         classNode.add(m);
                         if (getMetricsTreeFilter().isMethodMetricsVisible()) {
-                            addMethodMetricsNodes(m);
+                            addChildren(m, () -> addMethodMetricsNodes(m));
                         }});
         }
         if (getMetricsTreeFilter().isClassMetricsVisible()) {
@@ -99,16 +128,17 @@ public abstract class MetricTreeBuilder {
 
     protected boolean mustBeShown(Metric metric) {
         MetricsTreeFilter metricsTreeFilter = getMetricsTreeFilter();
+        RangeType rangeType = project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue());
         return metricsTreeFilter.isAllowedValueMetricsVisible()
                     && metric.getPsiValue() != Value.UNDEFINED
-                    && project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.REGULAR
+                    && rangeType == RangeType.REGULAR
                 || metricsTreeFilter.isDisallowedValueMetricsVisible()
                     && metric.getPsiValue() != Value.UNDEFINED
-                    && project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) != RangeType.REGULAR
-                    && project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) != RangeType.UNDEFINED
+                    && rangeType != RangeType.REGULAR
+                    && rangeType != RangeType.UNDEFINED
                 || metricsTreeFilter.isNotSetValueMetricsVisible()
                     && metric.getPsiValue() != Value.UNDEFINED
-                    && project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.UNDEFINED
+                    && rangeType == RangeType.UNDEFINED
                 || metricsTreeFilter.isNotApplicableMetricsVisible()
                     && metric.getPsiValue() == Value.UNDEFINED;
     }
@@ -31,7 +31,15 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,6 +47,9 @@ import static icons.MetricsIcons.CLASS_METRIC;
 import static icons.MetricsIcons.PROJECT_METRIC;
 
 public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
+    private Map<Object, AbstractNode> reusableNodes = Map.of();
+    private final Set<AbstractNode> reusedNodes = new LinkedHashSet<>();
+
     public ProjectMetricTreeBuilder(CodeElement codeElement, Project project) {
         super(codeElement, project);
     }
@@ -53,6 +64,85 @@ public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
         ProjectNode projectNode = new ProjectNode(projectElement, "Project Metrics", AllIcons.Nodes.Project);
         model = new DefaultTreeModel(projectNode);
         model.setRoot(projectNode);
+        addChildren(projectNode, () -> addProjectChildren(projectElement, projectNode));
+        return model;
+    }
+
+    /**
+     * Applies the current filter to the loaded nodes of the model, top down: the loaders of these nodes run again,
+     * taking over the package, file, class and method nodes they created before together with their children, and
+     * a structure change is fired for every node whose children changed. Nodes that are not loaded yet read the
+     * filter when they load. Builds the model if there is none yet.
+     */
+    @Override
+    public DefaultTreeModel applyFilter() {
+        if (model == null) {
+            return createMetricTreeModel();
+        }
+        applyFilter((AbstractNode) model.getRoot());
+        return model;
+    }
+
+    private void applyFilter(AbstractNode node) {
+        List<TreeNode> previousChildren = node.isChildrenLoaded() ? Collections.list(node.children()) : List.of();
+        reusableNodes = new IdentityHashMap<>();
+        for (TreeNode child : previousChildren) {
+            Object element = elementOf(child);
+            if (element != null) {
+                reusableNodes.put(element, (AbstractNode) child);
+            }
+        }
+        boolean reloaded = node.reloadChildren();
+        List<AbstractNode> reused = new ArrayList<>(reusedNodes);
+        reusableNodes = Map.of();
+        reusedNodes.clear();
+        if (!reloaded) {
+            return;
+        }
+        if (!previousChildren.equals(Collections.list(node.children()))) {
+            model.nodeStructureChanged(node);
+        }
+        reused.forEach(this::applyFilter);
+    }
+
+    @Nullable
+    private static Object elementOf(TreeNode node) {
+        if (node instanceof PackageNode) {
+            return ((PackageNode) node).getJavaPackage();
+        }
+        if (node instanceof FileNode) {
+            return ((FileNode) node).getJavaFile();
+        }
+        if (node instanceof ClassNode) {
+            return ((ClassNode) node).getJavaClass();
+        }
+        if (node instanceof MethodNode) {
+            return ((MethodNode) node).getJavaMethod();
+        }
+        return null;
+    }
+
+    // While a filter is applied, the node created before for the element, which keeps its children
+    private <N extends AbstractNode> N reuseOrCreate(Object element, Class<N> type, Supplier<N> factory) {
+        AbstractNode node = reusableNodes.get(element);
+        if (type.isInstance(node)) {
+            reusedNodes.add(node);
+            return type.cast(node);
+        }
+        return factory.get();
+    }
+
+    @Override
+    protected ClassNode createClassNode(ClassElement javaClass) {
+        return reuseOrCreate(javaClass, ClassNode.class, () -> new ClassNode(javaClass));
+    }
+
+    @Override
+    protected MethodNode createMethodNode(MethodElement javaMethod) {
+        return reuseOrCreate(javaMethod, MethodNode.class, () -> new MethodNode(javaMethod));
+    }
+
+    private void addProjectChildren(ProjectElement projectElement, ProjectNode projectNode) {
         if (getMetricsTreeFilter().isProjectMetricsVisible()) {
             if (getMetricsTreeFilter().isMetricsGroupedByMetricSets()) {
                 for (MetricSet metricSet : MetricSet.values()) {
@@ -86,7 +176,6 @@ public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
                         processPackage(javaPackage, projectNode);
                     });
         }
-        return model;
     }
 
     private void addMetrics(Stream<Metric> metrics, AbstractNode node, Icon icon) {
@@ -122,9 +211,11 @@ public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
             }
         }
 
-        PackageNode packageNode = new PackageNode(currentPackage, displayName.toString());
+        PackageElement shownPackage = currentPackage;
+        PackageNode packageNode = reuseOrCreate(shownPackage, PackageNode.class,
+                () -> new PackageNode(shownPackage, displayName.toString()));
         parentNode.add(packageNode);
-        addPackages(packageNode);
+        addChildren(packageNode, () -> addPackages(packageNode));
     }
 
     private void addPackageMetrics(PackageNode packageNode) {
@@ -162,23 +253,27 @@ public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
             parentNode.getJavaPackage().files()
                     .forEach(f -> {
                         if (f.classes().count() > 1) {
-                            FileNode fileNode = new FileNode(f);
+                            FileNode fileNode = reuseOrCreate(f, FileNode.class, () -> new FileNode(f));
                             parentNode.add(fileNode);
-                            f.classes()
-                                    .map(ClassNode::new)
+                            addChildren(fileNode, () -> f.classes()
+                                    .map(this::createClassNode)
                                     .forEach(c -> {
                                         fileNode.add(c);
-                                        addSubClasses(c);
-                                        addMethodNodes(c);
-                                        addTypeMetrics(c);
-                                    });
+                                        addChildren(c, () -> {
+                                            addSubClasses(c);
+                                            addMethodNodes(c);
+                                            addTypeMetrics(c);
+                                        });
+                                    }));
                         } else if (f.classes().findFirst().isPresent()) {
                             ClassElement javaClass = f.classes().findFirst().get();
-                            ClassNode classNode = new ClassNode(javaClass);
+                            ClassNode classNode = createClassNode(javaClass);
                             parentNode.add(classNode);
-                            addSubClasses(classNode);
-                            addTypeMetrics(classNode);
-                            addMethodNodes(classNode);
+                            addChildren(classNode, () -> {
+                                addSubClasses(classNode);
+                                addTypeMetrics(classNode);
+                                addMethodNodes(classNode);
+                            });
                         }
                     });
         }
@@ -187,11 +282,11 @@ public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
     private void addMethodNodes(ClassNode classNode) {
         if (getMetricsTreeFilter().isMethodMetricsVisible()) {
             classNode.getJavaClass().methods()
-                    .map(MethodNode::new)
+                    .map(this::createMethodNode)
                     .forEach(m -> {
                         classNode.add(m);
                         if (getMetricsTreeFilter().isMethodMetricsVisible()) {
-                            addMethodMetricsNodes(m);
+                            addChildren(m, () -> addMethodMetricsNodes(m));
                         }
                     });
         }
@@ -238,6 +333,18 @@ public class ProjectMetricTreeBuilder extends MetricTreeBuilder {
                 });
     }
 
+    /**
+     * Children of the project, packages, files, classes and methods are only built when the tree first expands the
+     * node, so the cost of building the tree follows what is visible rather than the project size. The nodes taken
+     * over while a filter is applied keep their loader and children.
+     */
+    @Override
+    protected void addChildren(AbstractNode node, Runnable loader) {
+        if (!reusedNodes.contains(node)) {
+            node.setChildrenLoader(loader);
+        }
+    }
+
     @Override
     protected MetricsTreeFilter getMetricsTreeFilter() {
         return project.getService(UIStateService.class).getProjectMetricsTreeFilter();
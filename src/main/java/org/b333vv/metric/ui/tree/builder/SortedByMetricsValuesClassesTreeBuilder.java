@@ -16,38 +16,35 @@
 
 package org.b333vv.metric.ui.tree.builder;
 
-import com.intellij.openapi.project.Project;
 import icons.MetricsIcons;
-import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.builder.ClassesRanking;
 import org.b333vv.metric.model.code.ProjectElement;
-import org.b333vv.metric.model.metric.Metric;
 import org.b333vv.metric.model.metric.MetricType;
 import org.b333vv.metric.model.metric.value.RangeType;
 import org.b333vv.metric.ui.tree.node.GrouppingNode;
+import org.b333vv.metric.ui.tree.node.LoadMoreNode;
 import org.b333vv.metric.ui.tree.node.MetricTypeNode;
 import org.b333vv.metric.ui.tree.node.ProjectNode;
 import org.b333vv.metric.ui.tree.node.SortedByMetricsValueClassNode;
-import org.b333vv.metric.util.SettingsService;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.DefaultTreeModel;
 import java.util.Map;
 
-import static org.b333vv.metric.builder.ClassesByMetricsValuesDistributor.classesByMetricsValuesDistribution;
-
 public class SortedByMetricsValuesClassesTreeBuilder {
 
+    /**
+     * Builds the tree from the rankings of the distribution, the ones cached for the pie chart when it was shown.
+     */
     @Nullable
-    public DefaultTreeModel createMetricTreeModel(ProjectElement projectElement, Project project) {
-        Map<MetricType, Map<ClassElement, Metric>> classesByMetricTypes = classesByMetricsValuesDistribution(projectElement, project);
-
+    public DefaultTreeModel createMetricTreeModel(ProjectElement projectElement,
+                                                  Map<MetricType, ClassesRanking> classesByMetricTypes) {
         ProjectNode projectNode = new ProjectNode(projectElement, "class distribution by metric values", MetricsIcons.SORT_BY_VALUES);
         DefaultTreeModel model = new DefaultTreeModel(projectNode);
         model.setRoot(projectNode);
 
         classesByMetricTypes.forEach((key, value) -> {
-            if (value.values().stream()
-                    .anyMatch(m -> project.getService(SettingsService.class).getRangeForMetric(m.getType()).getRangeType(m.getPsiValue()) != RangeType.REGULAR)) {
+            if (!value.isEmpty()) {
                 MetricTypeNode metricTypeNode = new MetricTypeNode(key);
                 projectNode.add(metricTypeNode);
                 GrouppingNode high = new GrouppingNode("high", MetricsIcons.HIGH_COLOR);
@@ -57,23 +54,19 @@ public class SortedByMetricsValuesClassesTreeBuilder {
                 metricTypeNode.add(veryHigh);
                 metricTypeNode.add(extreme);
 
-                value.forEach((k, v) -> {
-                    if (project.getService(SettingsService.class).getRangeForMetric(v.getType()).getRangeType(v.getPsiValue()) == RangeType.HIGH) {
-                        SortedByMetricsValueClassNode sortedByMetricsValueClassNode = new SortedByMetricsValueClassNode(k, v);
-                        high.add(sortedByMetricsValueClassNode);
-                    }
-                    if (project.getService(SettingsService.class).getRangeForMetric(v.getType()).getRangeType(v.getPsiValue()) == RangeType.VERY_HIGH) {
-                        SortedByMetricsValueClassNode sortedByMetricsValueClassNode = new SortedByMetricsValueClassNode(k, v);
-                        veryHigh.add(sortedByMetricsValueClassNode);
-                    }
-                    if (project.getService(SettingsService.class).getRangeForMetric(v.getType()).getRangeType(v.getPsiValue()) == RangeType.EXTREME) {
-                        SortedByMetricsValueClassNode sortedByMetricsValueClassNode = new SortedByMetricsValueClassNode(k, v);
-                        extreme.add(sortedByMetricsValueClassNode);
-                    }
-                });
+                addFirstPage(value, RangeType.HIGH, high);
+                addFirstPage(value, RangeType.VERY_HIGH, veryHigh);
+                addFirstPage(value, RangeType.EXTREME, extreme);
             }
         });
         return model;
     }
 
+    private void addFirstPage(ClassesRanking ranking, RangeType rangeType, GrouppingNode groupNode) {
+        ranking.top(rangeType, ClassesRanking.PAGE_SIZE)
+                .forEach(e -> groupNode.add(new SortedByMetricsValueClassNode(e.javaClass(), e.metric())));
+        if (ranking.rankedCount(rangeType) > ClassesRanking.PAGE_SIZE) {
+            groupNode.add(new LoadMoreNode(ranking, rangeType));
+        }
+    }
 }
@@ -17,13 +17,86 @@
 package org.b333vv.metric.ui.tree.node;
 
 import org.b333vv.metric.ui.tree.TreeCellRenderer;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.util.Enumeration;
 
 public abstract class AbstractNode extends DefaultMutableTreeNode {
+  private Runnable childrenLoader;
+  private boolean childrenLoaded = true;
 
   public abstract void render(TreeCellRenderer renderer);
 
+  /**
+   * Defers creation of the children until the tree (or anyone else) first asks for them, so that only the nodes
+   * actually shown are built. The loader runs once and adds the children with {@link #add}; it is kept to create
+   * the children again with {@link #reloadChildren()}.
+   */
+  public void setChildrenLoader(@Nullable Runnable childrenLoader) {
+    this.childrenLoader = childrenLoader;
+    childrenLoaded = childrenLoader == null;
+  }
+
+  public boolean isChildrenLoaded() {
+    return childrenLoaded;
+  }
+
+  private void loadChildren() {
+    if (!childrenLoaded) {
+      childrenLoaded = true;
+      childrenLoader.run();
+    }
+  }
+
+  /**
+   * Replaces the loaded children with the ones the loader adds when run again.
+   *
+   * @return {@code false} if the node has no loader or its children are not loaded yet
+   */
+  public boolean reloadChildren() {
+    if (childrenLoader == null || !childrenLoaded) {
+      return false;
+    }
+    removeAllChildren();
+    childrenLoader.run();
+    return true;
+  }
+
+  /**
+   * A node whose children are not loaded yet is shown as expandable without running the loader; it turns into a
+   * leaf once expanded if the loader adds no children.
+   */
+  @Override
+  public boolean isLeaf() {
+    return childrenLoaded && super.isLeaf();
+  }
+
+  @Override
+  public int getChildCount() {
+    loadChildren();
+    return super.getChildCount();
+  }
+
+  @Override
+  public TreeNode getChildAt(int index) {
+    loadChildren();
+    return super.getChildAt(index);
+  }
+
+  @Override
+  public int getIndex(TreeNode node) {
+    loadChildren();
+    return super.getIndex(node);
+  }
+
+  @Override
+  public Enumeration<TreeNode> children() {
+    loadChildren();
+    return super.children();
+  }
+
   @Override
   public String toString() {
     return this.getClass().getSimpleName() + "@" + hashCode();
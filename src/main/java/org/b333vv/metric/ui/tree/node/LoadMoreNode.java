@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 b333vv
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.b333vv.metric.ui.tree.node;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.ui.SimpleTextAttributes;
+import org.b333vv.metric.builder.ClassesRanking;
+import org.b333vv.metric.model.metric.value.RangeType;
+import org.b333vv.metric.ui.tree.TreeCellRenderer;
+
+import javax.swing.tree.DefaultTreeModel;
+import java.util.List;
+
+/**
+ * Last child of a range group in the sorted classes tree, replaced by the next page of the ranking when selected.
+ */
+public class LoadMoreNode extends AbstractNode {
+
+    private final ClassesRanking ranking;
+    private final RangeType rangeType;
+
+    public LoadMoreNode(ClassesRanking ranking, RangeType rangeType) {
+        this.ranking = ranking;
+        this.rangeType = rangeType;
+    }
+
+    public void loadMore(DefaultTreeModel model) {
+        // a second selection queued before the first one ran finds the node already removed
+        if (getParent() == null) {
+            return;
+        }
+        AbstractNode parent = (AbstractNode) getParent();
+        int loaded = parent.getChildCount() - 1;
+        List<ClassesRanking.Entry> page = ranking.top(rangeType, loaded + ClassesRanking.PAGE_SIZE);
+        model.removeNodeFromParent(this);
+        for (ClassesRanking.Entry entry : page.subList(loaded, page.size())) {
+            model.insertNodeInto(new SortedByMetricsValueClassNode(entry.javaClass(), entry.metric()),
+                    parent, parent.getChildCount());
+        }
+        if (page.size() < ranking.rankedCount(rangeType)) {
+            model.insertNodeInto(this, parent, parent.getChildCount());
+        }
+    }
+
+    @Override
+    public void render(TreeCellRenderer renderer) {
+        int loaded = getParent() == null ? 0 : getParent().getChildCount() - 1;
+        renderer.setIcon(AllIcons.General.Add);
+        renderer.append("load more", SimpleTextAttributes.LINK_ATTRIBUTES);
+        renderer.append(" (" + (ranking.rankedCount(rangeType) - loaded) + " remaining)",
+                SimpleTextAttributes.GRAY_SMALL_ATTRIBUTES);
+    }
+}
@@ -92,27 +92,28 @@ public class MetricNode extends AbstractNode {
         int gap = JBUIScale.isUsrHiDPI() ? 8 : 4;
         renderer.append(getMetricName());
         if (project.getService(SettingsService.class).isControlValidRanges()) {
+            RangeType rangeType = project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metric.getType(), metric.getPsiValue());
             if (metric.getPsiValue() == Value.UNDEFINED) {
                 renderer.setIconToolTip("This metric was not calculated");
                 renderer.setIcon(new CompositeIcon(CompositeIcon.Axis.X_AXIS, gap, getIcon(), MetricsIcons.NA));
                 renderer.append(getMetricValue());
-            } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.VERY_HIGH) {
+            } else if (rangeType == RangeType.VERY_HIGH) {
                 renderer.setIconToolTip("This metric has very-high value");
                 renderer.setIcon(new CompositeIcon(CompositeIcon.Axis.X_AXIS, gap, getIcon(), MetricsIcons.VERY_HIGH_COLOR));
                 renderer.append(getMetricValue(), SimpleTextAttributes.ERROR_ATTRIBUTES);
-            } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.EXTREME) {
+            } else if (rangeType == RangeType.EXTREME) {
                 renderer.setIconToolTip("This metric has extreme value");
                 renderer.setIcon(new CompositeIcon(CompositeIcon.Axis.X_AXIS, gap, getIcon(), MetricsIcons.EXTREME_COLOR));
                 renderer.append(getMetricValue(), SimpleTextAttributes.ERROR_ATTRIBUTES);
-            } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.HIGH) {
+            } else if (rangeType == RangeType.HIGH) {
                 renderer.setIconToolTip("This metric has high value");
                 renderer.setIcon(new CompositeIcon(CompositeIcon.Axis.X_AXIS, gap, getIcon(), MetricsIcons.HIGH_COLOR));
                 renderer.append(getMetricValue());
-            } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.REGULAR) {
+            } else if (rangeType == RangeType.REGULAR) {
                 renderer.setIconToolTip("This metric has regular value");
                 renderer.setIcon(new CompositeIcon(CompositeIcon.Axis.X_AXIS, gap, getIcon(), MetricsIcons.REGULAR_COLOR));
                 renderer.append(getMetricValue());
-            } else if (project.getService(SettingsService.class).getRangeForMetric(metric.getType()).getRangeType(metric.getPsiValue()) == RangeType.UNDEFINED) {
+            } else if (rangeType == RangeType.UNDEFINED) {
                 renderer.setIconToolTip("The desired value range is not set for this metric");
                 renderer.setIcon(new CompositeIcon(CompositeIcon.Axis.X_AXIS, gap, getIcon(), MetricsIcons.NOT_TRACKED));
                 renderer.append(getMetricValue());
@@ -58,20 +58,21 @@ public class MetricTypeColorProvider implements ColorProvider<CodeElement, Color
             }
 
             Value value = rectangle.getNode().metric(metricType).getPsiValue();
+            RangeType rangeType = project.getService(SettingsService.class).getRangeTypeByMetricTypeAndValue(metricType, value);
 
-            if (project.getService(SettingsService.class).getRangeForMetric(metricType).getRangeType(value) == RangeType.UNDEFINED) {
+            if (rangeType == RangeType.UNDEFINED) {
                 return UNDEFINED;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metricType).getRangeType(value) == RangeType.REGULAR) {
+            if (rangeType == RangeType.REGULAR) {
                 return REGULAR;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metricType).getRangeType(value) == RangeType.HIGH) {
+            if (rangeType == RangeType.HIGH) {
                 return HIGH;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metricType).getRangeType(value) == RangeType.VERY_HIGH) {
+            if (rangeType == RangeType.VERY_HIGH) {
                 return VERY_HIGH;
             }
-            if (project.getService(SettingsService.class).getRangeForMetric(metricType).getRangeType(value) == RangeType.EXTREME) {
+            if (rangeType == RangeType.EXTREME) {
                 return EXTREME;
             }
         }
@@ -32,6 +32,9 @@ import java.util.function.Consumer;
 
 public class TreeMapBuilder implements SelectionChangeListener<CodeElement>, LabelProvider<CodeElement> {
 
+    // classes whose cells would be smaller than this many pixels square are drawn as one cell
+    private static final int MIN_CELL_SIZE = 3;
+
     private final GenericTreeModel<CodeElement> model = new GenericTreeModel<>();
     private final MetricTreeMap<CodeElement> treeMap = new MetricTreeMap<>();
 
@@ -39,7 +42,7 @@ public class TreeMapBuilder implements SelectionChangeListener<CodeElement>, Lab
         treeMap.setLabelProvider(this);
         treeMap.setRectangleRenderer(new CushionRectangleRendererEx<>(160));
         treeMap.addSelectionChangeListener(this);
-        treeMap.setTreeMapLayout(new SquarifiedLayout<>(64));
+        treeMap.setTreeMapLayout(new SquarifiedLayout<>(64, MIN_CELL_SIZE));
 
         // treeMap.setColorProvider(new MetricTypeColorProvider(MetricType.NCSS));
         // treeMap.setColorProvider(colorProvider);
@@ -83,7 +86,10 @@ public class TreeMapBuilder implements SelectionChangeListener<CodeElement>, Lab
                 });
                 Consumer<String> selectionAction = treeMap.getSelectionChangedAction();
                 if (selectionAction != null) {
-                    selectionAction.accept("Class: " + name);
+                    int aggregated = rectangle.getAggregatedCount();
+                    selectionAction.accept(aggregated > 1
+                            ? "Classes: " + name + " and " + (aggregated - 1) + " smaller"
+                            : "Class: " + name);
                 }
             }
         }
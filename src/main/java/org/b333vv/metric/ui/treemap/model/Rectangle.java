@@ -30,4 +30,12 @@ public interface Rectangle<N> {
 
     N getNode();
 
+    /**
+     * Number of nodes drawn as this rectangle. Nodes that would be smaller than the layout's
+     * minimal cell are merged into one rectangle of their first node.
+     */
+    default int getAggregatedCount() {
+        return 1;
+    }
+
 }
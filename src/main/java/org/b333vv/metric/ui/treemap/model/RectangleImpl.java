@@ -20,6 +20,7 @@ public class RectangleImpl<N> implements Rectangle<N> {
 
     protected final int x, y, w, h;
     protected final N node;
+    protected int aggregatedCount = 1;
 
     public RectangleImpl(final N aNode, final int x, final int y, final int width, final int height) {
         node = aNode;
@@ -58,6 +59,15 @@ public class RectangleImpl<N> implements Rectangle<N> {
         return node;
     }
 
+    @Override
+    public int getAggregatedCount() {
+        return aggregatedCount;
+    }
+
+    void setAggregatedCount(final int count) {
+        aggregatedCount = count;
+    }
+
     @Override
     public boolean contains(final int px, final int py) {
         final int wi = px - x;
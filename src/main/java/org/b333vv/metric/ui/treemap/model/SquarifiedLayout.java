@@ -17,27 +17,55 @@
 package org.b333vv.metric.ui.treemap.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serializable {
 
     private static final long serialVersionUID = 1L;
 
     protected final int maxDepth;
+    protected final int minCellSize;
+
+    private transient WeightedTreeModel<N> sortedModel;
+    private transient Map<N, List<N>> sortedChildren;
 
     public SquarifiedLayout(final int nestingDepth) {
+        this(nestingDepth, 0);
+    }
+
+    /**
+     * @param minimalCellSize side in pixels of the smallest cell that is drawn on its own; smaller
+     *                        siblings are merged into one rectangle. Zero disables merging.
+     */
+    public SquarifiedLayout(final int nestingDepth, final int minimalCellSize) {
         maxDepth = nestingDepth;
+        minCellSize = minimalCellSize;
+    }
+
+    public int getMinCellSize() {
+        return minCellSize;
     }
 
     @Override
     public TreeModel<Rectangle<N>> layout(final WeightedTreeModel<N> model, final N startNode,
                                           final int width, final int height, final Cancelable cancelable) {
+        return layout(model, startNode, width, height, cancelable, minCellSize);
+    }
+
+    /**
+     * Lays out the model, merging the lightest children of a node whose cells would be smaller than
+     * {@code cellSize} x {@code cellSize} pixels. The sorted children of every node are kept for the
+     * model last laid out, so a layout after a resize only recomputes the geometry.
+     */
+    public TreeModel<Rectangle<N>> layout(final WeightedTreeModel<N> model, final N startNode,
+                                          final int width, final int height, final Cancelable cancelable,
+                                          final int cellSize) {
         final RectangleImpl<N> root = new RectangleImpl<>(startNode, 0, 0, width, height);
         final RectangleModelImpl<N> result = new RectangleModelImpl<>(root);
-        squarify(result, root, new ComparatorImpl<>(model), 0, cancelable);
+        final ComparatorImpl<N> comparator = new ComparatorImpl<>(model, sortedChildren(model),
+                (long) cellSize * cellSize);
+        squarify(result, root, comparator, 0, cancelable);
         if (cancelable.isCanceled()) {
             return RectangleModelImpl.emptyModel();
         } else {
@@ -45,33 +73,30 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
         }
     }
 
+    private synchronized Map<N, List<N>> sortedChildren(final WeightedTreeModel<N> model) {
+        if (sortedModel != model) {
+            sortedModel = model;
+            sortedChildren = new ConcurrentHashMap<>();
+        }
+        return sortedChildren;
+    }
+
     protected void squarify(final RectangleModelImpl<N> result, final RectangleImpl<N> rectangle,
                             final ComparatorImpl<N> comparator, final int depth, final Cancelable cancelable) {
         if (depth < maxDepth && !cancelable.isCanceled()) {
             final N n = rectangle.getNode();
             final WeightedTreeModel<N> model = comparator.getModel();
             if (model.hasChildren(n)) {
+                final List<N> sorted = comparator.getSortedChildren(n);
                 long total = 0;
-                final Iterator<N> i = model.getChildren(n);
-                final List<N> nodes = new ArrayList<>(i instanceof IteratorSize<?> ?((IteratorSize<?>) i).size():16);
-                while (i.hasNext()) {
-                    final N c = i.next();
-                    nodes.add(c);
+                for (final N c : sorted) {
                     total += model.getWeight(c);
                 }
+                final List<N> nodes = comparator.aggregate(sorted, total, rectangle.area());
                 final int max = nodes.size();
                 if (max > 2) {
-                    nodes.sort(comparator);
                     squarify(result, rectangle, rectangle, comparator, nodes, 0, max, total, depth, cancelable);
                 } else {
-                    if (max == 2) {
-                        final N one = nodes.get(0);
-                        final N two = nodes.get(1);
-                        if (comparator.compare(one, two) > 0) {
-                            nodes.set(0, two);
-                            nodes.set(1, one);
-                        }
-                    }
                     slice(result, rectangle, rectangle, comparator, nodes, 0, max, total, depth, cancelable);
                 }
             }
@@ -82,15 +107,17 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
                             final RectangleImpl<N> rectangle, final ComparatorImpl<N> comparator,
                             final List<N> nodes, final int start, final int end, final long weight, final int depth,
                             final Cancelable cancelable) {
+        if (cancelable.isCanceled()) {
+            return;
+        }
         if (end-start > 2) {
-            final WeightedTreeModel<N> model = comparator.getModel();
             float aspectRatio = Float.MAX_VALUE, last;
             int i = start;
             long sum = 0;
             final int[] rect = new int[2];
             do {
                 final N n = nodes.get(i++);
-                final long nodeWeight = model.getWeight(n);
+                final long nodeWeight = comparator.getWeight(n);
                 sum += nodeWeight;
                 rect[0] = rectangle.w;
                 rect[1] = rectangle.h;
@@ -99,7 +126,7 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
                 last = aspectRatio;
                 aspectRatio = aspectRatio(rect[0],rect[1]);
                 if (aspectRatio > last) {
-                    sum -= model.getWeight(nodes.get(--i));
+                    sum -= comparator.getWeight(nodes.get(--i));
                     final double frac = sum/(double) weight;
                     if (frac > 0 && frac < 1) {
                         final RectangleImpl<N>[] r = rectangle.split(frac);
@@ -120,22 +147,21 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
         if (cancelable.isCanceled()) {
             return;
         }
-        final WeightedTreeModel<N> model = comparator.getModel();
         final double dw = (double) w;
         final int last = max-1;
         if (r.w < r.h) {
             final int sx = r.x;
             int sy = r.y;
             final int maxy = r.y+r.h;
-            for (int i = start; i < max && sy < maxy; i++) {
+            for (int i = start; i < max && sy < maxy && !cancelable.isCanceled(); i++) {
                 final N c = nodes.get(i);
-                final long wc = model.getWeight(c);
+                final long wc = comparator.getWeight(c);
                 final int step = (i!=last)?(int) Math.round((r.h * wc) / dw) : r.h - (sy - r.y);
                 if (step > 0) {
                     final RectangleImpl<N> child = createRectangle(c, sx, sy, r.w, step);
                     if (child != null) {
-                        result.addChild(parent, child);
-                        if (model.hasChildren(c)) {
+                        addChild(result, parent, child, comparator);
+                        if (comparator.isExpandable(c)) {
                             squarify(result, child, comparator, depth + 1, cancelable);
                         }
                         sy += step;
@@ -145,7 +171,7 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
                     if (rest > 0) {
                         final RectangleImpl<N> child = createRectangle(c, sx, sy, r.w, 1);
                         if (child != null) {
-                            result.addChild(parent, child);
+                            addChild(result, parent, child, comparator);
                             sy++;
                         }
                     }
@@ -155,15 +181,15 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
             int sx = r.x;
             final int sy = r.y;
             final int maxx = r.x + r.w;
-            for (int i = start; i < max && sx < maxx; i++) {
+            for (int i = start; i < max && sx < maxx && !cancelable.isCanceled(); i++) {
                 final N c = nodes.get(i);
-                final long wc = model.getWeight(c);
+                final long wc = comparator.getWeight(c);
                 final int step = (i!=last)?(int) Math.round((r.w * wc) / dw) : r.w - (sx - r.x);
                 if (step > 0) {
                     final RectangleImpl<N> child = createRectangle(c, sx, sy, step, r.h);
                     if (child != null) {
-                        result.addChild(parent, child);
-                        if (model.hasChildren(c)) {
+                        addChild(result, parent, child, comparator);
+                        if (comparator.isExpandable(c)) {
                             squarify(result, child, comparator, depth+1, cancelable);
                         }
                         sx += step;
@@ -173,7 +199,7 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
                     if (rest > 0) {
                         final RectangleImpl<N> child = createRectangle(c, sx, sy, 1, r.h);
                         if (child != null) {
-                            result.addChild(parent, child);
+                            addChild(result, parent, child, comparator);
                             sx++;
                         }
                     }
@@ -182,6 +208,12 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
         }
     }
 
+    private void addChild(final RectangleModelImpl<N> result, final RectangleImpl<N> parent,
+                          final RectangleImpl<N> child, final ComparatorImpl<N> comparator) {
+        child.setAggregatedCount(comparator.getAggregatedCount(child.getNode()));
+        result.addChild(parent, child);
+    }
+
     protected RectangleImpl<N> createRectangle(final N n, final int x, final int y, final int w, final int h) {
         return new RectangleImpl<N>(n, x, y, w, h);
     }
@@ -207,18 +239,76 @@ public class SquarifiedLayout<N> implements TreeMapLayout<N>, Cancelable, Serial
     private static class ComparatorImpl<N> implements Comparator<N> {
 
         private final WeightedTreeModel<N> model;
+        private final Map<N, List<N>> sortedChildren;
+        private final long minCellArea;
+        // merged node -> {weight, node count}
+        private final Map<N, long[]> aggregates = new HashMap<>();
 
-        public ComparatorImpl(final WeightedTreeModel<N> aModel) {
+        public ComparatorImpl(final WeightedTreeModel<N> aModel, final Map<N, List<N>> sortedChildrenMap,
+                              final long minimalCellArea) {
             model = aModel;
+            sortedChildren = sortedChildrenMap;
+            minCellArea = minimalCellArea;
         }
 
         protected WeightedTreeModel<N> getModel() {
             return model;
         }
 
+        protected List<N> getSortedChildren(final N node) {
+            return sortedChildren.computeIfAbsent(node, key -> {
+                final Iterator<N> i = model.getChildren(key);
+                final List<N> nodes = new ArrayList<>(i instanceof IteratorSize<?> ?((IteratorSize<?>) i).size():16);
+                while (i.hasNext()) {
+                    nodes.add(i.next());
+                }
+                nodes.sort(this);
+                return Collections.unmodifiableList(nodes);
+            });
+        }
+
+        /**
+         * Merges the trailing nodes of the heaviest-first list whose share of {@code area} is below
+         * the minimal cell area into the first of them.
+         */
+        protected List<N> aggregate(final List<N> nodes, final long total, final long area) {
+            if (minCellArea == 0) {
+                return nodes;
+            }
+            int k = nodes.size();
+            long tail = 0;
+            while (k > 0 && model.getWeight(nodes.get(k-1)) * (double) area < minCellArea * (double) total) {
+                tail += model.getWeight(nodes.get(--k));
+            }
+            if (nodes.size() - k < 2) {
+                return nodes;
+            }
+            aggregates.put(nodes.get(k), new long[] {tail, nodes.size() - k});
+            return nodes.subList(0, k+1);
+        }
+
+        protected long getWeight(final N node) {
+            if (!aggregates.isEmpty()) {
+                final long[] aggregate = aggregates.get(node);
+                if (aggregate != null) {
+                    return aggregate[0];
+                }
+            }
+            return model.getWeight(node);
+        }
+
+        protected int getAggregatedCount(final N node) {
+            final long[] aggregate = aggregates.isEmpty() ? null : aggregates.get(node);
+            return aggregate != null ? (int) aggregate[1] : 1;
+        }
+
+        protected boolean isExpandable(final N node) {
+            return (aggregates.isEmpty() || !aggregates.containsKey(node)) && model.hasChildren(node);
+        }
+
         @Override
         public int compare(final N o1, final N o2) {
-            return (int) (model.getWeight(o2) - model.getWeight(o1));
+            return Long.compare(model.getWeight(o2), model.getWeight(o1));
         }
 
     }
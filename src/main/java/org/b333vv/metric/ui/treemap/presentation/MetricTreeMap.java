@@ -37,6 +37,8 @@ public class MetricTreeMap<N> extends JPanel {
 
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final int RESIZE_DELAY = 150;
+    private static final int COARSE_CELL_FACTOR = 4;
 
     private Consumer<String> selectionAction;
     private Consumer<ClassElement> clickedAction;
@@ -53,6 +55,7 @@ public class MetricTreeMap<N> extends JPanel {
     protected ColorProvider<N, Color> colorProvider;
     protected List<SelectionChangeListener<N>> listeners;
     protected GraphicsConfiguration gc;
+    protected final Timer resizeTimer;
 
     public MetricTreeMap() {
         this(true);
@@ -60,10 +63,13 @@ public class MetricTreeMap<N> extends JPanel {
 
     public MetricTreeMap(final boolean supportNavigation) {
         super();
+        resizeTimer = new Timer(RESIZE_DELAY, e -> recalculate());
+        resizeTimer.setRepeats(false);
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(final ComponentEvent componentevent) {
-                recalculate();
+                // the previous image is stretched until the resize settles
+                resizeTimer.restart();
             }
         });
         if (supportNavigation) {
@@ -99,9 +105,14 @@ public class MetricTreeMap<N> extends JPanel {
         colorProvider = aProvider;
     }
 
-    public void refresh() {
-        image = rebuildImage(getWidth(), getHeight(), rectangles);
-        repaint();
+    public synchronized void refresh() {
+        if (buildControl != null) {
+            recalculate();
+        } else if (rectangles != null) {
+            start(rectangles);
+        } else {
+            repaint();
+        }
     }
 
     public void setTreeModel(final WeightedTreeModel<N> aModel) {
@@ -156,6 +167,10 @@ public class MetricTreeMap<N> extends JPanel {
     }
 
     protected void render(final Graphics2D g, final TreeModel<Rectangle<N>> rects) {
+        render(g, rects, () -> false);
+    }
+
+    protected void render(final Graphics2D g, final TreeModel<Rectangle<N>> rects, final Cancelable cancelable) {
         final Rectangle<N> root = rects.getRoot();
         if (root != null) {
             if (colorProvider == null) {
@@ -163,7 +178,7 @@ public class MetricTreeMap<N> extends JPanel {
             }
             final Fifo<Rectangle<N>> queue = new Fifo<>();
             queue.push(rects.getRoot());
-            while (queue.notEmpty()) {
+            while (queue.notEmpty() && !cancelable.isCanceled()) {
                 final Rectangle<N> node = queue.pull();
                 render(g, rects, node);
                 if (rects.hasChildren(node)) {
@@ -229,21 +244,30 @@ public class MetricTreeMap<N> extends JPanel {
 
     protected synchronized void recalculate() {
         if (model != null) {
-            if (buildControl != null) {
-                buildControl.cancel();
-                buildControl = null;
-            }
-            final BuildControl ctrl = new BuildControl();
-            final SwingWorker<TreeModel<Rectangle<N>>, Object> worker = new Worker<N>(this, ctrl);
-            if (!GraphicsEnvironment.isHeadless()) {
-                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-            }
-            worker.execute();
-            buildControl = ctrl;
+            start(null);
         }
     }
 
+    private void start(final TreeModel<Rectangle<N>> reusedRectangles) {
+        if (buildControl != null) {
+            buildControl.cancel();
+            buildControl = null;
+        }
+        final BuildControl ctrl = new BuildControl();
+        final Worker worker = new Worker(ctrl, reusedRectangles);
+        if (!GraphicsEnvironment.isHeadless()) {
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+        worker.execute();
+        buildControl = ctrl;
+    }
+
     protected BufferedImage rebuildImage(final int width, final int height, final TreeModel<Rectangle<N>> rects) {
+        return rebuildImage(width, height, rects, () -> false);
+    }
+
+    protected BufferedImage rebuildImage(final int width, final int height, final TreeModel<Rectangle<N>> rects,
+                                         final Cancelable cancelable) {
         if (width*height > 0) {
             final BufferedImage result;
             if (GraphicsEnvironment.isHeadless()) {
@@ -258,7 +282,7 @@ public class MetricTreeMap<N> extends JPanel {
             }
             final Graphics2D g = result.createGraphics();
             try {
-                render(g, rects);
+                render(g, rects, cancelable);
             } finally {
                 g.dispose();
             }
@@ -268,68 +292,102 @@ public class MetricTreeMap<N> extends JPanel {
         }
     }
 
-    private class Worker<N> extends SwingWorker<TreeModel<Rectangle<N>>, Object> {
+    private record Frame<N>(TreeModel<Rectangle<N>> rectangles, BufferedImage image) {
+    }
+
+    private class Worker extends SwingWorker<Frame<N>, Frame<N>> {
 
         private final BuildControl buildControl;
-        private final MetricTreeMap<N> metricTreeMap;
+        private final TreeModel<Rectangle<N>> reusedRectangles;
         private final int width, height;
-        private BufferedImage image;
+        private final boolean progressive;
 
-        public Worker(final MetricTreeMap<N> aMap, final BuildControl aControl) {
+        public Worker(final BuildControl aControl, final TreeModel<Rectangle<N>> aReusedRectangles) {
             super();
-            metricTreeMap = aMap;
             buildControl = aControl;
-            width = aMap.getWidth();
-            height = aMap.getHeight();
+            reusedRectangles = aReusedRectangles;
+            width = getWidth();
+            height = getHeight();
+            progressive = image == null;
         }
 
         @SuppressWarnings("unchecked")
         @Override
-        protected TreeModel<Rectangle<N>> doInBackground(){
+        protected Frame<N> doInBackground() {
+            if (reusedRectangles != null) {
+                return frame(reusedRectangles);
+            }
+            if (layout instanceof SquarifiedLayout<N> squarified && squarified.getMinCellSize() > 0 && progressive) {
+                // nothing is shown yet, so a coarse picture goes first and the full one replaces it
+                final Frame<N> coarse = frame(squarified.layout((WeightedTreeModel<N>) model, currentRoot, width,
+                        height, buildControl, squarified.getMinCellSize() * COARSE_CELL_FACTOR));
+                if (coarse != null) {
+                    publish(coarse);
+                }
+            }
             final TreeModel<Rectangle<N>> result;
-            if (metricTreeMap.layout instanceof GenericTreeMapLayout) {
-                result = ((GenericTreeMapLayout<N, Number>) metricTreeMap.layout).layout((GenericWeightedTreeModel<N, Number>) metricTreeMap.model, metricTreeMap.currentRoot, width, height, buildControl);
-            } else if (metricTreeMap.layout instanceof TreeMapLayout) {
-                result = metricTreeMap.layout.layout((WeightedTreeModel<N>) metricTreeMap.model, metricTreeMap.currentRoot, width, height, buildControl);
+            if (layout instanceof GenericTreeMapLayout) {
+                result = ((GenericTreeMapLayout<N, Number>) layout).layout((GenericWeightedTreeModel<N, Number>) model, currentRoot, width, height, buildControl);
+            } else if (layout instanceof TreeMapLayout) {
+                result = layout.layout((WeightedTreeModel<N>) model, currentRoot, width, height, buildControl);
             } else {
-                throw new IllegalStateException("cannot handle model with layout "+ metricTreeMap.layout);
+                throw new IllegalStateException("cannot handle model with layout "+ layout);
             }
+            return frame(result);
+        }
+
+        private Frame<N> frame(final TreeModel<Rectangle<N>> rects) {
+            if (buildControl.isCanceled()) {
+                return null;
+            }
+            final BufferedImage newImage = rebuildImage(width, height, rects, buildControl);
+            return buildControl.isCanceled() ? null : new Frame<>(rects, newImage);
+        }
+
+        @Override
+        protected void process(final List<Frame<N>> frames) {
             if (!buildControl.isCanceled()) {
-                image = metricTreeMap.rebuildImage(width, height, result);
+                synchronized (MetricTreeMap.this) {
+                    show(frames.get(frames.size() - 1));
+                }
+                repaint();
             }
-            return result;
         }
 
         @Override
         protected void done() {
             try {
-                final TreeModel<Rectangle<N>> newRects = get();
-                if (!buildControl.isCanceled()) {
-                    synchronized (metricTreeMap) {
-                        metricTreeMap.rectangles = newRects;
-                        final Rectangle<N> root = newRects.getRoot();
-                        if (root != null) {
-                            metricTreeMap.currentRoot = root.getNode();
-                        }
+                final Frame<N> frame = get();
+                if (frame != null && !buildControl.isCanceled()) {
+                    synchronized (MetricTreeMap.this) {
+                        show(frame);
                         if (!GraphicsEnvironment.isHeadless()) {
-                            metricTreeMap.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+                            setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
                         }
-                        metricTreeMap.image = image;
-                        metricTreeMap.selected = null;
-                        metricTreeMap.buildControl = null;
+                        MetricTreeMap.this.buildControl = null;
 
                         if (!GraphicsEnvironment.isHeadless()) {
-                            final Point point = metricTreeMap.getMousePosition();
+                            final Point point = getMousePosition();
                             if (point != null) {
-                                metricTreeMap.selectRectangle(point.x, point.y);
+                                selectRectangle(point.x, point.y);
                             }
                         }
                     }
-                    metricTreeMap.repaint();
+                    repaint();
                 }
             } catch (InterruptedException | ExecutionException e) {
 //                MetricTreeMap.this.project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).printInfo(e.getMessage());
             }
         }
+
+        private void show(final Frame<N> frame) {
+            rectangles = frame.rectangles();
+            final Rectangle<N> root = rectangles.getRoot();
+            if (root != null) {
+                currentRoot = root.getNode();
+            }
+            image = frame.image();
+            selected = null;
+        }
     }
 }
@@ -33,6 +33,7 @@ import org.b333vv.metric.ui.settings.ranges.DerivativeMetricsValidRangeStub;
 import org.b333vv.metric.ui.settings.ranges.DerivativeMetricsValidRangesSettings;
 import org.b333vv.metric.util.MetricstreeConfig;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -43,33 +44,70 @@ public final class SettingsService {
 
     private final Project project;
 
+    private volatile RangeTable rangeTable;
+
     public SettingsService(Project project) {
         this.project = project;
     }
 
-    public Range getRangeForMetric(MetricType type) {
-        BasicMetricsValidRangeStub basicStub = this.project.getService(BasicMetricsValidRangesSettings.class)
-                .getControlledMetrics().get(type.name());
-        if (basicStub != null) {
-            return BasicMetricsRange.of(Value.of(basicStub.getRegularBound()),
-                    Value.of(basicStub.getHighBound()), Value.of(basicStub.getVeryHighBound()));
+    public RangeTable getRangeTable() {
+        RangeTable table = rangeTable;
+        if (table == null) {
+            synchronized (this) {
+                table = rangeTable;
+                if (table == null) {
+                    table = buildRangeTable(1L);
+                    rangeTable = table;
+                }
+            }
         }
-        DerivativeMetricsValidRangeStub derivativeStub = this.project.getService(DerivativeMetricsValidRangesSettings.class)
-                .getControlledMetrics().get(type.name());
-        if (derivativeStub != null) {
-            return DerivativeMetricsRange.of(Value.of(derivativeStub.getMinValue()),
-                    Value.of(derivativeStub.getMaxValue()));
+        return table;
+    }
+
+    /**
+     * Rebuilds the range table from the current valid ranges settings and notifies the listeners.
+     * Must be called whenever basic or derivative metrics ranges are changed.
+     */
+    public void rangeSettingsChanged() {
+        RangeTable table;
+        synchronized (this) {
+            long version = rangeTable == null ? 1L : rangeTable.getVersion() + 1;
+            table = buildRangeTable(version);
+            rangeTable = table;
         }
-        return BasicMetricsRange.UNDEFINED;
+        this.project.getMessageBus().syncPublisher(MetricsEventListener.TOPIC).validRangesChanged(table);
+    }
+
+    public Range getRangeForMetric(MetricType type) {
+        return getRangeTable().getRange(type);
+    }
+
+    private RangeTable buildRangeTable(long version) {
+        Map<String, BasicMetricsValidRangeStub> basicStubs = this.project.getService(BasicMetricsValidRangesSettings.class)
+                .getControlledMetrics();
+        Map<String, DerivativeMetricsValidRangeStub> derivativeStubs = this.project.getService(DerivativeMetricsValidRangesSettings.class)
+                .getControlledMetrics();
+        return RangeTable.of(version, type -> {
+            BasicMetricsValidRangeStub basicStub = basicStubs.get(type.name());
+            if (basicStub != null) {
+                return BasicMetricsRange.of(Value.of(basicStub.getRegularBound()),
+                        Value.of(basicStub.getHighBound()), Value.of(basicStub.getVeryHighBound()));
+            }
+            DerivativeMetricsValidRangeStub derivativeStub = derivativeStubs.get(type.name());
+            if (derivativeStub != null) {
+                return DerivativeMetricsRange.of(Value.of(derivativeStub.getMinValue()),
+                        Value.of(derivativeStub.getMaxValue()));
+            }
+            return BasicMetricsRange.UNDEFINED;
+        });
     }
 
     public RangeType getRangeTypeByMetricTypeAndValue(MetricType type, Value value) {
-        return getRangeForMetric(type).getRangeType(value);
+        return getRangeTable().classify(type, value);
     }
 
     public boolean isNotRegularValue(MetricType type, Value value) {
-        return getRangeTypeByMetricTypeAndValue(type, value) != RangeType.UNDEFINED
-                && getRangeTypeByMetricTypeAndValue(type, value) != RangeType.REGULAR;
+        return getRangeTable().isNotRegular(type, value);
     }
 
     public boolean isControlValidRanges() {
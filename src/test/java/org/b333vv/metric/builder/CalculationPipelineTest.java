@@ -0,0 +1,130 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.Value;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CalculationPipelineTest extends BaseTest {
+    private ExecutorService executor;
+    private MockedStatic<AppExecutorUtil> appExecutorUtil;
+    private MockedStatic<ProgressManager> progressManager;
+    private LanguageBackend.Context context;
+
+    @BeforeEach
+    void setUpPipeline() {
+        // Static mocks only apply to the thread registering them, so backends run on it as well
+        executor = new AbstractExecutorService() {
+            private boolean shutdown;
+
+            @Override
+            public void execute(@NotNull Runnable command) {
+                command.run();
+            }
+
+            @Override
+            public void shutdown() {
+                shutdown = true;
+            }
+
+            @NotNull
+            @Override
+            public List<Runnable> shutdownNow() {
+                shutdown = true;
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return shutdown;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return shutdown;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) {
+                return true;
+            }
+        };
+        appExecutorUtil = mockStatic(AppExecutorUtil.class);
+        appExecutorUtil.when(AppExecutorUtil::getAppExecutorService).thenReturn(executor);
+        ProgressManager manager = mock(ProgressManager.class);
+        when(manager.runProcess(any(Computable.class), any()))
+                .thenAnswer(invocation -> ((Computable<?>) invocation.getArgument(0)).compute());
+        progressManager = mockStatic(ProgressManager.class);
+        progressManager.when(ProgressManager::getInstance).thenReturn(manager);
+        context = new LanguageBackend.Context(project, null, mock(ProgressIndicator.class), List.of());
+    }
+
+    @AfterEach
+    void tearDownPipeline() {
+        progressManager.close();
+        appExecutorUtil.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testValuesAreMergedIntoModelPerMetric() {
+        ProjectElement model = new ProjectElement("p");
+        ClassElement klass = new ClassElement("Foo");
+        klass.addMetric(Metric.of(MetricType.WMC, 3));
+        model.addToAllClasses(klass);
+
+        LanguageBackend modelBackend = c -> LanguageBackend.Result.of(model);
+        LanguageBackend valueBackend = c -> new LanguageBackend.Result() {
+            @Override
+            public void mergeInto(@NotNull ProjectElement target, @NotNull ProgressIndicator indicator) {
+                target.allClasses().forEach(k -> k.metric(MetricType.WMC).setJavaParserValue(Value.of(4)));
+            }
+        };
+
+        ProjectElement result = new CalculationPipeline(List.of(modelBackend, valueBackend)).calculate(context);
+
+        assertSame(model, result);
+        assertEquals(Value.of(3), klass.metric(MetricType.WMC).getPsiValue());
+        assertEquals(Value.of(4), klass.metric(MetricType.WMC).getJavaParserValue());
+    }
+
+    @Test
+    public void testFailureOfValueBackendIsPropagated() {
+        LanguageBackend modelBackend = c -> LanguageBackend.Result.of(new ProjectElement("p"));
+        LanguageBackend failingBackend = c -> {
+            throw new IllegalStateException("broken");
+        };
+
+        CalculationPipeline pipeline = new CalculationPipeline(List.of(modelBackend, failingBackend));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> pipeline.calculate(context));
+        assertEquals("broken", e.getMessage());
+    }
+
+    @Test
+    public void testFirstBackendMustBuildModel() {
+        LanguageBackend valueBackend = c -> new LanguageBackend.Result() {
+        };
+        CalculationPipeline pipeline = new CalculationPipeline(List.of(valueBackend));
+        assertThrows(IllegalStateException.class, () -> pipeline.calculate(context));
+        assertThrows(IllegalArgumentException.class, () -> new CalculationPipeline(List.of()));
+    }
+}
@@ -0,0 +1,126 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiSubstitutor;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.MethodSignature;
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.MethodElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricLevel;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.DerivativeMetricsRange;
+import org.b333vv.metric.model.metric.value.Range;
+import org.b333vv.metric.model.metric.value.Value;
+import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClassFitnessFunctionEngineTest {
+
+    private ClassElement a;
+    private ClassElement b;
+    private ClassElement c;
+    private ClassElement d;
+
+    @BeforeEach
+    void setUp() {
+        a = new ClassElement("A");
+        a.addMetric(Metric.of(MetricType.WMC, 3));
+        a.addMethod(method("a", a, 5));
+
+        b = new ClassElement("B");
+        b.addMetric(Metric.of(MetricType.WMC, 7));
+        b.addMethod(method("b1", b, 9));
+        b.addMethod(method("b2", b, 2));
+
+        c = new ClassElement("C");
+
+        d = new ClassElement("D");
+        d.addMetric(Metric.of(MetricType.WMC, Value.UNDEFINED));
+    }
+
+    private static MethodElement method(String name, ClassElement owner, long cc) {
+        PsiMethod psiMethod = mock(PsiMethod.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(psiMethod.getName()).thenReturn(name);
+        when(psiMethod.getSignature(PsiSubstitutor.EMPTY)).thenReturn(signature);
+        when(signature.getParameterTypes()).thenReturn(PsiType.EMPTY_ARRAY);
+        MethodElement method = new MethodElement(psiMethod, owner);
+        method.addMetric(Metric.of(MetricType.CC, cc));
+        return method;
+    }
+
+    private static FitnessFunction profile(String name, Map<MetricType, Range> ranges) {
+        return new FitnessFunction(name, MetricLevel.CLASS, ranges);
+    }
+
+    @Test
+    void testEvaluate() {
+        FitnessFunction p1 = profile("P1", Map.of(MetricType.WMC, DerivativeMetricsRange.of(Value.of(0), Value.of(10))));
+        FitnessFunction p2 = profile("P2", Map.of(
+                MetricType.WMC, DerivativeMetricsRange.of(Value.of(5), Value.of(20)),
+                MetricType.CC, DerivativeMetricsRange.of(Value.of(0), Value.of(3))));
+        FitnessFunction p3 = profile("P3", Map.of());
+        FitnessFunction p4 = profile("P4", Map.of(MetricType.WMC, DerivativeMetricsRange.of(Value.of(9), Value.of(1))));
+
+        ClassProfileMembership membership = new ClassFitnessFunctionEngine()
+                .evaluate(Set.of(p4, p2, p3, p1), List.of(a, b, c, d));
+        Map<FitnessFunction, Set<ClassElement>> result = membership.toMap();
+
+        assertEquals(List.of(p1, p2, p3, p4), membership.getProfiles());
+        assertEquals(Set.of(a, b, c), result.get(p1));
+        assertEquals(Set.of(b), result.get(p2));
+        assertEquals(Set.of(a, b, c, d), result.get(p3));
+        assertEquals(Set.of(c), result.get(p4));
+    }
+
+    @Test
+    void testSetOperations() {
+        FitnessFunction p1 = profile("P1", Map.of(MetricType.WMC, DerivativeMetricsRange.of(Value.of(0), Value.of(5))));
+        FitnessFunction p2 = profile("P2", Map.of(MetricType.WMC, DerivativeMetricsRange.of(Value.of(5), Value.of(10))));
+
+        ClassProfileMembership membership = new ClassFitnessFunctionEngine()
+                .evaluate(List.of(p1, p2), List.of(a, b, c, d));
+
+        assertEquals(2, membership.classCount(0));
+        assertEquals(2, membership.classCount(1));
+        assertEquals(1, membership.intersectionSize(0, 1));
+        assertEquals(3, membership.unionSize(0, 1));
+    }
+
+    @Test
+    void testFromMapReusesMembership() {
+        FitnessFunction p1 = profile("P1", Map.of());
+        ClassProfileMembership membership = new ClassFitnessFunctionEngine().evaluate(List.of(p1), List.of(a, b));
+
+        assertSame(membership, ClassProfileMembership.from(membership.toMap()));
+
+        Map<FitnessFunction, Set<ClassElement>> plain = new HashMap<>();
+        plain.put(p1, new HashSet<>(List.of(a, b)));
+        ClassProfileMembership indexed = ClassProfileMembership.from(plain);
+        assertEquals(2, indexed.classCount(indexed.indexOf(p1)));
+    }
+
+    @Test
+    void testManyClassesAcrossChunks() {
+        List<ClassElement> classes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ClassElement javaClass = new ClassElement("C" + i);
+            javaClass.addMetric(Metric.of(MetricType.WMC, i % 20));
+            classes.add(javaClass);
+        }
+        FitnessFunction p1 = profile("P1", Map.of(MetricType.WMC, DerivativeMetricsRange.of(Value.of(0), Value.of(9))));
+
+        ClassProfileMembership membership = new ClassFitnessFunctionEngine().evaluate(List.of(p1), classes);
+
+        assertEquals(2500, membership.classCount(0));
+        assertTrue(membership.classes(0).allMatch(javaClass -> javaClass.metric(MetricType.WMC).getPsiValue().longValue() < 10));
+    }
+}
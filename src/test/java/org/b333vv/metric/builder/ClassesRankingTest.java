@@ -0,0 +1,98 @@
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.RangeType;
+import org.b333vv.metric.model.metric.value.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassesRankingTest {
+
+    private static ClassesRanking ranking(int... values) {
+        return ranking(ClassesRanking.LIMIT, values);
+    }
+
+    private static ClassesRanking ranking(int limit, int... values) {
+        List<ClassesRanking.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            entries.add(new ClassesRanking.Entry(new ClassElement("C" + i), Metric.of(MetricType.WMC, values[i])));
+        }
+        Map<RangeType, List<ClassesRanking.Entry>> candidates = new EnumMap<>(RangeType.class);
+        candidates.put(RangeType.HIGH, entries);
+        return new ClassesRanking(MetricType.WMC, candidates, limit);
+    }
+
+    private static List<Long> values(List<ClassesRanking.Entry> entries) {
+        return entries.stream().map(e -> e.metric().getPsiValue().longValue()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testTopIsSortedDescendingAndBounded() {
+        ClassesRanking ranking = ranking(5, 42, 17, 8, 99, 23);
+
+        assertEquals(List.of(99L, 42L, 23L), values(ranking.top(RangeType.HIGH, 3)));
+        assertEquals(6, ranking.count(RangeType.HIGH));
+        assertEquals(List.of(99L, 42L, 23L, 17L, 8L, 5L), values(ranking.top(RangeType.HIGH, 10)));
+    }
+
+    @Test
+    public void testNextPageContinuesPreviousOne() {
+        int[] values = IntStream.range(0, 2 * ClassesRanking.PAGE_SIZE + 7).map(i -> (i * 37) % 1000).toArray();
+        ClassesRanking ranking = ranking(values);
+
+        List<ClassesRanking.Entry> first = ranking.top(RangeType.HIGH, ClassesRanking.PAGE_SIZE);
+        List<ClassesRanking.Entry> two = ranking.top(RangeType.HIGH, 2 * ClassesRanking.PAGE_SIZE);
+
+        assertEquals(first, two.subList(0, ClassesRanking.PAGE_SIZE));
+        List<Long> expected = IntStream.of(values).boxed().sorted((a, b) -> b - a)
+                .limit(2L * ClassesRanking.PAGE_SIZE).map(Long::valueOf).collect(Collectors.toList());
+        assertEquals(expected, values(two));
+        assertEquals(values.length, ranking.top(RangeType.HIGH, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testOnlyTheTopClassesAreKept() {
+        ClassesRanking ranking = ranking(3, 5, 42, 17, 8, 99, 23);
+
+        assertEquals(6, ranking.count(RangeType.HIGH));
+        assertEquals(3, ranking.rankedCount(RangeType.HIGH));
+        assertEquals(List.of(99L, 42L, 23L), values(ranking.top(RangeType.HIGH, 10)));
+    }
+
+    @Test
+    public void testMergedTopClassesKeepTheGreatestValues() {
+        ClassesRanking.TopClasses first = new ClassesRanking.TopClasses(2);
+        ClassesRanking.TopClasses second = new ClassesRanking.TopClasses(2);
+        int[] values = {5, 42, 17, 8, 99, 23};
+        for (int i = 0; i < values.length; i++) {
+            (i % 2 == 0 ? first : second).add(new ClassesRanking.Entry(new ClassElement("C" + i),
+                    Metric.of(MetricType.WMC, values[i])));
+        }
+        first.addAll(second);
+        ClassesRanking ranking = ClassesRanking.of(MetricType.WMC, Map.of(RangeType.HIGH, first));
+
+        assertEquals(6, ranking.count(RangeType.HIGH));
+        assertEquals(List.of(99L, 42L), values(ranking.top(RangeType.HIGH, ClassesRanking.PAGE_SIZE)));
+    }
+
+    @Test
+    public void testMissingRangeTypeIsEmpty() {
+        ClassesRanking ranking = ranking(3);
+
+        assertTrue(ranking.top(RangeType.EXTREME, ClassesRanking.PAGE_SIZE).isEmpty());
+        assertEquals(0, ranking.count(RangeType.EXTREME));
+        assertFalse(ranking.isEmpty());
+        assertTrue(ClassesRanking.empty(MetricType.WMC).isEmpty());
+        assertEquals(Value.of(3), ranking.top(RangeType.HIGH, 1).get(0).metric().getPsiValue());
+    }
+}
@@ -0,0 +1,116 @@
+package org.b333vv.metric.builder;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileMetricsSnapshotTest {
+
+    @Test
+    public void testRestoreUnchangedDeclaration() {
+        FileMetricsSnapshot snapshot = new FileMetricsSnapshot(EnumSet.of(MetricType.WMC, MetricType.NOM));
+        PsiElement declaration = declaration(120, null);
+        ClassElement built = new ClassElement("Foo");
+        built.addMetric(Metric.of(MetricType.WMC, 7));
+        built.addMetric(Metric.of(MetricType.NOM, 3));
+        snapshot.store("a.Foo", declaration, built);
+
+        ClassElement rebuilt = new ClassElement("Foo");
+        assertTrue(snapshot.restore("a.Foo", declaration, rebuilt));
+        assertEquals(2, rebuilt.metrics().count());
+        assertEquals(Metric.of(MetricType.WMC, 7).getPsiValue(), rebuilt.metric(MetricType.WMC).getPsiValue());
+    }
+
+    @Test
+    public void testChangedOrUnknownDeclarationIsNotRestored() {
+        FileMetricsSnapshot snapshot = new FileMetricsSnapshot(EnumSet.of(MetricType.WMC));
+        ClassElement built = new ClassElement("Foo");
+        built.addMetric(Metric.of(MetricType.WMC, 7));
+        snapshot.store("a.Foo", declaration(120, null), built);
+
+        ClassElement rebuilt = new ClassElement("Foo");
+        assertFalse(snapshot.restore("a.Foo", declaration(121, null), rebuilt));
+        assertFalse(snapshot.restore("a.Bar", declaration(120, null), rebuilt));
+        assertEquals(0, rebuilt.metrics().count());
+    }
+
+    @Test
+    public void testEditKeepingTheLengthIsNotRestored() {
+        FileMetricsSnapshot snapshot = new FileMetricsSnapshot(EnumSet.of(MetricType.WMC));
+        ClassElement built = new ClassElement("Foo");
+        built.addMetric(Metric.of(MetricType.WMC, 7));
+        snapshot.store("a.Foo", declaration("int a = 1;", null), built);
+
+        assertFalse(snapshot.restore("a.Foo", declaration("int b = 2;", null), new ClassElement("Foo")));
+        assertTrue(snapshot.restore("a.Foo", declaration("int a = 1;", null), new ClassElement("Foo")));
+    }
+
+    @Test
+    public void testDependentMetricsAreNotStored() {
+        FileMetricsSnapshot snapshot = new FileMetricsSnapshot(EnumSet.of(MetricType.WMC, MetricType.DIT));
+        PsiElement declaration = declaration(120, null);
+        ClassElement built = new ClassElement("Foo");
+        built.addMetric(Metric.of(MetricType.WMC, 7));
+        built.addMetric(Metric.of(MetricType.DIT, 2));
+        snapshot.store("a.Foo", declaration, built);
+
+        ClassElement rebuilt = new ClassElement("Foo");
+        assertTrue(snapshot.restore("a.Foo", declaration, rebuilt));
+        assertNull(rebuilt.metric(MetricType.DIT));
+        assertTrue(FileMetricsSnapshot.isDependent(MetricType.NOC));
+        assertFalse(FileMetricsSnapshot.isDependent(MetricType.CC));
+    }
+
+    @Test
+    public void testEditInvalidatesEnclosingDeclarationsOnly() {
+        FileMetricsSnapshot snapshot = new FileMetricsSnapshot(EnumSet.of(MetricType.WMC, MetricType.CC));
+        PsiFile file = mock(PsiFile.class);
+        PsiElement psiClass = declaration(300, file);
+        PsiElement edited = declaration(100, psiClass);
+        PsiElement unchanged = declaration(120, psiClass);
+        snapshot.store("a.Foo", psiClass, new ClassElement("Foo"));
+        snapshot.store("a.Foo#edited()", edited, new ClassElement("Foo"));
+        snapshot.store("a.Foo#unchanged()", unchanged, new ClassElement("Foo"));
+
+        snapshot.invalidate(declaration(10, edited), null);
+
+        assertFalse(snapshot.restore("a.Foo", psiClass, new ClassElement("Foo")));
+        assertFalse(snapshot.restore("a.Foo#edited()", edited, new ClassElement("Foo")));
+        assertTrue(snapshot.restore("a.Foo#unchanged()", unchanged, new ClassElement("Foo")));
+
+        snapshot.invalidate(file, null);
+        assertEquals(0, snapshot.size());
+    }
+
+    @Test
+    public void testCompatibility() {
+        FileMetricsSnapshot snapshot = new FileMetricsSnapshot(EnumSet.of(MetricType.WMC, MetricType.NOM));
+        assertTrue(snapshot.isCompatibleWith(Set.of(MetricType.NOM, MetricType.WMC)));
+        assertFalse(snapshot.isCompatibleWith(EnumSet.of(MetricType.WMC)));
+    }
+
+    private static PsiElement declaration(int length, PsiElement parent) {
+        return declaration("x".repeat(length), parent);
+    }
+
+    private static PsiElement declaration(String text, PsiElement parent) {
+        PsiElement declaration = mock(PsiElement.class);
+        when(declaration.getTextLength()).thenReturn(text.length());
+        when(declaration.getText()).thenReturn(text);
+        when(declaration.getParent()).thenReturn(parent);
+        return declaration;
+    }
+}
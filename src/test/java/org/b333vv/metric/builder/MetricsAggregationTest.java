@@ -0,0 +1,91 @@
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.PackageElement;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.b333vv.metric.builder.MetricsAggregation.Level.CLASS;
+import static org.b333vv.metric.builder.MetricsAggregation.Level.PACKAGE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsAggregationTest {
+    private static final double DELTA = 1e-9;
+
+    private static ProjectElement project(long... wmcValues) {
+        ProjectElement projectElement = new ProjectElement("p");
+        for (int i = 0; i < wmcValues.length; i++) {
+            ClassElement javaClass = new ClassElement("C" + i);
+            javaClass.addMetric(Metric.of(MetricType.WMC, wmcValues[i]));
+            projectElement.addToAllClasses(javaClass);
+        }
+        return projectElement;
+    }
+
+    @Test
+    public void testClassMetricsAreAggregated() {
+        MetricsAggregation aggregation = MetricsAggregation.of(project(2, 4, 4, 4, 5, 5, 7, 9));
+
+        assertEquals(8, aggregation.count(CLASS, MetricType.WMC));
+        assertEquals(40.0, aggregation.sum(CLASS, MetricType.WMC), DELTA);
+        assertEquals(5.0, aggregation.mean(CLASS, MetricType.WMC), DELTA);
+        assertEquals(4.0, aggregation.variance(CLASS, MetricType.WMC), DELTA);
+        assertEquals(9.0, aggregation.max(CLASS, MetricType.WMC), DELTA);
+        assertEquals(2.0, aggregation.zScore(CLASS, MetricType.WMC), DELTA);
+    }
+
+    @Test
+    public void testParallelPassMatchesTwoPassStatistics() {
+        long[] values = IntStream.range(0, 10_000).mapToLong(i -> (i * 7919L) % 613).toArray();
+        MetricsAggregation aggregation = MetricsAggregation.of(project(values));
+
+        double mean = (double) IntStream.range(0, values.length).mapToLong(i -> values[i]).sum() / values.length;
+        double variance = IntStream.range(0, values.length)
+                .mapToDouble(i -> (values[i] - mean) * (values[i] - mean)).sum() / values.length;
+        assertEquals(mean, aggregation.mean(CLASS, MetricType.WMC), 1e-6);
+        assertEquals(variance, aggregation.variance(CLASS, MetricType.WMC), 1e-6);
+        assertEquals(612.0, aggregation.max(CLASS, MetricType.WMC), DELTA);
+    }
+
+    @Test
+    public void testLevelsAreKeptApart() {
+        ProjectElement projectElement = project(3);
+        PackageElement javaPackage = new PackageElement("p1", null);
+        javaPackage.addMetric(Metric.of(MetricType.PAHVL, 1.5));
+        projectElement.putToAllPackages("p1", javaPackage);
+
+        MetricsAggregation aggregation = MetricsAggregation.of(projectElement);
+
+        assertEquals(1.5, aggregation.sum(PACKAGE, MetricType.PAHVL), DELTA);
+        assertEquals(0, aggregation.count(PACKAGE, MetricType.WMC));
+        assertEquals(0.0, aggregation.sum(CLASS, MetricType.PAHVL), DELTA);
+    }
+
+    @Test
+    public void testConstantOrMissingValuesHaveZeroScore() {
+        MetricsAggregation aggregation = MetricsAggregation.of(project(4, 4, 4));
+
+        assertEquals(0.0, aggregation.zScore(CLASS, MetricType.WMC), DELTA);
+        assertEquals(0.0, aggregation.zScore(CLASS, MetricType.DIT), DELTA);
+        assertEquals(0.0, aggregation.max(CLASS, MetricType.DIT), DELTA);
+    }
+
+    @Test
+    public void testInheritanceSumsOverridingRatios() {
+        ProjectElement projectElement = new ProjectElement("p");
+        ClassElement a = new ClassElement("A");
+        a.addMetric(Metric.of(MetricType.NOM, 4));
+        a.addMetric(Metric.of(MetricType.NOOM, 2));
+        ClassElement b = new ClassElement("B");
+        b.addMetric(Metric.of(MetricType.NOM, 0));
+        b.addMetric(Metric.of(MetricType.NOOM, 1));
+        projectElement.addToAllClasses(a);
+        projectElement.addToAllClasses(b);
+
+        assertEquals(0.005, MetricsAggregation.of(projectElement).getInheritance(), DELTA);
+    }
+}
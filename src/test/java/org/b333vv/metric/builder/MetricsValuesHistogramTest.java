@@ -0,0 +1,54 @@
+package org.b333vv.metric.builder;
+
+import org.b333vv.metric.model.code.ClassElement;
+import org.b333vv.metric.model.code.ProjectElement;
+import org.b333vv.metric.model.metric.Metric;
+import org.b333vv.metric.model.metric.MetricType;
+import org.b333vv.metric.model.metric.value.BasicMetricsRange;
+import org.b333vv.metric.model.metric.value.RangeTable;
+import org.b333vv.metric.model.metric.value.RangeType;
+import org.b333vv.metric.model.metric.value.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsValuesHistogramTest {
+    private final RangeTable rangeTable = RangeTable.of(1L, type -> type == MetricType.WMC
+            ? BasicMetricsRange.of(Value.of(3), Value.of(5), Value.of(7))
+            : BasicMetricsRange.UNDEFINED);
+
+    private ProjectElement project(long... wmcValues) {
+        ProjectElement projectElement = new ProjectElement("p");
+        for (int i = 0; i < wmcValues.length; i++) {
+            ClassElement javaClass = new ClassElement("C" + i);
+            javaClass.addMetric(Metric.of(MetricType.WMC, wmcValues[i]));
+            javaClass.addMetric(Metric.of(MetricType.NOC, 1));
+            projectElement.addToAllClasses(javaClass);
+        }
+        return projectElement;
+    }
+
+    @Test
+    public void testClassesAreCountedPerRangeType() {
+        MetricsValuesHistogram histogram = MetricsValuesHistogram.of(project(1, 2, 3, 5, 6, 7, 100), rangeTable);
+
+        assertEquals(7, histogram.getNumberOfClasses());
+        assertEquals(2, histogram.count(MetricType.WMC, RangeType.REGULAR));
+        assertEquals(1, histogram.count(MetricType.WMC, RangeType.HIGH));
+        assertEquals(2, histogram.count(MetricType.WMC, RangeType.VERY_HIGH));
+        assertEquals(2, histogram.count(MetricType.WMC, RangeType.EXTREME));
+        assertEquals(7, histogram.count(MetricType.NOC, RangeType.UNDEFINED));
+    }
+
+    @Test
+    public void testRelativeDistributionSkipsTypesWithoutRanges() {
+        Map<MetricType, Map<RangeType, Double>> distribution =
+                MetricsValuesHistogram.of(project(1, 4, 4, 9), rangeTable).toRelativeDistribution();
+
+        assertEquals(Map.of(MetricType.WMC, Map.of(RangeType.REGULAR, 0.25, RangeType.HIGH, 0.5,
+                RangeType.EXTREME, 0.25)), distribution);
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.b333vv.metric.model.javaparser.util;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaParserDeclarationIndexTest {
+
+    private static final String SOURCE = "package sample;\n" +
+            "import java.util.*;\n" +
+            "public class Overloads<T, N extends Number> {\n" +
+            "    Overloads() {}\n" +
+            "    Overloads(T value) {}\n" +
+            "    void put(int value) {}\n" +
+            "    void put(String value) {}\n" +
+            "    void put(T value, List<String> values) {}\n" +
+            "    void put(N value) {}\n" +
+            "    <E extends Comparable<E>> void sort(E[] values) {}\n" +
+            "    String format(String pattern, Object... args) { return pattern; }\n" +
+            "    void entry(Map.Entry<String, T> entry) {}\n" +
+            "    void date(java.util.Date date) {}\n" +
+            "    void date(java.sql.Date date) {}\n" +
+            "    static class Nested {\n" +
+            "        void put(java.lang.String value) {}\n" +
+            "        void nestedOnly() {}\n" +
+            "    }\n" +
+            "}\n" +
+            "class Other {\n" +
+            "    static class Nested {}\n" +
+            "    static class Single {}\n" +
+            "}\n";
+
+    private JavaParserDeclarationIndex index;
+    private ClassOrInterfaceDeclaration overloads;
+
+    @BeforeEach
+    public void setUp() {
+        CompilationUnit unit = new JavaParser().parse(SOURCE).getResult().get();
+        index = JavaParserDeclarationIndex.build(List.of(unit));
+        overloads = index.findClass("sample.Overloads", "Overloads");
+    }
+
+    private CallableDeclaration<?> find(String name, String... parameterTypes) {
+        return index.findMethod(overloads, JavaParserDeclarationIndex.signature(name, List.of(parameterTypes)),
+                name, parameterTypes.length);
+    }
+
+    @Test
+    public void testFindClass() {
+        assertNotNull(overloads);
+        assertEquals("Nested", index.findClass("sample.Overloads.Nested", "Nested").getNameAsString());
+        assertEquals("Single", index.findClass(null, "Single").getNameAsString());
+        assertNull(index.findClass("sample.Missing", "Missing"));
+    }
+
+    @Test
+    public void testAmbiguousSimpleNameIsNotMatched() {
+        assertNull(index.findClass(null, "Nested"));
+        assertEquals("Nested", index.findClass("sample.Other.Nested", "Nested").getNameAsString());
+    }
+
+    @Test
+    public void testConstructorsAreMatchedBySignature() {
+        assertTrue(find("Overloads") instanceof ConstructorDeclaration);
+        CallableDeclaration<?> constructor = find("Overloads", "Object");
+        assertTrue(constructor instanceof ConstructorDeclaration);
+        assertEquals(1, constructor.getParameters().size());
+    }
+
+    @Test
+    public void testOverloadsAreMatchedBySignature() {
+        assertEquals("int", find("put", "int").getParameter(0).getTypeAsString());
+        assertEquals("String", find("put", "String").getParameter(0).getTypeAsString());
+        assertEquals("N", find("put", "Number").getParameter(0).getTypeAsString());
+        assertEquals(2, find("put", "Object", "List").getParameters().size());
+    }
+
+    @Test
+    public void testGenericArraysAndVarargs() {
+        assertNotNull(find("sort", "Comparable[]"));
+        assertNotNull(find("format", "String", "Object[]"));
+        assertNotNull(find("entry", "Entry"));
+    }
+
+    @Test
+    public void testFallbackToNameAndArity() {
+        CallableDeclaration<?> method = find("format", "String", "Serializable[]");
+        assertNotNull(method);
+        assertEquals("format", method.getNameAsString());
+        assertNull(find("missing"));
+    }
+
+    @Test
+    public void testAmbiguousArityIsNotMatched() {
+        assertNull(find("put", "long"));
+    }
+
+    @Test
+    public void testCollidingSignaturesAreNotMatched() {
+        assertNull(find("date", "Date"));
+    }
+
+    @Test
+    public void testMethodsOfNestedClassesAreNotMatched() {
+        assertNull(find("nestedOnly"));
+    }
+
+    @Test
+    public void testSimpleTypeName() {
+        assertEquals("Entry", JavaParserDeclarationIndex.simpleTypeName("java.util.Map.Entry"));
+        assertEquals("String[]", JavaParserDeclarationIndex.simpleTypeName("java.lang.String..."));
+        assertEquals("List[]", JavaParserDeclarationIndex.simpleTypeName("java.util.List<java.lang.String>[]"));
+        assertEquals("int", JavaParserDeclarationIndex.simpleTypeName("int"));
+    }
+}
@@ -0,0 +1,59 @@
+package org.b333vv.metric.model.javaparser.util;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import org.b333vv.metric.model.javaparser.visitor.type.BaseVisitorTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaParserTypeIndexTest extends BaseVisitorTest {
+
+    private List<ClassOrInterfaceDeclaration> parse(String directory) throws IOException {
+        try (Stream<Path> files = Files.walk(Paths.get(directory))) {
+            return files.filter(Files::isRegularFile)
+                    .map(p -> {
+                        try {
+                            return javaParser.parse(p).getResult().get();
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    })
+                    .flatMap(cu -> cu.findAll(ClassOrInterfaceDeclaration.class).stream())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testChildrenAndDeclarations() throws IOException {
+        List<ClassOrInterfaceDeclaration> allClasses = parse("testData/inheritance");
+
+        JavaParserTypeIndex index = JavaParserTypeIndex.build(allClasses);
+
+        assertEquals(1, index.getNumberOfChildren("inheritance.A"));
+        assertEquals(1, index.getNumberOfChildren("inheritance.B"));
+        assertEquals(0, index.getNumberOfChildren("inheritance.C"));
+        ClassOrInterfaceDeclaration b = index.getDeclaration("inheritance.B");
+        assertNotNull(b);
+        assertEquals("inheritance.B", index.getQualifiedName(b));
+        assertNull(index.getDeclaration("inheritance.D"));
+    }
+
+    @Test
+    public void testFieldAccessors() throws IOException {
+        List<ClassOrInterfaceDeclaration> allClasses = parse("testData/coupling");
+
+        JavaParserTypeIndex index = JavaParserTypeIndex.build(allClasses);
+        ClassOrInterfaceDeclaration foreignData = allClasses.stream()
+                .filter(c -> c.getNameAsString().equals("ForeignData")).findFirst().get();
+
+        assertEquals(1, index.getFieldAccessors(index.getQualifiedName(foreignData)).size());
+    }
+}
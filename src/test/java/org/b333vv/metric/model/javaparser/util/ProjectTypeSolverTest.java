@@ -0,0 +1,151 @@
+package org.b333vv.metric.model.javaparser.util;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.model.SymbolReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectTypeSolverTest {
+
+    private Path directory;
+    private ProjectTypeSolver typeSolver;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("type-solver");
+        typeSolver = new ProjectTypeSolver(getClass().getClassLoader());
+    }
+
+    private CompilationUnit parse(String fileName, String source) throws IOException {
+        Path file = directory.resolve(fileName);
+        Files.writeString(file, source);
+        return new JavaParser().parse(file).getResult().get();
+    }
+
+    @Test
+    public void testDeclarationsAreReplacedPerFile() throws IOException {
+        CompilationUnit a = parse("A.java", "package sample; public class A {}");
+        CompilationUnit b = parse("B.java", "package sample; public interface B {}");
+        typeSolver.updateDeclarations(List.of(a, b));
+        Object declarationOfB = typeSolver.solveType("sample.B");
+
+        assertTrue(typeSolver.tryToSolveType("sample.A").isSolved());
+        assertTrue(typeSolver.solveType("sample.B").isInterface());
+
+        CompilationUnit changedA = parse("A.java", "package sample; public class Renamed {}");
+        typeSolver.updateDeclarations(List.of(changedA, b));
+
+        assertFalse(typeSolver.tryToSolveType("sample.A").isSolved());
+        assertTrue(typeSolver.tryToSolveType("sample.Renamed").isSolved());
+        assertSame(declarationOfB, typeSolver.solveType("sample.B"));
+
+        typeSolver.updateDeclarations(List.of(changedA));
+
+        assertFalse(typeSolver.tryToSolveType("sample.B").isSolved());
+    }
+
+    @Test
+    public void testResolutionsAreCachedAndBounded() throws IOException {
+        typeSolver = new ProjectTypeSolver(getClass().getClassLoader(), 2);
+        typeSolver.updateDeclarations(List.of(parse("A.java", "package sample; public class A {}")));
+
+        assertTrue(typeSolver.tryToSolveType("java.lang.String").isSolved());
+        assertTrue(typeSolver.tryToSolveType("sample.A").isSolved());
+        assertFalse(typeSolver.tryToSolveType("sample.Missing").isSolved());
+        assertEquals(2, typeSolver.getCachedResolutionsCount());
+
+        typeSolver.updateDeclarations(List.of());
+
+        assertEquals(0, typeSolver.getCachedResolutionsCount());
+        assertFalse(typeSolver.tryToSolveType("sample.A").isSolved());
+    }
+
+    @Test
+    public void testResolutionsSurviveUnchangedSourceRoots() throws IOException {
+        typeSolver.setSourceRoots(List.of(directory));
+        assertTrue(typeSolver.tryToSolveType("java.lang.String").isSolved());
+
+        typeSolver.setSourceRoots(List.of(directory));
+
+        assertEquals(1, typeSolver.getCachedResolutionsCount());
+
+        typeSolver.setSourceRoots(List.of());
+
+        assertEquals(0, typeSolver.getCachedResolutionsCount());
+    }
+
+    @Test
+    public void testOnlySolversOfChangedSourceRootsAreRecreated() throws IOException {
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        typeSolver.setSourceRoots(List.of(first, second));
+        CompilationUnit a = parse("first/A.java", "package sample; public class A {}");
+        CompilationUnit b = parse("second/B.java", "package sample; public class B {}");
+        typeSolver.updateDeclarations(List.of(a, b));
+        TypeSolver firstSolver = typeSolver.getSourceRootSolver(first);
+        TypeSolver secondSolver = typeSolver.getSourceRootSolver(second);
+
+        typeSolver.updateDeclarations(List.of(parse("first/A.java", "package sample; public class A { int a; }"), b));
+
+        assertNotSame(firstSolver, typeSolver.getSourceRootSolver(first));
+        assertSame(secondSolver, typeSolver.getSourceRootSolver(second));
+
+        typeSolver.setSourceRoots(List.of(second));
+
+        assertNull(typeSolver.getSourceRootSolver(first));
+        assertSame(secondSolver, typeSolver.getSourceRootSolver(second));
+    }
+
+    @Test
+    public void testConcurrentLookups() throws IOException {
+        typeSolver.updateDeclarations(List.of(parse("A.java", "package sample; public class A {}")));
+
+        assertTrue(IntStream.range(0, 1_000).parallel()
+                .mapToObj(i -> typeSolver.tryToSolveType(i % 2 == 0 ? "sample.A" : "java.lang.String"))
+                .allMatch(SymbolReference::isSolved));
+        assertEquals(2, typeSolver.getCachedResolutionsCount());
+    }
+
+    @Test
+    public void testUnchangedLibrariesAreReused() throws IOException {
+        Path jar = directory.resolve("library.jar");
+        String entry = getClass().getName().replace('.', '/') + ".class";
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out);
+             InputStream classFile = getClass().getClassLoader().getResourceAsStream(entry)) {
+            jarOut.putNextEntry(new JarEntry(entry));
+            classFile.transferTo(jarOut);
+            jarOut.closeEntry();
+        }
+        String path = jar.toString();
+
+        typeSolver.setLibraries(List.of(path, path));
+        TypeSolver library = typeSolver.getLibrarySolver(path);
+        typeSolver.setLibraries(List.of(path));
+
+        assertNotNull(library);
+        assertSame(library, typeSolver.getLibrarySolver(path));
+        assertSame(typeSolver, library.getRoot());
+
+        assertTrue(jar.toFile().setLastModified(jar.toFile().lastModified() + 10_000));
+        typeSolver.setLibraries(List.of(path));
+
+        assertNotSame(library, typeSolver.getLibrarySolver(path));
+        typeSolver.setLibraries(List.of());
+        assertNull(typeSolver.getLibrarySolver(path));
+    }
+}
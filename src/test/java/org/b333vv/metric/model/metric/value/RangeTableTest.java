@@ -0,0 +1,69 @@
+package org.b333vv.metric.model.metric.value;
+
+import org.b333vv.metric.model.metric.MetricType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangeTableTest {
+
+    private final Value[] values = {
+            Value.UNDEFINED, Value.INFINITY, Value.ZERO, Value.of(-1), Value.of(-0.5),
+            Value.of(1), Value.of(2.5), Value.of(3), Value.of(5), Value.of(6.99), Value.of(7),
+            Value.of(0.3), Value.of(0.5), Value.of(0.75), Value.of(1.0), Value.of(100), Value.of(1e9)
+    };
+
+    private Map<MetricType, Range> ranges() {
+        Map<MetricType, Range> ranges = new EnumMap<>(MetricType.class);
+        ranges.put(MetricType.WMC, BasicMetricsRange.of(Value.of(3), Value.of(5), Value.of(7)));
+        ranges.put(MetricType.CC, BasicMetricsRange.of(Value.of(1), Value.of(1), Value.of(1)));
+        ranges.put(MetricType.DIT, BasicMetricsRange.of(Value.of(5), Value.of(3), Value.of(7)));
+        ranges.put(MetricType.TCC, DerivativeMetricsRange.of(Value.of(0.5), Value.of(1.0)));
+        ranges.put(MetricType.D, DerivativeMetricsRange.of(Value.of(0.0), Value.of(0.75)));
+        return ranges;
+    }
+
+    @Test
+    void testClassificationMatchesRanges() {
+        Map<MetricType, Range> ranges = ranges();
+        RangeTable table = RangeTable.of(1L, ranges::get);
+
+        for (MetricType type : MetricType.values()) {
+            Range range = ranges.getOrDefault(type, BasicMetricsRange.UNDEFINED);
+            for (Value value : values) {
+                assertEquals(range.getRangeType(value), table.classify(type, value), type + " " + value);
+            }
+        }
+    }
+
+    @Test
+    void testGetRangeReturnsSameInstance() {
+        Map<MetricType, Range> ranges = ranges();
+        RangeTable table = RangeTable.of(3L, ranges::get);
+
+        assertSame(ranges.get(MetricType.WMC), table.getRange(MetricType.WMC));
+        assertSame(BasicMetricsRange.UNDEFINED, table.getRange(MetricType.NOC));
+        assertEquals(3L, table.getVersion());
+    }
+
+    @Test
+    void testIsNotRegular() {
+        RangeTable table = RangeTable.of(1L, ranges()::get);
+
+        assertFalse(table.isNotRegular(MetricType.WMC, Value.of(2)));
+        assertTrue(table.isNotRegular(MetricType.WMC, Value.of(5)));
+        assertFalse(table.isNotRegular(MetricType.NOC, Value.of(100)));
+        assertTrue(table.isNotRegular(MetricType.TCC, Value.of(0.1)));
+        assertFalse(table.isNotRegular(MetricType.WMC, Value.UNDEFINED));
+    }
+
+    @Test
+    void testEmptyTable() {
+        for (MetricType type : MetricType.values()) {
+            assertEquals(RangeType.UNDEFINED, RangeTable.EMPTY.classify(type, Value.of(1)));
+        }
+    }
+}
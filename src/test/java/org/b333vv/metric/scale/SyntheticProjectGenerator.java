@@ -0,0 +1,266 @@
+package org.b333vv.metric.scale;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic code base for scale tests. The same parameters always give the same sources: Java and
+ * Kotlin packages, inheritance chains up to a given depth, fields and calls coupling classes to other classes,
+ * a share of god classes, which have many more members and couplings, and methods with nested conditions and
+ * loops. Every class has a method {@code m0(int)}, overridden along the inheritance chains and called through the
+ * coupling fields, so that all references resolve.
+ */
+public final class SyntheticProjectGenerator {
+    private static final String ROOT_PACKAGE = "com.synthetic";
+    private static final int GOD_CLASS_FACTOR = 10;
+
+    public record Parameters(long seed, int classes, int classesPerPackage, double kotlinShare,
+                             int maxInheritanceDepth, int couplingDensity, double godClassShare,
+                             int maxNestingDepth) {
+
+        /**
+         * @return default shape of a project of the given number of classes
+         */
+        public static Parameters of(int classes) {
+            return new Parameters(42L, classes, 50, 0.2, 6, 4, 0.01, 5);
+        }
+
+        public Parameters withSeed(long seed) {
+            return new Parameters(seed, classes, classesPerPackage, kotlinShare, maxInheritanceDepth,
+                    couplingDensity, godClassShare, maxNestingDepth);
+        }
+    }
+
+    private final Parameters parameters;
+    // Reseeded for every class, so that any class comes out the same however often sources are generated
+    private Random random;
+    private final boolean[] kotlin;
+    private final int[] parent;
+    private final int[] depth;
+    private final boolean[] god;
+    private final List<Integer> javaClasses = new ArrayList<>();
+
+    public SyntheticProjectGenerator(Parameters parameters) {
+        this.parameters = parameters;
+        this.random = new Random(parameters.seed());
+        int classes = parameters.classes();
+        kotlin = new boolean[classes];
+        parent = new int[classes];
+        depth = new int[classes];
+        god = new boolean[classes];
+        shape();
+    }
+
+    private void shape() {
+        int packages = (parameters.classes() + parameters.classesPerPackage() - 1) / parameters.classesPerPackage();
+        boolean[] kotlinPackage = new boolean[packages];
+        for (int p = 0; p < packages; p++) {
+            kotlinPackage[p] = random.nextDouble() < parameters.kotlinShare();
+        }
+        for (int i = 0; i < parameters.classes(); i++) {
+            kotlin[i] = kotlinPackage[i / parameters.classesPerPackage()];
+            god[i] = random.nextDouble() < parameters.godClassShare();
+            parent[i] = -1;
+            if (i > 0 && random.nextBoolean()) {
+                // A few tries for an earlier class of the same language that is not at the maximal depth yet
+                for (int attempt = 0; attempt < 4 && parent[i] < 0; attempt++) {
+                    int candidate = random.nextInt(i);
+                    if (kotlin[candidate] == kotlin[i] && depth[candidate] < parameters.maxInheritanceDepth()) {
+                        parent[i] = candidate;
+                        depth[i] = depth[candidate] + 1;
+                    }
+                }
+            }
+            if (!kotlin[i]) {
+                javaClasses.add(i);
+            }
+        }
+    }
+
+    public int getJavaClassCount() {
+        return javaClasses.size();
+    }
+
+    public int getKotlinClassCount() {
+        return parameters.classes() - javaClasses.size();
+    }
+
+    public int getGodClassCount() {
+        int count = 0;
+        for (boolean isGod : god) {
+            if (isGod) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return source text by path relative to the source root, in the order of the classes
+     */
+    public Map<String, String> generate() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.classes(); i++) {
+            random = new Random(parameters.seed() * 1_000_003L + i);
+            if (kotlin[i]) {
+                sources.put(packageName(i).replace('.', '/') + "/" + className(i) + ".kt", kotlinClass(i));
+            } else {
+                sources.put(packageName(i).replace('.', '/') + "/" + className(i) + ".java", javaClass(i));
+            }
+        }
+        return sources;
+    }
+
+    public void writeTo(Path root) throws IOException {
+        for (Map.Entry<String, String> source : generate().entrySet()) {
+            Path file = root.resolve(source.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String packageName(int i) {
+        return ROOT_PACKAGE + (kotlin[i] ? ".kt" : "") + ".p" + i / parameters.classesPerPackage();
+    }
+
+    private String className(int i) {
+        return (kotlin[i] ? "K" : "C") + i;
+    }
+
+    private String qualifiedName(int i) {
+        return packageName(i) + "." + className(i);
+    }
+
+    private int members(int i, int usual) {
+        return god[i] ? usual * GOD_CLASS_FACTOR : usual;
+    }
+
+    private List<Integer> couplings(int i) {
+        List<Integer> targets = new ArrayList<>();
+        int count = javaClasses.isEmpty() ? 0 : members(i, random.nextInt(parameters.couplingDensity() + 1));
+        for (int c = 0; c < count; c++) {
+            targets.add(javaClasses.get(random.nextInt(javaClasses.size())));
+        }
+        return targets;
+    }
+
+    private String javaClass(int i) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName(i)).append(";\n\n");
+        source.append("public class ").append(className(i));
+        if (parent[i] >= 0) {
+            source.append(" extends ").append(qualifiedName(parent[i]));
+        }
+        source.append(" {\n");
+        List<Integer> couplings = couplings(i);
+        for (int c = 0; c < couplings.size(); c++) {
+            String type = qualifiedName(couplings.get(c));
+            source.append("    private final ").append(type).append(" c").append(c).append(" = new ")
+                    .append(type).append("();\n");
+        }
+        int attributes = members(i, 1 + random.nextInt(4));
+        for (int a = 0; a < attributes; a++) {
+            source.append("    ").append(random.nextInt(3) == 0 ? "public" : "private").append(" int a")
+                    .append(i).append('_').append(a).append(";\n");
+        }
+        int methods = members(i, 2 + random.nextInt(5));
+        for (int m = 0; m < methods; m++) {
+            String name = m == 0 ? "m0" : "m" + i + "_" + m;
+            source.append("\n    public int ").append(name).append("(int x) {\n");
+            source.append("        int r = x;\n");
+            javaStatements(source, couplings, 0, nestingDepth(i), "        ");
+            source.append("        return r;\n    }\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private void javaStatements(StringBuilder source, List<Integer> couplings, int level, int depth, String indent) {
+        if (level == depth) {
+            if (couplings.isEmpty()) {
+                source.append(indent).append("r += ").append(level + 1).append(";\n");
+            } else {
+                int c = random.nextInt(couplings.size());
+                source.append(indent).append("r += c").append(c).append(".m0(r);\n");
+            }
+            return;
+        }
+        String inner = indent + "    ";
+        if (random.nextBoolean()) {
+            source.append(indent).append("if (r > ").append(level).append(") {\n");
+            javaStatements(source, couplings, level + 1, depth, inner);
+            source.append(indent).append("} else {\n").append(inner).append("r--;\n").append(indent).append("}\n");
+        } else {
+            source.append(indent).append("for (int i").append(level).append(" = 0; i").append(level)
+                    .append(" < 3; i").append(level).append("++) {\n");
+            javaStatements(source, couplings, level + 1, depth, inner);
+            source.append(indent).append("}\n");
+        }
+    }
+
+    private String kotlinClass(int i) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName(i)).append("\n\n");
+        source.append("open class ").append(className(i));
+        if (parent[i] >= 0) {
+            source.append(" : ").append(qualifiedName(parent[i])).append("()");
+        }
+        source.append(" {\n");
+        List<Integer> couplings = couplings(i);
+        for (int c = 0; c < couplings.size(); c++) {
+            source.append("    private val c").append(c).append(" = ").append(qualifiedName(couplings.get(c)))
+                    .append("()\n");
+        }
+        int attributes = members(i, 1 + random.nextInt(4));
+        for (int a = 0; a < attributes; a++) {
+            source.append("    ").append(random.nextInt(3) == 0 ? "" : "private ").append("var a").append(i)
+                    .append('_').append(a).append(": Int = 0\n");
+        }
+        int methods = members(i, 2 + random.nextInt(5));
+        for (int m = 0; m < methods; m++) {
+            String modifier = m != 0 ? "" : parent[i] >= 0 ? "override " : "open ";
+            String name = m == 0 ? "m0" : "m" + i + "_" + m;
+            source.append("\n    ").append(modifier).append("fun ").append(name).append("(x: Int): Int {\n");
+            source.append("        var r = x\n");
+            kotlinStatements(source, couplings, 0, nestingDepth(i), "        ");
+            source.append("        return r\n    }\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private void kotlinStatements(StringBuilder source, List<Integer> couplings, int level, int depth,
+                                  String indent) {
+        if (level == depth) {
+            if (couplings.isEmpty()) {
+                source.append(indent).append("r += ").append(level + 1).append("\n");
+            } else {
+                int c = random.nextInt(couplings.size());
+                source.append(indent).append("r += c").append(c).append(".m0(r)\n");
+            }
+            return;
+        }
+        String inner = indent + "    ";
+        if (random.nextBoolean()) {
+            source.append(indent).append("if (r > ").append(level).append(") {\n");
+            kotlinStatements(source, couplings, level + 1, depth, inner);
+            source.append(indent).append("} else {\n").append(inner).append("r--\n").append(indent).append("}\n");
+        } else {
+            source.append(indent).append("for (i").append(level).append(" in 0 until 3) {\n");
+            kotlinStatements(source, couplings, level + 1, depth, inner);
+            source.append(indent).append("}\n");
+        }
+    }
+
+    // God classes nest as deep as allowed, the others mostly stay shallow
+    private int nestingDepth(int i) {
+        return god[i] ? parameters.maxNestingDepth() : random.nextInt(Math.min(3, parameters.maxNestingDepth()) + 1);
+    }
+}
@@ -0,0 +1,24 @@
+package org.b333vv.metric.scale;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class SyntheticProjectGeneratorTest {
+
+    @Test
+    void testGeneratorIsDeterministic() {
+        SyntheticProjectGenerator.Parameters parameters = SyntheticProjectGenerator.Parameters.of(500);
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator(parameters);
+        Map<String, String> first = generator.generate();
+
+        assertEquals(first, generator.generate());
+        assertEquals(first, new SyntheticProjectGenerator(parameters).generate());
+        assertNotEquals(first, new SyntheticProjectGenerator(parameters.withSeed(7L)).generate());
+        assertEquals(500, first.size());
+        assertEquals(500, generator.getJavaClassCount() + generator.getKotlinClassCount());
+    }
+}
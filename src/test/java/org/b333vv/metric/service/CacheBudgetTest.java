@@ -0,0 +1,98 @@
+package org.b333vv.metric.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheBudgetTest {
+    private final List<Integer> evictions = new ArrayList<>();
+    private final CacheBudget budget = new CacheBudget(100, evictions::add);
+    private final CacheBudget.Region<String> charts = budget.region(CacheBudget.Cost.UI, value -> 40);
+    private final CacheBudget.Region<String> models = budget.region(CacheBudget.Cost.MODEL, value -> 40);
+
+    @Test
+    public void testHitsAndMissesAreCounted() {
+        models.put("m1", "model");
+
+        assertEquals("model", models.get("m1"));
+        assertNull(models.get("m2"));
+        assertNull(charts.get("m1"));
+        CacheBudget.Statistics statistics = budget.statistics();
+        assertEquals(1, statistics.hits());
+        assertEquals(2, statistics.misses());
+        assertEquals(40, statistics.bytes());
+    }
+
+    @Test
+    public void testCheapEntriesAreEvictedFirst() {
+        models.put("m1", "model 1");
+        charts.put("m1", "chart 1");
+        charts.put("m2", "chart 2");
+
+        models.put("m2", "model 2");
+
+        assertNull(charts.get("m1"));
+        assertNull(charts.get("m2"));
+        assertEquals("model 1", models.get("m1"));
+        assertEquals("model 2", models.get("m2"));
+        assertEquals(List.of(1, 1), evictions);
+        assertEquals(80, budget.statistics().bytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        models.put("m1", "model 1");
+        models.put("m2", "model 2");
+        models.get("m1");
+
+        models.put("m3", "model 3");
+
+        assertEquals("model 1", models.get("m1"));
+        assertNull(models.get("m2"));
+        assertEquals("model 3", models.get("m3"));
+    }
+
+    @Test
+    public void testSharedValueIsChargedOnce() {
+        String model = "model";
+        models.put("m1", model);
+        charts.put("m1", model);
+
+        assertEquals(40, budget.statistics().bytes());
+        models.clear();
+        assertEquals(40, budget.statistics().bytes());
+        charts.put("m1", null);
+        assertEquals(0, budget.statistics().bytes());
+        assertEquals(0, budget.statistics().entries());
+    }
+
+    @Test
+    public void testLowMemoryDropsUiEntriesAndSoftensTheRest() {
+        models.put("m1", "model");
+        charts.put("m1", "chart");
+
+        assertEquals(1, budget.onLowMemory());
+
+        assertEquals(0, budget.statistics().bytes());
+        assertNull(charts.get("m1"));
+    }
+
+    @Test
+    public void testHitMakesSoftEntryStrongAgain() {
+        models.put("m1", "model 1");
+        models.put("m2", "model 2");
+        budget.onLowMemory();
+
+        assertEquals("model 1", models.get("m1"));
+        assertEquals(40, budget.statistics().bytes());
+
+        models.put("m3", "model 3");
+
+        assertEquals(80, budget.statistics().bytes());
+        assertEquals("model 1", models.get("m1"));
+        assertEquals("model 3", models.get("m3"));
+    }
+}
@@ -4,9 +4,11 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFileListener;
 import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.b333vv.metric.builder.ClassProfileMembership;
 import org.b333vv.metric.model.code.ClassElement;
 import org.b333vv.metric.model.code.CodeElement;
 import org.b333vv.metric.model.code.PackageElement;
+import org.b333vv.metric.model.code.ProjectElement;
 import org.b333vv.metric.ui.chart.builder.ProfileBoxChartBuilder;
 import org.b333vv.metric.ui.chart.builder.ProfileRadarChartBuilder;
 import org.b333vv.metric.ui.fitnessfunction.FitnessFunction;
@@ -166,4 +168,24 @@ public class CacheServiceTest extends BasePlatformTestCase {
         cacheService.invalidateUserData();
         assertNull(cacheService.getProjectTree(module1));
     }
+
+    public void testClassProfilesInvalidation() {
+        ProjectElement model = new ProjectElement("project");
+        ClassProfileMembership membership = ClassProfileMembership.from(Collections.emptyMap());
+        long version = cacheService.getClassProfilesVersion();
+
+        assertTrue(cacheService.putClassesByProfile(null, model, version, membership));
+        assertSame(membership, cacheService.getClassesByProfile(null, model));
+        assertNull(cacheService.getClassesByProfile(null, new ProjectElement("project")));
+        assertSame(membership.toMap(), cacheService.getClassLevelFitnessFunctions(null));
+
+        cacheService.putBoxCharts(null, Collections.emptyList());
+        cacheService.invalidateClassProfiles();
+
+        assertNull(cacheService.getClassesByProfile(null, model));
+        assertNull(cacheService.getClassLevelFitnessFunctions(null));
+        assertNull(cacheService.getBoxCharts(null));
+        assertFalse(cacheService.putClassesByProfile(null, model, version, membership));
+        assertNull(cacheService.getClassesByProfile(null, model));
+    }
 }
@@ -67,6 +67,7 @@ public class CalculationServiceTest {
                 when(mockProject.getService(CacheService.class)).thenReturn(mockCacheService);
                 when(mockProject.getService(TaskQueueService.class)).thenReturn(mockTaskQueueService);
                 when(mockProject.getService(SettingsService.class)).thenReturn(mockSettingsService);
+                when(mockProject.getService(ProfilingService.class)).thenReturn(new ProfilingService());
                 when(mockSettingsService.getCalculationEngine()).thenReturn(CalculationEngine.JAVAPARSER);
 
                 when(mockProject.getMessageBus()).thenReturn(mockMessageBus);
@@ -180,7 +181,7 @@ public class CalculationServiceTest {
                                                 ProjectMetricsSetCalculator.class);
                                 // calculate() returns void, so just verify interaction
                                 mockedProjectMetricsSetCalculator
-                                                .when(() -> new ProjectMetricsSetCalculator(any(), any(), any()))
+                                                .when(() -> new ProjectMetricsSetCalculator(any()))
                                                 .thenReturn(mockProjectMetricsSetCalculator);
 
                                 // Call a public method that triggers the dependency chain
@@ -0,0 +1,58 @@
+package org.b333vv.metric.service;
+
+import org.b333vv.metric.export.PerformanceReportExporter;
+import org.b333vv.metric.model.metric.MetricType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfilingServiceTest {
+    private final ProfilingService profilingService = new ProfilingService();
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled() {
+        assertNull(profilingService.start());
+        assertEquals("result", profilingService.stage("Stage", null, () -> {
+            profilingService.filesProcessed(3);
+            return "result";
+        }));
+        profilingService.visitorFinished(profilingService.start(), MetricType.WMC.visitor());
+
+        assertTrue(profilingService.isEmpty());
+    }
+
+    @Test
+    public void testStagesAndVisitorsAreRecorded() {
+        profilingService.setEnabled(true);
+        profilingService.stage("Outer", null, () -> {
+            profilingService.filesProcessed(2);
+            return profilingService.stage("Inner", null, () -> {
+                profilingService.filesProcessed(5);
+                return null;
+            });
+        });
+        profilingService.stage("Outer", null, () -> null);
+        profilingService.visitorFinished(profilingService.start(), MetricType.WMC.visitor());
+
+        List<ProfilingService.Row> stages = profilingService.getStages();
+        ProfilingService.Row outer = stages.stream().filter(row -> row.name().equals("Outer")).findFirst().orElseThrow();
+        ProfilingService.Row inner = stages.stream().filter(row -> row.name().equals("Inner")).findFirst().orElseThrow();
+        assertEquals(2, outer.calls());
+        assertEquals(2, outer.files());
+        assertEquals(5, inner.files());
+        assertTrue(outer.wallNanos() >= inner.wallNanos());
+        assertEquals("WMC", profilingService.getVisitors().get(0).name());
+
+        profilingService.reset();
+        assertTrue(profilingService.isEmpty());
+    }
+
+    @Test
+    public void testReportIsWrittenNextToExport() {
+        assertEquals("/tmp/metrics-performance.json", PerformanceReportExporter.reportFileName("/tmp/metrics.xml"));
+        assertEquals("/tmp/a.b/metrics-performance.json",
+                PerformanceReportExporter.reportFileName("/tmp/a.b/metrics"));
+    }
+}
@@ -13,13 +13,22 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeNode;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ProjectMetricTreeBuilderTest {
@@ -141,4 +150,95 @@ public class ProjectMetricTreeBuilderTest {
         assertTrue(foundB333vv);
         assertTrue(foundSub);
     }
+
+    @Test
+    public void testPackageChildrenAreBuiltOnDemand() {
+        // org (files) -> hidden (files)
+
+        PackageElement org = mock(PackageElement.class);
+        PackageElement hidden = mock(PackageElement.class);
+
+        when(org.getName()).thenReturn("org");
+        when(hidden.getName()).thenReturn("hidden");
+
+        when(org.subPackages()).thenAnswer(i -> Stream.of(hidden));
+        when(org.files()).thenAnswer(i -> Stream.of(mock(FileElement.class)));
+
+        when(hidden.subPackages()).thenAnswer(i -> Stream.empty());
+        when(hidden.files()).thenAnswer(i -> Stream.of(mock(FileElement.class)));
+
+        when(projectElement.packages()).thenAnswer(i -> Stream.of(org));
+
+        ProjectMetricTreeBuilder builder = new ProjectMetricTreeBuilder(projectElement, project);
+        DefaultTreeModel model = builder.createMetricTreeModel();
+        ProjectNode root = (ProjectNode) model.getRoot();
+        PackageNode orgNode = (PackageNode) root.getChildAt(0);
+
+        assertFalse(orgNode.isLeaf());
+        assertFalse(orgNode.isChildrenLoaded());
+        verify(hidden, never()).subPackages();
+
+        assertEquals(1, model.getChildCount(orgNode));
+        PackageNode hiddenNode = (PackageNode) orgNode.getChildAt(0);
+        assertEquals(hidden, hiddenNode.getJavaPackage());
+        assertFalse(hiddenNode.isChildrenLoaded());
+        verify(hidden, atLeastOnce()).subPackages();
+    }
+
+    @Test
+    public void testFilterIsAppliedToLoadedNodesInPlace() {
+        // org (files) -> hidden (files)
+
+        PackageElement org = mock(PackageElement.class);
+        PackageElement hidden = mock(PackageElement.class);
+
+        when(org.getName()).thenReturn("org");
+        when(hidden.getName()).thenReturn("hidden");
+
+        when(org.subPackages()).thenAnswer(i -> Stream.of(hidden));
+        when(org.files()).thenAnswer(i -> Stream.of(mock(FileElement.class)));
+
+        when(hidden.subPackages()).thenAnswer(i -> Stream.empty());
+        when(hidden.files()).thenAnswer(i -> Stream.of(mock(FileElement.class)));
+
+        when(projectElement.packages()).thenAnswer(i -> Stream.of(org));
+
+        ProjectMetricTreeBuilder builder = new ProjectMetricTreeBuilder(projectElement, project);
+        DefaultTreeModel model = builder.createMetricTreeModel();
+        ProjectNode root = (ProjectNode) model.getRoot();
+        PackageNode orgNode = (PackageNode) root.getChildAt(0);
+        PackageNode hiddenNode = (PackageNode) orgNode.getChildAt(0);
+        List<Object> changedNodes = new ArrayList<>();
+        model.addTreeModelListener(new TreeModelListener() {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+                changedNodes.add(e.getTreePath().getLastPathComponent());
+            }
+        });
+
+        assertSame(model, builder.applyFilter());
+
+        assertSame(orgNode, root.getChildAt(0));
+        assertSame(hiddenNode, orgNode.getChildAt(0));
+        assertFalse(hiddenNode.isChildrenLoaded());
+        assertTrue(changedNodes.isEmpty());
+
+        when(metricsTreeFilter.isPackageMetricsVisible()).thenReturn(false);
+        builder.applyFilter();
+
+        assertEquals(0, root.getChildCount());
+        assertEquals(List.of(root), changedNodes);
+    }
 }
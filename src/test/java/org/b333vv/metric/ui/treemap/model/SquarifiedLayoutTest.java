@@ -0,0 +1,73 @@
+package org.b333vv.metric.ui.treemap.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SquarifiedLayoutTest {
+
+    private GenericTreeModel<String> model;
+
+    @BeforeEach
+    void setUp() {
+        model = new GenericTreeModel<>();
+        model.add("root", 0, null);
+        model.add("big", 10_000, "root");
+        for (int i = 0; i < 1000; i++) {
+            model.add("small" + i, 1, "root");
+        }
+    }
+
+    private static List<Rectangle<String>> children(TreeModel<Rectangle<String>> rectangles) {
+        List<Rectangle<String>> all = ((RectangleModelImpl<String>) rectangles).toList();
+        return all.subList(1, all.size());
+    }
+
+    @Test
+    void testSmallCellsAreMerged() {
+        TreeModel<Rectangle<String>> rectangles = new SquarifiedLayout<String>(2, 4)
+                .layout(model, "root", 100, 100, new BuildControl());
+
+        List<Rectangle<String>> cells = children(rectangles);
+        assertEquals(2, cells.size());
+        assertEquals("big", cells.get(0).getNode());
+        assertEquals(1, cells.get(0).getAggregatedCount());
+        assertEquals(1000, cells.get(1).getAggregatedCount());
+        assertTrue(cells.get(1).getWidth() * cells.get(1).getHeight() > 0);
+    }
+
+    @Test
+    void testNoMergingWithoutMinimalCell() {
+        TreeModel<Rectangle<String>> rectangles = new SquarifiedLayout<String>(2)
+                .layout(model, "root", 1000, 1000, new BuildControl());
+
+        List<Rectangle<String>> cells = children(rectangles);
+        assertEquals(1001, cells.size());
+        assertTrue(cells.stream().allMatch(cell -> cell.getAggregatedCount() == 1));
+    }
+
+    @Test
+    void testRelayoutAfterResize() {
+        SquarifiedLayout<String> layout = new SquarifiedLayout<>(2, 4);
+        layout.layout(model, "root", 100, 100, new BuildControl());
+
+        List<Rectangle<String>> cells = children(layout.layout(model, "root", 1000, 1000, new BuildControl()));
+        int drawn = cells.stream().mapToInt(Rectangle::getAggregatedCount).sum();
+        assertEquals(1001, drawn);
+        assertTrue(cells.size() > 2);
+    }
+
+    @Test
+    void testCanceledLayoutIsEmpty() {
+        BuildControl control = new BuildControl();
+        control.cancel();
+
+        TreeModel<Rectangle<String>> rectangles = new SquarifiedLayout<String>(2, 4)
+                .layout(model, "root", 100, 100, control);
+
+        assertNull(rectangles.getRoot());
+    }
+}